@@ -17,6 +17,8 @@ ensure_writable_dir /app/data/user-mockups
 ensure_writable_dir /app/data/user-labels
 ensure_writable_dir /app/static-backup
 ensure_writable_dir /app/generated-images
+ensure_writable_dir /app/cache
+ensure_writable_dir /app/cache/export-jobs
 ensure_writable_dir /tmp/rembg
 
 JAVA_BIN="$(command -v java)"
@@ -325,6 +325,8 @@ export function useGenerationFlow({
         status: update.status,
         message: update.message || current.message,
         generationTimeMs: update.generationTimeMs || current.generationTimeMs,
+        queuePosition:
+          update.status === "queued" ? update.queuePosition : undefined,
       };
       if (update.status === "success") {
         updated.icons = update.icons || [];
@@ -865,7 +867,12 @@ export function useGenerationFlow({
         method: "POST",
         headers: { "Content-Type": "application/json" },
         credentials: "include",
-        body: JSON.stringify(formData),
+        // Icon results are rendered and re-exported from inline data, so ask for it explicitly
+        body: JSON.stringify(
+          endpoint === "/generate-stream"
+            ? { ...formData, inlineImageData: true }
+            : formData,
+        ),
       });
       if (!response.ok) {
         const responseText = await response.text();
@@ -1121,6 +1128,7 @@ export function useGenerationFlow({
         iconCount: 9,
         seed: serviceResults.seed,
         generationIndex,
+        inlineImageData: true,
       };
 
       try {
@@ -559,6 +559,11 @@ const ResultsDisplay: React.FC<ResultsDisplayProps> = ({
                   <div className="mr-2 h-4 w-4 animate-spin rounded-full border-b-2 border-gray-900" />
                 )}
                 {result.status}
+                {result.status === "queued" && result.queuePosition && (
+                  <span className="text-sm text-gray-500 ml-2">
+                    (#{result.queuePosition} in line)
+                  </span>
+                )}
                 {result.generationTimeMs > 0 && (
                   <span
                     className="text-sm text-gray-500 ml-2"
@@ -1,6 +1,7 @@
 export interface Icon {
   id?: string;
   base64Data: string;
+  imageUrl?: string;
   description?: string;
   gridPosition?: number;
   serviceSource?: string;
@@ -24,6 +25,7 @@ export interface ServiceResult {
   message: string;
   generationIndex: number;
   seed?: string;
+  queuePosition?: number;
 }
 
 export interface StreamingResults {
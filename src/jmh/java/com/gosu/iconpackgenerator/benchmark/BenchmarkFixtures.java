@@ -0,0 +1,41 @@
+package com.gosu.iconpackgenerator.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Loads the real grids and icons from {@code src/test/resources} for the benchmarks. The Gradle jmh task
+ * passes the directory as {@code -Dbenchmark.resources}; running from the project root works without it.
+ */
+final class BenchmarkFixtures {
+
+    private static final Path RESOURCES = Paths.get(System.getProperty("benchmark.resources", "src/test/resources"));
+
+    private BenchmarkFixtures() {
+    }
+
+    static byte[] bytes(String relativePath) {
+        try {
+            return Files.readAllBytes(RESOURCES.resolve(relativePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark fixture " + relativePath, e);
+        }
+    }
+
+    static BufferedImage image(String relativePath) {
+        try {
+            BufferedImage image = ImageIO.read(RESOURCES.resolve(relativePath).toFile());
+            if (image == null) {
+                throw new IllegalStateException("No ImageIO reader for benchmark fixture " + relativePath);
+            }
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark fixture " + relativePath, e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gosu.iconpackgenerator.benchmark;
+
+import com.gosu.iconpackgenerator.domain.icons.service.BackgroundRemovalService;
+import com.gosu.iconpackgenerator.domain.icons.service.GridBoundaryDetectionService;
+import com.gosu.iconpackgenerator.domain.icons.service.IconArtifactCleanupService;
+import com.gosu.iconpackgenerator.domain.icons.service.IconCenteringService;
+import com.gosu.iconpackgenerator.domain.icons.service.ImageProcessingService;
+import com.gosu.iconpackgenerator.singal.SignalMessageService;
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Full 3x3 grid cropping and grid boundary detection on real generated grids.
+ */
+@State(Scope.Benchmark)
+public class GridProcessingBenchmark {
+
+    @Param({
+            "icons/gpt-2-background-removed.png",
+            "images/wrong-cut-2.png",
+            "images/white_division_black_background.png",
+            "images/wrong_cut_new.png"
+    })
+    public String grid;
+
+    private byte[] gridBytes;
+    private BufferedImage gridImage;
+    private ExecutorService executor;
+    private ImageProcessingService imageProcessingService;
+    private GridBoundaryDetectionService gridBoundaryDetectionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gridBytes = BenchmarkFixtures.bytes(grid);
+        gridImage = BenchmarkFixtures.image(grid);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        gridBoundaryDetectionService = new GridBoundaryDetectionService();
+        imageProcessingService = new ImageProcessingService(
+                new SignalMessageService(),
+                new BackgroundRemovalService(new SimpleMeterRegistry(), new PngEncodingService()),
+                new IconCenteringService(),
+                gridBoundaryDetectionService,
+                new IconArtifactCleanupService(),
+                new PngEncodingService(),
+                new ImageProcessingMetrics(new SimpleMeterRegistry()),
+                executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<String> cropIconsFromGrid() {
+        return imageProcessingService.cropIconsFromGrid(
+                gridBytes, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true);
+    }
+
+    @Benchmark
+    public GridBoundaryDetectionService.GridBounds detectGridBounds() {
+        return gridBoundaryDetectionService.detectGridBounds(gridImage);
+    }
+}
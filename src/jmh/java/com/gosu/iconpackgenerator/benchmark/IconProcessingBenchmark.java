@@ -0,0 +1,61 @@
+package com.gosu.iconpackgenerator.benchmark;
+
+import com.gosu.iconpackgenerator.domain.icons.service.IconArtifactCleanupService;
+import com.gosu.iconpackgenerator.domain.icons.service.IconCenteringService;
+import com.gosu.iconpackgenerator.domain.icons.service.ImageProcessingService;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
+import com.gosu.iconpackgenerator.util.WatermarkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.Base64;
+
+/**
+ * Per-icon steps of the pipeline (artifact cleanup, centering) and the trial watermark on single
+ * generated icons.
+ */
+@State(Scope.Benchmark)
+public class IconProcessingBenchmark {
+
+    @Param({
+            "icons/gpt_000cee81_1.png",
+            "icons/gpt_55f3fea6_0.png",
+            "icons/gpt_c8057ef4_1.png"
+    })
+    public String icon;
+
+    private BufferedImage iconImage;
+    private String iconBase64;
+    private IconCenteringService iconCenteringService;
+    private IconArtifactCleanupService iconArtifactCleanupService;
+    private WatermarkService watermarkService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        iconImage = BenchmarkFixtures.image(icon);
+        iconBase64 = Base64.getEncoder().encodeToString(BenchmarkFixtures.bytes(icon));
+        iconCenteringService = new IconCenteringService();
+        iconArtifactCleanupService = new IconArtifactCleanupService();
+        watermarkService = new WatermarkService(new PngEncodingService());
+    }
+
+    @Benchmark
+    public BufferedImage centerIcon() {
+        return iconCenteringService.centerIcon(iconImage, ImageProcessingService.ICON_TARGET_SIZE);
+    }
+
+    @Benchmark
+    public BufferedImage cleanupIconArtifacts() {
+        return iconArtifactCleanupService.cleanupIconArtifacts(iconImage, 0, 0);
+    }
+
+    @Benchmark
+    public String applyTrialWatermark() {
+        return watermarkService.applyTrialWatermark(iconBase64);
+    }
+}
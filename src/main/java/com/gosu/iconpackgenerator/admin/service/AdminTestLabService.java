@@ -113,25 +113,27 @@ public class AdminTestLabService {
                 .exceptionally(error -> createErrorResult(modelId, modelLabel, error, System.currentTimeMillis() - startTime));
     }
 
+    // Test lab runs are not made on behalf of a user, so they are never hedged
+
     private CompletableFuture<byte[]> generateWithGpt1(String prompt, byte[] referenceImageData, Long seed) {
         if (referenceImageData != null) {
-            return gptModelService.generateImageToImage(prompt, referenceImageData, seed);
+            return gptModelService.generateImageToImage(prompt, referenceImageData, seed, null);
         }
-        return gptModelService.generateImage(prompt, seed);
+        return gptModelService.generateImage(prompt, seed, null);
     }
 
     private CompletableFuture<byte[]> generateWithGpt15(String prompt, byte[] referenceImageData, Long seed) {
         if (referenceImageData != null) {
-            return gpt15ModelService.generateImageToImage(prompt, referenceImageData, seed);
+            return gpt15ModelService.generateImageToImage(prompt, referenceImageData, seed, null);
         }
-        return gpt15ModelService.generateImage(prompt, seed);
+        return gpt15ModelService.generateImage(prompt, seed, null);
     }
 
     private CompletableFuture<byte[]> generateWithGpt2(String prompt, byte[] referenceImageData, Long seed) {
         if (referenceImageData != null) {
-            return gpt2ModelService.generateImageToImage(prompt, referenceImageData, seed);
+            return gpt2ModelService.generateImageToImage(prompt, referenceImageData, seed, null);
         }
-        return gpt2ModelService.generateImage(prompt, seed);
+        return gpt2ModelService.generateImage(prompt, seed, null);
     }
 
     private AdminTestLabIconResponse.ModelResult createSuccessResult(
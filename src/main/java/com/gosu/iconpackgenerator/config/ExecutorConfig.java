@@ -0,0 +1,172 @@
+package com.gosu.iconpackgenerator.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application-wide executors shared by services instead of creating a thread pool per call:
+ * <ul>
+ *     <li>{@code imageProcessingExecutor} - CPU-bound image work, sized to the cores</li>
+ *     <li>{@code remoteIoExecutor} - blocking calls to remote AI services (upscale, vectorize, background removal)</li>
+ *     <li>{@code schedulingExecutor} - periodic work such as SSE heartbeats; also runs {@code @Scheduled} jobs</li>
+ *     <li>{@code exportJobExecutor} - background export jobs, each writing one archive to disk</li>
+ *     <li>{@code aiModelExecutor} - one virtual thread per AI model call (OpenAI, fal.ai)</li>
+ * </ul>
+ * Each pool publishes Micrometer {@code executor.*} metrics tagged with its name.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.executors")
+@Data
+@Slf4j
+public class ExecutorConfig {
+
+    private PoolSettings cpu = new PoolSettings(Runtime.getRuntime().availableProcessors(), 256);
+    private PoolSettings io = new PoolSettings(32, 512);
+    private PoolSettings scheduler = new PoolSettings(4, 0);
+    // A full export queue must fail the submission; running the job on the request thread defeats the purpose
+    private PoolSettings export = new PoolSettings(4, 64, RejectionPolicy.ABORT);
+
+    public enum RejectionPolicy {
+        /** Run the task on the submitting thread, throttling the producer */
+        CALLER_RUNS,
+        /** Fail the submission with a RejectedExecutionException */
+        ABORT;
+
+        RejectedExecutionHandler handler() {
+            return this == ABORT ? new ThreadPoolExecutor.AbortPolicy() : new ThreadPoolExecutor.CallerRunsPolicy();
+        }
+    }
+
+    @Data
+    public static class PoolSettings {
+        private int threads;
+        private int queueCapacity;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+        public PoolSettings() {
+        }
+
+        public PoolSettings(int threads, int queueCapacity) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public PoolSettings(int threads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+            this(threads, queueCapacity);
+            this.rejectionPolicy = rejectionPolicy;
+        }
+    }
+
+    /**
+     * Bounded pool for CPU-bound image work (cropping, cleanup, centering, encoding).
+     * With the default policy a full queue makes the submitting thread run the task itself, which throttles
+     * producers instead of failing the request.
+     */
+    @Bean(name = "imageProcessingExecutor", destroyMethod = "shutdown")
+    public ExecutorService imageProcessingExecutor(MeterRegistry meterRegistry) {
+        return boundedPool("image-cpu", cpu, meterRegistry);
+    }
+
+    /**
+     * Bounded pool for blocking remote I/O. Threads mostly wait on the network, so it is larger than the CPU
+     * pool, but still capped so concurrent exports cannot create threads without limit.
+     */
+    @Bean(name = "remoteIoExecutor", destroyMethod = "shutdown")
+    public ExecutorService remoteIoExecutor(MeterRegistry meterRegistry) {
+        return boundedPool("remote-io", io, meterRegistry);
+    }
+
+    /**
+     * Pool for export jobs. A job mostly waits on the CPU and remote I/O pools, so this only caps how many
+     * archives are assembled at once; it is kept separate so jobs never wait on the pools they submit to.
+     */
+    @Bean(name = "exportJobExecutor", destroyMethod = "shutdown")
+    public ExecutorService exportJobExecutor(MeterRegistry meterRegistry) {
+        return boundedPool("export-job", export, meterRegistry);
+    }
+
+    /**
+     * Virtual thread per AI model call. Generation, upscale and video calls wait seconds to minutes on HTTP or a
+     * fal.ai subscription, so they must not occupy {@code ForkJoinPool.commonPool()} or the bounded pools.
+     * Besides the {@code executor} timers it publishes an {@code executor.active} gauge of calls in flight.
+     */
+    @Bean(name = "aiModelExecutor", destroyMethod = "shutdown")
+    public ExecutorService aiModelExecutor(MeterRegistry meterRegistry) {
+        log.info("Creating ai-model executor with one virtual thread per call");
+        AtomicInteger active = new AtomicInteger();
+        ThreadFactory virtualThreads = Thread.ofVirtual().name("ai-model-", 1).factory();
+        ThreadFactory countingThreads = task -> virtualThreads.newThread(() -> {
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        Gauge.builder("executor.active", active, AtomicInteger::get)
+                .description("AI model calls in flight")
+                .tag("name", "ai-model")
+                .register(meterRegistry);
+        return ExecutorServiceMetrics.monitor(meterRegistry, Executors.newThreadPerTaskExecutor(countingThreads), "ai-model");
+    }
+
+    /**
+     * Shared scheduler for short periodic tasks. Being the only {@link ScheduledExecutorService} bean, it is
+     * also picked up by Spring for {@code @Scheduled} methods.
+     */
+    @Bean(name = "schedulingExecutor", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService schedulingExecutor(MeterRegistry meterRegistry) {
+        int threads = Math.max(1, scheduler.getThreads());
+        log.info("Creating scheduling executor with {} threads", threads);
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, namedThreadFactory("scheduler-"));
+        // Cancelled heartbeats are dropped from the queue right away instead of at their next run time
+        executor.setRemoveOnCancelPolicy(true);
+        new ExecutorServiceMetrics(executor, "scheduler", Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private ThreadPoolExecutor boundedPool(String name, PoolSettings settings, MeterRegistry meterRegistry) {
+        int threads = Math.max(1, settings.getThreads());
+        int queueCapacity = Math.max(1, settings.getQueueCapacity());
+        log.info("Creating {} executor with {} threads, queue capacity {} and {} rejection policy",
+                name, threads, queueCapacity, settings.getRejectionPolicy());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                namedThreadFactory(name + "-"),
+                settings.getRejectionPolicy().handler());
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.gosu.iconpackgenerator.config;
+
+import com.gosu.iconpackgenerator.domain.ai.ProviderBulkheads;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Concurrency limits per AI provider. Each provider starts at {@code initial-limit} concurrent calls and the
+ * limit then moves between {@code min-limit} and {@code max-limit}: it grows slowly while calls succeed at their
+ * usual latency and is cut by {@code backoff-ratio} on 429s, 5xx responses, timeouts or calls slower than
+ * {@code latency-tolerance} times the usual latency. Calls over the limit wait in a queue of at most
+ * {@code max-queue} entries for up to {@code max-wait-ms}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.bulkheads")
+@Data
+public class ProviderBulkheadConfig {
+
+    private boolean enabled = true;
+    private Settings openai = new Settings();
+    private Settings fal = new Settings();
+
+    @Data
+    public static class Settings {
+        private int initialLimit = 8;
+        private int minLimit = 2;
+        private int maxLimit = 32;
+        private int maxQueue = 64;
+        private long maxWaitMs = 120000;
+        private double backoffRatio = 0.7;
+        private double latencyTolerance = 2.0;
+    }
+
+    @Bean
+    public ProviderBulkheads providerBulkheads(MeterRegistry meterRegistry) {
+        return new ProviderBulkheads(this, meterRegistry);
+    }
+}
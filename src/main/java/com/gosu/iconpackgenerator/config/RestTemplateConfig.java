@@ -1,11 +1,16 @@
 package com.gosu.iconpackgenerator.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
 @Configuration
 public class RestTemplateConfig {
 
@@ -16,17 +21,31 @@ public class RestTemplateConfig {
     }
     
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(ClientHttpRequestFactory clientHttpRequestFactory) {
         RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setRequestFactory(clientHttpRequestFactory());
+        restTemplate.setRequestFactory(clientHttpRequestFactory);
         return restTemplate;
     }
     
     @Bean
-    public ClientHttpRequestFactory clientHttpRequestFactory() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(openAIConfig.getConnectTimeoutMs());
+    public ClientHttpRequestFactory clientHttpRequestFactory(@Qualifier("openAIHttpClient") HttpClient openAIHttpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(openAIHttpClient);
         factory.setReadTimeout(openAIConfig.getReadTimeoutMs());
         return factory;
     }
+    
+    /**
+     * Shared JDK client for OpenAI calls. It negotiates HTTP/2, so concurrent requests multiplex over pooled
+     * keep-alive connections, and {@code sendAsync} completes without holding a thread while the image renders.
+     * Responses are handled on {@code aiModelExecutor}, like every other AI model call.
+     */
+    @Bean
+    public HttpClient openAIHttpClient(@Qualifier("aiModelExecutor") ExecutorService aiModelExecutor) {
+        return HttpClient.newBuilder()
+                .executor(aiModelExecutor)
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(openAIConfig.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
 }
@@ -0,0 +1,54 @@
+package com.gosu.iconpackgenerator.config;
+
+import com.gosu.iconpackgenerator.domain.ai.ProviderBulkheads;
+import com.gosu.iconpackgenerator.domain.ai.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Retries and hedged requests for image generation calls. A temporary failure is retried after an exponential
+ * backoff with jitter, for at most {@code max-attempts} requests and never past {@code deadline-ms}. A request
+ * still running after the provider's observed p95 latency gets one hedged copy, limited by the per-provider and
+ * per-user hedge budgets.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ai.retry")
+@Data
+public class RetryPolicyConfig {
+
+    private int maxAttempts = 3;
+    private long initialBackoffMs = 1000;
+    private long maxBackoffMs = 10000;
+    private long deadlineMs = 300000;
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class Hedge {
+        private boolean enabled = true;
+        // Never hedge sooner than this, whatever the observed p95
+        private long minDelayMs = 15000;
+        // Successful calls observed per provider before hedging starts
+        private int minSamples = 20;
+        private int latencyWindow = 200;
+        // Hedges earned per call to the provider, and the most that can be saved up
+        private double budgetRatio = 0.1;
+        private double maxBudget = 5;
+        // Hedges one user may have running at once
+        private int maxPerUser = 1;
+    }
+
+    @Bean
+    public RetryPolicy retryPolicy(ProviderBulkheads providerBulkheads,
+                                   @Qualifier("schedulingExecutor") ScheduledExecutorService schedulingExecutor,
+                                   @Qualifier("aiModelExecutor") ExecutorService aiModelExecutor,
+                                   MeterRegistry meterRegistry) {
+        return new RetryPolicy(this, providerBulkheads, schedulingExecutor, aiModelExecutor, meterRegistry);
+    }
+}
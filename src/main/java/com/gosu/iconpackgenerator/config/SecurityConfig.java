@@ -91,6 +91,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/admin/**").authenticated()
                 .requestMatchers("/generate-stream", "/stream/**", "/generate-more").authenticated()
                 .requestMatchers("/export", "/export-gallery", "/export-gallery-illustrations").authenticated()
+                .requestMatchers("/api/export-jobs/**").authenticated()
                 // All other requests (including home page) - public
                 .anyRequest().permitAll()
             )
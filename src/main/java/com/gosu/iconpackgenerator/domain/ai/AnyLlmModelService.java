@@ -10,11 +10,13 @@ import com.google.gson.JsonObject;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Service for interacting with fal.ai's any-llm model for text generation.
@@ -26,7 +28,10 @@ import java.util.concurrent.CompletableFuture;
 public class AnyLlmModelService {
 
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
     
     private static final String ANY_LLM_ENDPOINT = "fal-ai/any-llm";
     private static final String DEFAULT_MODEL = "openai/gpt-4.1";
@@ -132,7 +137,7 @@ public class AnyLlmModelService {
                 log.info("Making any-llm API call with input keys: {}", input.keySet());
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(ANY_LLM_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(ANY_LLM_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -144,7 +149,7 @@ public class AnyLlmModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from any-llm API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -164,7 +169,7 @@ public class AnyLlmModelService {
                 log.error("Error calling any-llm API", e);
                 throw new FalAiException("Failed to generate completion with any-llm. Please try again or use a different prompt.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private CompletableFuture<Map<String, String>> generateLlmCompletionWithReasoningAsync(String prompt, String systemPrompt, 
@@ -177,7 +182,7 @@ public class AnyLlmModelService {
                 log.info("Making any-llm API call with reasoning enabled");
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(ANY_LLM_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(ANY_LLM_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -189,7 +194,7 @@ public class AnyLlmModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from any-llm API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -209,7 +214,7 @@ public class AnyLlmModelService {
                 log.error("Error calling any-llm API", e);
                 throw new FalAiException("Failed to generate completion with reasoning. Please try again or use a different prompt.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private Map<String, Object> createLlmInputMap(String prompt, String systemPrompt, String model, 
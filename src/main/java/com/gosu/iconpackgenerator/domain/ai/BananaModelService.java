@@ -10,6 +10,7 @@ import com.google.gson.JsonObject;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -22,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -41,7 +43,10 @@ public class BananaModelService implements AIModelService {
             "\n" +
             "The final image should show four clean illustrations in a 2×2 grid, with pure white separation, no shadows, no text, and no non-white background anywhere.";
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
     
     private static final String BANANA_TEXT_TO_IMAGE_ENDPOINT = "fal-ai/nano-banana";
     private static final String BANANA_IMAGE_TO_IMAGE_ENDPOINT = "fal-ai/nano-banana/edit";
@@ -109,7 +114,7 @@ public class BananaModelService implements AIModelService {
                 log.info("Making Banana API call with input keys: {}", input.keySet());
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(BANANA_TEXT_TO_IMAGE_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(BANANA_TEXT_TO_IMAGE_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -121,7 +126,7 @@ public class BananaModelService implements AIModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from Banana API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -141,7 +146,7 @@ public class BananaModelService implements AIModelService {
                 log.error("Error calling Banana API", e);
                 throw new FalAiException("Failed to generate image with Nano Banana. Please try again or use a different prompt.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private Map<String, Object> createBananaTextToImageInputMap(String prompt) {
@@ -226,7 +231,7 @@ public class BananaModelService implements AIModelService {
                 log.info("Making Banana image-to-image API call with input keys: {} and prompt: {}", input.keySet(), prompt);
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(BANANA_IMAGE_TO_IMAGE_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(BANANA_IMAGE_TO_IMAGE_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -238,7 +243,7 @@ public class BananaModelService implements AIModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from Banana image-to-image API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -258,7 +263,7 @@ public class BananaModelService implements AIModelService {
                 log.error("Error calling Banana image-to-image API", e);
                 throw new FalAiException("Failed to generate image with Nano Banana. The reference image may be invalid. Please try a different image.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private Map<String, Object> createBananaImageToImageInputMap(String prompt, String imageDataUri) {
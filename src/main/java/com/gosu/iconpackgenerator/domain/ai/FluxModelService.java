@@ -11,6 +11,7 @@ import com.gosu.iconpackgenerator.domain.icons.model.AIModelConfig;
 import com.gosu.iconpackgenerator.util.ErrorMessageSanitizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -22,6 +23,7 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -31,7 +33,10 @@ public class FluxModelService implements AIModelService {
     private final AIModelConfig config;
     private final ObjectMapper objectMapper;
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ErrorMessageSanitizer errorMessageSanitizer;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
 
     @Override
     public CompletableFuture<byte[]> generateImage(String prompt) {
@@ -67,13 +72,13 @@ public class FluxModelService implements AIModelService {
                         config.getModelEndpoint(), input.keySet(), seed);
 
                 // Using the fal.ai client API with SubscribeOptions as per documentation
-                Output<JsonObject> output = falClient.subscribe(config.getModelEndpoint(),
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(config.getModelEndpoint(),
                         SubscribeOptions.<JsonObject>builder()
                                 .input(input)
                                 .logs(true)
                                 .resultType(JsonObject.class)
                                 .build()
-                );
+                ));
                 log.debug("Received output from fal.ai API: {}", output);
 
                 // Extract the actual result from the Output wrapper
@@ -91,7 +96,7 @@ public class FluxModelService implements AIModelService {
                 String sanitizedError = errorMessageSanitizer.sanitizeErrorMessage(detailedError, "Flux");
                 throw new FalAiException(sanitizedError, e);
             }
-        });
+        }, aiModelExecutor);
     }
 
 
@@ -192,13 +197,13 @@ public class FluxModelService implements AIModelService {
 
             log.info("Making fal.ai API call to custom endpoint: {} with input keys: {}", endpoint, input.keySet());
 
-            Output<JsonObject> output = falClient.subscribe(endpoint,
+            Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(endpoint,
                     SubscribeOptions.<JsonObject>builder()
                             .input(input)
                             .logs(true)
                             .resultType(JsonObject.class)
                             .build()
-            );
+            ));
             log.debug("Received output from fal.ai custom endpoint API: {}", output);
 
             JsonObject result = output.getData();
@@ -255,13 +260,13 @@ public class FluxModelService implements AIModelService {
                 log.info("Making fal.ai image-to-image API call to endpoint: {} with input keys: {} (seed: {})",
                         "fal-ai/flux-lora/image-to-image", input.keySet(), seed);
 
-                Output<JsonObject> output = falClient.subscribe("fal-ai/flux-lora/image-to-image",
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe("fal-ai/flux-lora/image-to-image",
                         SubscribeOptions.<JsonObject>builder()
                                 .input(input)
                                 .logs(true)
                                 .resultType(JsonObject.class)
                                 .build()
-                );
+                ));
                 log.debug("Received output from fal.ai image-to-image API: {}", output);
 
                 JsonObject result = output.getData();
@@ -276,7 +281,7 @@ public class FluxModelService implements AIModelService {
                 String sanitizedError = errorMessageSanitizer.sanitizeErrorMessage(e.getMessage(), "Flux");
                 throw new FalAiException(sanitizedError, e);
             }
-        });
+        }, aiModelExecutor);
     }
 
 
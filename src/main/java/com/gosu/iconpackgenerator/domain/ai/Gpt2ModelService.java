@@ -1,30 +1,18 @@
 package com.gosu.iconpackgenerator.domain.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.gosu.iconpackgenerator.config.OpenAIConfig;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import com.gosu.iconpackgenerator.util.ErrorMessageSanitizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URL;
-import java.util.Base64;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -44,109 +32,89 @@ public class Gpt2ModelService implements AIModelService {
 
     private final OpenAIConfig openAIConfig;
     private final ErrorMessageSanitizer errorMessageSanitizer;
-    private final RestTemplate restTemplate;
+    private final OpenAIImageClient openAIImageClient;
+    private final RetryPolicy retryPolicy;
     private final IdeoGramRemoveBackGroundService ideoGramRemoveBackGroundService;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
 
     @Override
     public CompletableFuture<byte[]> generateImage(String prompt) {
-        return generateImage(prompt, null);
+        return generateImage(prompt, null, null);
     }
 
-    public CompletableFuture<byte[]> generateImage(String prompt, Long seed) {
+    /**
+     * @param userKey the user charged for hedged requests; null disables hedging
+     */
+    public CompletableFuture<byte[]> generateImage(String prompt, Long seed, String userKey) {
         log.info("Generating GPT-2 image for prompt: {} (seed: {})", prompt, seed);
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                validateOpenAIConfiguration();
-
-                HttpHeaders headers = buildJsonHeaders();
-                Map<String, Object> input = createTextToImageInputMap(prompt);
-                HttpEntity<Map<String, Object>> entity = new HttpEntity<>(input, headers);
-
-                log.info("Calling OpenAI GPT Image 2 text-to-image with input keys {} (seed: {})", input.keySet(), seed);
-
-                ResponseEntity<JsonNode> response = restTemplate.exchange(
-                        IMAGES_GENERATIONS_URL,
-                        HttpMethod.POST,
-                        entity,
-                        JsonNode.class
-                );
-
-                JsonNode responseBody = response.getBody();
-                if (responseBody == null) {
-                    throw new FalAiException("Empty response from OpenAI API");
-                }
-
-                byte[] generatedImage = extractImageFromOpenAIResponse(responseBody);
-                return removeBackground(generatedImage);
-            } catch (Exception e) {
-                log.error("Error calling GPT Image 2 text-to-image API", e);
-                String sanitized = errorMessageSanitizer.sanitizeErrorMessage(e.getMessage(), "GPT2");
-                throw new FalAiException(sanitized, e);
-            }
-        });
+        CompletableFuture<OpenAIImageClient.ImageResponse> response;
+        try {
+            validateOpenAIConfiguration();
+
+            Map<String, Object> input = createTextToImageInputMap(prompt);
+
+            log.info("Calling OpenAI GPT Image 2 text-to-image with input keys {} (seed: {})", input.keySet(), seed);
+
+            response = retryPolicy.execute(ProviderBulkheads.OPENAI, userKey,
+                    () -> openAIImageClient.postJson(IMAGES_GENERATIONS_URL, input),
+                    this::isRetriable);
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return completeGeneration(response, "text-to-image");
     }
 
     public CompletableFuture<byte[]> generateImageToImage(String prompt, byte[] sourceImageData) {
-        return generateImageToImage(prompt, sourceImageData, null);
+        return generateImageToImage(prompt, sourceImageData, null, null);
     }
 
-    public CompletableFuture<byte[]> generateImageToImage(String prompt, byte[] sourceImageData, Long seed) {
+    /**
+     * @param userKey the user charged for hedged requests; null disables hedging
+     */
+    public CompletableFuture<byte[]> generateImageToImage(String prompt, byte[] sourceImageData, Long seed,
+                                                          String userKey) {
         log.info("Generating GPT-2 image-to-image for prompt: {} (seed: {})", prompt, seed);
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                validateOpenAIConfiguration();
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-                headers.setBearerAuth(openAIConfig.getApiKey());
-
-                MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-
-                HttpHeaders imageHeaders = new HttpHeaders();
-                imageHeaders.setContentType(MediaType.IMAGE_PNG);
-                imageHeaders.setContentDispositionFormData("image", "image.png");
-                HttpEntity<byte[]> imageEntity = new HttpEntity<>(sourceImageData, imageHeaders);
-
-                body.add("image", imageEntity);
-                body.add("model", OPENAI_MODEL);
-                body.add("prompt", addBackgroundContrastInstruction(prompt));
-                body.add("size", IMAGE_SIZE);
-                body.add("quality", IMAGE_QUALITY);
-                body.add("output_format", OUTPUT_FORMAT);
-                body.add("n", 1);
-                HttpEntity<MultiValueMap<String, Object>> entity = new HttpEntity<>(body, headers);
-
-                log.info("Calling OpenAI GPT Image 2 image-to-image with seed: {}", seed);
-
-                ResponseEntity<JsonNode> response = restTemplate.exchange(
-                        IMAGES_EDITS_URL,
-                        HttpMethod.POST,
-                        entity,
-                        JsonNode.class
-                );
-
-                JsonNode responseBody = response.getBody();
-                if (responseBody == null) {
-                    throw new FalAiException("Empty response from OpenAI API");
-                }
-
-                byte[] generatedImage = extractImageFromOpenAIResponse(responseBody);
-                return removeBackground(generatedImage);
-            } catch (Exception e) {
-                log.error("Error calling GPT Image 2 image-to-image API", e);
-                String sanitized = errorMessageSanitizer.sanitizeErrorMessage(e.getMessage(), "GPT2");
-                throw new FalAiException(sanitized, e);
-            }
-        });
+        CompletableFuture<OpenAIImageClient.ImageResponse> response;
+        try {
+            validateOpenAIConfiguration();
+
+            OpenAIImageClient.MultipartForm body = new OpenAIImageClient.MultipartForm()
+                    .file("image", "image.png", MediaType.IMAGE_PNG_VALUE, sourceImageData)
+                    .field("model", OPENAI_MODEL)
+                    .field("prompt", addBackgroundContrastInstruction(prompt))
+                    .field("size", IMAGE_SIZE)
+                    .field("quality", IMAGE_QUALITY)
+                    .field("output_format", OUTPUT_FORMAT)
+                    .field("n", 1);
+
+            log.info("Calling OpenAI GPT Image 2 image-to-image with seed: {}", seed);
+
+            response = retryPolicy.execute(ProviderBulkheads.OPENAI, userKey,
+                    () -> openAIImageClient.postMultipart(IMAGES_EDITS_URL, body),
+                    this::isRetriable);
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return completeGeneration(response, "image-to-image");
     }
 
-    private HttpHeaders buildJsonHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(openAIConfig.getApiKey());
-        return headers;
+    /**
+     * Extract the image once the response arrives; the blocking Ideogram background removal runs on its own
+     * AI model call thread rather than on the thread that completed the response.
+     */
+    private CompletableFuture<byte[]> completeGeneration(CompletableFuture<OpenAIImageClient.ImageResponse> response, String mode) {
+        return response
+                .thenCompose(this::extractImageFromOpenAIResponse)
+                .thenApplyAsync(this::removeBackground, aiModelExecutor)
+                .exceptionally(error -> {
+                    Throwable cause = OpenAIImageClient.unwrap(error);
+                    log.error("Error calling GPT Image 2 {} API", mode, cause);
+                    String sanitized = errorMessageSanitizer.sanitizeErrorMessage(cause.getMessage(), "GPT2");
+                    throw new FalAiException(sanitized, cause);
+                });
     }
 
     private Map<String, Object> createTextToImageInputMap(String prompt) {
@@ -164,31 +132,13 @@ public class Gpt2ModelService implements AIModelService {
         return prompt + BACKGROUND_CONTRAST_PROMPT;
     }
 
-    private byte[] extractImageFromOpenAIResponse(JsonNode response) {
-        try {
-            JsonNode dataNode = response.path("data");
-            if (dataNode.isArray() && !dataNode.isEmpty()) {
-                JsonNode firstImage = dataNode.get(0);
-
-                String base64Data = firstImage.path("b64_json").asText();
-                if (!base64Data.isEmpty()) {
-                    log.debug("Found base64 data in OpenAI response");
-                    return Base64.getDecoder().decode(base64Data);
-                }
-
-                String imageUrl = firstImage.path("url").asText();
-                if (!imageUrl.isEmpty()) {
-                    log.info("Downloading image from OpenAI URL: {}", imageUrl);
-                    return downloadImageFromUrl(imageUrl);
-                }
-            }
-
-            log.error("Could not extract image data from OpenAI response: {}", response);
-            throw new FalAiException("Invalid response format from OpenAI API - no image data found");
-        } catch (Exception e) {
-            log.error("Error extracting image from OpenAI response", e);
-            throw new FalAiException("Failed to extract image from OpenAI API response: " + e.getMessage(), e);
+    private CompletableFuture<byte[]> extractImageFromOpenAIResponse(OpenAIImageClient.ImageResponse response) {
+        if (response.imageData() != null) {
+            log.debug("Found base64 data in OpenAI response");
+            return CompletableFuture.completedFuture(response.imageData());
         }
+        log.info("Downloading image from OpenAI URL: {}", response.imageUrl());
+        return downloadImageFromUrl(response.imageUrl());
     }
 
     private byte[] removeBackground(byte[] imageData) {
@@ -196,22 +146,13 @@ public class Gpt2ModelService implements AIModelService {
         return ideoGramRemoveBackGroundService.removeBackground(imageData);
     }
 
-    private byte[] downloadImageFromUrl(String imageUrl) {
-        try {
-            URL url = URI.create(imageUrl).toURL();
-            try (InputStream inputStream = url.openStream();
-                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-                return outputStream.toByteArray();
-            }
-        } catch (IOException e) {
-            log.error("Failed to download GPT Image 2 image from URL: {}", imageUrl, e);
-            throw new FalAiException("Failed to download GPT Image 2 image from URL: " + imageUrl, e);
-        }
+    private CompletableFuture<byte[]> downloadImageFromUrl(String imageUrl) {
+        return openAIImageClient.download(imageUrl)
+                .exceptionally(error -> {
+                    Throwable cause = OpenAIImageClient.unwrap(error);
+                    log.error("Failed to download GPT Image 2 image from URL: {}", imageUrl, cause);
+                    throw new FalAiException("Failed to download GPT Image 2 image from URL: " + imageUrl, cause);
+                });
     }
 
     @Override
@@ -239,4 +180,11 @@ public class Gpt2ModelService implements AIModelService {
             throw new FalAiException("OpenAI API key is still set to default value. Please provide a valid API key.");
         }
     }
+
+    /**
+     * Content policy rejections (422) are final; other temporary failures are worth another request.
+     */
+    private boolean isRetriable(Throwable error) {
+        return !errorMessageSanitizer.is422Error(error.getMessage()) && RetryPolicy.isTemporaryFailure(error);
+    }
 }
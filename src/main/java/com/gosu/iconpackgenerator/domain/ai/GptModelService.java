@@ -1,29 +1,16 @@
 package com.gosu.iconpackgenerator.domain.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.gosu.iconpackgenerator.config.OpenAIConfig;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import com.gosu.iconpackgenerator.util.ErrorMessageSanitizer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URL;
-import java.util.Base64;
+
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -37,31 +24,37 @@ public class GptModelService implements AIModelService {
 
     private final OpenAIConfig openAIConfig;
     private final ErrorMessageSanitizer errorMessageSanitizer;
-    private final RestTemplate restTemplate;
+    private final OpenAIImageClient openAIImageClient;
+    private final RetryPolicy retryPolicy;
 
     @Override
     public CompletableFuture<byte[]> generateImage(String prompt) {
-        return generateImage(prompt, null, PromptAugmentation.ICON);
+        return generateImage(prompt, null, PromptAugmentation.ICON, null);
     }
 
     public CompletableFuture<byte[]> generateImage(String prompt, PromptAugmentation augmentation) {
-        return generateImage(prompt, null, augmentation);
+        return generateImage(prompt, null, augmentation, null);
     }
 
     /**
      * Generate image with optional seed for reproducible results
+     *
+     * @param userKey the user charged for hedged requests; null disables hedging
      */
-    public CompletableFuture<byte[]> generateImage(String prompt, Long seed) {
-        return generateImage(prompt, seed, PromptAugmentation.ICON);
+    public CompletableFuture<byte[]> generateImage(String prompt, Long seed, String userKey) {
+        return generateImage(prompt, seed, PromptAugmentation.ICON, userKey);
     }
 
     /**
      * Generate image with optional seed and configurable prompt augmentation.
+     *
+     * @param userKey the user charged for hedged requests; null disables hedging
      */
-    public CompletableFuture<byte[]> generateImage(String prompt, Long seed, PromptAugmentation augmentation) {
+    public CompletableFuture<byte[]> generateImage(String prompt, Long seed, PromptAugmentation augmentation,
+                                                   String userKey) {
         log.info("Generating image with GPT Image for prompt: {} (seed: {}, augmentation: {})", prompt, seed, augmentation);
 
-        return generateGptImageAsync(prompt, seed, augmentation)
+        return generateGptImageAsync(prompt, seed, augmentation, userKey)
                 .whenComplete((bytes, error) -> {
                     if (error != null) {
                         log.error("Error generating image with GPT Image", error);
@@ -71,47 +64,27 @@ public class GptModelService implements AIModelService {
                 });
     }
 
-    private CompletableFuture<byte[]> generateGptImageAsync(String prompt, Long seed, PromptAugmentation augmentation) {
-        return CompletableFuture.supplyAsync(() -> {
-            Exception lastException;
-
-            try {
-                return attemptGptGeneration(prompt, seed, false, augmentation);
-            } catch (Exception e) {
-                lastException = e;
-                String errorMessage = e.getMessage();
-                log.warn("First GPT generation attempt failed, checking error type: {}", errorMessage);
-
-                // Handle 422 (content policy) errors - no retry
-                if (errorMessageSanitizer.is422Error(errorMessage)) {
-                    log.error("GPT generation failed with 422 error, likely content policy violation.", e);
-                    throw new FalAiException("Your request could not be processed as it may violate content policy. Please try a different prompt. You have been refunded for this attempt.", e);
-                }
-
-                // Handle 5xx and other temporary errors - retry once
-                if (isLikelyTemporaryFailure(errorMessage)) {
-                    log.info("Likely temporary failure detected, attempting retry with same parameters");
-                    try {
-                        return attemptGptGeneration(prompt, seed, true, augmentation);
-                    } catch (Exception retryException) {
-                        log.error("Retry attempt also failed", retryException);
-                        lastException = retryException;
+    private CompletableFuture<byte[]> generateGptImageAsync(String prompt, Long seed, PromptAugmentation augmentation,
+                                                            String userKey) {
+        AtomicInteger attempts = new AtomicInteger();
+        return retryPolicy.execute(ProviderBulkheads.OPENAI, userKey,
+                        () -> attemptGptGeneration(prompt, seed, attempts.getAndIncrement() > 0, augmentation),
+                        this::isRetriable)
+                .exceptionallyCompose(error -> {
+                    Throwable e = OpenAIImageClient.unwrap(error);
+
+                    // Handle 422 (content policy) errors - never retried
+                    if (errorMessageSanitizer.is422Error(e.getMessage())) {
+                        log.error("GPT generation failed with 422 error, likely content policy violation.", e);
+                        return CompletableFuture.failedFuture(new FalAiException("Your request could not be processed as it may violate content policy. Please try a different prompt. You have been refunded for this attempt.", e));
                     }
-                }
-            }
-
-            // All attempts failed or a non-retriable error occurred
-            String sanitizedMessage = errorMessageSanitizer.sanitizeErrorMessage(lastException.getMessage(), "GPT");
-
-            if (isLikelyTemporaryFailure(lastException.getMessage())) {
-                sanitizedMessage = "Service is temporarily unavailable. " + sanitizedMessage;
-            }
 
-            throw new FalAiException(sanitizedMessage, lastException);
-        });
+                    log.error("GPT generation failed after {} attempt(s)", attempts.get(), e);
+                    return CompletableFuture.failedFuture(toFinalFailure(e));
+                });
     }
 
-    private byte[] attemptGptGeneration(String prompt, Long seed, boolean isRetry, PromptAugmentation augmentation) throws Exception {
+    private CompletableFuture<byte[]> attemptGptGeneration(String prompt, Long seed, boolean isRetry, PromptAugmentation augmentation) {
         log.info("Generating GPT image with OpenAI API (seed: {}, retry: {}, augmentation: {})", seed, isRetry, augmentation);
 
         // Apply GPT-specific styling to the prompt with explicit constraints
@@ -120,35 +93,17 @@ public class GptModelService implements AIModelService {
                 ? prompt + " - clean icon design, no text, no labels, no grid lines, no borders, transparent background"
                 : prompt;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(openAIConfig.getApiKey());
-
-        Map<String, Object> body = createGptTextToImageInputMap(gptPrompt, seed);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
-        log.info("Making OpenAI API call for image generation (seed: {}, retry: {})", seed, isRetry);
-
+        CompletableFuture<OpenAIImageClient.ImageResponse> response;
         try {
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
-                    "https://api.openai.com/v1/images/generations",
-                    HttpMethod.POST,
-                    entity,
-                    JsonNode.class
-            );
+            Map<String, Object> body = createGptTextToImageInputMap(gptPrompt, seed);
 
-            JsonNode responseBody = response.getBody();
-            log.debug("Received OpenAI API response: {}", responseBody);
+            log.info("Making OpenAI API call for image generation (seed: {}, retry: {})", seed, isRetry);
 
-            if (responseBody == null) {
-                throw new FalAiException("Empty response from OpenAI API");
-            }
-
-            return extractImageFromOpenAIResponse(responseBody);
+            response = openAIImageClient.postJson("https://api.openai.com/v1/images/generations", body);
         } catch (Exception e) {
-            log.error("Error calling OpenAI image generation API", e);
-            throw new FalAiException("Failed to generate image with OpenAI API: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
+        return extractImage(response, "Error calling OpenAI image generation API");
     }
 
     private Map<String, Object> createGptTextToImageInputMap(String prompt, Long seed) {
@@ -169,11 +124,14 @@ public class GptModelService implements AIModelService {
 
     /**
      * Generate image using image-to-image functionality with optional seed.
+     *
+     * @param userKey the user charged for hedged requests; null disables hedging
      */
-    public CompletableFuture<byte[]> generateImageToImage(String prompt, byte[] sourceImageData, Long seed) {
+    public CompletableFuture<byte[]> generateImageToImage(String prompt, byte[] sourceImageData, Long seed,
+                                                          String userKey) {
         log.info("Generating image-to-image with GPT Image for prompt: {}", prompt);
 
-        return generateGptImageToImageAsync(prompt, sourceImageData, seed)
+        return generateGptImageToImageAsync(prompt, sourceImageData, seed, userKey)
                 .whenComplete((bytes, error) -> {
                     if (error != null) {
                         log.error("Error generating image-to-image with GPT Image", error);
@@ -183,156 +141,105 @@ public class GptModelService implements AIModelService {
                 });
     }
 
-    private CompletableFuture<byte[]> generateGptImageToImageAsync(String prompt, byte[] sourceImageData, Long seed) {
-        return CompletableFuture.supplyAsync(() -> {
-            Exception lastException;
-
-            try {
-                return attemptGptImageToImageGeneration(prompt, sourceImageData, seed, false);
-            } catch (Exception e) {
-                lastException = e;
-                String errorMessage = e.getMessage();
-                log.warn("First GPT image-to-image attempt failed, checking error type: {}", errorMessage);
-
-                // Handle 422 (content policy) errors - no retry
-                if (errorMessageSanitizer.is422Error(errorMessage)) {
-                    log.error("GPT image-to-image generation failed with 422 error, likely content policy violation.", e);
-                    throw new FalAiException("Your request could not be processed as it may violate content policy. Please try a different prompt. You have been refunded for this attempt.", e);
-                }
-                // Handle 5xx and other temporary errors - retry once
-                if (isLikelyTemporaryFailure(errorMessage)) {
-                    log.info("Likely temporary failure detected, attempting image-to-image retry with same parameters");
-                    try {
-                        return attemptGptImageToImageGeneration(prompt, sourceImageData, seed, true);
-                    } catch (Exception retryException) {
-                        log.error("Image-to-image retry attempt also failed", retryException);
-                        lastException = retryException;
+    private CompletableFuture<byte[]> generateGptImageToImageAsync(String prompt, byte[] sourceImageData, Long seed,
+                                                                   String userKey) {
+        AtomicInteger attempts = new AtomicInteger();
+        return retryPolicy.execute(ProviderBulkheads.OPENAI, userKey,
+                        () -> attemptGptImageToImageGeneration(prompt, sourceImageData, seed, attempts.getAndIncrement() > 0),
+                        this::isRetriable)
+                .exceptionallyCompose(error -> {
+                    Throwable e = OpenAIImageClient.unwrap(error);
+
+                    // Handle 422 (content policy) errors - never retried
+                    if (errorMessageSanitizer.is422Error(e.getMessage())) {
+                        log.error("GPT image-to-image generation failed with 422 error, likely content policy violation.", e);
+                        return CompletableFuture.failedFuture(new FalAiException("Your request could not be processed as it may violate content policy. Please try a different prompt. You have been refunded for this attempt.", e));
                     }
-                }
-            }
-
-            // All attempts failed or a non-retriable error occurred
-            String sanitizedMessage = errorMessageSanitizer.sanitizeErrorMessage(lastException.getMessage(), "GPT");
 
-            if (isLikelyTemporaryFailure(lastException.getMessage())) {
-                sanitizedMessage = "Service is temporarily unavailable. " + sanitizedMessage;
-            }
-
-            throw new FalAiException(sanitizedMessage, lastException);
-        });
+                    log.error("GPT image-to-image generation failed after {} attempt(s)", attempts.get(), e);
+                    return CompletableFuture.failedFuture(toFinalFailure(e));
+                });
     }
 
     //We have to use OpenAI API because fal.ai does not officially support transparent background option (at this point)
-    private byte[] attemptGptImageToImageGeneration(String prompt, byte[] sourceImageData, Long seed, boolean isRetry) throws Exception {
+    private CompletableFuture<byte[]> attemptGptImageToImageGeneration(String prompt, byte[] sourceImageData, Long seed, boolean isRetry) {
         log.info("Generating GPT image-to-image with OpenAI API (seed: {}, retry: {})", seed, isRetry);
 
-        validateOpenAIConfiguration();
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        headers.setBearerAuth(openAIConfig.getApiKey());
-
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        
-        HttpHeaders imageHeaders = new HttpHeaders();
-        imageHeaders.setContentType(MediaType.IMAGE_PNG);
-        imageHeaders.setContentDispositionFormData("image", "image.png");
-        HttpEntity<byte[]> imageEntity = new HttpEntity<>(sourceImageData, imageHeaders);
-        body.add("image", imageEntity);
-        
-        body.add("model", "gpt-image-1");
-        body.add("prompt", prompt);
-        body.add("size", "1024x1024");
-        body.add("quality", "high");
-        body.add("output_format", "png");
-        body.add("background", "transparent");
-        body.add("input_fidelity", "low");
-        body.add("n", 1);
-
-        HttpEntity<MultiValueMap<String, Object>> entity = new HttpEntity<>(body, headers);
-
-        log.info("Making OpenAI API call for image editing (seed: {}, retry: {})", seed, isRetry);
-
+        CompletableFuture<OpenAIImageClient.ImageResponse> response;
         try {
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
-                    "https://api.openai.com/v1/images/edits",
-                    HttpMethod.POST,
-                    entity,
-                    JsonNode.class
-            );
-
-            JsonNode responseBody = response.getBody();
-            log.debug("Received OpenAI API response: {}", responseBody);
+            validateOpenAIConfiguration();
 
-            if (responseBody == null) {
-                throw new FalAiException("Empty response from OpenAI API");
-            }
+            OpenAIImageClient.MultipartForm body = new OpenAIImageClient.MultipartForm()
+                    .file("image", "image.png", MediaType.IMAGE_PNG_VALUE, sourceImageData)
+                    .field("model", "gpt-image-1")
+                    .field("prompt", prompt)
+                    .field("size", "1024x1024")
+                    .field("quality", "high")
+                    .field("output_format", "png")
+                    .field("background", "transparent")
+                    .field("input_fidelity", "low")
+                    .field("n", 1);
 
-            return extractImageFromOpenAIResponse(responseBody);
+            log.info("Making OpenAI API call for image editing (seed: {}, retry: {})", seed, isRetry);
 
+            response = openAIImageClient.postMultipart("https://api.openai.com/v1/images/edits", body);
         } catch (Exception e) {
-            log.error("Error calling OpenAI image editing API", e);
-            throw new FalAiException("Failed to generate image with OpenAI API: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
+        return extractImage(response, "Error calling OpenAI image editing API");
     }
+
     /**
-     * Extract image data from OpenAI API response
-     * gpt-image-1 always returns base64-encoded images directly
+     * Cancelling the returned future cancels {@code response}, so the retry policy can abort a losing hedge.
      */
-    private byte[] extractImageFromOpenAIResponse(JsonNode response) {
-        try {
-            // OpenAI API returns images in the 'data' array
-            JsonNode dataNode = response.path("data");
-            if (dataNode.isArray() && !dataNode.isEmpty()) {
-                JsonNode firstImage = dataNode.get(0);
-                
-                // gpt-image-1 always returns base64 images directly in b64_json field
-                String base64Data = firstImage.path("b64_json").asText();
-                if (!base64Data.isEmpty()) {
-                    log.debug("Found base64 data in OpenAI response");
-                    return Base64.getDecoder().decode(base64Data);
-                }
-                
-                // For other models (dall-e-2, dall-e-3) that might return URLs
-                String imageUrl = firstImage.path("url").asText();
-                if (!imageUrl.isEmpty()) {
-                    log.info("Downloading image from OpenAI URL: {}", imageUrl);
-                    return downloadImageFromUrl(imageUrl);
-                }
-            }
-
-            log.error("Could not extract image data from OpenAI response: {}", response);
-            throw new FalAiException("Invalid response format from OpenAI API - no image data found");
+    private CompletableFuture<byte[]> extractImage(CompletableFuture<OpenAIImageClient.ImageResponse> response, String failureLog) {
+        return OpenAIImageClient.cancelling(response
+                .thenCompose(this::extractImageFromOpenAIResponse)
+                .exceptionally(error -> {
+                    Throwable e = OpenAIImageClient.unwrap(error);
+                    log.error(failureLog, e);
+                    throw new FalAiException("Failed to generate image with OpenAI API: " + e.getMessage(), e);
+                }), response);
+    }
 
-        } catch (Exception e) {
-            log.error("Error extracting image from OpenAI response", e);
-            throw new FalAiException("Failed to extract image from OpenAI API response: " + e.getMessage(), e);
+    /**
+     * All attempts failed or a non-retriable error occurred
+     */
+    private FalAiException toFinalFailure(Throwable lastException) {
+        String sanitizedMessage = errorMessageSanitizer.sanitizeErrorMessage(lastException.getMessage(), "GPT");
+
+        if (RetryPolicy.isTemporaryFailure(lastException)) {
+            sanitizedMessage = "Service is temporarily unavailable. " + sanitizedMessage;
         }
+
+        return new FalAiException(sanitizedMessage, lastException);
     }
 
-    private byte[] downloadImageFromUrl(String imageUrl) {
-        try {
-            log.debug("Downloading image from URL: {}", imageUrl);
-            URL url = URI.create(imageUrl).toURL();
-
-            try (InputStream inputStream = url.openStream();
-                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = inputStream.read(buffer)) != -1) {
-                    outputStream.write(buffer, 0, bytesRead);
-                }
-
-                byte[] imageData = outputStream.toByteArray();
-                log.info("Successfully downloaded image from GPT Image: {} bytes", imageData.length);
-                return imageData;
-
-            }
-        } catch (IOException e) {
-            log.error("Failed to download image from GPT Image URL: {}", imageUrl, e);
-            throw new FalAiException("Failed to download image from GPT Image URL: " + imageUrl, e);
+    /**
+     * Image data from the OpenAI API response. gpt-image-1 always returns base64-encoded images, which the
+     * client has already decoded; other models (dall-e-2, dall-e-3) may return a URL instead.
+     */
+    private CompletableFuture<byte[]> extractImageFromOpenAIResponse(OpenAIImageClient.ImageResponse response) {
+        if (response.imageData() != null) {
+            log.debug("Found base64 data in OpenAI response");
+            return CompletableFuture.completedFuture(response.imageData());
         }
+        log.info("Downloading image from OpenAI URL: {}", response.imageUrl());
+        return downloadImageFromUrl(response.imageUrl());
+    }
+
+    private CompletableFuture<byte[]> downloadImageFromUrl(String imageUrl) {
+        log.debug("Downloading image from URL: {}", imageUrl);
+        return openAIImageClient.download(imageUrl)
+                .handle((imageData, error) -> {
+                    if (error != null) {
+                        Throwable cause = OpenAIImageClient.unwrap(error);
+                        log.error("Failed to download image from GPT Image URL: {}", imageUrl, cause);
+                        throw new FalAiException("Failed to download image from GPT Image URL: " + imageUrl, cause);
+                    }
+                    log.info("Successfully downloaded image from GPT Image: {} bytes", imageData.length);
+                    return imageData;
+                });
     }
 
 
@@ -365,27 +272,9 @@ public class GptModelService implements AIModelService {
     }
 
     /**
-     * Checks if an error message indicates a temporary service failure
+     * Content policy rejections (422) are final; other temporary failures are worth another request.
      */
-    private boolean isLikelyTemporaryFailure(String errorMessage) {
-        log.info("Checking for temporary failure");
-        if (errorMessage == null) {
-            return false;
-        }
-
-        String lowerMessage = errorMessage.toLowerCase();
-
-        return lowerMessage.contains("timeout") ||
-                lowerMessage.contains("connection") ||
-                lowerMessage.contains("network") ||
-                lowerMessage.contains("server error") ||
-                lowerMessage.contains("internal error") ||
-                lowerMessage.contains("stream was reset") ||
-                lowerMessage.contains("service unavailable") ||
-                lowerMessage.contains("temporarily unavailable") ||
-                lowerMessage.contains("429") || // Rate limiting
-                lowerMessage.contains("502") || // Bad Gateway
-                lowerMessage.contains("503") || // Service Unavailable
-                lowerMessage.contains("504");   // Gateway Timeout
+    private boolean isRetriable(Throwable error) {
+        return !errorMessageSanitizer.is422Error(error.getMessage()) && RetryPolicy.isTemporaryFailure(error);
     }
 }
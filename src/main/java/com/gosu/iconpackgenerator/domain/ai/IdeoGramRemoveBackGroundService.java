@@ -35,6 +35,7 @@ public class IdeoGramRemoveBackGroundService {
     private static final int OUTPUT_SIZE = 1024;
 
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
     private final ErrorMessageSanitizer errorMessageSanitizer;
 
@@ -48,13 +49,13 @@ public class IdeoGramRemoveBackGroundService {
             Map<String, Object> input = createInputMap(imageDataUrl);
 
             log.info("Removing image background with Ideogram fal.ai endpoint: {}", IDEOGRAM_REMOVE_BACKGROUND_ENDPOINT);
-            Output<JsonObject> output = falClient.subscribe(IDEOGRAM_REMOVE_BACKGROUND_ENDPOINT,
+            Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(IDEOGRAM_REMOVE_BACKGROUND_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                             .input(input)
                             .logs(true)
                             .resultType(JsonObject.class)
                             .build()
-            );
+            ));
 
             JsonObject result = output.getData();
             JsonNode jsonResult = objectMapper.readTree(result.toString());
@@ -10,6 +10,7 @@ import com.google.gson.JsonObject;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -28,7 +30,10 @@ import java.util.concurrent.CompletableFuture;
 public class MinimaxVideoModelService {
 
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
     
     private static final String MINIMAX_IMAGE_TO_VIDEO_ENDPOINT = "fal-ai/minimax/hailuo-02-fast/image-to-video";
     private static final String DURATION = "6";
@@ -76,7 +81,7 @@ public class MinimaxVideoModelService {
                 log.info("Making Minimax API call with input keys: {}", input.keySet());
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(MINIMAX_IMAGE_TO_VIDEO_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(MINIMAX_IMAGE_TO_VIDEO_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -88,7 +93,7 @@ public class MinimaxVideoModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from Minimax API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -108,7 +113,7 @@ public class MinimaxVideoModelService {
                 log.error("Error calling Minimax API", e);
                 throw new FalAiException("Failed to generate video with Minimax. Please try again or use a different prompt/image.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private Map<String, Object> createMinimaxInputMap(String prompt, String imageUrl) {
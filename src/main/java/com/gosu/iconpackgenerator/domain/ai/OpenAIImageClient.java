@@ -0,0 +1,332 @@
+package com.gosu.iconpackgenerator.domain.ai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gosu.iconpackgenerator.config.OpenAIConfig;
+import com.gosu.iconpackgenerator.exception.FalAiException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking client for the OpenAI Images API on the shared, pooled {@code openAIHttpClient}.
+ * <p>
+ * Returned futures complete when the response arrives, so no thread is parked while an image renders. Error
+ * statuses fail the future with Spring's {@link HttpClientErrorException} / {@link HttpServerErrorException},
+ * keeping the {@code "503 Service Unavailable: ..."} messages the model services classify for retries.
+ * API calls go through the {@code openai} bulkhead; downloads of generated images do not.
+ * <p>
+ * Image responses are parsed as they arrive: {@code b64_json} is decoded straight from the response stream into
+ * the image buffer, so the multi-megabyte base64 text is never held as raw bytes, a {@code String} or a JSON tree.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OpenAIImageClient {
+
+    @Qualifier("openAIHttpClient")
+    private final HttpClient httpClient;
+    private final OpenAIConfig openAIConfig;
+    private final ObjectMapper objectMapper;
+    private final ProviderBulkheads providerBulkheads;
+
+    /**
+     * The first image of an Images API response: decoded bytes for {@code b64_json}, otherwise the URL to fetch.
+     */
+    public record ImageResponse(byte[] imageData, String imageUrl) {
+    }
+
+    /**
+     * POST a JSON body with the API key.
+     */
+    public CompletableFuture<ImageResponse> postJson(String url, Map<String, Object> body) {
+        try {
+            HttpRequest request = authorizedRequest(url)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            return sendForImage(request);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * POST a multipart form with the API key.
+     */
+    public CompletableFuture<ImageResponse> postMultipart(String url, MultipartForm form) {
+        try {
+            HttpRequest request = authorizedRequest(url)
+                    .header(HttpHeaders.CONTENT_TYPE, form.contentType())
+                    .POST(HttpRequest.BodyPublishers.ofByteArrays(form.parts()))
+                    .build();
+            return sendForImage(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * GET the bytes at a URL returned by the API, without the API key.
+     */
+    public CompletableFuture<byte[]> download(String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofMillis(openAIConfig.getReadTimeoutMs()))
+                    .GET()
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .thenApply(response -> {
+                        requireSuccess(response.statusCode(), response.headers(), response.body());
+                        return response.body();
+                    });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The failure behind a {@link CompletionException} or {@link ExecutionException}.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Cancel {@code source} when {@code derived}, a stage computed from it, is cancelled. Cancelling a dependent
+     * stage does not reach the stage it was derived from on its own.
+     *
+     * @return {@code derived}
+     */
+    public static <T> CompletableFuture<T> cancelling(CompletableFuture<T> derived, CompletableFuture<?> source) {
+        derived.whenComplete((result, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    private HttpRequest.Builder authorizedRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(openAIConfig.getReadTimeoutMs()))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + openAIConfig.getApiKey())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private CompletableFuture<ImageResponse> sendForImage(HttpRequest request) {
+        return providerBulkheads.execute(ProviderBulkheads.OPENAI, () -> send(request));
+    }
+
+    /**
+     * The response completes once its headers arrive; the body is then read on the client's executor (the
+     * {@code aiModelExecutor} virtual threads), blocking only that call's thread while the image streams in.
+     * A body that stalls for longer than the read timeout fails the call with a {@link TimeoutException} and closes
+     * the stream, so the bulkhead slot is released instead of being held by a connection that never finishes.
+     * Cancelling the returned future aborts the exchange, or closes the body if the headers already arrived.
+     */
+    private CompletableFuture<ImageResponse> send(HttpRequest request) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<ImageResponse> image = exchange.thenCompose(response -> {
+            log.debug("OpenAI {} {} answered {} in {} ms over {}", request.method(), request.uri().getPath(),
+                    response.statusCode(), System.currentTimeMillis() - start, response.version());
+            return readBody(response, start);
+        });
+        image.whenComplete((result, error) -> {
+            if (image.isCancelled()) {
+                exchange.cancel(true);
+                exchange.thenAccept(response -> closeQuietly(response.body()));
+            }
+        });
+        return image;
+    }
+
+    private CompletableFuture<ImageResponse> readBody(HttpResponse<InputStream> response, long start) {
+        InputStream body = response.body();
+        Supplier<ImageResponse> read = () -> {
+            try (body) {
+                if (response.statusCode() >= 400) {
+                    requireSuccess(response.statusCode(), response.headers(), body.readAllBytes());
+                }
+                long contentLength = response.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).orElse(-1);
+                ImageResponse image = readImageResponse(body, contentLength);
+                log.debug("Read OpenAI image response in {} ms ({} decoded bytes, url: {})",
+                        System.currentTimeMillis() - start,
+                        image.imageData() != null ? image.imageData().length : 0,
+                        image.imageUrl() != null);
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unreadable response from OpenAI API", e);
+            }
+        };
+        CompletableFuture<ImageResponse> image = httpClient.executor()
+                .map(executor -> CompletableFuture.supplyAsync(read, executor))
+                .orElseGet(() -> CompletableFuture.supplyAsync(read));
+        return image.orTimeout(openAIConfig.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    if (unwrap(error) instanceof TimeoutException) {
+                        log.warn("OpenAI response body stalled for {} ms, closing the connection",
+                                openAIConfig.getReadTimeoutMs());
+                        closeQuietly(body);
+                    }
+                });
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("Failed to close OpenAI response body", e);
+        }
+    }
+
+    /**
+     * Pull {@code data[0].b64_json} or {@code data[0].url} out of an Images API response with the streaming
+     * parser. Everything else is skipped without being materialized.
+     */
+    private ImageResponse readImageResponse(InputStream body, long contentLength) throws IOException {
+        byte[] imageData = null;
+        String imageUrl = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new FalAiException("Empty response from OpenAI API");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"data".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                boolean first = true;
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+                    if (!first || element != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    first = false;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String imageField = parser.currentName();
+                        JsonToken imageValue = parser.nextToken();
+                        if ("b64_json".equals(imageField) && imageValue == JsonToken.VALUE_STRING) {
+                            imageData = decodeBase64(parser, contentLength);
+                        } else if ("url".equals(imageField) && imageValue == JsonToken.VALUE_STRING) {
+                            imageUrl = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+        if ((imageData == null || imageData.length == 0) && (imageUrl == null || imageUrl.isEmpty())) {
+            throw new FalAiException("Invalid response format from OpenAI API - no image data found");
+        }
+        return new ImageResponse(imageData != null && imageData.length > 0 ? imageData : null, imageUrl);
+    }
+
+    private static byte[] decodeBase64(JsonParser parser, long contentLength) throws IOException {
+        // Base64 packs 3 bytes into 4 characters and the image is nearly the whole body
+        int expectedSize = contentLength > 0 ? (int) Math.min(Integer.MAX_VALUE - 8, contentLength * 3 / 4) : 1 << 20;
+        ByteArrayOutputStream image = new ByteArrayOutputStream(expectedSize);
+        parser.readBinaryValue(image);
+        return image.toByteArray();
+    }
+
+    private static void requireSuccess(int statusCode, java.net.http.HttpHeaders responseHeaders, byte[] body) {
+        if (statusCode < 400) {
+            return;
+        }
+        HttpStatusCode status = HttpStatusCode.valueOf(statusCode);
+        HttpStatus known = HttpStatus.resolve(statusCode);
+        String statusText = known != null ? known.getReasonPhrase() : "";
+        HttpHeaders headers = new HttpHeaders();
+        responseHeaders.map().forEach(headers::addAll);
+        if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+        }
+        throw HttpServerErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A {@code multipart/form-data} body kept as a list of chunks, so file parts are sent without being copied.
+     */
+    public static final class MultipartForm {
+
+        private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+        private final String boundary = "----IconPackBoundary" + UUID.randomUUID().toString().replace("-", "");
+        private final List<byte[]> parts = new ArrayList<>();
+
+        public MultipartForm field(String name, Object value) {
+            parts.add(partHeader("form-data; name=\"" + name + "\"", null));
+            parts.add(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            parts.add(CRLF);
+            return this;
+        }
+
+        public MultipartForm file(String name, String fileName, String contentType, byte[] data) {
+            parts.add(partHeader("form-data; name=\"" + name + "\"; filename=\"" + fileName + "\"", contentType));
+            parts.add(data);
+            parts.add(CRLF);
+            return this;
+        }
+
+        String contentType() {
+            return MediaType.MULTIPART_FORM_DATA_VALUE + "; boundary=" + boundary;
+        }
+
+        List<byte[]> parts() {
+            List<byte[]> body = new ArrayList<>(parts);
+            body.add(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            return body;
+        }
+
+        private byte[] partHeader(String contentDisposition, String contentType) {
+            StringBuilder header = new StringBuilder()
+                    .append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: ").append(contentDisposition).append("\r\n");
+            if (contentType != null) {
+                header.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            return header.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import ai.fal.client.SubscribeOptions;
 import ai.fal.client.queue.QueueStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -28,8 +30,11 @@ import java.util.concurrent.CompletableFuture;
 public class PhotonModelService implements AIModelService {
     
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
     private final FluxModelService fluxModelService; // For image-to-image fallback
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
     
     private static final String PHOTON_ENDPOINT = "fal-ai/luma-photon";
     
@@ -68,7 +73,7 @@ public class PhotonModelService implements AIModelService {
                 log.info("Making Photon API call with input keys: {} (seed: {})", input.keySet(), seed);
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(PHOTON_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(PHOTON_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -80,7 +85,7 @@ public class PhotonModelService implements AIModelService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from Photon API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -96,7 +101,7 @@ public class PhotonModelService implements AIModelService {
                 log.error("Error calling Photon API", e);
                 throw new FalAiException("Failed to generate image with Luma Photon: " + e.getMessage(), e);
             }
-        });
+        }, aiModelExecutor);
     }
     
 
@@ -0,0 +1,333 @@
+package com.gosu.iconpackgenerator.domain.ai;
+
+import com.gosu.iconpackgenerator.config.ProviderBulkheadConfig;
+import com.gosu.iconpackgenerator.exception.ProviderBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Adaptive concurrency limit for the calls to one AI provider (AIMD).
+ * <ul>
+ *     <li>a success while the limit is in use raises it by {@code 1 / limit}, so about one slot per round of calls</li>
+ *     <li>an overload failure (429, 5xx, timeout) or a success slower than {@code latency-tolerance} times the
+ *     smoothed latency multiplies it by {@code backoff-ratio}; calls already running when the limit was cut do not
+ *     cut it again</li>
+ *     <li>calls over the limit wait in a bounded FIFO queue and are told their position whenever it changes</li>
+ * </ul>
+ * Queue listeners and granted calls run after the internal lock is released.
+ */
+@Slf4j
+public final class ProviderBulkhead {
+
+    /**
+     * Told the 1-based queue position of a waiting call, and {@code 0} when it leaves the queue to run.
+     */
+    @FunctionalInterface
+    public interface QueueListener {
+        void onQueuePosition(String provider, int position);
+    }
+
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final int MIN_LATENCY_SAMPLES = 5;
+
+    private final String provider;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final Predicate<Throwable> overload;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double smoothedLatencyMs;
+    private int latencySamples;
+    private long lastDecreaseNanos = System.nanoTime();
+    private long positionVersion;
+
+    private final Counter queueFull;
+    private final Counter waitTimeout;
+
+    public ProviderBulkhead(String provider,
+                            ProviderBulkheadConfig.Settings settings,
+                            Predicate<Throwable> overload,
+                            MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.minLimit = Math.max(1, settings.getMinLimit());
+        this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+        this.maxQueue = Math.max(0, settings.getMaxQueue());
+        this.maxWaitMs = settings.getMaxWaitMs();
+        this.backoffRatio = settings.getBackoffRatio();
+        this.latencyTolerance = settings.getLatencyTolerance();
+        this.overload = overload;
+        this.limit = Math.clamp(settings.getInitialLimit(), minLimit, maxLimit);
+
+        Gauge.builder("ai.bulkhead.limit", this, ProviderBulkhead::limit)
+                .description("Concurrent calls currently allowed to the provider")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.in_flight", this, ProviderBulkhead::inFlight)
+                .description("Calls to the provider currently running")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("ai.bulkhead.queued", this, ProviderBulkhead::queued)
+                .description("Calls waiting for a free slot")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        queueFull = rejectedCounter(meterRegistry, "queue_full");
+        waitTimeout = rejectedCounter(meterRegistry, "wait_timeout");
+    }
+
+    public String provider() {
+        return provider;
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserve a slot. The future completes with a permit once the call may run, or fails with
+     * {@link ProviderBusyException} when the queue is full or the wait exceeds {@code max-wait-ms}.
+     * Cancelling the future gives up the place in the queue.
+     *
+     * @param listener told the queue position while the call waits; may be null
+     */
+    public CompletableFuture<Permit> acquire(QueueListener listener) {
+        Waiter waiter;
+        int position;
+        long version;
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (queue.size() >= maxQueue) {
+                queueFull.increment();
+                return CompletableFuture.failedFuture(new ProviderBusyException(String.format(
+                        "Rate limit: %s queue is full (%d calls running, %d waiting)", provider, inFlight, queue.size())));
+            }
+            waiter = new Waiter(listener);
+            queue.addLast(waiter);
+            position = queue.size();
+            waiter.position = position;
+            version = ++positionVersion;
+        } finally {
+            lock.unlock();
+        }
+
+        log.debug("{} call queued at position {} (limit {})", provider, position, limit());
+        waiter.report(version, position);
+        waiter.future.whenComplete((permit, error) -> {
+            if (error != null) {
+                leaveQueue(waiter);
+            }
+        });
+        if (maxWaitMs > 0) {
+            CompletableFuture.delayedExecutor(maxWaitMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (waiter.future.completeExceptionally(new ProviderBusyException(String.format(
+                        "Rate limit: timed out after %d ms waiting for a %s slot", maxWaitMs, provider)))) {
+                    waitTimeout.increment();
+                }
+            });
+        }
+        return waiter.future;
+    }
+
+    private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("ai.bulkhead.rejected")
+                .description("Calls turned away without reaching the provider")
+                .tag("provider", provider)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        double latencyMs = (System.nanoTime() - permit.startNanos) / 1_000_000.0;
+        List<Runnable> actions;
+        lock.lock();
+        try {
+            inFlight--;
+            if (outcome == Outcome.SUCCESS) {
+                boolean slow = latencySamples >= MIN_LATENCY_SAMPLES && latencyMs > smoothedLatencyMs * latencyTolerance;
+                smoothedLatencyMs = latencySamples == 0
+                        ? latencyMs
+                        : smoothedLatencyMs + LATENCY_SMOOTHING * (latencyMs - smoothedLatencyMs);
+                latencySamples++;
+                if (slow) {
+                    decrease(permit, "slow response " + Math.round(latencyMs) + " ms");
+                } else if (inFlight + 1 >= currentLimit()) {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            } else if (outcome == Outcome.OVERLOAD) {
+                decrease(permit, "overload");
+            }
+            actions = dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+        actions.forEach(Runnable::run);
+    }
+
+    private void decrease(Permit permit, String reason) {
+        if (permit.startNanos - lastDecreaseNanos < 0) {
+            // Started before the last cut, so it reports the same congestion
+            return;
+        }
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecreaseNanos = System.nanoTime();
+        log.info("Lowered {} concurrency limit from {} to {} after {}", provider, (int) previous, currentLimit(), reason);
+    }
+
+    private void leaveQueue(Waiter waiter) {
+        List<Runnable> actions;
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) {
+                return;
+            }
+            actions = dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+        actions.forEach(Runnable::run);
+    }
+
+    /**
+     * Grant free slots to the head of the queue and collect the position changes of the calls still waiting.
+     * The returned actions must run without the lock.
+     */
+    private List<Runnable> dispatchLocked() {
+        List<Runnable> actions = new ArrayList<>();
+        while (!queue.isEmpty() && inFlight < currentLimit()) {
+            Waiter next = queue.pollFirst();
+            if (next.future.isDone()) {
+                continue;
+            }
+            inFlight++;
+            Permit permit = new Permit();
+            long version = ++positionVersion;
+            actions.add(() -> {
+                next.report(version, 0);
+                if (!next.future.complete(permit)) {
+                    permit.release(Outcome.IGNORED);
+                }
+            });
+        }
+        int position = 0;
+        for (Waiter waiter : queue) {
+            position++;
+            if (waiter.position != position) {
+                waiter.position = position;
+                long version = ++positionVersion;
+                int reported = position;
+                actions.add(() -> waiter.report(version, reported));
+            }
+        }
+        return actions;
+    }
+
+    private enum Outcome {
+        SUCCESS,
+        OVERLOAD,
+        IGNORED
+    }
+
+    /**
+     * A reserved slot. Release it exactly once with the outcome of the call; further releases are ignored.
+     */
+    public final class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * @param error the failure of the call, or null if it succeeded
+         */
+        public void release(Throwable error) {
+            release(error == null ? Outcome.SUCCESS : overload.test(error) ? Outcome.OVERLOAD : Outcome.IGNORED);
+        }
+
+        private void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                ProviderBulkhead.this.release(this, outcome);
+            }
+        }
+    }
+
+    private final class Waiter {
+
+        private final QueueListener listener;
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+        private final ReentrantLock reportLock = new ReentrantLock();
+        // Guarded by the bulkhead lock
+        private int position;
+        // Guarded by reportLock; positions computed earlier than the last one reported are dropped
+        private long reportedVersion;
+
+        private Waiter(QueueListener listener) {
+            this.listener = listener;
+        }
+
+        private void report(long version, int position) {
+            if (listener == null) {
+                return;
+            }
+            reportLock.lock();
+            try {
+                if (version <= reportedVersion) {
+                    return;
+                }
+                reportedVersion = version;
+                listener.onQueuePosition(provider, position);
+            } catch (RuntimeException e) {
+                log.warn("Queue listener for {} failed: {}", provider, e.getMessage());
+            } finally {
+                reportLock.unlock();
+            }
+        }
+    }
+}
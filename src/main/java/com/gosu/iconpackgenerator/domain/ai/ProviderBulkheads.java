@@ -0,0 +1,192 @@
+package com.gosu.iconpackgenerator.domain.ai;
+
+import com.gosu.iconpackgenerator.config.ProviderBulkheadConfig;
+import com.gosu.iconpackgenerator.exception.ProviderBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * The {@link ProviderBulkhead}s guarding calls to OpenAI and fal.ai.
+ * <p>
+ * Callers that want to show queue positions wrap the code that starts the provider calls in
+ * {@link #withQueueListener}; calls started on that thread report to the listener while they wait.
+ */
+public class ProviderBulkheads {
+
+    public static final String OPENAI = "openai";
+    public static final String FAL = "fal";
+
+    private static final ThreadLocal<ProviderBulkhead.QueueListener> QUEUE_LISTENER = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final ProviderBulkhead openAI;
+    private final ProviderBulkhead fal;
+
+    public ProviderBulkheads(ProviderBulkheadConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.openAI = new ProviderBulkhead(OPENAI, config.getOpenai(), ProviderBulkheads::isOverload, meterRegistry);
+        this.fal = new ProviderBulkhead(FAL, config.getFal(), ProviderBulkheads::isOverload, meterRegistry);
+    }
+
+    public ProviderBulkhead get(String provider) {
+        return switch (provider) {
+            case OPENAI -> openAI;
+            case FAL -> fal;
+            default -> throw new IllegalArgumentException("Unknown AI provider: " + provider);
+        };
+    }
+
+    /**
+     * Run {@code action} with {@code listener} told the queue positions of the provider calls it starts on this
+     * thread.
+     */
+    public static <T> T withQueueListener(ProviderBulkhead.QueueListener listener, Supplier<T> action) {
+        ProviderBulkhead.QueueListener previous = QUEUE_LISTENER.get();
+        QUEUE_LISTENER.set(listener);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                QUEUE_LISTENER.remove();
+            } else {
+                QUEUE_LISTENER.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Start an asynchronous call once the provider has a free slot. The slot is held until the returned future
+     * completes, and the outcome adjusts the provider's limit. Cancelling the returned future gives up the queue
+     * place or releases the slot right away, and cancels the running call.
+     */
+    public <T> CompletableFuture<T> execute(String provider, Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<ProviderBulkhead.Permit> acquired = get(provider).acquire(QUEUE_LISTENER.get());
+        acquired.whenComplete((permit, acquireError) -> {
+            if (acquireError != null) {
+                result.completeExceptionally(acquireError);
+                return;
+            }
+            if (result.isDone()) {
+                permit.release(new CancellationException("Cancelled while waiting for a slot"));
+                return;
+            }
+            CompletableFuture<T> running;
+            try {
+                running = call.get();
+            } catch (RuntimeException e) {
+                permit.release(e);
+                result.completeExceptionally(e);
+                return;
+            }
+            running.whenComplete((value, error) -> {
+                permit.release(error);
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    permit.release(error);
+                    running.cancel(true);
+                }
+            });
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                acquired.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Run a blocking call once the provider has a free slot, waiting on the current thread. Most callers already
+     * run on {@code aiModelExecutor}'s virtual threads, where the wait is cheap.
+     */
+    public <T> T call(String provider, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        ProviderBulkhead.Permit permit = awaitPermit(get(provider).acquire(QUEUE_LISTENER.get()));
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            permit.release(e);
+            throw e;
+        }
+        permit.release(null);
+        return result;
+    }
+
+    /**
+     * Whether a failure says the provider is overloaded: 429, 5xx or a timeout.
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof ProviderBusyException || current instanceof CancellationException) {
+                return false;
+            }
+            if (current instanceof HttpStatusCodeException statusError) {
+                int status = statusError.getStatusCode().value();
+                return status == 429 || status >= 500;
+            }
+            if (current instanceof HttpTimeoutException
+                    || current instanceof InterruptedIOException
+                    || current instanceof TimeoutException) {
+                return true;
+            }
+            String message = current.getMessage();
+            if (message != null && isOverloadMessage(message.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // fal.ai failures only carry the status in the message
+    private static boolean isOverloadMessage(String message) {
+        return message.contains("429")
+                || message.contains("too many requests")
+                || message.contains("rate limit")
+                || message.contains("500")
+                || message.contains("502")
+                || message.contains("503")
+                || message.contains("504")
+                || message.contains("timeout")
+                || message.contains("timed out");
+    }
+
+    private static ProviderBulkhead.Permit awaitPermit(CompletableFuture<ProviderBulkhead.Permit> acquisition) {
+        try {
+            return acquisition.get();
+        } catch (InterruptedException e) {
+            if (!acquisition.cancel(false)) {
+                acquisition.thenAccept(permit -> permit.release(e));
+            }
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.gosu.iconpackgenerator.domain.ai;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -13,9 +15,12 @@ import java.util.Map;
 public class RecraftModelService implements AIModelService {
     
     private final FluxModelService fluxModelService;
+    private final ExecutorService aiModelExecutor;
     
-    public RecraftModelService(FluxModelService fluxModelService) {
+    public RecraftModelService(FluxModelService fluxModelService,
+                               @Qualifier("aiModelExecutor") ExecutorService aiModelExecutor) {
         this.fluxModelService = fluxModelService;
+        this.aiModelExecutor = aiModelExecutor;
     }
     
     @Override
@@ -76,7 +81,7 @@ public class RecraftModelService implements AIModelService {
                 
                 return fluxModelService.generateImage(recraftPrompt, seed).join();
             }
-        });
+        }, aiModelExecutor);
     }
 
 
@@ -159,7 +164,7 @@ public class RecraftModelService implements AIModelService {
                         " No text, no labels, no grid lines, no borders. Clean icon design only.";
                 return fluxModelService.generateImage(recraftPrompt, seed).join();
             }
-        });
+        }, aiModelExecutor);
     }
 
 
@@ -10,6 +10,7 @@ import com.google.gson.JsonObject;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -33,7 +35,10 @@ public class RecraftVectorizeModelService {
     private static final String WEBP_IMAGE_MEDIA_TYPE = "image/webp";
 
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
 
     /**
      * Vectorize a PNG/JPEG/WEBP image and return the generated SVG content.
@@ -42,7 +47,7 @@ public class RecraftVectorizeModelService {
      * @return asynchronous SVG bytes
      */
     public CompletableFuture<byte[]> vectorizeImage(byte[] imageData) {
-        return CompletableFuture.supplyAsync(() -> vectorizeImageBlocking(imageData));
+        return CompletableFuture.supplyAsync(() -> vectorizeImageBlocking(imageData), aiModelExecutor);
     }
 
     /**
@@ -52,7 +57,7 @@ public class RecraftVectorizeModelService {
      * @return asynchronous SVG bytes
      */
     public CompletableFuture<byte[]> vectorizeImage(String imageUrl) {
-        return CompletableFuture.supplyAsync(() -> vectorizeImageBlocking(imageUrl));
+        return CompletableFuture.supplyAsync(() -> vectorizeImageBlocking(imageUrl), aiModelExecutor);
     }
 
     /**
@@ -92,7 +97,7 @@ public class RecraftVectorizeModelService {
         try {
             Map<String, Object> input = createInput(imageUrl);
 
-            Output<JsonObject> output = falClient.subscribe(RECRAFT_VECTORIZE_ENDPOINT,
+            Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(RECRAFT_VECTORIZE_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                             .input(input)
                             .logs(true)
@@ -103,7 +108,7 @@ public class RecraftVectorizeModelService {
                                 }
                             })
                             .build()
-            );
+            ));
 
             JsonObject result = output.getData();
             JsonNode jsonResult = objectMapper.readTree(result.toString());
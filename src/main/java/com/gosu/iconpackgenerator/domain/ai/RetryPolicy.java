@@ -0,0 +1,414 @@
+package com.gosu.iconpackgenerator.domain.ai;
+
+import com.gosu.iconpackgenerator.config.RetryPolicyConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries and hedging for image generation calls.
+ * <ul>
+ *     <li>a retriable failure is retried after {@code initial-backoff-ms * 2^n}, capped at {@code max-backoff-ms},
+ *     of which a random half is jitter; at most {@code max-attempts} requests are sent, hedges included</li>
+ *     <li>no request starts after {@code deadline-ms}, and the call fails with a timeout once it passes</li>
+ *     <li>a request still running after the provider's observed p95 latency (at least {@code hedge.min-delay-ms})
+ *     gets one hedged copy and the first success wins; hedges spend a per-provider budget earned as a share of
+ *     calls, are limited per user, and are skipped while the provider's bulkhead has calls waiting or no user
+ *     is known; once one request succeeds, the other one is cancelled</li>
+ * </ul>
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private final RetryPolicyConfig config;
+    private final ProviderBulkheads providerBulkheads;
+    private final ScheduledExecutorService schedulingExecutor;
+    private final ExecutorService aiModelExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ProviderState> providers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> hedgesByUser = new ConcurrentHashMap<>();
+
+    public RetryPolicy(RetryPolicyConfig config,
+                       ProviderBulkheads providerBulkheads,
+                       ScheduledExecutorService schedulingExecutor,
+                       ExecutorService aiModelExecutor,
+                       MeterRegistry meterRegistry) {
+        this.config = config;
+        this.providerBulkheads = providerBulkheads;
+        this.schedulingExecutor = schedulingExecutor;
+        this.aiModelExecutor = aiModelExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Whether a failure looks temporary: timeouts, connection problems, 429 and 5xx responses.
+     */
+    public static boolean isTemporaryFailure(Throwable error) {
+        String errorMessage = error != null ? error.getMessage() : null;
+        if (errorMessage == null) {
+            return false;
+        }
+
+        String lowerMessage = errorMessage.toLowerCase();
+
+        return lowerMessage.contains("timeout") ||
+                lowerMessage.contains("connection") ||
+                lowerMessage.contains("network") ||
+                lowerMessage.contains("server error") ||
+                lowerMessage.contains("internal error") ||
+                lowerMessage.contains("stream was reset") ||
+                lowerMessage.contains("service unavailable") ||
+                lowerMessage.contains("temporarily unavailable") ||
+                lowerMessage.contains("429") || // Rate limiting
+                lowerMessage.contains("502") || // Bad Gateway
+                lowerMessage.contains("503") || // Service Unavailable
+                lowerMessage.contains("504");   // Gateway Timeout
+    }
+
+    /**
+     * Run {@code attempt} under the policy. Each invocation of {@code attempt} must send a fresh request, and
+     * cancelling the returned future must abort it.
+     *
+     * @param userKey   the user charged for hedged requests; null disables hedging for this call
+     * @param retriable whether a failed request may be retried
+     */
+    public <T> CompletableFuture<T> execute(String provider,
+                                            String userKey,
+                                            Supplier<CompletableFuture<T>> attempt,
+                                            Predicate<Throwable> retriable) {
+        Call<T> call = new Call<>(state(provider), attempt, retriable, userKey);
+        call.start();
+        return call.result;
+    }
+
+    private ProviderState state(String provider) {
+        return providers.computeIfAbsent(provider, ProviderState::new);
+    }
+
+    private long backoffMs(int failedAttempts) {
+        long ceiling = config.getInitialBackoffMs() << Math.min(failedAttempts - 1, 20);
+        long capped = Math.max(0, Math.min(config.getMaxBackoffMs(), ceiling));
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+
+    private boolean tryAcquireUserHedge(String userKey) {
+        if (userKey == null) {
+            return false;
+        }
+        int maxPerUser = config.getHedge().getMaxPerUser();
+        boolean[] acquired = new boolean[1];
+        hedgesByUser.compute(userKey, (key, running) -> {
+            int current = running == null ? 0 : running;
+            acquired[0] = current < maxPerUser;
+            return acquired[0] ? current + 1 : running;
+        });
+        return acquired[0];
+    }
+
+    private void releaseUserHedge(String userKey) {
+        if (userKey != null) {
+            hedgesByUser.computeIfPresent(userKey, (key, running) -> running > 1 ? running - 1 : null);
+        }
+    }
+
+    /**
+     * One logical call: the requests sent for it, the pending timers and the result they race to complete.
+     */
+    private final class Call<T> {
+
+        private final ProviderState provider;
+        private final Supplier<CompletableFuture<T>> attempt;
+        private final Predicate<Throwable> retriable;
+        private final String userKey;
+        private final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getDeadlineMs());
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // Guarded by this
+        private final List<CompletableFuture<T>> requests = new ArrayList<>(2);
+        private int sent;
+        private int running;
+        private boolean hedged;
+
+        private Call(ProviderState provider, Supplier<CompletableFuture<T>> attempt, Predicate<Throwable> retriable,
+                     String userKey) {
+            this.provider = provider;
+            this.attempt = attempt;
+            this.retriable = retriable;
+            this.userKey = userKey;
+        }
+
+        private void start() {
+            provider.earnHedgeBudget();
+            if (config.getDeadlineMs() > 0) {
+                ScheduledFuture<?> timer = schedulingExecutor.schedule(this::deadlineExceeded,
+                        config.getDeadlineMs(), TimeUnit.MILLISECONDS);
+                result.whenComplete((value, error) -> timer.cancel(false));
+            }
+            result.whenComplete((value, error) -> cancelRunningRequests());
+            send(false);
+        }
+
+        /**
+         * @param hedge whether this is the hedged request, already counted as running by {@link #tryHedge}
+         */
+        private void send(boolean hedge) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    if (hedge) {
+                        running--;
+                        releaseUserHedge(userKey);
+                    }
+                    return;
+                }
+                sent++;
+                if (!hedge) {
+                    running++;
+                }
+            }
+            long startNanos = System.nanoTime();
+            CompletableFuture<T> request;
+            try {
+                request = attempt.get();
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                requests.add(request);
+            }
+            if (result.isDone()) {
+                // Lost the race against the result; cancelRunningRequests may have run before the add
+                request.cancel(true);
+            }
+            if (!hedge) {
+                scheduleHedge(request);
+            }
+            request.whenComplete((value, error) -> {
+                if (hedge) {
+                    releaseUserHedge(userKey);
+                }
+                if (error == null) {
+                    succeeded(value, startNanos, hedge);
+                } else {
+                    failed(error);
+                }
+            });
+        }
+
+        private void scheduleHedge(CompletableFuture<T> request) {
+            if (!config.getHedge().isEnabled()) {
+                return;
+            }
+            synchronized (this) {
+                if (hedged) {
+                    return;
+                }
+            }
+            Long p95 = provider.p95LatencyMs();
+            if (p95 == null) {
+                return;
+            }
+            long delayMs = Math.max(p95, config.getHedge().getMinDelayMs());
+            if (!startsBeforeDeadline(delayMs)) {
+                return;
+            }
+            schedulingExecutor.schedule(() -> {
+                if (request.isDone() || result.isDone()) {
+                    return;
+                }
+                if (!tryHedge()) {
+                    provider.hedgesSkipped.increment();
+                    return;
+                }
+                provider.hedges.increment();
+                log.info("{} request still running after {} ms (p95), sending a hedged request", provider.name, delayMs);
+                aiModelExecutor.execute(() -> send(true));
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private boolean tryHedge() {
+            synchronized (this) {
+                if (hedged || sent >= config.getMaxAttempts()) {
+                    return false;
+                }
+            }
+            if (providerBulkheads.get(provider.name).queued() > 0 || !tryAcquireUserHedge(userKey)) {
+                return false;
+            }
+            if (!provider.spendHedgeBudget()) {
+                releaseUserHedge(userKey);
+                return false;
+            }
+            synchronized (this) {
+                // Counted as running from now on, so a failure of the first request waits for it
+                hedged = true;
+                running++;
+            }
+            return true;
+        }
+
+        private void succeeded(T value, long startNanos, boolean hedge) {
+            synchronized (this) {
+                running--;
+            }
+            provider.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (result.complete(value) && hedge) {
+                provider.hedgeWins.increment();
+            }
+        }
+
+        private void failed(Throwable error) {
+            long backoffMs;
+            synchronized (this) {
+                running--;
+                if (result.isDone() || running > 0) {
+                    // Another request for this call may still succeed
+                    return;
+                }
+                if (!retriable.test(OpenAIImageClient.unwrap(error)) || sent >= config.getMaxAttempts()) {
+                    result.completeExceptionally(error);
+                    return;
+                }
+                backoffMs = backoffMs(sent);
+                if (!startsBeforeDeadline(backoffMs)) {
+                    result.completeExceptionally(error);
+                    return;
+                }
+            }
+            provider.retries.increment();
+            log.info("{} request failed ({}), retrying in {} ms", provider.name,
+                    OpenAIImageClient.unwrap(error).getMessage(), backoffMs);
+            schedulingExecutor.schedule(() -> aiModelExecutor.execute(() -> send(false)),
+                    backoffMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Abort the requests still running once the result is decided, so the losing one frees its bulkhead slot
+         * and connection instead of running to completion.
+         */
+        private void cancelRunningRequests() {
+            List<CompletableFuture<T>> pending;
+            synchronized (this) {
+                pending = new ArrayList<>(requests);
+                requests.clear();
+            }
+            for (CompletableFuture<T> request : pending) {
+                request.cancel(true);
+            }
+        }
+
+        private boolean startsBeforeDeadline(long delayMs) {
+            return config.getDeadlineMs() <= 0
+                    || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) - deadlineNanos < 0;
+        }
+
+        private void deadlineExceeded() {
+            if (result.completeExceptionally(new TimeoutException(
+                    "Timeout: no image from " + provider.name + " within " + config.getDeadlineMs() + " ms"))) {
+                provider.deadlineExceeded.increment();
+            }
+        }
+    }
+
+    /**
+     * Latency window and hedge budget of one provider.
+     */
+    private final class ProviderState {
+
+        private final String name;
+        private final long[] latenciesMs = new long[Math.max(1, config.getHedge().getLatencyWindow())];
+        private final Counter retries;
+        private final Counter hedges;
+        private final Counter hedgesSkipped;
+        private final Counter hedgeWins;
+        private final Counter deadlineExceeded;
+
+        // Guarded by this
+        private int samples;
+        private double hedgeBudget;
+
+        private ProviderState(String name) {
+            this.name = name;
+            this.hedgeBudget = config.getHedge().getMaxBudget();
+            retries = attemptCounter("retry");
+            hedges = attemptCounter("hedge");
+            hedgesSkipped = Counter.builder("ai.retry.hedges_skipped")
+                    .description("Hedges not sent because the budget, the user limit or the bulkhead queue forbade it")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            hedgeWins = Counter.builder("ai.retry.hedge_wins")
+                    .description("Calls answered by the hedged request")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            deadlineExceeded = Counter.builder("ai.retry.deadline_exceeded")
+                    .description("Calls failed because no request succeeded before the deadline")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            Gauge.builder("ai.retry.latency.p95", this, state -> {
+                        Long p95 = state.p95LatencyMs();
+                        return p95 != null ? p95 : Double.NaN;
+                    })
+                    .description("Observed p95 latency of successful requests, used as the hedge delay")
+                    .tag("provider", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+
+        private Counter attemptCounter(String kind) {
+            return Counter.builder("ai.retry.attempts")
+                    .description("Extra requests sent for image generation calls")
+                    .tag("provider", name)
+                    .tag("kind", kind)
+                    .register(meterRegistry);
+        }
+
+        private synchronized void recordLatency(long latencyMs) {
+            latenciesMs[samples % latenciesMs.length] = latencyMs;
+            samples++;
+        }
+
+        /**
+         * @return the p95 of the latency window, or null until {@code hedge.min-samples} calls succeeded
+         */
+        private Long p95LatencyMs() {
+            long[] window;
+            synchronized (this) {
+                if (samples < Math.max(1, config.getHedge().getMinSamples())) {
+                    return null;
+                }
+                window = Arrays.copyOf(latenciesMs, Math.min(samples, latenciesMs.length));
+            }
+            Arrays.sort(window);
+            return window[(int) Math.ceil(window.length * 0.95) - 1];
+        }
+
+        private synchronized void earnHedgeBudget() {
+            hedgeBudget = Math.min(config.getHedge().getMaxBudget(), hedgeBudget + config.getHedge().getBudgetRatio());
+        }
+
+        private synchronized boolean spendHedgeBudget() {
+            if (hedgeBudget < 1) {
+                return false;
+            }
+            hedgeBudget--;
+            return true;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.google.gson.JsonObject;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
@@ -21,6 +22,7 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -28,7 +30,10 @@ import java.util.concurrent.CompletableFuture;
 public class SeedVrUpscaleService {
     
     private final FalClient falClient;
+    private final ProviderBulkheads providerBulkheads;
     private final ObjectMapper objectMapper;
+    @Qualifier("aiModelExecutor")
+    private final ExecutorService aiModelExecutor;
     
     private static final String SEEDVR_UPSCALE_ENDPOINT = "fal-ai/seedvr/upscale/image";
     private static final float DEFAULT_UPSCALE_FACTOR = 2.0f;
@@ -118,7 +123,7 @@ public class SeedVrUpscaleService {
                 log.info("Making SeedVR upscale API call with input keys: {}", input.keySet());
                 
                 // Use fal.ai client API with queue update handling
-                Output<JsonObject> output = falClient.subscribe(SEEDVR_UPSCALE_ENDPOINT,
+                Output<JsonObject> output = providerBulkheads.call(ProviderBulkheads.FAL, () -> falClient.subscribe(SEEDVR_UPSCALE_ENDPOINT,
                     SubscribeOptions.<JsonObject>builder()
                         .input(input)
                         .logs(true)
@@ -130,7 +135,7 @@ public class SeedVrUpscaleService {
                             }
                         })
                         .build()
-                );
+                ));
                 log.debug("Received output from SeedVR upscale API: {}", output);
                 
                 // Extract the actual result from the Output wrapper
@@ -150,7 +155,7 @@ public class SeedVrUpscaleService {
                 log.error("Error calling SeedVR upscale API", e);
                 throw new FalAiException("Failed to upscale image with SeedVR. Please try again or use a different image.", e);
             }
-        });
+        }, aiModelExecutor);
     }
     
     private Map<String, Object> createUpscaleInputMap(String imageUrl, float upscaleFactor, Integer seed) {
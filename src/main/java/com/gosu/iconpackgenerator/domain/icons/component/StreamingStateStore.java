@@ -49,6 +49,11 @@ public class StreamingStateStore {
         activeEmitters.remove(requestId);
     }
 
+    // Only removes the emitter if it was not replaced by a reconnecting client in the meantime
+    public void removeEmitter(String requestId, SseEmitter emitter) {
+        activeEmitters.remove(requestId, emitter);
+    }
+
     // Methods for generationResults
     public void addResponse(String requestId, Object response) {
         generationResults.put(requestId, response);
@@ -1,20 +1,30 @@
 package com.gosu.iconpackgenerator.domain.icons.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gosu.iconpackgenerator.domain.icons.component.StreamingStateStore;
 import com.gosu.iconpackgenerator.domain.icons.controller.api.IconExportControllerAPI;
+import com.gosu.iconpackgenerator.domain.icons.dto.ExportJobProgressUpdate;
 import com.gosu.iconpackgenerator.domain.icons.dto.GalleryExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse;
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import com.gosu.iconpackgenerator.domain.icons.dto.GifGalleryExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.entity.GeneratedIcon;
 import com.gosu.iconpackgenerator.domain.icons.repository.GeneratedIconRepository;
 import com.gosu.iconpackgenerator.domain.icons.service.CoinManagementService;
+import com.gosu.iconpackgenerator.domain.icons.service.ExportJobService;
+import com.gosu.iconpackgenerator.util.ExportZipWriter;
 import com.gosu.iconpackgenerator.util.FileStorageService;
 import com.gosu.iconpackgenerator.domain.icons.service.IconExportService;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.user.service.CustomOAuth2User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,19 +32,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequiredArgsConstructor
@@ -42,29 +57,299 @@ import java.util.zip.ZipOutputStream;
 public class IconExportController implements IconExportControllerAPI {
 
     private final IconExportService iconExportService;
+    private final ExportJobService exportJobService;
     private final StreamingStateStore streamingStateStore;
     private final GeneratedIconRepository generatedIconRepository;
     private final FileStorageService fileStorageService;
     private final CoinManagementService coinManagementService;
+    private final ObjectMapper objectMapper;
+    @Qualifier("schedulingExecutor")
+    private final ScheduledExecutorService heartbeatScheduler;
+
+    @Value("${icon-export.streaming:true}")
+    private boolean streamingExport = true;
 
     @Override
     @ResponseBody
-    public ResponseEntity<byte[]> exportIcons(@RequestBody IconExportRequest exportRequest,
-                                              @AuthenticationPrincipal OAuth2User principal) {
-        String requestedService = exportRequest.getServiceName() != null ?
-                exportRequest.getServiceName().toLowerCase() : "gpt";
-        exportRequest.setServiceName(requestedService);
+    public ResponseEntity<StreamingResponseBody> exportIcons(@RequestBody IconExportRequest exportRequest,
+                                                             @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            log.warn("Unauthorized export attempt: no authenticated user");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(messageBody("User not authenticated"));
+        }
 
-        log.info("Received export request for service: {} from request: {} - creating comprehensive icon pack with all generations",
-                requestedService, exportRequest.getRequestId());
+        ResolvedExport export = resolveIconPackExport(exportRequest, customUser.getUser());
+        if (export.isFailed()) {
+            return export.errorResponse();
+        }
+
+        try {
+            return zipResponse(export.request(), export.fileName());
+
+        } catch (Exception e) {
+            log.error("Error creating icon pack export", e);
+            return ResponseEntity.internalServerError()
+                    .body(messageBody("Error creating icon pack"));
+        }
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> exportFromGallery(@RequestBody GalleryExportRequest galleryExportRequest,
+                                                                   @AuthenticationPrincipal OAuth2User principal) {
+        log.info("Received gallery export request for {} icons.", galleryExportRequest.getIconFilePaths().size());
 
         if (!(principal instanceof CustomOAuth2User customUser)) {
-            log.warn("Unauthorized export attempt: no authenticated user");
+            log.warn("Unauthorized gallery export attempt: no authenticated user");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(messageBody("User not authenticated"));
+        }
+
+        try {
+            ResolvedExport export = resolveGalleryExport(galleryExportRequest, customUser.getUser());
+            if (export.isFailed()) {
+                return export.errorResponse();
+            }
+
+            return zipResponse(export.request(), export.fileName());
+
+        } catch (Exception e) {
+            log.error("Error creating icon pack export from gallery", e);
+            return ResponseEntity.internalServerError()
+                    .body(messageBody("Error creating icon pack"));
+        }
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<byte[]> exportGifsFromGallery(@RequestBody GifGalleryExportRequest gifExportRequest,
+                                                        @AuthenticationPrincipal OAuth2User principal) {
+        if (gifExportRequest.getGifFilePaths() == null || gifExportRequest.getGifFilePaths().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body("No GIF file paths provided".getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            log.warn("Unauthorized GIF export attempt: no authenticated user");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("User not authenticated".getBytes(StandardCharsets.UTF_8));
         }
 
+        List<GeneratedIcon> userGifs = findUserGifs(gifExportRequest, customUser.getUser());
+        if (userGifs.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            if (userGifs.size() == 1) {
+                GeneratedIcon gifIcon = userGifs.get(0);
+                byte[] gifData = fileStorageService.readIcon(gifIcon.getFilePath());
+                String fileName = gifFileName(gifIcon);
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.IMAGE_GIF);
+                headers.setContentDispositionFormData("attachment", fileName);
+                headers.setContentLength(gifData.length);
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .body(gifData);
+            }
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeGifZip(userGifs, baos, IconExportService.ExportProgressListener.NONE);
+
+            byte[] zipData = baos.toByteArray();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentDispositionFormData("attachment",
+                    "gallery-gifs-" + System.currentTimeMillis() + ".zip");
+            headers.setContentLength(zipData.length);
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(zipData);
+
+        } catch (IOException e) {
+            log.error("Failed to export GIFs from gallery", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to export GIFs".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<ExportJobProgressUpdate> startExportJob(@RequestBody IconExportRequest exportRequest,
+                                                                  @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            log.warn("Unauthorized export job attempt: no authenticated user");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ExportJobProgressUpdate.failed(null, "User not authenticated"));
+        }
+
         User user = customUser.getUser();
+        ResolvedExport export = resolveIconPackExport(exportRequest, user);
+        return startIconPackJob(export, user);
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<ExportJobProgressUpdate> startGalleryExportJob(@RequestBody GalleryExportRequest galleryExportRequest,
+                                                                         @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            log.warn("Unauthorized gallery export job attempt: no authenticated user");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ExportJobProgressUpdate.failed(null, "User not authenticated"));
+        }
+
+        User user = customUser.getUser();
+        try {
+            ResolvedExport export = resolveGalleryExport(galleryExportRequest, user);
+            return startIconPackJob(export, user);
+        } catch (Exception e) {
+            log.error("Error starting gallery export job", e);
+            return ResponseEntity.internalServerError()
+                    .body(ExportJobProgressUpdate.failed(null, "Error creating icon pack"));
+        }
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<ExportJobProgressUpdate> startGifExportJob(@RequestBody GifGalleryExportRequest gifExportRequest,
+                                                                     @AuthenticationPrincipal OAuth2User principal) {
+        if (gifExportRequest.getGifFilePaths() == null || gifExportRequest.getGifFilePaths().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ExportJobProgressUpdate.failed(null, "No GIF file paths provided"));
+        }
+
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            log.warn("Unauthorized GIF export job attempt: no authenticated user");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ExportJobProgressUpdate.failed(null, "User not authenticated"));
+        }
+
+        User user = customUser.getUser();
+        List<GeneratedIcon> userGifs = findUserGifs(gifExportRequest, user);
+        if (userGifs.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ExportJobProgressUpdate.failed(null, "No GIFs found"));
+        }
+
+        // A single GIF is served as is, several are zipped, like the synchronous export
+        boolean singleGif = userGifs.size() == 1;
+        String fileName = singleGif ? gifFileName(userGifs.get(0)) : "gallery-gifs-" + System.currentTimeMillis() + ".zip";
+        String contentType = singleGif ? MediaType.IMAGE_GIF_VALUE : "application/zip";
+
+        try {
+            ExportJobProgressUpdate queued = exportJobService.submit(user.getId(), fileName, contentType, userGifs.size(),
+                    (outputStream, progressListener) -> {
+                        if (singleGif) {
+                            outputStream.write(fileStorageService.readIcon(userGifs.get(0).getFilePath()));
+                            progressListener.onIconExported(1, 1);
+                        } else {
+                            writeGifZip(userGifs, outputStream, progressListener);
+                        }
+                    },
+                    // GIF exports are free, there is nothing to refund
+                    () -> { },
+                    update -> sendJobUpdate(update.getJobId(), update));
+            return ResponseEntity.accepted().body(queued);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ExportJobProgressUpdate.failed(null, exportJobRejectedMessage()));
+        }
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<ExportJobProgressUpdate> getExportJobStatus(@PathVariable String jobId,
+                                                                      @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return exportJobService.getStatus(jobId, customUser.getUser().getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<SseEmitter> connectToExportJobStream(@PathVariable String jobId,
+                                                               @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Long userId = customUser.getUser().getId();
+        if (exportJobService.getStatus(jobId, userId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(600_000L);
+        streamingStateStore.addEmitter(jobId, emitter);
+
+        // Comments keep proxies from closing the stream while the job waits on slow upscale or vectorization calls
+        ScheduledFuture<?> heartbeatTask = heartbeatScheduler.scheduleAtFixedRate(() -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (Exception e) {
+                streamingStateStore.removeEmitter(jobId, emitter);
+            }
+        }, 15, 15, TimeUnit.SECONDS);
+
+        Runnable cleanup = () -> {
+            heartbeatTask.cancel(false);
+            streamingStateStore.removeEmitter(jobId, emitter);
+        };
+        // The job keeps running when the client goes away; it can reconnect or poll the status endpoint
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        // Replay the current state, so a (re)connecting client catches up and a finished job completes right away
+        exportJobService.getStatus(jobId, userId).ifPresent(update -> sendJobUpdate(jobId, update));
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    @Override
+    @ResponseBody
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable String jobId,
+                                                      @AuthenticationPrincipal OAuth2User principal) {
+        if (!(principal instanceof CustomOAuth2User customUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Long userId = customUser.getUser().getId();
+        return exportJobService.getArtifact(jobId, userId)
+                .map(artifact -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentType(MediaType.parseMediaType(artifact.contentType()));
+                    headers.setContentDispositionFormData("attachment", artifact.fileName());
+                    // Range requests are answered by Spring for Resource bodies; the artifact never changes,
+                    // so the job id is a stable validator for resumed downloads
+                    return ResponseEntity.ok()
+                            .headers(headers)
+                            .eTag(jobId)
+                            .lastModified(artifact.completedAt())
+                            .cacheControl(CacheControl.noCache().cachePrivate())
+                            .<Resource>body(new FileSystemResource(artifact.file()));
+                })
+                .orElseGet(() -> exportJobService.getStatus(jobId, userId).isPresent()
+                        ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                        : ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Collects the icons of an icon pack export and charges its premium options.
+     */
+    private ResolvedExport resolveIconPackExport(IconExportRequest exportRequest, User user) {
+        String requestedService = exportRequest.getServiceName() != null ?
+                exportRequest.getServiceName().toLowerCase() : "gpt";
+        exportRequest.setServiceName(requestedService);
+
+        log.info("Received export request for service: {} from request: {} - creating comprehensive icon pack with all generations",
+                requestedService, exportRequest.getRequestId());
 
         List<IconGenerationResponse.GeneratedIcon> iconsToExport = exportRequest.getIcons();
         log.info("Received export request with {} icons in the request body.", (iconsToExport != null ? iconsToExport.size() : 0));
@@ -75,7 +360,7 @@ public class IconExportController implements IconExportControllerAPI {
             IconGenerationResponse generationResponse = streamingStateStore.getResponse(exportRequest.getRequestId());
             if (generationResponse == null) {
                 log.error("No generation results found for request ID: {}", exportRequest.getRequestId());
-                return ResponseEntity.notFound().build();
+                return ResolvedExport.failed(HttpStatus.NOT_FOUND, null);
             }
 
             iconsToExport = new ArrayList<>();
@@ -89,10 +374,10 @@ public class IconExportController implements IconExportControllerAPI {
             if (serviceResults != null) {
                 // Export ALL icons from the specific generation index (all batches of that generation)
                 for (IconGenerationResponse.ServiceResults result : serviceResults) {
-                    if (result.getGenerationIndex() == exportRequest.getGenerationIndex() && 
+                    if (result.getGenerationIndex() == exportRequest.getGenerationIndex() &&
                         result.getIcons() != null && !result.getIcons().isEmpty()) {
                         iconsToExport.addAll(result.getIcons());
-                        log.info("Added {} icons from generation {} batch for service {}", 
+                        log.info("Added {} icons from generation {} batch for service {}",
                                 result.getIcons().size(), result.getGenerationIndex(), exportRequest.getServiceName());
                     }
                 }
@@ -101,7 +386,7 @@ public class IconExportController implements IconExportControllerAPI {
 
         if (iconsToExport.isEmpty()) {
             log.error("No icons found for service: {} in request: {}", requestedService, exportRequest.getRequestId());
-            return ResponseEntity.notFound().build();
+            return ResolvedExport.failed(HttpStatus.NOT_FOUND, null);
         }
 
         exportRequest.setIcons(iconsToExport);
@@ -111,15 +396,15 @@ public class IconExportController implements IconExportControllerAPI {
         int hqCoinCost = exportRequest.isHqUpscale() ? (int) Math.ceil(iconCount / 9.0) : 0;
         int totalCoinCost = vectorCoinCost + hqCoinCost;
 
+        CoinManagementService.CoinDeductionResult coinResult = null;
         if (totalCoinCost > 0) {
-            CoinManagementService.CoinDeductionResult coinResult = coinManagementService.deductCoinsForGeneration(user, totalCoinCost);
+            coinResult = coinManagementService.deductCoinsForGeneration(user, totalCoinCost);
             if (!coinResult.isSuccess()) {
                 log.warn("Insufficient coins for premium export options by user {}: {}", user.getEmail(), coinResult.getErrorMessage());
                 String errorMessage = coinResult.getErrorMessage() != null
                         ? coinResult.getErrorMessage()
                         : "Insufficient coins for premium export options.";
-                return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED)
-                        .body(errorMessage.getBytes(StandardCharsets.UTF_8));
+                return ResolvedExport.failed(HttpStatus.PAYMENT_REQUIRED, errorMessage);
             }
             log.info("Export coin deduction for user {}: deducted {} {} coin(s) (total cost: {}, vector: {}, hq: {}, icon count: {})",
                     user.getEmail(),
@@ -131,198 +416,228 @@ public class IconExportController implements IconExportControllerAPI {
                     iconsToExport.size());
         }
 
-        try {
-            byte[] zipData = iconExportService.createIconPackZip(exportRequest);
-
-            String fileName = "icon-pack-" + exportRequest.getRequestId() + "-" + exportRequest.getServiceName() + "-gen" + exportRequest.getGenerationIndex() + ".zip";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", fileName);
-            headers.setContentLength(zipData.length);
-
-            log.info("Successfully created ZIP file: {} ({} bytes)", fileName, zipData.length);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(zipData);
-
-        } catch (Exception e) {
-            log.error("Error creating icon pack export", e);
-            return ResponseEntity.internalServerError()
-                    .body("Error creating icon pack".getBytes());
-        }
+        String fileName = "icon-pack-" + exportRequest.getRequestId() + "-" + exportRequest.getServiceName() + "-gen" + exportRequest.getGenerationIndex() + ".zip";
+        return ResolvedExport.of(exportRequest, fileName, coinResult);
     }
 
-    @Override
-    @ResponseBody
-    public ResponseEntity<byte[]> exportFromGallery(@RequestBody GalleryExportRequest galleryExportRequest,
-                                                    @AuthenticationPrincipal OAuth2User principal) {
-        log.info("Received gallery export request for {} icons.", galleryExportRequest.getIconFilePaths().size());
+    /**
+     * Loads the selected gallery icons from storage and charges the premium options.
+     */
+    private ResolvedExport resolveGalleryExport(GalleryExportRequest galleryExportRequest, User user) {
+        List<IconGenerationResponse.GeneratedIcon> iconsToExport = new ArrayList<>();
+        List<GeneratedIcon> foundIcons = generatedIconRepository.findByFilePathIn(galleryExportRequest.getIconFilePaths());
+
+        for (GeneratedIcon generatedIcon : foundIcons) {
+            IconGenerationResponse.GeneratedIcon iconDto = new IconGenerationResponse.GeneratedIcon();
+            iconDto.setId(generatedIcon.getIconId());
+
+            try {
+                byte[] iconData = fileStorageService.readIcon(generatedIcon.getFilePath());
+                iconDto.setData(IconData.ofBytes(iconData).withStorageReference(generatedIcon.getFilePath()));
+            } catch (IOException e) {
+                log.error("Error reading icon file: {}", generatedIcon.getFilePath(), e);
+                continue; // Skip this icon if file can't be read
+            }
 
-        if (!(principal instanceof CustomOAuth2User customUser)) {
-            log.warn("Unauthorized gallery export attempt: no authenticated user");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("User not authenticated".getBytes(StandardCharsets.UTF_8));
+            iconDto.setDescription(generatedIcon.getDescription());
+            iconDto.setGridPosition(generatedIcon.getGridPosition());
+            iconDto.setServiceSource(generatedIcon.getServiceSource());
+            iconsToExport.add(iconDto);
         }
 
-        User user = customUser.getUser();
-
-        try {
-            List<IconGenerationResponse.GeneratedIcon> iconsToExport = new ArrayList<>();
-            List<GeneratedIcon> foundIcons = generatedIconRepository.findByFilePathIn(galleryExportRequest.getIconFilePaths());
-
-            for (GeneratedIcon generatedIcon : foundIcons) {
-                IconGenerationResponse.GeneratedIcon iconDto = new IconGenerationResponse.GeneratedIcon();
-                iconDto.setId(generatedIcon.getIconId());
-
-                try {
-                    byte[] iconData = fileStorageService.readIcon(generatedIcon.getFilePath());
-                    iconDto.setBase64Data(Base64.getEncoder().encodeToString(iconData));
-                } catch (IOException e) {
-                    log.error("Error reading icon file: {}", generatedIcon.getFilePath(), e);
-                    continue; // Skip this icon if file can't be read
-                }
+        if (iconsToExport.isEmpty()) {
+            log.error("No icons found for the given file paths.");
+            return ResolvedExport.failed(HttpStatus.NOT_FOUND, null);
+        }
 
-                iconDto.setDescription(generatedIcon.getDescription());
-                iconDto.setGridPosition(generatedIcon.getGridPosition());
-                iconDto.setServiceSource(generatedIcon.getServiceSource());
-                iconsToExport.add(iconDto);
-            }
+        IconExportRequest exportRequest = new IconExportRequest();
+        exportRequest.setIcons(iconsToExport);
+        exportRequest.setRequestId("gallery-export-" + UUID.randomUUID().toString().substring(0, 8));
+        exportRequest.setServiceName("gallery");
+        exportRequest.setGenerationIndex(1);
+        exportRequest.setFormats(galleryExportRequest.getFormats()); // Pass formats from gallery request
+        exportRequest.setVectorizeSvg(galleryExportRequest.isVectorizeSvg());
+        exportRequest.setHqUpscale(galleryExportRequest.isHqUpscale());
 
-            if (iconsToExport.isEmpty()) {
-                log.error("No icons found for the given file paths.");
-                return ResponseEntity.notFound().build();
-            }
+        int iconCount = Math.max(iconsToExport.size(), 1);
+        int galleryVectorCost = exportRequest.isVectorizeSvg() ? (int) Math.ceil(iconCount / 9.0) : 0;
+        int galleryHqCost = exportRequest.isHqUpscale() ? (int) Math.ceil(iconCount / 9.0) : 0;
+        int galleryTotalCost = galleryVectorCost + galleryHqCost;
 
-            IconExportRequest exportRequest = new IconExportRequest();
-            exportRequest.setIcons(iconsToExport);
-            exportRequest.setRequestId("gallery-export-" + UUID.randomUUID().toString().substring(0, 8));
-            exportRequest.setServiceName("gallery");
-            exportRequest.setGenerationIndex(1);
-            exportRequest.setFormats(galleryExportRequest.getFormats()); // Pass formats from gallery request
-            exportRequest.setVectorizeSvg(galleryExportRequest.isVectorizeSvg());
-            exportRequest.setHqUpscale(galleryExportRequest.isHqUpscale());
-
-            int iconCount = Math.max(iconsToExport.size(), 1);
-            int galleryVectorCost = exportRequest.isVectorizeSvg() ? (int) Math.ceil(iconCount / 9.0) : 0;
-            int galleryHqCost = exportRequest.isHqUpscale() ? (int) Math.ceil(iconCount / 9.0) : 0;
-            int galleryTotalCost = galleryVectorCost + galleryHqCost;
-
-            if (galleryTotalCost > 0) {
-                CoinManagementService.CoinDeductionResult coinResult = coinManagementService.deductCoinsForGeneration(user, galleryTotalCost);
-                if (!coinResult.isSuccess()) {
-                    log.warn("Insufficient coins for gallery premium export options by user {}: {}", user.getEmail(), coinResult.getErrorMessage());
-                    String errorMessage = coinResult.getErrorMessage() != null
-                            ? coinResult.getErrorMessage()
-                            : "Insufficient coins for premium export options.";
-                    return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED)
-                            .body(errorMessage.getBytes(StandardCharsets.UTF_8));
-                }
-                log.info("Gallery export coin deduction for user {}: deducted {} {} coin(s) (total cost: {}, vector: {}, hq: {}, icon count: {})",
-                        user.getEmail(),
-                        coinResult.getDeductedAmount(),
-                        coinResult.isUsedTrialCoins() ? "trial" : "regular",
-                        galleryTotalCost,
-                        galleryVectorCost,
-                        galleryHqCost,
-                        iconsToExport.size());
+        CoinManagementService.CoinDeductionResult coinResult = null;
+        if (galleryTotalCost > 0) {
+            coinResult = coinManagementService.deductCoinsForGeneration(user, galleryTotalCost);
+            if (!coinResult.isSuccess()) {
+                log.warn("Insufficient coins for gallery premium export options by user {}: {}", user.getEmail(), coinResult.getErrorMessage());
+                String errorMessage = coinResult.getErrorMessage() != null
+                        ? coinResult.getErrorMessage()
+                        : "Insufficient coins for premium export options.";
+                return ResolvedExport.failed(HttpStatus.PAYMENT_REQUIRED, errorMessage);
             }
+            log.info("Gallery export coin deduction for user {}: deducted {} {} coin(s) (total cost: {}, vector: {}, hq: {}, icon count: {})",
+                    user.getEmail(),
+                    coinResult.getDeductedAmount(),
+                    coinResult.isUsedTrialCoins() ? "trial" : "regular",
+                    galleryTotalCost,
+                    galleryVectorCost,
+                    galleryHqCost,
+                    iconsToExport.size());
+        }
 
-            byte[] zipData = iconExportService.createIconPackZip(exportRequest);
-
-            String fileName = "icon-pack-gallery.zip";
+        return ResolvedExport.of(exportRequest, "icon-pack-gallery.zip", coinResult);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", fileName);
-            headers.setContentLength(zipData.length);
+    private ResponseEntity<ExportJobProgressUpdate> startIconPackJob(ResolvedExport export, User user) {
+        if (export.isFailed()) {
+            String message = export.errorMessage() != null ? export.errorMessage() : "No icons found";
+            return ResponseEntity.status(export.errorStatus())
+                    .body(ExportJobProgressUpdate.failed(null, message));
+        }
 
-            log.info("Successfully created ZIP file from gallery export: {} ({} bytes)", fileName, zipData.length);
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(zipData);
+        Runnable refund = () -> refundExport(user, export.coinResult());
+        try {
+            ExportJobProgressUpdate queued = exportJobService.submitIconPack(export.request(), user.getId(), export.fileName(),
+                    refund, update -> sendJobUpdate(update.getJobId(), update));
+            return ResponseEntity.accepted().body(queued);
+        } catch (RejectedExecutionException e) {
+            refund.run();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ExportJobProgressUpdate.failed(null, exportJobRejectedMessage()));
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error creating icon pack export from gallery", e);
-            return ResponseEntity.internalServerError()
-                    .body("Error creating icon pack".getBytes());
+    private void refundExport(User user, CoinManagementService.CoinDeductionResult coinResult) {
+        if (coinResult != null && coinResult.getDeductedAmount() > 0) {
+            coinManagementService.refundCoins(user, coinResult.getDeductedAmount(), coinResult.isUsedTrialCoins());
         }
     }
 
-    @Override
-    @ResponseBody
-    public ResponseEntity<byte[]> exportGifsFromGallery(@RequestBody GifGalleryExportRequest gifExportRequest,
-                                                        @AuthenticationPrincipal OAuth2User principal) {
-        if (gifExportRequest.getGifFilePaths() == null || gifExportRequest.getGifFilePaths().isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body("No GIF file paths provided".getBytes(StandardCharsets.UTF_8));
+    private String exportJobRejectedMessage() {
+        return exportJobService.isEnabled()
+                ? "Too many exports in progress, please try again shortly"
+                : "Background exports are unavailable, please use the direct download";
+    }
+
+    private void sendJobUpdate(String jobId, ExportJobProgressUpdate update) {
+        SseEmitter emitter = streamingStateStore.getEmitter(jobId);
+        if (emitter == null) {
+            log.debug("No client connected to export job stream: {}", jobId);
+            return;
         }
 
-        if (!(principal instanceof CustomOAuth2User customUser)) {
-            log.warn("Unauthorized GIF export attempt: no authenticated user");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("User not authenticated".getBytes(StandardCharsets.UTF_8));
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(update.getEventType())
+                    .data(objectMapper.writeValueAsString(update)));
+            if (update.isTerminal()) {
+                emitter.complete();
+                streamingStateStore.removeEmitter(jobId, emitter);
+            }
+        } catch (Exception e) {
+            // Client went away; the job carries on and the client can reconnect
+            log.debug("Could not send export job update for {}: {}", jobId, e.getMessage());
+            streamingStateStore.removeEmitter(jobId, emitter);
         }
+    }
 
-        User user = customUser.getUser();
+    private List<GeneratedIcon> findUserGifs(GifGalleryExportRequest gifExportRequest, User user) {
         List<GeneratedIcon> generatedGifs = generatedIconRepository.findByFilePathIn(gifExportRequest.getGifFilePaths());
-        List<GeneratedIcon> userGifs = generatedGifs.stream()
+        return generatedGifs.stream()
                 .filter(icon -> icon.getUser().getId().equals(user.getId()))
                 .filter(icon -> icon.getFileName() != null && icon.getFileName().toLowerCase().endsWith(".gif"))
                 .toList();
+    }
 
-        if (userGifs.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        try {
-            if (userGifs.size() == 1) {
-                GeneratedIcon gifIcon = userGifs.get(0);
+    private void writeGifZip(List<GeneratedIcon> gifs, OutputStream outputStream,
+                             IconExportService.ExportProgressListener progressListener) throws IOException {
+        ExportZipWriter zip = new ExportZipWriter(outputStream);
+        int exported = 0;
+        for (GeneratedIcon gifIcon : gifs) {
+            try {
                 byte[] gifData = fileStorageService.readIcon(gifIcon.getFilePath());
-                String fileName = gifIcon.getFileName() != null ? gifIcon.getFileName() : "gallery-animation.gif";
-
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.IMAGE_GIF);
-                headers.setContentDispositionFormData("attachment", fileName);
-                headers.setContentLength(gifData.length);
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .body(gifData);
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                for (GeneratedIcon gifIcon : userGifs) {
-                    try {
-                        byte[] gifData = fileStorageService.readIcon(gifIcon.getFilePath());
-                        String entryName = gifIcon.getFileName();
-                        if (entryName == null || entryName.isBlank()) {
-                            entryName = gifIcon.getIconId() + ".gif";
-                        }
-                        zos.putNextEntry(new ZipEntry(entryName));
-                        zos.write(gifData);
-                        zos.closeEntry();
-                    } catch (IOException e) {
-                        log.error("Error reading GIF file {} for export", gifIcon.getFilePath(), e);
-                    }
+                String entryName = gifIcon.getFileName();
+                if (entryName == null || entryName.isBlank()) {
+                    entryName = gifIcon.getIconId() + ".gif";
                 }
-                zos.finish();
+                zip.write(entryName, gifData);
+            } catch (IOException e) {
+                log.error("Error reading GIF file {} for export", gifIcon.getFilePath(), e);
             }
+            progressListener.onIconExported(++exported, gifs.size());
+        }
+        zip.finish();
+    }
 
-            byte[] zipData = baos.toByteArray();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment",
-                    "gallery-gifs-" + System.currentTimeMillis() + ".zip");
+    private static String gifFileName(GeneratedIcon gifIcon) {
+        return gifIcon.getFileName() != null ? gifIcon.getFileName() : "gallery-animation.gif";
+    }
+
+    /**
+     * ZIP download for an icon pack. In streaming mode the archive is written straight to the response as
+     * each icon is rendered (chunked, no Content-Length); otherwise it is built in memory first.
+     */
+    private ResponseEntity<StreamingResponseBody> zipResponse(IconExportRequest exportRequest, String fileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentDispositionFormData("attachment", fileName);
+
+        if (!streamingExport) {
+            byte[] zipData = iconExportService.createIconPackZip(exportRequest);
             headers.setContentLength(zipData.length);
+            log.info("Successfully created ZIP file: {} ({} bytes)", fileName, zipData.length);
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(zipData);
+                    .body(outputStream -> outputStream.write(zipData));
+        }
 
-        } catch (IOException e) {
-            log.error("Failed to export GIFs from gallery", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to export GIFs".getBytes(StandardCharsets.UTF_8));
+        // Keep reverse proxies from buffering the archive before passing it on
+        headers.set("X-Accel-Buffering", "no");
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(outputStream -> {
+                    long start = System.currentTimeMillis();
+                    try {
+                        iconExportService.writeIconPackZip(exportRequest, outputStream);
+                    } catch (IOException | RuntimeException e) {
+                        // Headers may already be sent; the client sees a truncated download
+                        log.error("Error streaming icon pack export: {}", fileName, e);
+                        throw e;
+                    }
+                    log.info("Successfully streamed ZIP file: {} in {} ms", fileName, System.currentTimeMillis() - start);
+                });
+    }
+
+    private static StreamingResponseBody messageBody(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return outputStream -> outputStream.write(bytes);
+    }
+
+    /**
+     * Icons and file name of an export whose premium options were paid for, or the response to send instead.
+     */
+    private record ResolvedExport(IconExportRequest request,
+                                  String fileName,
+                                  CoinManagementService.CoinDeductionResult coinResult,
+                                  HttpStatus errorStatus,
+                                  String errorMessage) {
+
+        static ResolvedExport of(IconExportRequest request, String fileName,
+                                 CoinManagementService.CoinDeductionResult coinResult) {
+            return new ResolvedExport(request, fileName, coinResult, null, null);
+        }
+
+        static ResolvedExport failed(HttpStatus status, String message) {
+            return new ResolvedExport(null, null, null, status, message);
+        }
+
+        boolean isFailed() {
+            return errorStatus != null;
+        }
+
+        ResponseEntity<StreamingResponseBody> errorResponse() {
+            return errorMessage == null
+                    ? ResponseEntity.status(errorStatus).build()
+                    : ResponseEntity.status(errorStatus).body(messageBody(errorMessage));
         }
     }
 }
@@ -9,6 +9,7 @@ import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse;
 import com.gosu.iconpackgenerator.domain.icons.dto.MoreIconsRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.MoreIconsResponse;
 import com.gosu.iconpackgenerator.domain.icons.dto.ServiceProgressUpdate;
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import com.gosu.iconpackgenerator.domain.icons.service.CoinManagementService;
 import com.gosu.iconpackgenerator.domain.ai.Gpt15ModelService;
 import com.gosu.iconpackgenerator.domain.ai.Gpt2ModelService;
@@ -22,10 +23,10 @@ import com.gosu.iconpackgenerator.domain.status.GenerationStatusService;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.user.service.CustomOAuth2User;
 import com.gosu.iconpackgenerator.util.WatermarkService;
-import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -43,7 +44,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -72,26 +72,8 @@ public class IconGenerationController implements IconGenerationControllerAPI {
     private final GenerationStatusService generationStatusService;
     private final WatermarkService watermarkService;
 
-    private final ScheduledExecutorService heartbeatScheduler = Executors.newScheduledThreadPool(5);
-
-    /**
-     * Cleanup method to shutdown the heartbeat scheduler
-     */
-    @PreDestroy
-    public void cleanup() {
-        if (heartbeatScheduler != null && !heartbeatScheduler.isShutdown()) {
-            log.info("Shutting down SSE heartbeat scheduler");
-            heartbeatScheduler.shutdown();
-            try {
-                if (!heartbeatScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    heartbeatScheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                heartbeatScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
+    @Qualifier("schedulingExecutor")
+    private final ScheduledExecutorService heartbeatScheduler;
 
     @Override
     @ResponseBody
@@ -403,10 +385,11 @@ public class IconGenerationController implements IconGenerationControllerAPI {
 
                 byte[] originalImageData = Base64.getDecoder().decode(request.getOriginalImageBase64());
                 String prompt = promptGenerationService.generatePromptForReferenceImage(request.getIconDescriptions(), request.getGeneralDescription());
-                CompletableFuture<byte[]> generationFuture = getServiceAndGenerate(request.getServiceName(), prompt, originalImageData, request.getSeed());
+                CompletableFuture<byte[]> generationFuture = getServiceAndGenerate(request.getServiceName(), prompt,
+                        originalImageData, request.getSeed(), String.valueOf(user.getId()));
                 byte[] newImageData = generationFuture.join();
-                List<String> base64Icons = imageProcessingService.cropIconsFromGrid(newImageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true);
-                List<IconGenerationResponse.GeneratedIcon> newIcons = createIconList(base64Icons, request);
+                List<IconData> croppedIcons = imageProcessingService.cropIconDataFromGrid(newImageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true, request.getServiceName());
+                List<IconGenerationResponse.GeneratedIcon> newIcons = createIconList(croppedIcons, request);
 
                 try {
                     if (usedTrialCoin) {
@@ -490,7 +473,8 @@ public class IconGenerationController implements IconGenerationControllerAPI {
         return deferredResult;
     }
 
-    private CompletableFuture<byte[]> getServiceAndGenerate(String serviceName, String prompt, byte[] originalImageData, Long seed) {
+    private CompletableFuture<byte[]> getServiceAndGenerate(String serviceName, String prompt, byte[] originalImageData,
+                                                            Long seed, String userKey) {
         log.info("Generating more icons with service: {} using seed: {}", serviceName, seed);
 
         switch (serviceName.toLowerCase()) {
@@ -498,17 +482,17 @@ public class IconGenerationController implements IconGenerationControllerAPI {
                 if (!aiServicesConfig.isGptEnabled()) {
                     throw new RuntimeException("GPT service is disabled");
                 }
-                return gptModelService.generateImageToImage(prompt, originalImageData, seed);
+                return gptModelService.generateImageToImage(prompt, originalImageData, seed, userKey);
             case "gpt15":
                 if (!aiServicesConfig.isGpt15Enabled()) {
                     throw new RuntimeException("GPT 1.5 service is disabled");
                 }
-                return gpt15ModelService.generateImageToImage(prompt, originalImageData, seed);
+                return gpt15ModelService.generateImageToImage(prompt, originalImageData, seed, userKey);
             case "gpt2":
                 if (!aiServicesConfig.isGpt2Enabled()) {
                     throw new RuntimeException("GPT 2 service is disabled");
                 }
-                return gpt2ModelService.generateImageToImage(prompt, originalImageData, seed);
+                return gpt2ModelService.generateImageToImage(prompt, originalImageData, seed, userKey);
             default:
                 throw new RuntimeException("Unknown service: " + serviceName);
         }
@@ -518,13 +502,14 @@ public class IconGenerationController implements IconGenerationControllerAPI {
         return "gpt2".equalsIgnoreCase(serviceName) ? 2 : 1;
     }
 
-    private List<IconGenerationResponse.GeneratedIcon> createIconList(List<String> base64Icons, MoreIconsRequest request) {
+    private List<IconGenerationResponse.GeneratedIcon> createIconList(List<IconData> croppedIcons, MoreIconsRequest request) {
         List<IconGenerationResponse.GeneratedIcon> icons = new ArrayList<>();
 
-        for (int i = 0; i < base64Icons.size(); i++) {
+        for (int i = 0; i < croppedIcons.size(); i++) {
             IconGenerationResponse.GeneratedIcon icon = new IconGenerationResponse.GeneratedIcon();
             icon.setId(UUID.randomUUID().toString());
-            icon.setBase64Data(base64Icons.get(i));
+            icon.setData(croppedIcons.get(i));
+            icon.setInlineData(request.isInlineImageData());
 
             if (request.getIconDescriptions() != null && i < request.getIconDescriptions().size()) {
                 icon.setDescription(request.getIconDescriptions().get(i));
@@ -546,8 +531,8 @@ public class IconGenerationController implements IconGenerationControllerAPI {
         }
 
         for (IconGenerationResponse.GeneratedIcon icon : icons) {
-            if (icon.getBase64Data() != null && !icon.getBase64Data().isBlank()) {
-                icon.setBase64Data(watermarkService.applyTrialWatermark(icon.getBase64Data()));
+            if (icon.hasImageData()) {
+                icon.setData(watermarkService.applyTrialWatermark(icon.getData()));
             }
         }
     }
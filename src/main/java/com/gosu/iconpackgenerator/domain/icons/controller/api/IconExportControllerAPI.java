@@ -1,16 +1,22 @@
 package com.gosu.iconpackgenerator.domain.icons.controller.api;
 
+import com.gosu.iconpackgenerator.domain.icons.dto.ExportJobProgressUpdate;
 import com.gosu.iconpackgenerator.domain.icons.dto.GalleryExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.GifGalleryExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconExportRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Icon Export API", description = "Endpoints for exporting icons")
 public interface IconExportControllerAPI {
@@ -18,18 +24,54 @@ public interface IconExportControllerAPI {
     @Operation(summary = "Export icons as a ZIP file", description = "Creates and returns a ZIP file containing the generated icons.")
     @PostMapping("/export")
     @ResponseBody
-    ResponseEntity<byte[]> exportIcons(@RequestBody IconExportRequest exportRequest,
-                                       @AuthenticationPrincipal OAuth2User principal);
+    ResponseEntity<StreamingResponseBody> exportIcons(@RequestBody IconExportRequest exportRequest,
+                                                      @AuthenticationPrincipal OAuth2User principal);
 
     @Operation(summary = "Export selected icons from gallery as a ZIP file", description = "Creates and returns a ZIP file containing selected icons from the gallery.")
     @PostMapping("/api/export-gallery")
     @ResponseBody
-    ResponseEntity<byte[]> exportFromGallery(@RequestBody GalleryExportRequest galleryExportRequest,
-                                             @AuthenticationPrincipal OAuth2User principal);
+    ResponseEntity<StreamingResponseBody> exportFromGallery(@RequestBody GalleryExportRequest galleryExportRequest,
+                                                            @AuthenticationPrincipal OAuth2User principal);
 
     @Operation(summary = "Export GIF files from gallery", description = "Downloads selected GIF files as either a single GIF or ZIP archive.")
     @PostMapping("/api/gallery/export-gifs")
     @ResponseBody
     ResponseEntity<byte[]> exportGifsFromGallery(@RequestBody GifGalleryExportRequest gifExportRequest,
                                                  @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Start an icon pack export job", description = "Queues the export in the background and returns the job id. Follow progress on the job stream and download the ZIP once it completes.")
+    @PostMapping("/api/export-jobs")
+    @ResponseBody
+    ResponseEntity<ExportJobProgressUpdate> startExportJob(@RequestBody IconExportRequest exportRequest,
+                                                           @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Start a gallery export job", description = "Queues an export of selected gallery icons in the background and returns the job id.")
+    @PostMapping("/api/export-jobs/gallery")
+    @ResponseBody
+    ResponseEntity<ExportJobProgressUpdate> startGalleryExportJob(@RequestBody GalleryExportRequest galleryExportRequest,
+                                                                  @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Start a gallery GIF export job", description = "Queues an export of selected gallery GIFs in the background and returns the job id.")
+    @PostMapping("/api/export-jobs/gallery-gifs")
+    @ResponseBody
+    ResponseEntity<ExportJobProgressUpdate> startGifExportJob(@RequestBody GifGalleryExportRequest gifExportRequest,
+                                                              @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Get export job status", description = "Returns the latest progress update of an export job.")
+    @GetMapping("/api/export-jobs/{jobId}")
+    @ResponseBody
+    ResponseEntity<ExportJobProgressUpdate> getExportJobStatus(@PathVariable String jobId,
+                                                               @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Stream export job progress", description = "Server-sent events with per-icon progress. The current state is replayed on connect, so clients can reconnect at any time.")
+    @GetMapping("/api/export-jobs/{jobId}/stream")
+    @ResponseBody
+    ResponseEntity<SseEmitter> connectToExportJobStream(@PathVariable String jobId,
+                                                        @AuthenticationPrincipal OAuth2User principal);
+
+    @Operation(summary = "Download an export job result", description = "Serves the finished archive until it expires. Supports HTTP Range requests for resumable downloads.")
+    @GetMapping("/api/export-jobs/{jobId}/download")
+    @ResponseBody
+    ResponseEntity<Resource> downloadExportJob(@PathVariable String jobId,
+                                               @AuthenticationPrincipal OAuth2User principal);
 }
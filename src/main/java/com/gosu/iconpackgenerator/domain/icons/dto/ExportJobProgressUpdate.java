@@ -0,0 +1,79 @@
+package com.gosu.iconpackgenerator.domain.icons.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * SSE payload and status snapshot of a background export job.
+ */
+@Data
+@Builder
+public class ExportJobProgressUpdate {
+
+    private String jobId;
+    private String status; // "queued", "in_progress", "completed", "error"
+    private String eventType; // "export_progress", "export_complete", "export_error"
+    private String message;
+    private int totalIcons;
+    private int completedIcons;
+    private String fileName;
+    private Long sizeBytes;
+    private String downloadUrl;
+    private Long expiresAt;
+
+    public static ExportJobProgressUpdate queued(String jobId, int totalIcons, String fileName) {
+        return ExportJobProgressUpdate.builder()
+                .jobId(jobId)
+                .status("queued")
+                .eventType("export_progress")
+                .message("Waiting for a free export slot")
+                .totalIcons(totalIcons)
+                .completedIcons(0)
+                .fileName(fileName)
+                .build();
+    }
+
+    public static ExportJobProgressUpdate progress(String jobId, int totalIcons, int completedIcons,
+                                                   String fileName, String message) {
+        return ExportJobProgressUpdate.builder()
+                .jobId(jobId)
+                .status("in_progress")
+                .eventType("export_progress")
+                .message(message)
+                .totalIcons(totalIcons)
+                .completedIcons(completedIcons)
+                .fileName(fileName)
+                .build();
+    }
+
+    public static ExportJobProgressUpdate completed(String jobId, int totalIcons, String fileName, long sizeBytes,
+                                                    String downloadUrl, long expiresAt) {
+        return ExportJobProgressUpdate.builder()
+                .jobId(jobId)
+                .status("completed")
+                .eventType("export_complete")
+                .message("Export ready")
+                .totalIcons(totalIcons)
+                .completedIcons(totalIcons)
+                .fileName(fileName)
+                .sizeBytes(sizeBytes)
+                .downloadUrl(downloadUrl)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    public static ExportJobProgressUpdate failed(String jobId, String errorMessage) {
+        return ExportJobProgressUpdate.builder()
+                .jobId(jobId)
+                .status("error")
+                .eventType("export_error")
+                .message(errorMessage)
+                .build();
+    }
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return "export_complete".equals(eventType) || "export_error".equals(eventType);
+    }
+}
@@ -58,6 +58,11 @@ public class IconGenerationRequest {
      * from the general theme and use them instead of manual per-icon descriptions.
      */
     private boolean designLogo;
+
+    /**
+     * When true, persisted icons are returned with inline base64 data as well as their image URL.
+     */
+    private boolean inlineImageData;
     
     /**
      * Custom validation to ensure either generalDescription or referenceImageBase64 is provided
@@ -1,7 +1,12 @@
 package com.gosu.iconpackgenerator.domain.icons.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import lombok.Data;
 
+import java.util.Arrays;
 import java.util.List;
 
 @Data
@@ -28,10 +33,47 @@ public class IconGenerationResponse {
     @Data
     public static class GeneratedIcon {
         private String id;
-        private String base64Data;
+        @JsonIgnore
+        private IconData data;
         private String description;
         private int gridPosition;
         private String serviceSource; // "flux", "recraft", "photon", "gpt", "gpt15", or "banana"
+
+        /**
+         * Whether the client asked for inline base64 even when the icon can be loaded from {@link #getImageUrl()}.
+         */
+        @JsonIgnore
+        private boolean inlineData;
+
+        /**
+         * Public web path of the persisted icon, once it has one.
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+        public String getImageUrl() {
+            return data == null ? null : data.getPublicUrl();
+        }
+
+        /**
+         * Inline image for JSON clients, encoded on each call. Only sent for icons without a public URL or when the
+         * client opted in with {@code inlineImageData}; internal code should use {@link #getData()}.
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public String getBase64Data() {
+            if (data == null || (!inlineData && data.getPublicUrl() != null)) {
+                return null;
+            }
+            return data.toBase64();
+        }
+
+        public void setBase64Data(String base64Data) {
+            this.data = IconData.ofBase64(base64Data);
+        }
+
+        @JsonIgnore
+        public boolean hasImageData() {
+            return data != null && data.hasBytes() && data.size() > 0;
+        }
     }
     
     @Data
@@ -50,6 +92,25 @@ public class IconGenerationResponse {
         private String originalGridImageBase64;
     }
     
+    /**
+     * Send inline base64 for every icon in this response, including icons clients could load by URL.
+     */
+    public void includeInlineImageData() {
+        markInline(icons);
+        for (List<ServiceResults> results : Arrays.asList(falAiResults, recraftResults, photonResults, gptResults,
+                gpt15Results, gpt2Results, bananaResults)) {
+            if (results != null) {
+                results.forEach(result -> markInline(result.getIcons()));
+            }
+        }
+    }
+
+    private static void markInline(List<GeneratedIcon> icons) {
+        if (icons != null) {
+            icons.forEach(icon -> icon.setInlineData(true));
+        }
+    }
+
     /**
      * @deprecated Use getBananaResults() instead
      */
@@ -46,4 +46,9 @@ public class MoreIconsRequest {
      * The generation index from the original request
      */
     private int generationIndex;
+
+    /**
+     * When true, persisted icons are returned with inline base64 data as well as their image URL
+     */
+    private boolean inlineImageData;
 }
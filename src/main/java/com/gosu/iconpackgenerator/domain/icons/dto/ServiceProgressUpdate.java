@@ -13,7 +13,7 @@ public class ServiceProgressUpdate {
     
     private String requestId;
     private String serviceName; // "flux", "recraft", "photon", "gpt", "gpt15", "gpt2", "banana"
-    private String status; // "started", "upscaling", "success", "error", "complete"
+    private String status; // "started", "queued", "upscaling", "success", "error", "complete"
     private String message;
     private List<IconGenerationResponse.GeneratedIcon> icons;
     private String originalGridImageBase64;
@@ -21,38 +21,44 @@ public class ServiceProgressUpdate {
     private String eventType; // "service_update", "generation_complete"
     private int generationIndex;
     private boolean trialMode;
+    private Integer queuePosition; // 1-based place in the provider's wait queue while status is "queued"
     
     // Static factory methods for different update types
     public static ServiceProgressUpdate serviceStarted(String requestId, String serviceName, int generationIndex) {
         return new ServiceProgressUpdate(requestId, serviceName, "started", 
-                "Generation started", null, null, null, "service_update", generationIndex, false);
+                "Generation started", null, null, null, "service_update", generationIndex, false, null);
+    }
+    
+    public static ServiceProgressUpdate serviceQueued(String requestId, String serviceName, int queuePosition, int generationIndex) {
+        return new ServiceProgressUpdate(requestId, serviceName, "queued",
+                "Waiting for a free slot (position " + queuePosition + ")", null, null, null, "service_update", generationIndex, false, queuePosition);
     }
     
     public static ServiceProgressUpdate serviceUpscaling(String requestId, String serviceName, int generationIndex) {
         return new ServiceProgressUpdate(requestId, serviceName, "upscaling", 
-                "Upscaling...", null, null, null, "service_update", generationIndex, false);
+                "Upscaling...", null, null, null, "service_update", generationIndex, false, null);
     }
     
     public static ServiceProgressUpdate serviceCompleted(String requestId, String serviceName, 
             List<IconGenerationResponse.GeneratedIcon> icons, String originalGridImageBase64, Long generationTimeMs, int generationIndex) {
         return new ServiceProgressUpdate(requestId, serviceName, "success", 
-                "Generation completed", icons, originalGridImageBase64, generationTimeMs, "service_update", generationIndex, false);
+                "Generation completed", icons, originalGridImageBase64, generationTimeMs, "service_update", generationIndex, false, null);
     }
     
     public static ServiceProgressUpdate serviceFailed(String requestId, String serviceName, 
             String errorMessage, Long generationTimeMs, int generationIndex) {
         return new ServiceProgressUpdate(requestId, serviceName, "error", 
-                errorMessage, null, null, generationTimeMs, "service_update", generationIndex, false);
+                errorMessage, null, null, generationTimeMs, "service_update", generationIndex, false, null);
     }
     
     public static ServiceProgressUpdate allComplete(String requestId, String message) {
         return new ServiceProgressUpdate(requestId, null, "complete", 
-                message, null, null, null, "generation_complete", 0, false);
+                message, null, null, null, "generation_complete", 0, false, null);
     }
     
     public static ServiceProgressUpdate allCompleteWithIcons(String requestId, String message, 
             List<IconGenerationResponse.GeneratedIcon> icons) {
         return new ServiceProgressUpdate(requestId, null, "complete", 
-                message, icons, null, null, "generation_complete", 0, false);
+                message, icons, null, null, "generation_complete", 0, false, null);
     }
 }
@@ -0,0 +1,82 @@
+package com.gosu.iconpackgenerator.domain.icons.model;
+
+import java.util.Base64;
+
+/**
+ * Binary handle for an icon image moving through the generation pipeline: the encoded image bytes,
+ * a storage reference (web path of a persisted file), or both. Base64 is only produced at the JSON boundary,
+ * on demand, and is never kept on the handle.
+ * <p>
+ * The byte array is shared, not copied; holders must not modify it.
+ */
+public final class IconData {
+
+    private final byte[] bytes;
+    private final String storageReference;
+    private final boolean publiclyServed;
+
+    private IconData(byte[] bytes, String storageReference, boolean publiclyServed) {
+        this.bytes = bytes;
+        this.storageReference = storageReference;
+        this.publiclyServed = publiclyServed;
+    }
+
+    public static IconData ofBytes(byte[] bytes) {
+        return bytes == null ? null : new IconData(bytes, null, false);
+    }
+
+    public static IconData ofBase64(String base64Data) {
+        return base64Data == null ? null : new IconData(Base64.getDecoder().decode(base64Data), null, false);
+    }
+
+    public static IconData ofStorageReference(String storageReference) {
+        return storageReference == null ? null : new IconData(null, storageReference, false);
+    }
+
+    /**
+     * The same bytes, additionally remembering where they were persisted.
+     */
+    public IconData withStorageReference(String reference) {
+        return new IconData(bytes, reference, false);
+    }
+
+    /**
+     * The same bytes, persisted at a web path that clients can load directly.
+     */
+    public IconData withPublicUrl(String url) {
+        return new IconData(bytes, url, true);
+    }
+
+    public boolean hasBytes() {
+        return bytes != null;
+    }
+
+    /**
+     * @return the encoded image, or null if this handle only holds a storage reference
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public String getStorageReference() {
+        return storageReference;
+    }
+
+    /**
+     * @return the web path clients can load the image from, or null if it is not publicly served
+     */
+    public String getPublicUrl() {
+        return publiclyServed ? storageReference : null;
+    }
+
+    public int size() {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    /**
+     * @return base64 of the image bytes, encoded on each call, or null if this handle only holds a storage reference
+     */
+    public String toBase64() {
+        return bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -1,18 +1,38 @@
 package com.gosu.iconpackgenerator.domain.icons.service;
 
+import com.gosu.iconpackgenerator.util.ContentAddressedCache;
+import com.gosu.iconpackgenerator.util.ImagePixels;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class BackgroundRemovalService {
     
+    private final MeterRegistry meterRegistry;
+    private final PngEncodingService pngEncodingService;
+    
     @Value("${background-removal.enabled:true}")
     private boolean backgroundRemovalEnabled;
     
@@ -25,12 +45,174 @@ public class BackgroundRemovalService {
     @Value("${background-removal.model:u2net}")
     private String model;
     
+    @Value("${background-removal.worker.enabled:true}")
+    private boolean workerEnabled;
+    
+    @Value("${background-removal.worker.pool-size:2}")
+    private int workerPoolSize;
+    
+    @Value("${background-removal.worker.command:}")
+    private String workerCommand;
+    
+    @Value("${background-removal.worker.python-command:python3}")
+    private String workerPythonCommand;
+    
+    @Value("${background-removal.worker.startup-timeout-seconds:120}")
+    private long workerStartupTimeoutSeconds;
+    
+    @Value("${background-removal.worker.queue-wait-timeout-seconds:20}")
+    private long workerQueueWaitTimeoutSeconds;
+    
+    @Value("${background-removal.worker.health-check-interval-seconds:30}")
+    private long workerHealthCheckIntervalSeconds;
+    
+    @Value("${background-removal.worker.max-failed-starts:3}")
+    private int workerMaxFailedStarts;
+    
+    @Value("${background-removal.cache.enabled:true}")
+    private boolean cacheEnabled;
+    
+    @Value("${background-removal.cache.memory-max-mb:64}")
+    private long cacheMemoryMaxMb;
+    
+    @Value("${background-removal.cache.directory:}")
+    private String cacheDirectory;
+    
+    @Value("${background-removal.cache.disk-max-mb:1024}")
+    private long cacheDiskMaxMb;
+    
+    @Value("${background-removal.fast-path.enabled:true}")
+    private boolean fastPathEnabled;
+    
+    @Value("${background-removal.fast-path.tolerance:40}")
+    private int fastPathTolerance;
+    
+    @Value("${background-removal.fast-path.feather-radius:2}")
+    private int fastPathFeatherRadius;
+    
+    @Value("${background-removal.fast-path.min-confidence:0.85}")
+    private double fastPathMinConfidence;
+    
+    private RembgWorkerPool workerPool;
+    private Path extractedWorkerScript;
+    private ContentAddressedCache resultCache;
+    private FlatBackgroundRemover flatBackgroundRemover;
+    private Counter fastPathApplied;
+    private Counter fastPathFallbacks;
+    
+    @PostConstruct
+    public void init() {
+        initFastPath();
+        initResultCache();
+        startWorkerPool();
+    }
+    
+    private void initFastPath() {
+        fastPathApplied = Counter.builder("background.removal.fast_path")
+                .description("Background removals resolved without rembg, by outcome")
+                .tag("outcome", "applied")
+                .register(meterRegistry);
+        fastPathFallbacks = Counter.builder("background.removal.fast_path")
+                .description("Background removals resolved without rembg, by outcome")
+                .tag("outcome", "fallback")
+                .register(meterRegistry);
+        if (fastPathEnabled) {
+            flatBackgroundRemover = new FlatBackgroundRemover(fastPathTolerance, fastPathFeatherRadius, fastPathMinConfidence);
+        }
+    }
+    
+    private void initResultCache() {
+        if (!backgroundRemovalEnabled || !cacheEnabled) {
+            return;
+        }
+        Path diskDirectory = cacheDirectory == null || cacheDirectory.isBlank() ? null : Paths.get(cacheDirectory);
+        resultCache = new ContentAddressedCache("background-removal",
+                cacheMemoryMaxMb * 1024 * 1024,
+                diskDirectory,
+                cacheDiskMaxMb * 1024 * 1024,
+                meterRegistry);
+    }
+    
+    private void startWorkerPool() {
+        if (!backgroundRemovalEnabled || !workerEnabled) {
+            log.info("Persistent rembg workers are disabled, using one-shot rembg CLI");
+            return;
+        }
+        
+        try {
+            workerPool = new RembgWorkerPool(
+                    buildWorkerCommand(),
+                    workerPoolSize,
+                    Duration.ofSeconds(workerStartupTimeoutSeconds),
+                    Duration.ofSeconds(timeoutSeconds),
+                    Duration.ofSeconds(workerQueueWaitTimeoutSeconds),
+                    Duration.ofSeconds(workerHealthCheckIntervalSeconds),
+                    workerMaxFailedStarts);
+            workerPool.start();
+        } catch (Exception e) {
+            log.warn("Failed to start rembg worker pool, using one-shot rembg CLI: {}", e.getMessage());
+            workerPool = null;
+        }
+    }
+    
+    @PreDestroy
+    public void stopWorkerPool() {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+        cleanupTempFile(extractedWorkerScript);
+    }
+    
     /**
-     * Remove background from image data using rembg Python tool
+     * Remove background from image data, in process when the background is flat and with rembg otherwise
      * @param imageData The original image as byte array
      * @return Image with background removed as byte array, or original image if removal fails
      */
     public byte[] removeBackground(byte[] imageData) {
+        if (backgroundRemovalEnabled && imageData != null && imageData.length > 0) {
+            byte[] flat = removeFlatBackground(imageData);
+            if (flat != null) {
+                return flat;
+            }
+        }
+        return removeBackgroundWithModel(imageData);
+    }
+    
+    /**
+     * Remove a flat or near-flat background in process, without rembg.
+     * @param image The decoded image, left unmodified
+     * @return A new image with the background removed, or null if the fast path is disabled or not confident
+     */
+    public DecodedImageContext removeFlatBackground(DecodedImageContext image) {
+        FlatBackgroundRemover remover = flatBackgroundRemover;
+        if (!backgroundRemovalEnabled || remover == null || image == null) {
+            return null;
+        }
+        
+        FlatBackgroundRemover.Result result = remover.remove(image.getArgb(), image.getWidth(), image.getHeight());
+        if (!result.isConfident()) {
+            fastPathFallbacks.increment();
+            log.info("Flat background fast path not confident ({}), falling back to rembg",
+                    String.format("%.2f", result.confidence()));
+            return null;
+        }
+        
+        fastPathApplied.increment();
+        log.info("Removed flat background #{} in process (confidence {}), skipping rembg",
+                String.format("%06x", result.backgroundColor()), String.format("%.2f", result.confidence()));
+        BufferedImage output = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ImagePixels.readArgb(output);
+        System.arraycopy(result.argb(), 0, pixels, 0, pixels.length);
+        return DecodedImageContext.of(output);
+    }
+    
+    /**
+     * Remove background with rembg only, for callers that already tried {@link #removeFlatBackground}
+     * @param imageData The original image as byte array
+     * @return Image with background removed as byte array, or original image if removal fails
+     */
+    public byte[] removeBackgroundWithModel(byte[] imageData) {
         if (!backgroundRemovalEnabled) {
             log.debug("Background removal is disabled, returning original image");
             return imageData;
@@ -41,6 +223,63 @@ public class BackgroundRemovalService {
             return imageData;
         }
         
+        ContentAddressedCache cache = resultCache;
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = ContentAddressedCache.key(model, imageData);
+            byte[] cached = cache.get(cacheKey);
+            if (cached != null) {
+                log.info("Background removal cache hit, model: {}, size: {} -> {} bytes", model, imageData.length, cached.length);
+                return cached;
+            }
+        }
+        
+        byte[] outputImageData = removeBackgroundUncached(imageData);
+        // Failed removals return the input unchanged and are not cached
+        if (cache != null && outputImageData != imageData) {
+            cache.put(cacheKey, outputImageData);
+        }
+        return outputImageData;
+    }
+    
+    private byte[] removeFlatBackground(byte[] imageData) {
+        if (flatBackgroundRemover == null) {
+            return null;
+        }
+        try {
+            DecodedImageContext flat = removeFlatBackground(DecodedImageContext.decode(imageData));
+            return flat == null ? null : pngEncodingService.encode(flat.getImage(), PngEncodingService.Preset.FAST);
+        } catch (IOException e) {
+            log.warn("Flat background fast path could not process the image, falling back to rembg: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private byte[] removeBackgroundUncached(byte[] imageData) {
+        RembgWorkerPool pool = workerPool;
+        // An unavailable pool has already logged why; go straight to the CLI
+        if (pool != null && pool.isAvailable()) {
+            try {
+                byte[] outputImageData = pool.removeBackground(imageData);
+                log.info("Background removal successful on rembg worker, model: {}, size: {} -> {} bytes",
+                        model, imageData.length, outputImageData.length);
+                return outputImageData;
+            } catch (TimeoutException e) {
+                // Never hand back the input as if the background had been removed
+                log.warn("All rembg workers busy, falling back to one-shot rembg CLI: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                log.error("Background removal was interrupted while waiting for a rembg worker", e);
+                Thread.currentThread().interrupt();
+                return imageData;
+            } catch (IOException e) {
+                log.warn("rembg worker failed, falling back to one-shot rembg CLI: {}", e.getMessage());
+            }
+        }
+        
+        return removeBackgroundWithCli(imageData);
+    }
+    
+    private byte[] removeBackgroundWithCli(byte[] imageData) {
         log.info("Starting background removal with rembg, model: {}, image size: {} bytes", model, imageData.length);
         
         Path tempInputFile = null;
@@ -172,11 +411,53 @@ public class BackgroundRemovalService {
         }
         
         boolean available = isRembgAvailable();
-        return String.format("Background removal: %s, Command: %s, Model: %s, Timeout: %ds", 
+        RembgWorkerPool pool = workerPool;
+        String workers;
+        if (pool == null) {
+            workers = "DISABLED";
+        } else if (!pool.isAvailable()) {
+            workers = "UNAVAILABLE (failed to start)";
+        } else {
+            workers = String.format("%d (idle: %d, restarts: %d, live: %s)",
+                    pool.getPoolSize(), pool.getIdleWorkerCount(), pool.getRestartCount(), pool.hasLiveWorker());
+        }
+        ContentAddressedCache cache = resultCache;
+        String cacheInfo = cache == null
+                ? "DISABLED"
+                : String.format("memory %d bytes, disk %d bytes", cache.getMemoryBytes(), cache.getDiskBytes());
+        String fastPath = flatBackgroundRemover == null
+                ? "DISABLED"
+                : String.format("tolerance %d, min confidence %.2f", fastPathTolerance, fastPathMinConfidence);
+        return String.format("Background removal: %s, Command: %s, Model: %s, Timeout: %ds, Workers: %s, Cache: %s, Fast path: %s", 
                 available ? "AVAILABLE" : "NOT AVAILABLE", 
                 rembgCommand, 
                 model, 
-                timeoutSeconds);
+                timeoutSeconds,
+                workers,
+                cacheInfo,
+                fastPath);
+    }
+    
+    /**
+     * Worker command line: the configured command, or the bundled worker script run with the configured Python.
+     */
+    private List<String> buildWorkerCommand() throws IOException {
+        List<String> command = new ArrayList<>();
+        if (workerCommand != null && !workerCommand.isBlank()) {
+            command.addAll(Arrays.asList(workerCommand.trim().split("\\s+")));
+        } else {
+            extractedWorkerScript = Files.createTempFile("rembg_worker_", ".py");
+            try (InputStream script = getClass().getResourceAsStream("/rembg/rembg_worker.py")) {
+                if (script == null) {
+                    throw new IOException("Bundled rembg worker script not found");
+                }
+                Files.copy(script, extractedWorkerScript, StandardCopyOption.REPLACE_EXISTING);
+            }
+            command.add(workerPythonCommand);
+            command.add(extractedWorkerScript.toString());
+        }
+        command.add(model);
+        return command;
     }
     
     private String captureProcessOutput(Process process) {
@@ -0,0 +1,111 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import com.gosu.iconpackgenerator.util.ImagePixels;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * A grid image decoded once into a single {@code TYPE_INT_ARGB} raster and passed through every stage of
+ * {@link ImageProcessingService#cropIconsFromGrid}. Facts derived from the full image (projection profile,
+ * visible content bounds) are computed on first use and shared by all later stages.
+ * <p>
+ * The pixel array is the live backing array of {@link #getImage()}; stages must treat both as read-only.
+ */
+public final class DecodedImageContext {
+
+    private final BufferedImage image;
+    private final int[] argb;
+    private final int width;
+    private final int height;
+    private final int encodedSize;
+
+    private GridProjectionProfile projectionProfile;
+    private Rectangle visibleBounds;
+    private boolean visibleBoundsComputed;
+
+    private DecodedImageContext(BufferedImage image, int encodedSize) {
+        this.image = ImagePixels.toPackedArgb(image);
+        this.argb = ImagePixels.readArgb(this.image);
+        this.width = this.image.getWidth();
+        this.height = this.image.getHeight();
+        this.encodedSize = encodedSize;
+    }
+
+    /**
+     * Decode encoded image bytes.
+     *
+     * @return the decoded context, or null if no ImageIO reader understands the data
+     */
+    public static DecodedImageContext decode(byte[] imageData) throws IOException {
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(imageData));
+        if (decoded == null) {
+            return null;
+        }
+        return new DecodedImageContext(decoded, imageData.length);
+    }
+
+    public static DecodedImageContext of(BufferedImage image) {
+        return new DecodedImageContext(image, 0);
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int[] getArgb() {
+        return argb;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Size in bytes of the encoded data this image was decoded from, or 0 if it was not decoded from bytes.
+     */
+    public int getEncodedSize() {
+        return encodedSize;
+    }
+
+    public int getArgb(int x, int y) {
+        return argb[y * width + x];
+    }
+
+    /**
+     * Copy a region into a new context with its own raster. Derived facts are not carried over.
+     */
+    public DecodedImageContext crop(int x, int y, int cropWidth, int cropHeight) {
+        BufferedImage cropped = new BufferedImage(cropWidth, cropHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] target = ImagePixels.readArgb(cropped);
+        for (int row = 0; row < cropHeight; row++) {
+            System.arraycopy(argb, (y + row) * width + x, target, row * cropWidth, cropWidth);
+        }
+        return new DecodedImageContext(cropped, encodedSize);
+    }
+
+    GridProjectionProfile getProjectionProfile() {
+        if (projectionProfile == null) {
+            projectionProfile = GridProjectionProfile.of(argb, width, height);
+        }
+        return projectionProfile;
+    }
+
+    /**
+     * Bounding box of all pixels with non-zero alpha, or null if the image is fully transparent.
+     */
+    public Rectangle getVisibleBounds() {
+        if (!visibleBoundsComputed) {
+            visibleBounds = getProjectionProfile().visibleBounds();
+            visibleBoundsComputed = true;
+        }
+        return visibleBounds;
+    }
+}
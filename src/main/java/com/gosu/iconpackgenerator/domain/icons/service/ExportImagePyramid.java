@@ -0,0 +1,113 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * All square export sizes of one icon, built from a single decode of the source image. Each size is derived
+ * from the nearest larger level already built, halving while the level is at least twice the target and
+ * finishing with one bicubic step, so large reductions (1024 to 32) do not alias the way a single resize does.
+ * Sizes larger than the source are scaled up from the source directly.
+ * <p>
+ * Fully built on construction; the levels are read-only afterwards and can be shared between threads.
+ */
+public final class ExportImagePyramid {
+
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final Map<Integer, BufferedImage> levels;
+
+    private ExportImagePyramid(BufferedImage source, int[] sizes) {
+        this.sourceWidth = source.getWidth();
+        this.sourceHeight = source.getHeight();
+        this.levels = buildLevels(source, sizes);
+    }
+
+    /**
+     * Decode encoded image bytes and build the requested sizes.
+     *
+     * @return the pyramid, or null if no ImageIO reader understands the data
+     */
+    public static ExportImagePyramid decode(byte[] imageData, int[] sizes) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageData));
+        if (source == null) {
+            return null;
+        }
+        return new ExportImagePyramid(source, sizes);
+    }
+
+    public static ExportImagePyramid of(BufferedImage source, int[] sizes) {
+        return new ExportImagePyramid(source, sizes);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the size was not requested when the pyramid was built
+     */
+    public BufferedImage level(int size) {
+        BufferedImage level = levels.get(size);
+        if (level == null) {
+            throw new IllegalArgumentException("Size " + size + " is not part of this pyramid " + levels.keySet());
+        }
+        return level;
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    /**
+     * High-quality single-step resize, also used where a pyramid would be overkill.
+     */
+    static BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = resized.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.drawImage(source, 0, 0, width, height, null);
+        g2d.dispose();
+        return resized;
+    }
+
+    private static Map<Integer, BufferedImage> buildLevels(BufferedImage source, int[] sizes) {
+        int[] ascending = Arrays.stream(sizes).distinct().sorted().toArray();
+        TreeMap<Integer, BufferedImage> built = new TreeMap<>();
+        // Largest first, so every smaller size can start from an already reduced level
+        for (int i = ascending.length - 1; i >= 0; i--) {
+            int size = ascending[i];
+            if (size <= 0) {
+                throw new IllegalArgumentException("Pyramid sizes must be positive: " + size);
+            }
+            Map.Entry<Integer, BufferedImage> nearestLarger = built.ceilingEntry(size);
+            BufferedImage start = nearestLarger != null ? nearestLarger.getValue() : source;
+            built.put(size, reduce(start, size));
+        }
+        return built;
+    }
+
+    private static BufferedImage reduce(BufferedImage start, int size) {
+        BufferedImage current = start;
+        int width = current.getWidth();
+        int height = current.getHeight();
+        while (width / 2 >= size && height / 2 >= size) {
+            width /= 2;
+            height /= 2;
+            current = resize(current, width, height);
+        }
+        if (width == size && height == size && current != start) {
+            return current;
+        }
+        return resize(current, size, size);
+    }
+}
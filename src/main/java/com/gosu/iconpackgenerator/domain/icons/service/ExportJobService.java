@@ -0,0 +1,287 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import com.gosu.iconpackgenerator.domain.icons.dto.ExportJobProgressUpdate;
+import com.gosu.iconpackgenerator.domain.icons.dto.IconExportRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Runs exports in the background instead of inside the HTTP request. Each job writes its archive to
+ * {@code icon-export.jobs.directory}, reports progress to a listener and keeps the latest update as its status,
+ * so clients can reconnect and download the finished file later, with Range requests, until it expires.
+ * <p>
+ * Jobs live in memory only; files left over from a previous run are deleted on startup. If the directory cannot
+ * be prepared, background exports are disabled and submissions are rejected.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExportJobService {
+
+    private static final String DOWNLOAD_URL = "/api/export-jobs/%s/download";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final IconExportService iconExportService;
+    @Qualifier("exportJobExecutor")
+    private final ExecutorService exportJobExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${icon-export.jobs.directory:cache/export-jobs}")
+    private String jobsDirectory;
+
+    @Value("${icon-export.jobs.ttl-minutes:60}")
+    private long ttlMinutes = 60;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // Null while background exports are disabled
+    private Path jobsPath;
+
+    /**
+     * Writes one export archive, reporting each finished icon.
+     */
+    @FunctionalInterface
+    public interface ArchiveWriter {
+        void write(OutputStream outputStream, IconExportService.ExportProgressListener progressListener) throws IOException;
+    }
+
+    /**
+     * A finished archive ready to be served.
+     */
+    public record ExportArtifact(Path file, String fileName, String contentType, long completedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        Path directory = Paths.get(jobsDirectory);
+        try {
+            Files.createDirectories(directory);
+            if (!Files.isWritable(directory)) {
+                throw new IOException("directory is not writable");
+            }
+            try (Stream<Path> leftovers = Files.list(directory)) {
+                leftovers.filter(Files::isRegularFile).forEach(this::deleteQuietly);
+            }
+            jobsPath = directory;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Background exports disabled: cannot use export job directory {}: {}",
+                    directory.toAbsolutePath(), e.getMessage());
+        }
+        meterRegistry.gauge("export.jobs.active", jobs,
+                registered -> registered.values().stream().filter(job -> !job.latest.isTerminal()).count());
+    }
+
+    /**
+     * Whether background exports can be submitted; false when the job directory could not be prepared.
+     */
+    public boolean isEnabled() {
+        return jobsPath != null;
+    }
+
+    /**
+     * Submit an icon pack export.
+     * @param refund gives back what the user paid for the export; run once if the job fails
+     * @throws RejectedExecutionException when the export queue is full or background exports are disabled
+     */
+    public ExportJobProgressUpdate submitIconPack(IconExportRequest exportRequest, Long userId, String fileName,
+                                                  Runnable refund, Consumer<ExportJobProgressUpdate> listener) {
+        return submit(userId, fileName, "application/zip", exportRequest.getIcons().size(),
+                (outputStream, progressListener) ->
+                        iconExportService.writeIconPackZip(exportRequest, outputStream, progressListener),
+                refund, listener);
+    }
+
+    /**
+     * Submit an export written by the given writer. The returned update is the job's initial status.
+     * @param refund gives back what the user paid for the export; run once if the job fails. A rejected
+     *               submission does not run it, the caller refunds on {@link RejectedExecutionException}
+     * @throws RejectedExecutionException when the export queue is full or background exports are disabled
+     */
+    public ExportJobProgressUpdate submit(Long userId, String fileName, String contentType, int totalIcons,
+                                          ArchiveWriter writer, Runnable refund,
+                                          Consumer<ExportJobProgressUpdate> listener) {
+        if (!isEnabled()) {
+            throw new RejectedExecutionException("Background exports are disabled");
+        }
+        String jobId = "export-" + UUID.randomUUID();
+        ExportJob job = new ExportJob(jobId, userId, fileName, contentType, totalIcons, refund, listener);
+        ExportJobProgressUpdate queued = ExportJobProgressUpdate.queued(jobId, totalIcons, fileName);
+        job.latest = queued;
+        jobs.put(jobId, job);
+
+        try {
+            exportJobExecutor.execute(() -> run(job, writer));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            log.warn("Export queue is full, rejected job for user {}", userId);
+            throw e;
+        }
+
+        log.info("Queued export job {} for user {} with {} icons", jobId, userId, totalIcons);
+        return queued;
+    }
+
+    /**
+     * Latest update of a job owned by the given user.
+     */
+    public Optional<ExportJobProgressUpdate> getStatus(String jobId, Long userId) {
+        return findJob(jobId, userId).map(job -> job.latest);
+    }
+
+    /**
+     * Finished archive of a job owned by the given user, if it completed and has not expired yet.
+     */
+    public Optional<ExportArtifact> getArtifact(String jobId, Long userId) {
+        return findJob(jobId, userId)
+                .filter(job -> job.file != null && Files.exists(job.file))
+                .map(job -> new ExportArtifact(job.file, job.fileName, job.contentType, job.completedAt));
+    }
+
+    @Scheduled(fixedDelayString = "${icon-export.jobs.cleanup-interval-ms:60000}")
+    public void purgeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.expiresAt > 0 && job.expiresAt <= now && jobs.remove(job.id, job)) {
+                if (job.file != null) {
+                    deleteQuietly(job.file);
+                }
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired export jobs", purged);
+        }
+    }
+
+    private Optional<ExportJob> findJob(String jobId, Long userId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !job.userId.equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    private void run(ExportJob job, ArchiveWriter writer) {
+        long start = System.nanoTime();
+        Path partial = jobsPath.resolve(job.id + PARTIAL_SUFFIX);
+        Path target = jobsPath.resolve(job.id + extension(job.fileName));
+        publish(job, ExportJobProgressUpdate.progress(job.id, job.totalIcons, 0, job.fileName, "Preparing icons"));
+
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                writer.write(outputStream, (exportedIcons, totalIcons) -> publish(job,
+                        ExportJobProgressUpdate.progress(job.id, totalIcons, exportedIcons, job.fileName,
+                                "Exported " + exportedIcons + " of " + totalIcons + " icons")));
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            long sizeBytes = Files.size(target);
+
+            job.file = target;
+            job.completedAt = System.currentTimeMillis();
+            job.expiresAt = job.completedAt + TimeUnit.MINUTES.toMillis(ttlMinutes);
+            record(start, "success");
+            log.info("Export job {} finished: {} ({} bytes) in {} ms", job.id, job.fileName, sizeBytes,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            publish(job, ExportJobProgressUpdate.completed(job.id, job.totalIcons, job.fileName, sizeBytes,
+                    String.format(DOWNLOAD_URL, job.id), job.expiresAt));
+        } catch (Exception e) {
+            log.error("Export job {} failed", job.id, e);
+            deleteQuietly(partial);
+            job.expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes);
+            record(start, "failure");
+            refund(job);
+            publish(job, ExportJobProgressUpdate.failed(job.id, "Export failed"));
+        }
+    }
+
+    private void refund(ExportJob job) {
+        try {
+            job.refund.run();
+            log.info("Refunded failed export job {} for user {}", job.id, job.userId);
+        } catch (Exception e) {
+            log.error("Could not refund failed export job {} for user {}", job.id, job.userId, e);
+        }
+    }
+
+    private void publish(ExportJob job, ExportJobProgressUpdate update) {
+        job.latest = update;
+        try {
+            job.listener.accept(update);
+        } catch (Exception e) {
+            // A broken progress stream must not fail the export itself
+            log.debug("Export job {} listener failed: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void record(long startNanos, String outcome) {
+        Timer.builder("export.job")
+                .description("Background export job duration")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot) : "";
+    }
+
+    private static final class ExportJob {
+        private final String id;
+        private final Long userId;
+        private final String fileName;
+        private final String contentType;
+        private final int totalIcons;
+        private final Runnable refund;
+        private final Consumer<ExportJobProgressUpdate> listener;
+        private volatile ExportJobProgressUpdate latest;
+        private volatile Path file;
+        private volatile long completedAt;
+        // 0 while the job is queued or running
+        private volatile long expiresAt;
+
+        private ExportJob(String id, Long userId, String fileName, String contentType, int totalIcons,
+                          Runnable refund, Consumer<ExportJobProgressUpdate> listener) {
+            this.id = id;
+            this.userId = userId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.totalIcons = totalIcons;
+            this.refund = refund;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import java.util.Arrays;
+
+/**
+ * In-process background removal for images whose background is one flat (or nearly flat) colour, as most
+ * generated icon grids are. It runs before rembg is consulted:
+ * <ol>
+ *     <li>the background colour is estimated as the per-channel median of the one-pixel border</li>
+ *     <li>background is flood-filled from every border pixel within {@code tolerance} of that colour</li>
+ *     <li>pixels near the fill boundary get a soft alpha from their colour distance, and the background colour
+ *     is unmixed from them so anti-aliased edges do not keep a halo</li>
+ * </ol>
+ * The confidence score combines how much of the border matches the estimated colour with how flat it is; the
+ * fill covering almost nothing or almost everything counts as no confidence, and so does a mostly transparent
+ * border: the image already has its background removed and there is no flat colour to estimate. Callers fall
+ * back to rembg when the score is below {@code minConfidence}.
+ */
+public final class FlatBackgroundRemover {
+
+    private static final int TRANSPARENT_ALPHA = 16;
+    private static final int MIN_DIMENSION = 16;
+    private static final double MIN_BACKGROUND_FRACTION = 0.10;
+    private static final double MAX_BACKGROUND_FRACTION = 0.995;
+    private static final double MAX_TRANSPARENT_BORDER_FRACTION = 0.5;
+
+    private final int tolerance;
+    private final int featherRadius;
+    private final double minConfidence;
+
+    /**
+     * @param tolerance     maximum RGB distance from the background colour for a pixel to be filled
+     * @param featherRadius width in pixels of the soft edge on each side of the fill boundary
+     * @param minConfidence score below which no result is produced
+     */
+    public FlatBackgroundRemover(int tolerance, int featherRadius, double minConfidence) {
+        this.tolerance = Math.max(1, tolerance);
+        this.featherRadius = Math.max(0, featherRadius);
+        this.minConfidence = minConfidence;
+    }
+
+    /**
+     * Outcome of one attempt.
+     *
+     * @param argb            the image with its background removed, or null when the score was below the minimum
+     * @param confidence      score in [0, 1]
+     * @param backgroundColor estimated background colour as 0xRRGGBB
+     */
+    public record Result(int[] argb, double confidence, int backgroundColor) {
+        public boolean isConfident() {
+            return argb != null;
+        }
+    }
+
+    /**
+     * Remove a flat background. The input array is not modified.
+     */
+    public Result remove(int[] argb, int width, int height) {
+        if (width < MIN_DIMENSION || height < MIN_DIMENSION) {
+            return new Result(null, 0.0, 0);
+        }
+
+        int[] border = borderIndices(width, height);
+        int background = estimateBorderColor(argb, border);
+        int toleranceSquared = tolerance * tolerance;
+
+        // Border statistics: share of pixels matching the estimate and their mean distance from it
+        int matching = 0;
+        int transparent = 0;
+        double matchingDistance = 0;
+        for (int index : border) {
+            int pixel = argb[index];
+            if (isTransparent(pixel)) {
+                matching++;
+                transparent++;
+                continue;
+            }
+            int distanceSquared = distanceSquared(pixel, background);
+            if (distanceSquared <= toleranceSquared) {
+                matching++;
+                matchingDistance += Math.sqrt(distanceSquared);
+            }
+        }
+        if (transparent > border.length * MAX_TRANSPARENT_BORDER_FRACTION) {
+            // Already transparent: the estimate would be black and the fill would eat dark outlines
+            return new Result(null, 0.0, background);
+        }
+        double borderMatch = (double) matching / border.length;
+        double flatness = matching == 0 ? 0.0 : 1.0 - 0.5 * (matchingDistance / matching) / tolerance;
+        double confidence = borderMatch * flatness;
+        if (confidence < minConfidence) {
+            return new Result(null, confidence, background);
+        }
+
+        boolean[] filled = new boolean[width * height];
+        int filledCount = floodFillFromBorder(argb, width, height, border, background, toleranceSquared, filled);
+        double backgroundFraction = (double) filledCount / filled.length;
+        if (backgroundFraction < MIN_BACKGROUND_FRACTION || backgroundFraction > MAX_BACKGROUND_FRACTION) {
+            return new Result(null, 0.0, background);
+        }
+
+        return new Result(applyMatte(argb, width, height, background, filled), confidence, background);
+    }
+
+    /**
+     * Per-channel median of the one-pixel border, ignoring transparent pixels.
+     */
+    private static int estimateBorderColor(int[] argb, int[] border) {
+        int[] red = new int[256];
+        int[] green = new int[256];
+        int[] blue = new int[256];
+        int samples = 0;
+        for (int index : border) {
+            int pixel = argb[index];
+            if (isTransparent(pixel)) {
+                continue;
+            }
+            red[(pixel >> 16) & 0xff]++;
+            green[(pixel >> 8) & 0xff]++;
+            blue[pixel & 0xff]++;
+            samples++;
+        }
+        if (samples == 0) {
+            return 0;
+        }
+        return (median(red, samples) << 16) | (median(green, samples) << 8) | median(blue, samples);
+    }
+
+    private static int median(int[] histogram, int samples) {
+        int half = samples / 2;
+        int seen = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen > half) {
+                return value;
+            }
+        }
+        return histogram.length - 1;
+    }
+
+    /**
+     * Breadth-first fill over 4-connected pixels that are transparent or within tolerance of the background.
+     *
+     * @return number of filled pixels
+     */
+    private static int floodFillFromBorder(int[] argb, int width, int height, int[] border, int background,
+                                           int toleranceSquared, boolean[] filled) {
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        for (int index : border) {
+            if (!filled[index] && isBackground(argb[index], background, toleranceSquared)) {
+                filled[index] = true;
+                queue[tail++] = index;
+            }
+        }
+        while (head < tail) {
+            int index = queue[head++];
+            int x = index % width;
+            int y = index / width;
+            if (x > 0) tail = visit(argb, index - 1, background, toleranceSquared, filled, queue, tail);
+            if (x < width - 1) tail = visit(argb, index + 1, background, toleranceSquared, filled, queue, tail);
+            if (y > 0) tail = visit(argb, index - width, background, toleranceSquared, filled, queue, tail);
+            if (y < height - 1) tail = visit(argb, index + width, background, toleranceSquared, filled, queue, tail);
+        }
+        return tail;
+    }
+
+    private static int visit(int[] argb, int index, int background, int toleranceSquared,
+                             boolean[] filled, int[] queue, int tail) {
+        if (!filled[index] && isBackground(argb[index], background, toleranceSquared)) {
+            filled[index] = true;
+            queue[tail++] = index;
+        }
+        return tail;
+    }
+
+    /**
+     * Filled pixels become transparent. Filled pixels within {@code featherRadius} of the fill boundary, and the
+     * unfilled pixels touching it, are treated as a blend of the background and the strongest foreground colour
+     * next to them: their alpha is the blend factor and their colour is the foreground with the background
+     * unmixed. Deeper unfilled pixels are left alone, so light details inside thin outlines keep their alpha.
+     */
+    private int[] applyMatte(int[] argb, int width, int height, int background, boolean[] filled) {
+        int[] boundaryDistance = distanceToBoundary(width, height, filled);
+        int[] result = Arrays.copyOf(argb, argb.length);
+        for (int index = 0; index < result.length; index++) {
+            int featherLimit = filled[index] ? featherRadius : Math.min(1, featherRadius);
+            if (boundaryDistance[index] > featherLimit) {
+                if (filled[index]) {
+                    result[index] = 0;
+                }
+                continue;
+            }
+            int pixel = argb[index];
+            int foreground = strongestForeground(argb, width, height, index, background, filled);
+            double coverage = coverage(pixel, background, foreground);
+            int alpha = (int) Math.round(((pixel >>> 24) & 0xff) * coverage);
+            result[index] = alpha == 0 ? 0 : (alpha << 24) | unmix(pixel, background, coverage);
+        }
+        return result;
+    }
+
+    /**
+     * Unfilled pixel farthest from the background colour within {@code featherRadius + 1} of {@code index}, or
+     * the background itself when there is none.
+     */
+    private int strongestForeground(int[] argb, int width, int height, int index, int background, boolean[] filled) {
+        int reach = featherRadius + 1;
+        int centerX = index % width;
+        int centerY = index / width;
+        int strongest = background;
+        int strongestDistance = 0;
+        for (int y = Math.max(0, centerY - reach); y <= Math.min(height - 1, centerY + reach); y++) {
+            for (int x = Math.max(0, centerX - reach); x <= Math.min(width - 1, centerX + reach); x++) {
+                int neighbour = y * width + x;
+                if (filled[neighbour] || isTransparent(argb[neighbour])) {
+                    continue;
+                }
+                int distanceSquared = distanceSquared(argb[neighbour], background);
+                if (distanceSquared > strongestDistance) {
+                    strongestDistance = distanceSquared;
+                    strongest = argb[neighbour];
+                }
+            }
+        }
+        return strongest;
+    }
+
+    /**
+     * Blend factor of {@code pixel} on the line from {@code background} to {@code foreground}. Without a usable
+     * foreground colour it ramps from half the tolerance (background) to twice the tolerance (foreground).
+     */
+    private double coverage(int pixel, int background, int foreground) {
+        int span = distanceSquared(foreground, background);
+        if (span <= tolerance * tolerance) {
+            double distance = Math.sqrt(distanceSquared(pixel, background));
+            return clamp((distance - tolerance * 0.5) / (tolerance * 1.5));
+        }
+        int dot = (((pixel >> 16) & 0xff) - ((background >> 16) & 0xff)) * (((foreground >> 16) & 0xff) - ((background >> 16) & 0xff))
+                + (((pixel >> 8) & 0xff) - ((background >> 8) & 0xff)) * (((foreground >> 8) & 0xff) - ((background >> 8) & 0xff))
+                + ((pixel & 0xff) - (background & 0xff)) * ((foreground & 0xff) - (background & 0xff));
+        return clamp((double) dot / span);
+    }
+
+    private static double clamp(double value) {
+        return Math.min(1.0, Math.max(0.0, value));
+    }
+
+    /**
+     * Steps from each pixel to the nearest pixel on the other side of the fill boundary, capped at
+     * {@code featherRadius + 1}.
+     */
+    private int[] distanceToBoundary(int width, int height, boolean[] filled) {
+        int limit = featherRadius + 1;
+        int[] distance = new int[filled.length];
+        Arrays.fill(distance, limit);
+        if (featherRadius == 0) {
+            return distance;
+        }
+        int[] queue = new int[filled.length];
+        int tail = 0;
+        for (int index = 0; index < filled.length; index++) {
+            int x = index % width;
+            int y = index / width;
+            boolean edge = (x > 0 && filled[index - 1] != filled[index])
+                    || (x < width - 1 && filled[index + 1] != filled[index])
+                    || (y > 0 && filled[index - width] != filled[index])
+                    || (y < height - 1 && filled[index + width] != filled[index]);
+            if (edge) {
+                distance[index] = 1;
+                queue[tail++] = index;
+            }
+        }
+        int head = 0;
+        while (head < tail) {
+            int index = queue[head++];
+            int next = distance[index] + 1;
+            if (next > featherRadius) {
+                continue;
+            }
+            int x = index % width;
+            int y = index / width;
+            if (x > 0 && distance[index - 1] > next) { distance[index - 1] = next; queue[tail++] = index - 1; }
+            if (x < width - 1 && distance[index + 1] > next) { distance[index + 1] = next; queue[tail++] = index + 1; }
+            if (y > 0 && distance[index - width] > next) { distance[index - width] = next; queue[tail++] = index - width; }
+            if (y < height - 1 && distance[index + width] > next) { distance[index + width] = next; queue[tail++] = index + width; }
+        }
+        return distance;
+    }
+
+    /**
+     * Recover the foreground colour of a pixel assumed to be {@code coverage * fg + (1 - coverage) * background}.
+     */
+    private static int unmix(int pixel, int background, double coverage) {
+        if (coverage >= 1.0) {
+            return pixel & 0xffffff;
+        }
+        int red = unmixChannel((pixel >> 16) & 0xff, (background >> 16) & 0xff, coverage);
+        int green = unmixChannel((pixel >> 8) & 0xff, (background >> 8) & 0xff, coverage);
+        int blue = unmixChannel(pixel & 0xff, background & 0xff, coverage);
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    private static int unmixChannel(int value, int background, double coverage) {
+        long unmixed = Math.round(background + (value - background) / coverage);
+        return (int) Math.min(255, Math.max(0, unmixed));
+    }
+
+    private static boolean isBackground(int pixel, int background, int toleranceSquared) {
+        return isTransparent(pixel) || distanceSquared(pixel, background) <= toleranceSquared;
+    }
+
+    private static boolean isTransparent(int pixel) {
+        return ((pixel >>> 24) & 0xff) < TRANSPARENT_ALPHA;
+    }
+
+    private static int distanceSquared(int pixel, int color) {
+        int red = ((pixel >> 16) & 0xff) - ((color >> 16) & 0xff);
+        int green = ((pixel >> 8) & 0xff) - ((color >> 8) & 0xff);
+        int blue = (pixel & 0xff) - (color & 0xff);
+        return red * red + green * green + blue * blue;
+    }
+
+    /**
+     * Indices of the one-pixel border, each corner once.
+     */
+    private static int[] borderIndices(int width, int height) {
+        int[] indices = new int[2 * width + 2 * (height - 2)];
+        int next = 0;
+        for (int x = 0; x < width; x++) {
+            indices[next++] = x;
+            indices[next++] = (height - 1) * width + x;
+        }
+        for (int y = 1; y < height - 1; y++) {
+            indices[next++] = y * width;
+            indices[next++] = y * width + width - 1;
+        }
+        return indices;
+    }
+}
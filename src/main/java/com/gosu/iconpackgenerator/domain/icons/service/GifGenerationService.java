@@ -20,7 +20,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -339,13 +338,12 @@ public class GifGenerationService {
         }
 
         String fileName = buildGifFileName(sourceIcon, gifIconId);
-        String base64Gif = Base64.getEncoder().encodeToString(gifBytes);
         String filePath = fileStorageService.saveIcon(
                 context.getUser().getDirectoryPath(),
                 sourceIcon.getRequestId(),
                 iconType,
                 fileName,
-                base64Gif
+                gifBytes
         );
 
         GeneratedIcon gifEntity = new GeneratedIcon();
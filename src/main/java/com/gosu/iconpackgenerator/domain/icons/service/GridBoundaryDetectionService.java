@@ -14,13 +14,17 @@ import java.util.List;
 public class GridBoundaryDetectionService {
 
     public GridBounds detectGridBounds(BufferedImage image) {
-        int width = image.getWidth();
-        int height = image.getHeight();
+        return detectGridBounds(GridProjectionProfile.of(image));
+    }
+
+    GridBounds detectGridBounds(GridProjectionProfile profile) {
+        int width = profile.getWidth();
+        int height = profile.getHeight();
 
         log.debug("Detecting intelligent grid bounds for {}x{} image", width, height);
 
-        BoundaryResult xResult = detectTransparentBoundariesWithQuality(image, true);
-        BoundaryResult yResult = detectTransparentBoundariesWithQuality(image, false);
+        BoundaryResult xResult = detectTransparentBoundariesWithQuality(profile, true);
+        BoundaryResult yResult = detectTransparentBoundariesWithQuality(profile, false);
 
         int[] xBoundaries = xResult.boundaries;
         int[] yBoundaries = yResult.boundaries;
@@ -28,7 +32,7 @@ public class GridBoundaryDetectionService {
         boolean yHasPerfectTransparency = yResult.hasPerfectTransparency;
 
         if (xBoundaries == null) {
-            xBoundaries = detectContentBoundaries(image, true);
+            xBoundaries = detectContentBoundaries(profile, true);
             log.debug("No transparent x-boundaries found, falling back to content detection");
         } else {
             log.debug("Using transparent x boundaries: {} (perfect: {})",
@@ -36,7 +40,7 @@ public class GridBoundaryDetectionService {
         }
 
         if (yBoundaries == null) {
-            yBoundaries = detectContentBoundaries(image, false);
+            yBoundaries = detectContentBoundaries(profile, false);
             log.debug("No transparent y-boundaries found, falling back to content detection");
         } else {
             log.debug("Using transparent y boundaries: {} (perfect: {})",
@@ -196,8 +200,8 @@ public class GridBoundaryDetectionService {
         return bufferedBoundaries;
     }
 
-    private int[] detectTransparentBoundaries(BufferedImage image, boolean vertical) {
-        int dimension = vertical ? image.getWidth() : image.getHeight();
+    private int[] detectTransparentBoundaries(GridProjectionProfile profile, boolean vertical) {
+        int dimension = vertical ? profile.getWidth() : profile.getHeight();
 
         log.debug("Detecting transparent {} boundaries for dimension {}",
                 vertical ? "vertical" : "horizontal", dimension);
@@ -208,12 +212,12 @@ public class GridBoundaryDetectionService {
 
         int searchRange = Math.max(8, dimension / 20);
 
-        int bestBoundary1 = findBestTransparentLine(image, vertical,
+        int bestBoundary1 = findBestTransparentLine(profile, vertical,
                 Math.max(1, idealBoundary1 - searchRange),
                 Math.min(dimension - 1, idealBoundary1 + searchRange));
 
         int minDistanceFromBoundary1 = Math.max(searchRange * 2, idealSectionSize - searchRange);
-        int bestBoundary2 = findBestTransparentLine(image, vertical,
+        int bestBoundary2 = findBestTransparentLine(profile, vertical,
                 Math.max(bestBoundary1 + minDistanceFromBoundary1, idealBoundary2 - searchRange),
                 Math.min(dimension - 1, idealBoundary2 + searchRange));
 
@@ -223,8 +227,8 @@ public class GridBoundaryDetectionService {
         }
 
         double transparencyThreshold = 0.9;
-        double boundary1Transparency = calculateLineTransparency(image, vertical, bestBoundary1);
-        double boundary2Transparency = calculateLineTransparency(image, vertical, bestBoundary2);
+        double boundary1Transparency = profile.lineTransparency(vertical, bestBoundary1);
+        double boundary2Transparency = profile.lineTransparency(vertical, bestBoundary2);
 
         boolean hasPerfectTransparency = boundary1Transparency >= 1.0 && boundary2Transparency >= 1.0;
 
@@ -272,8 +276,8 @@ public class GridBoundaryDetectionService {
         return new int[]{0, bestBoundary1, bestBoundary2, dimension};
     }
 
-    private BoundaryResult detectTransparentBoundariesWithQuality(BufferedImage image, boolean vertical) {
-        int[] boundaries = detectTransparentBoundaries(image, vertical);
+    private BoundaryResult detectTransparentBoundariesWithQuality(GridProjectionProfile profile, boolean vertical) {
+        int[] boundaries = detectTransparentBoundaries(profile, vertical);
 
         if (boundaries == null) {
             return new BoundaryResult(null, false);
@@ -282,8 +286,8 @@ public class GridBoundaryDetectionService {
         boolean hasPerfectTransparency = false;
 
         if (boundaries.length == 4) {
-            boolean boundary1Perfect = isPerfectlyTransparentLine(image, vertical, boundaries[1]);
-            boolean boundary2Perfect = isPerfectlyTransparentLine(image, vertical, boundaries[2]);
+            boolean boundary1Perfect = profile.isPerfectlyTransparent(vertical, boundaries[1]);
+            boolean boundary2Perfect = profile.isPerfectlyTransparent(vertical, boundaries[2]);
 
             hasPerfectTransparency = boundary1Perfect && boundary2Perfect;
 
@@ -297,23 +301,8 @@ public class GridBoundaryDetectionService {
         return new BoundaryResult(boundaries, hasPerfectTransparency);
     }
 
-    private boolean isPerfectlyTransparentLine(BufferedImage image, boolean vertical, int position) {
-        int dimension = vertical ? image.getHeight() : image.getWidth();
-
-        for (int i = 0; i < dimension; i++) {
-            int rgb = vertical ? image.getRGB(position, i) : image.getRGB(i, position);
-            int alpha = (rgb >> 24) & 0xFF;
-
-            if (alpha != 0) {
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    private int findBestTransparentLine(BufferedImage image, boolean vertical, int startPos, int endPos) {
-        int bestPosition = findPerfectTransparentLine(image, vertical, startPos, endPos);
+    private int findBestTransparentLine(GridProjectionProfile profile, boolean vertical, int startPos, int endPos) {
+        int bestPosition = findPerfectTransparentLine(profile, vertical, startPos, endPos);
 
         if (bestPosition != -1) {
             log.debug("Found perfect transparent line at position {} with 100% transparency", bestPosition);
@@ -326,7 +315,7 @@ public class GridBoundaryDetectionService {
         double minTransparency = 0.95;
 
         for (int pos = startPos; pos <= endPos; pos++) {
-            double transparency = calculateLineTransparency(image, vertical, pos);
+            double transparency = profile.lineTransparency(vertical, pos);
 
             if (transparency >= minTransparency && transparency > bestTransparency) {
                 bestTransparency = transparency;
@@ -342,23 +331,9 @@ public class GridBoundaryDetectionService {
         return bestPosition;
     }
 
-    private int findPerfectTransparentLine(BufferedImage image, boolean vertical, int startPos, int endPos) {
-        int dimension = vertical ? image.getHeight() : image.getWidth();
-
+    private int findPerfectTransparentLine(GridProjectionProfile profile, boolean vertical, int startPos, int endPos) {
         for (int pos = startPos; pos <= endPos; pos++) {
-            boolean isPerfectlyTransparent = true;
-
-            for (int i = 0; i < dimension; i++) {
-                int rgb = vertical ? image.getRGB(pos, i) : image.getRGB(i, pos);
-                int alpha = (rgb >> 24) & 0xFF;
-
-                if (alpha != 0) {
-                    isPerfectlyTransparent = false;
-                    break;
-                }
-            }
-
-            if (isPerfectlyTransparent) {
+            if (profile.isPerfectlyTransparent(vertical, pos)) {
                 log.debug("Found perfectly transparent {} line at position {}",
                         vertical ? "vertical" : "horizontal", pos);
                 return pos;
@@ -370,33 +345,9 @@ public class GridBoundaryDetectionService {
         return -1;
     }
 
-    private double calculateLineTransparency(BufferedImage image, boolean vertical, int position) {
-        int dimension = vertical ? image.getHeight() : image.getWidth();
-        int transparentPixels = 0;
-        int totalPixels = dimension;
-
-        for (int i = 0; i < dimension; i++) {
-            int rgb = vertical ? image.getRGB(position, i) : image.getRGB(i, position);
-            int alpha = (rgb >> 24) & 0xFF;
-
-            int red = (rgb >> 16) & 0xFF;
-            int green = (rgb >> 8) & 0xFF;
-            int blue = rgb & 0xFF;
-
-            boolean isTransparent = alpha < 20;
-            boolean isNearWhite = red > 240 && green > 240 && blue > 240 && alpha > 200;
-
-            if (isTransparent || isNearWhite) {
-                transparentPixels++;
-            }
-        }
-
-        return (double) transparentPixels / totalPixels;
-    }
-
-    private int[] detectContentBoundaries(BufferedImage image, boolean vertical) {
-        int dimension = vertical ? image.getWidth() : image.getHeight();
-        int perpDimension = vertical ? image.getHeight() : image.getWidth();
+    private int[] detectContentBoundaries(GridProjectionProfile profile, boolean vertical) {
+        int dimension = vertical ? profile.getWidth() : profile.getHeight();
+        int perpDimension = vertical ? profile.getHeight() : profile.getWidth();
 
         log.debug("Analyzing {} boundaries: dimension={}, perpDimension={}",
                 vertical ? "vertical" : "horizontal", dimension, perpDimension);
@@ -404,26 +355,7 @@ public class GridBoundaryDetectionService {
         double[] contentDensity = new double[dimension];
 
         for (int pos = 0; pos < dimension; pos++) {
-            int contentPixels = 0;
-
-            for (int perpPos = 0; perpPos < perpDimension; perpPos++) {
-                int rgb = vertical ? image.getRGB(pos, perpPos) : image.getRGB(perpPos, pos);
-
-                int alpha = (rgb >> 24) & 0xFF;
-                int red = (rgb >> 16) & 0xFF;
-                int green = (rgb >> 8) & 0xFF;
-                int blue = rgb & 0xFF;
-
-                boolean isTransparent = alpha < 50;
-                boolean isWhite = red > 240 && green > 240 && blue > 240;
-                boolean isBackground = isTransparent || isWhite;
-
-                if (!isBackground) {
-                    contentPixels++;
-                }
-            }
-
-            contentDensity[pos] = (double) contentPixels / perpDimension;
+            contentDensity[pos] = profile.contentDensity(vertical, pos);
         }
 
         List<Integer> gapCandidates = new ArrayList<>();
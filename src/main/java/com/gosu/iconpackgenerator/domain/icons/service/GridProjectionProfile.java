@@ -0,0 +1,151 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import com.gosu.iconpackgenerator.util.ImagePixels;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+/**
+ * Per-row and per-column pixel histograms of a grid image, built from a single pass over its ARGB raster.
+ * Every line query made by {@link GridBoundaryDetectionService} is answered from these arrays instead of
+ * re-reading the image pixel by pixel.
+ * <p>
+ * "Vertical" lines are columns (indexed by x), "horizontal" lines are rows (indexed by y), matching the
+ * {@code vertical} flag used throughout the boundary detection.
+ */
+final class GridProjectionProfile {
+
+    private final int width;
+    private final int height;
+
+    // Pixels with any alpha at all (alpha != 0)
+    private final int[] columnOpaqueCounts;
+    private final int[] rowOpaqueCounts;
+
+    // Pixels that are transparent (alpha < 20) or opaque near-white (rgb > 240, alpha > 200)
+    private final int[] columnClearCounts;
+    private final int[] rowClearCounts;
+
+    // Pixels that are neither transparent (alpha < 50) nor white (rgb > 240)
+    private final int[] columnContentCounts;
+    private final int[] rowContentCounts;
+
+    private GridProjectionProfile(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.columnOpaqueCounts = new int[width];
+        this.rowOpaqueCounts = new int[height];
+        this.columnClearCounts = new int[width];
+        this.rowClearCounts = new int[height];
+        this.columnContentCounts = new int[width];
+        this.rowContentCounts = new int[height];
+    }
+
+    static GridProjectionProfile of(BufferedImage image) {
+        return of(ImagePixels.readArgb(image), image.getWidth(), image.getHeight());
+    }
+
+    static GridProjectionProfile of(int[] argb, int width, int height) {
+        GridProjectionProfile profile = new GridProjectionProfile(width, height);
+
+        for (int y = 0; y < height; y++) {
+            int rowOffset = y * width;
+            int rowOpaque = 0;
+            int rowClear = 0;
+            int rowContent = 0;
+
+            for (int x = 0; x < width; x++) {
+                int rgb = argb[rowOffset + x];
+                int alpha = (rgb >>> 24) & 0xFF;
+                int red = (rgb >> 16) & 0xFF;
+                int green = (rgb >> 8) & 0xFF;
+                int blue = rgb & 0xFF;
+                boolean isWhite = red > 240 && green > 240 && blue > 240;
+
+                if (alpha != 0) {
+                    rowOpaque++;
+                    profile.columnOpaqueCounts[x]++;
+                }
+                if (alpha < 20 || (isWhite && alpha > 200)) {
+                    rowClear++;
+                    profile.columnClearCounts[x]++;
+                }
+                if (alpha >= 50 && !isWhite) {
+                    rowContent++;
+                    profile.columnContentCounts[x]++;
+                }
+            }
+
+            profile.rowOpaqueCounts[y] = rowOpaque;
+            profile.rowClearCounts[y] = rowClear;
+            profile.rowContentCounts[y] = rowContent;
+        }
+
+        return profile;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Whether every pixel on the line has alpha 0.
+     */
+    boolean isPerfectlyTransparent(boolean vertical, int position) {
+        return (vertical ? columnOpaqueCounts[position] : rowOpaqueCounts[position]) == 0;
+    }
+
+    /**
+     * Fraction of pixels on the line that are transparent or opaque near-white.
+     */
+    double lineTransparency(boolean vertical, int position) {
+        int clear = vertical ? columnClearCounts[position] : rowClearCounts[position];
+        int length = vertical ? height : width;
+        return (double) clear / length;
+    }
+
+    /**
+     * Fraction of pixels on the line that are neither transparent nor white.
+     */
+    double contentDensity(boolean vertical, int position) {
+        int content = vertical ? columnContentCounts[position] : rowContentCounts[position];
+        int length = vertical ? height : width;
+        return (double) content / length;
+    }
+
+    /**
+     * Bounding box of all pixels with non-zero alpha, or null if there are none.
+     */
+    Rectangle visibleBounds() {
+        int minX = firstNonZero(columnOpaqueCounts);
+        int minY = firstNonZero(rowOpaqueCounts);
+        if (minX < 0 || minY < 0) {
+            return null;
+        }
+        int maxX = lastNonZero(columnOpaqueCounts);
+        int maxY = lastNonZero(rowOpaqueCounts);
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    private static int firstNonZero(int[] counts) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastNonZero(int[] counts) {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,308 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import com.gosu.iconpackgenerator.domain.ai.IdeoGramRemoveBackGroundService;
+import com.gosu.iconpackgenerator.domain.ai.SeedVrUpscaleService;
+import com.gosu.iconpackgenerator.util.ContentAddressedCache;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * HQ upscale stage of icon exports: each icon is flattened onto white at 256px, upscaled 4x with SeedVR and
+ * made transparent again with Ideogram.
+ * <ul>
+ *     <li>identical icons within a batch are upscaled once</li>
+ *     <li>identical prepared images already being upscaled by another export share that call</li>
+ *     <li>results are cached by the hash of the prepared image, in memory and on disk</li>
+ *     <li>at most {@code hq-upscale.max-in-flight} SeedVR calls run at once on this node; the others wait in a
+ *     FIFO queue without holding a thread</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class HighQualityUpscaleService {
+
+    private static final int SOURCE_SIZE = 256;
+    private static final float UPSCALE_FACTOR = 4.0f;
+    private static final Color UPSCALE_BACKGROUND = Color.WHITE;
+
+    // Bump when preparation, upscale settings or background removal change so stale results are no longer served
+    private static final String CACHE_NAMESPACE = "seedvr-x4-ideogram/v2";
+
+    private final SeedVrUpscaleService seedVrUpscaleService;
+    private final IdeoGramRemoveBackGroundService ideoGramRemoveBackGroundService;
+    private final PngEncodingService pngEncodingService;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("imageProcessingExecutor")
+    private final ExecutorService imageProcessingExecutor;
+    @Qualifier("remoteIoExecutor")
+    private final ExecutorService remoteIoExecutor;
+
+    @Value("${hq-upscale.max-in-flight:4}")
+    private int maxInFlight = 4;
+
+    @Value("${hq-upscale.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${hq-upscale.cache.memory-max-mb:64}")
+    private long cacheMemoryMaxMb;
+
+    @Value("${hq-upscale.cache.directory:}")
+    private String cacheDirectory;
+
+    @Value("${hq-upscale.cache.disk-max-mb:2048}")
+    private long cacheDiskMaxMb;
+
+    // Upscales currently running on this node, by cache key of the prepared image
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    // Guarded by itself; SeedVR calls waiting for a free slot
+    private final ArrayDeque<Runnable> waitingUpscales = new ArrayDeque<>();
+    private int runningUpscales;
+    private int upscalePermits;
+    private ContentAddressedCache resultCache;
+    private Counter deduplicated;
+
+    @PostConstruct
+    public void init() {
+        upscalePermits = Math.max(1, maxInFlight);
+        Gauge.builder("hq.upscale.in_flight", waitingUpscales, waiting -> {
+                    synchronized (waiting) {
+                        return runningUpscales;
+                    }
+                })
+                .description("SeedVR upscale calls currently running")
+                .register(meterRegistry);
+        Gauge.builder("hq.upscale.waiting", waitingUpscales, waiting -> {
+                    synchronized (waiting) {
+                        return waiting.size();
+                    }
+                })
+                .description("Upscales waiting for a free slot")
+                .register(meterRegistry);
+        deduplicated = Counter.builder("hq.upscale.deduplicated")
+                .description("Upscales served by an identical input in the same batch or already in flight")
+                .register(meterRegistry);
+
+        if (cacheEnabled) {
+            Path diskDirectory = cacheDirectory == null || cacheDirectory.isBlank() ? null : Paths.get(cacheDirectory);
+            resultCache = new ContentAddressedCache("hq-upscale",
+                    cacheMemoryMaxMb * 1024 * 1024,
+                    diskDirectory,
+                    cacheDiskMaxMb * 1024 * 1024,
+                    meterRegistry);
+        }
+    }
+
+    /**
+     * Upscale a batch of icons keyed by name. An icon whose upscale fails maps to the very array that was
+     * passed in, so callers can tell the fallback apart from a real result.
+     */
+    public Map<String, byte[]> upscaleAll(Map<String, byte[]> imagesByName) {
+        Map<String, CompletableFuture<byte[]>> byName = upscaleEach(imagesByName);
+        CompletableFuture.allOf(byName.values().toArray(new CompletableFuture[0])).join();
+        Map<String, byte[]> results = new LinkedHashMap<>();
+        byName.forEach((name, upscale) -> results.put(name, upscale.join()));
+        return results;
+    }
+
+    /**
+     * Start upscaling a batch of icons in iteration order and return each icon's pending result, so callers can
+     * use the first icons before the whole batch is done. Failures fall back as in {@link #upscaleAll}; the
+     * futures never complete exceptionally.
+     */
+    public Map<String, CompletableFuture<byte[]>> upscaleEach(Map<String, byte[]> imagesByName) {
+        Map<String, CompletableFuture<byte[]>> byContent = new LinkedHashMap<>();
+        Map<String, CompletableFuture<byte[]>> byName = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> image : imagesByName.entrySet()) {
+            String name = image.getKey();
+            byte[] imageData = image.getValue();
+            String contentKey = ContentAddressedCache.key("hq-input", imageData);
+            CompletableFuture<byte[]> upscale = byContent.get(contentKey);
+            if (upscale != null) {
+                deduplicated.increment();
+            } else {
+                upscale = CompletableFuture
+                        .supplyAsync(() -> prepareForUpscale(imageData, name), imageProcessingExecutor)
+                        .thenCompose(prepared -> upscaleShared(prepared, name));
+                byContent.put(contentKey, upscale);
+            }
+            byName.put(name, upscale.exceptionally(e -> {
+                log.error("HQ raster upscale failed for icon {}. Using original raster.", name, unwrap(e));
+                return imageData;
+            }));
+        }
+
+        CompletableFuture.allOf(byName.values().toArray(new CompletableFuture[0])).thenRun(() ->
+                log.info("Completed HQ raster upscale for {} icons ({} distinct)", byName.size(), byContent.size()));
+        return byName;
+    }
+
+    private CompletableFuture<byte[]> upscaleShared(byte[] prepared, String name) {
+        String cacheKey = ContentAddressedCache.key(CACHE_NAMESPACE, prepared);
+        ContentAddressedCache cache = resultCache;
+        if (cache != null) {
+            byte[] cached = cache.get(cacheKey);
+            if (cached != null) {
+                log.debug("HQ upscale cache hit for {}", name);
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        CompletableFuture<byte[]> upscale = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(cacheKey, upscale);
+        if (running != null) {
+            deduplicated.increment();
+            return running;
+        }
+        withUpscalePermit(() -> seedVrUpscaleService.upscaleImage(prepared, UPSCALE_FACTOR))
+                .thenApplyAsync(upscaled -> {
+                    log.debug("Upscaled icon {} to {} bytes", name, upscaled.length);
+                    byte[] result = ideoGramRemoveBackGroundService.removeBackground(upscaled);
+                    if (cache != null) {
+                        cache.put(cacheKey, result);
+                    }
+                    return result;
+                }, remoteIoExecutor)
+                .whenComplete((result, error) -> {
+                    inFlight.remove(cacheKey, upscale);
+                    if (error != null) {
+                        upscale.completeExceptionally(unwrap(error));
+                    } else {
+                        upscale.complete(result);
+                    }
+                });
+        return upscale;
+    }
+
+    /**
+     * Start a SeedVR call once fewer than {@code max-in-flight} are running. Waiting calls are queued rather than
+     * parked on a thread, so a large export cannot tie up the shared remote I/O pool.
+     */
+    private CompletableFuture<byte[]> withUpscalePermit(Supplier<CompletableFuture<byte[]>> call) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<byte[]> running;
+            try {
+                running = call.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.failedFuture(e);
+            }
+            running.whenComplete((upscaled, error) -> {
+                releaseUpscalePermit();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(upscaled);
+                }
+            });
+        };
+        synchronized (waitingUpscales) {
+            if (runningUpscales >= upscalePermits) {
+                waitingUpscales.addLast(start);
+                return result;
+            }
+            runningUpscales++;
+        }
+        start.run();
+        return result;
+    }
+
+    private void releaseUpscalePermit() {
+        Runnable next;
+        synchronized (waitingUpscales) {
+            next = waitingUpscales.pollFirst();
+            if (next == null) {
+                runningUpscales--;
+                return;
+            }
+        }
+        // The slot passes straight to the next call, started off the thread that completed this one
+        remoteIoExecutor.execute(next);
+    }
+
+    private byte[] prepareForUpscale(byte[] imageData, String name) {
+        try {
+            BufferedImage sourceImage = ImageIO.read(new ByteArrayInputStream(imageData));
+            if (sourceImage == null) {
+                throw new IOException("Could not read icon image for HQ upscale: " + name);
+            }
+
+            BufferedImage resizedImage = ExportImagePyramid.resize(sourceImage, SOURCE_SIZE, SOURCE_SIZE);
+            BufferedImage preparedImage = replaceTransparentPixels(resizedImage, UPSCALE_BACKGROUND);
+
+            log.debug("Prepared icon {} for HQ upscale at {}x{} with white background", name, SOURCE_SIZE, SOURCE_SIZE);
+
+            return pngEncodingService.encode(preparedImage, PngEncodingService.Preset.SMALL);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private BufferedImage replaceTransparentPixels(BufferedImage image, Color backgroundColor) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage processed = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int backgroundArgb = backgroundColor.getRGB();
+        int[] rowBuffer = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, rowBuffer, 0, width);
+            for (int x = 0; x < width; x++) {
+                int argb = rowBuffer[x];
+                int alpha = (argb >> 24) & 0xFF;
+
+                if (alpha == 255) {
+                    continue;
+                }
+
+                if (alpha == 0) {
+                    rowBuffer[x] = backgroundArgb;
+                    continue;
+                }
+
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+                float alphaFactor = alpha / 255.0f;
+
+                int blendedR = Math.round(alphaFactor * r + (1 - alphaFactor) * backgroundColor.getRed());
+                int blendedG = Math.round(alphaFactor * g + (1 - alphaFactor) * backgroundColor.getGreen());
+                int blendedB = Math.round(alphaFactor * b + (1 - alphaFactor) * backgroundColor.getBlue());
+
+                rowBuffer[x] = (0xFF << 24) | (blendedR << 16) | (blendedG << 8) | blendedB;
+            }
+            processed.setRGB(0, y, width, 1, rowBuffer, 0, width);
+        }
+
+        return processed;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -1,19 +1,25 @@
 package com.gosu.iconpackgenerator.domain.icons.service;
 
+import com.gosu.iconpackgenerator.util.ImagePixels;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.awt.Rectangle;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 
 @Service
 @Slf4j
 public class IconArtifactCleanupService {
 
+    /**
+     * Per-thread BFS queue and visited bitset reused across calls, so labeling does not allocate per pixel
+     */
+    private static final ThreadLocal<LabelingScratch> LABELING_SCRATCH = ThreadLocal.withInitial(LabelingScratch::new);
+
     public BufferedImage cleanupIconArtifacts(BufferedImage croppedIcon, int row, int col) {
         int width = croppedIcon.getWidth();
         int height = croppedIcon.getHeight();
@@ -25,7 +31,10 @@ public class IconArtifactCleanupService {
         g2d.drawImage(croppedIcon, 0, 0, null);
         g2d.dispose();
 
-        Rectangle mainContentBounds = detectMainIconBounds(cleanedIcon);
+        // cleanedIcon is a fresh TYPE_INT_ARGB image, so this is its live backing array
+        int[] argb = ImagePixels.readArgb(cleanedIcon);
+
+        Rectangle mainContentBounds = detectMainIconBounds(argb, width, height);
 
         if (mainContentBounds == null) {
             log.debug("No main content detected in icon at [{},{}], skipping artifact cleanup", row, col);
@@ -40,46 +49,37 @@ public class IconArtifactCleanupService {
         int artifactsRemoved = 0;
 
         if (col > 0) {
-            artifactsRemoved += cleanupEdgeArtifacts(cleanedIcon, mainContentBounds, 0, 0, edgeThickness, height, "left");
+            artifactsRemoved += cleanupEdgeArtifacts(argb, width, height, mainContentBounds, 0, 0, edgeThickness, height, "left");
         }
 
         if (col < 2) {
-            artifactsRemoved += cleanupEdgeArtifacts(cleanedIcon, mainContentBounds, width - edgeThickness, 0, edgeThickness, height, "right");
+            artifactsRemoved += cleanupEdgeArtifacts(argb, width, height, mainContentBounds, width - edgeThickness, 0, edgeThickness, height, "right");
         }
 
         if (row > 0) {
-            artifactsRemoved += cleanupEdgeArtifacts(cleanedIcon, mainContentBounds, 0, 0, width, edgeThickness, "top");
+            artifactsRemoved += cleanupEdgeArtifacts(argb, width, height, mainContentBounds, 0, 0, width, edgeThickness, "top");
         }
 
         if (row < 2) {
-            artifactsRemoved += cleanupEdgeArtifacts(cleanedIcon, mainContentBounds, 0, height - edgeThickness, width, edgeThickness, "bottom");
+            artifactsRemoved += cleanupEdgeArtifacts(argb, width, height, mainContentBounds, 0, height - edgeThickness, width, edgeThickness, "bottom");
         }
 
-        artifactsRemoved += cleanupCornerArtifacts(cleanedIcon, mainContentBounds, row, col);
+        artifactsRemoved += cleanupCornerArtifacts(argb, width, height, mainContentBounds, row, col);
 
         log.debug("Removed {} artifact pixels from icon at [{},{}]", artifactsRemoved, row, col);
         return cleanedIcon;
     }
 
-    private Rectangle detectMainIconBounds(BufferedImage icon) {
-        int width = icon.getWidth();
-        int height = icon.getHeight();
-
-        boolean[][] visited = new boolean[height][width];
+    private Rectangle detectMainIconBounds(int[] argb, int width, int height) {
         Rectangle largestBounds = null;
         int largestArea = 0;
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (!visited[y][x] && isContentPixel(icon.getRGB(x, y))) {
-                    Rectangle componentBounds = findConnectedComponentBounds(icon, x, y, visited);
-                    int area = componentBounds.width * componentBounds.height;
+        for (Rectangle componentBounds : findConnectedComponentBounds(argb, width, height)) {
+            int area = componentBounds.width * componentBounds.height;
 
-                    if (area > largestArea) {
-                        largestArea = area;
-                        largestBounds = componentBounds;
-                    }
-                }
+            if (area > largestArea) {
+                largestArea = area;
+                largestBounds = componentBounds;
             }
         }
 
@@ -94,50 +94,72 @@ public class IconArtifactCleanupService {
         return largestBounds;
     }
 
-    private Rectangle findConnectedComponentBounds(BufferedImage icon, int startX, int startY, boolean[][] visited) {
-        int width = icon.getWidth();
-        int height = icon.getHeight();
-
-        Queue<int[]> queue = new LinkedList<>();
-        queue.offer(new int[]{startX, startY});
-        visited[startY][startX] = true;
-
-        int minX = startX, maxX = startX;
-        int minY = startY, maxY = startY;
+    /**
+     * Label all 4-connected components of content pixels in a single pass over the raster.
+     * Uses a primitive index queue and a packed visited bitset instead of per-pixel allocations.
+     *
+     * @return bounds of every component, in raster order of each component's first pixel
+     */
+    List<Rectangle> findConnectedComponentBounds(int[] argb, int width, int height) {
+        int pixelCount = width * height;
+        LabelingScratch scratch = LABELING_SCRATCH.get();
+        int[] queue = scratch.queue(pixelCount);
+        long[] visited = scratch.visited(pixelCount);
+
+        List<Rectangle> components = new ArrayList<>();
+
+        for (int start = 0; start < pixelCount; start++) {
+            if ((visited[start >>> 6] & (1L << start)) != 0 || !isContentPixel(argb[start])) {
+                continue;
+            }
 
-        int[] dx = {-1, 1, 0, 0};
-        int[] dy = {0, 0, -1, 1};
+            visited[start >>> 6] |= 1L << start;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
 
-        while (!queue.isEmpty()) {
-            int[] current = queue.poll();
-            int x = current[0], y = current[1];
+            int minX = start % width, maxX = minX;
+            int minY = start / width, maxY = minY;
 
-            minX = Math.min(minX, x);
-            maxX = Math.max(maxX, x);
-            minY = Math.min(minY, y);
-            maxY = Math.max(maxY, y);
+            while (head < tail) {
+                int index = queue[head++];
+                int x = index % width;
+                int y = index / width;
 
-            for (int i = 0; i < 4; i++) {
-                int nx = x + dx[i];
-                int ny = y + dy[i];
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
 
-                if (nx >= 0 && nx < width && ny >= 0 && ny < height &&
-                        !visited[ny][nx] && isContentPixel(icon.getRGB(nx, ny))) {
-                    visited[ny][nx] = true;
-                    queue.offer(new int[]{nx, ny});
-                }
+                if (x > 0) tail = visit(argb, visited, queue, tail, index - 1);
+                if (x < width - 1) tail = visit(argb, visited, queue, tail, index + 1);
+                if (y > 0) tail = visit(argb, visited, queue, tail, index - width);
+                if (y < height - 1) tail = visit(argb, visited, queue, tail, index + width);
             }
+
+            components.add(new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1));
         }
 
-        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        return components;
     }
 
-    private int cleanupEdgeArtifacts(BufferedImage icon, Rectangle mainBounds, int x, int y, int width, int height, String edge) {
+    private int visit(int[] argb, long[] visited, int[] queue, int tail, int index) {
+        long bit = 1L << index;
+        int word = index >>> 6;
+        if ((visited[word] & bit) == 0 && isContentPixel(argb[index])) {
+            visited[word] |= bit;
+            queue[tail++] = index;
+        }
+        return tail;
+    }
+
+    private int cleanupEdgeArtifacts(int[] argb, int iconWidth, int iconHeight, Rectangle mainBounds,
+                                     int x, int y, int width, int height, String edge) {
         int artifactsRemoved = 0;
 
-        for (int py = y; py < y + height && py < icon.getHeight(); py++) {
-            for (int px = x; px < x + width && px < icon.getWidth(); px++) {
-                int rgb = icon.getRGB(px, py);
+        for (int py = y; py < y + height && py < iconHeight; py++) {
+            for (int px = x; px < x + width && px < iconWidth; px++) {
+                int rgb = argb[py * iconWidth + px];
 
                 if (isContentPixel(rgb)) {
                     boolean isArtifact = false;
@@ -146,16 +168,16 @@ public class IconArtifactCleanupService {
                         isArtifact = true;
                     }
 
-                    if (!isArtifact && isIsolatedPixel(icon, px, py, mainBounds)) {
+                    if (!isArtifact && isIsolatedPixel(argb, iconWidth, iconHeight, px, py, mainBounds)) {
                         isArtifact = true;
                     }
 
-                    if (!isArtifact && hasColorDiscontinuity(icon, px, py, mainBounds)) {
+                    if (!isArtifact && hasColorDiscontinuity(argb, iconWidth, iconHeight, px, py, mainBounds)) {
                         isArtifact = true;
                     }
 
                     if (isArtifact) {
-                        icon.setRGB(px, py, 0x00000000);
+                        argb[py * iconWidth + px] = 0x00000000;
                         artifactsRemoved++;
                     }
                 }
@@ -169,9 +191,7 @@ public class IconArtifactCleanupService {
         return artifactsRemoved;
     }
 
-    private int cleanupCornerArtifacts(BufferedImage icon, Rectangle mainBounds, int row, int col) {
-        int width = icon.getWidth();
-        int height = icon.getHeight();
+    private int cleanupCornerArtifacts(int[] argb, int width, int height, Rectangle mainBounds, int row, int col) {
         int cornerSize = Math.min(Math.max(width / 15, 5), 20);
         int artifactsRemoved = 0;
 
@@ -197,10 +217,10 @@ public class IconArtifactCleanupService {
         for (Rectangle corner : corners) {
             for (int y = corner.y; y < corner.y + corner.height && y < height; y++) {
                 for (int x = corner.x; x < corner.x + corner.width && x < width; x++) {
-                    int rgb = icon.getRGB(x, y);
+                    int rgb = argb[y * width + x];
 
                     if (isContentPixel(rgb) && !mainBounds.contains(x, y)) {
-                        icon.setRGB(x, y, 0x00000000);
+                        argb[y * width + x] = 0x00000000;
                         artifactsRemoved++;
                     }
                 }
@@ -226,7 +246,7 @@ public class IconArtifactCleanupService {
         return !isTransparent && !isWhite;
     }
 
-    private boolean isIsolatedPixel(BufferedImage icon, int x, int y, Rectangle mainBounds) {
+    private boolean isIsolatedPixel(int[] argb, int width, int height, int x, int y, Rectangle mainBounds) {
         int radius = 3;
 
         for (int dy = -radius; dy <= radius; dy++) {
@@ -236,8 +256,8 @@ public class IconArtifactCleanupService {
                 int nx = x + dx;
                 int ny = y + dy;
 
-                if (nx >= 0 && nx < icon.getWidth() && ny >= 0 && ny < icon.getHeight()) {
-                    if (isContentPixel(icon.getRGB(nx, ny)) && mainBounds.contains(nx, ny)) {
+                if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+                    if (isContentPixel(argb[ny * width + nx]) && mainBounds.contains(nx, ny)) {
                         return false;
                     }
                 }
@@ -247,8 +267,8 @@ public class IconArtifactCleanupService {
         return true;
     }
 
-    private boolean hasColorDiscontinuity(BufferedImage icon, int x, int y, Rectangle mainBounds) {
-        int rgb = icon.getRGB(x, y);
+    private boolean hasColorDiscontinuity(int[] argb, int width, int height, int x, int y, Rectangle mainBounds) {
+        int rgb = argb[y * width + x];
         int red = (rgb >> 16) & 0xFF;
         int green = (rgb >> 8) & 0xFF;
         int blue = rgb & 0xFF;
@@ -256,13 +276,13 @@ public class IconArtifactCleanupService {
         int nearestDistance = Integer.MAX_VALUE;
         int nearestRGB = rgb;
 
-        for (int my = Math.max(0, mainBounds.y - 5); my < Math.min(icon.getHeight(), mainBounds.y + mainBounds.height + 5); my++) {
-            for (int mx = Math.max(0, mainBounds.x - 5); mx < Math.min(icon.getWidth(), mainBounds.x + mainBounds.width + 5); mx++) {
-                if (mainBounds.contains(mx, my) && isContentPixel(icon.getRGB(mx, my))) {
+        for (int my = Math.max(0, mainBounds.y - 5); my < Math.min(height, mainBounds.y + mainBounds.height + 5); my++) {
+            for (int mx = Math.max(0, mainBounds.x - 5); mx < Math.min(width, mainBounds.x + mainBounds.width + 5); mx++) {
+                if (mainBounds.contains(mx, my) && isContentPixel(argb[my * width + mx])) {
                     int distance = Math.abs(mx - x) + Math.abs(my - y);
                     if (distance < nearestDistance) {
                         nearestDistance = distance;
-                        nearestRGB = icon.getRGB(mx, my);
+                        nearestRGB = argb[my * width + mx];
                     }
                 }
             }
@@ -280,4 +300,26 @@ public class IconArtifactCleanupService {
 
         return colorDistance > 150;
     }
+
+    private static final class LabelingScratch {
+        private int[] queue = new int[0];
+        private long[] visited = new long[0];
+
+        int[] queue(int pixelCount) {
+            if (queue.length < pixelCount) {
+                queue = new int[pixelCount];
+            }
+            return queue;
+        }
+
+        long[] visited(int pixelCount) {
+            int words = (pixelCount + 63) >>> 6;
+            if (visited.length < words) {
+                visited = new long[words];
+            } else {
+                Arrays.fill(visited, 0, words, 0L);
+            }
+            return visited;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.gosu.iconpackgenerator.domain.icons.service;
 
+import com.gosu.iconpackgenerator.util.ImagePixels;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -43,6 +44,8 @@ public class IconCenteringService {
     private Rectangle detectContentBounds(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
+        // Read the pixels once; every pass below works on this array
+        int[] argb = ImagePixels.readArgb(image);
 
         int minX = width;
         int minY = height;
@@ -51,12 +54,12 @@ public class IconCenteringService {
 
         int backgroundThreshold = 240;
 
-        boolean hasTransparentPixels = hasTransparentPixels(image);
+        boolean hasTransparentPixels = image.getColorModel().hasAlpha() && hasTransparentPixels(argb);
         boolean foundContent = false;
 
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
+                int rgb = argb[y * width + x];
                 int alpha = (rgb >> 24) & 0xFF;
                 int red = (rgb >> 16) & 0xFF;
                 int green = (rgb >> 8) & 0xFF;
@@ -80,34 +83,24 @@ public class IconCenteringService {
 
         if (!foundContent) {
             log.debug("No content found with strict detection. Falling back to more lenient detection.");
-            return detectContentBoundsIncludingBlack(image);
+            return detectContentBoundsIncludingBlack(argb, width, height);
         }
 
         return new Rectangle(minX, minY, Math.max(1, maxX - minX + 1), Math.max(1, maxY - minY + 1));
     }
 
-    private boolean hasTransparentPixels(BufferedImage image) {
-        if (!image.getColorModel().hasAlpha()) {
-            return false;
-        }
-
-        int width = image.getWidth();
-        int height = image.getHeight();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int alpha = (image.getRGB(x, y) >> 24) & 0xFF;
-                if (alpha < 250) {
-                    return true;
-                }
+    private boolean hasTransparentPixels(int[] argb) {
+        for (int rgb : argb) {
+            int alpha = (rgb >> 24) & 0xFF;
+            if (alpha < 250) {
+                return true;
             }
         }
 
         return false;
     }
 
-    private Rectangle detectContentBoundsIncludingBlack(BufferedImage image) {
-        int width = image.getWidth();
-        int height = image.getHeight();
+    private Rectangle detectContentBoundsIncludingBlack(int[] argb, int width, int height) {
 
         int minX = width;
         int minY = height;
@@ -119,7 +112,7 @@ public class IconCenteringService {
 
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
+                int rgb = argb[y * width + x];
                 int alpha = (rgb >> 24) & 0xFF;
                 int red = (rgb >> 16) & 0xFF;
                 int green = (rgb >> 8) & 0xFF;
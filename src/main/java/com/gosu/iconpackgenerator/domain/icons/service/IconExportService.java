@@ -1,34 +1,51 @@
 package com.gosu.iconpackgenerator.domain.icons.service;
 
-import com.gosu.iconpackgenerator.domain.ai.IdeoGramRemoveBackGroundService;
-import com.gosu.iconpackgenerator.domain.ai.SeedVrUpscaleService;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconExportRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse;
 import com.gosu.iconpackgenerator.domain.vectorization.SvgVectorizationService;
+import com.gosu.iconpackgenerator.util.ContentAddressedCache;
+import com.gosu.iconpackgenerator.util.ExportZipWriter;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
 import dev.matrixlab.webp4j.NativeWebP;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -36,8 +53,29 @@ import java.util.zip.ZipOutputStream;
 public class IconExportService {
 
     private final SvgVectorizationService svgVectorizationService;
-    private final SeedVrUpscaleService seedVrUpscaleService;
-    private final IdeoGramRemoveBackGroundService ideoGramRemoveBackGroundService;
+    private final HighQualityUpscaleService highQualityUpscaleService;
+    private final PngEncodingService pngEncodingService;
+    @Qualifier("imageProcessingExecutor")
+    private final ExecutorService imageProcessingExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${icon-export.parallel-rendering:true}")
+    private boolean parallelRendering = true;
+
+    @Value("${icon-export.render-window:4}")
+    private int renderWindow = 4;
+
+    @Value("${icon-export.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${icon-export.cache.memory-max-mb:32}")
+    private long cacheMemoryMaxMb;
+
+    @Value("${icon-export.cache.directory:}")
+    private String cacheDirectory;
+
+    @Value("${icon-export.cache.disk-max-mb:2048}")
+    private long cacheDiskMaxMb;
     
     // Standard icon sizes for PNG exports
     private static final int[] PNG_SIZES = {32, 64, 128, 256, 512};
@@ -46,16 +84,56 @@ public class IconExportService {
     private static final int[] ICO_SIZES = {32, 48, 64, 128, 256};
 
     private static final int HQ_ADDITIONAL_SIZE = 1024;
-    private static final int HQ_UPSCALE_SOURCE_SIZE = 256;
-    private static final float HQ_UPSCALE_FACTOR = 4.0f;
-    private static final int HQ_THREAD_POOL_SIZE = 9;
-    private static final Color HQ_UPSCALE_BACKGROUND = Color.WHITE;
-    
-    // Cache for WebP4j availability to avoid repeated checks
-    private Boolean webp4jAvailable = null;
-    private NativeWebP nativeWebP = null;
 
+    // Bump when rendering or encoding changes so stale artifacts are no longer looked up
+    private static final String ARTIFACT_CACHE_VERSION = "v2";
+    private static final String STANDARD_VARIANT = "standard";
+    private static final String HQ_VARIANT = "hq";
+
+    // Rendered per-icon artifacts, keyed by icon content hash, variant and artifact name; null when disabled
+    private ContentAddressedCache artifactCache;
+
+    @PostConstruct
+    public void initArtifactCache() {
+        if (!cacheEnabled) {
+            return;
+        }
+        Path diskDirectory = cacheDirectory == null || cacheDirectory.isBlank() ? null : Paths.get(cacheDirectory);
+        artifactCache = new ContentAddressedCache("icon-export",
+                cacheMemoryMaxMb * 1024 * 1024,
+                diskDirectory,
+                cacheDiskMaxMb * 1024 * 1024,
+                meterRegistry);
+    }
+
+    /**
+     * Build the whole icon pack in memory. Prefer {@link #writeIconPackZip} for HTTP responses.
+     */
     public byte[] createIconPackZip(IconExportRequest exportRequest) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            writeIconPackZip(exportRequest, baos);
+            return baos.toByteArray();
+        } catch (IOException e) {
+            log.error("Error creating ZIP file for request: {}", exportRequest.getRequestId(), e);
+            throw new RuntimeException("Failed to create icon pack ZIP", e);
+        }
+    }
+
+    /**
+     * Write the icon pack ZIP to the given stream. The output is flushed after each icon, so entries reach
+     * the client as soon as they are rendered and only one icon's renditions are held in memory at a time.
+     * The stream is finished but not closed.
+     */
+    public void writeIconPackZip(IconExportRequest exportRequest, OutputStream outputStream) throws IOException {
+        writeIconPackZip(exportRequest, outputStream, ExportProgressListener.NONE);
+    }
+
+    /**
+     * Same as {@link #writeIconPackZip(IconExportRequest, OutputStream)}, reporting each icon once all of its
+     * entries have been written.
+     */
+    public void writeIconPackZip(IconExportRequest exportRequest, OutputStream outputStream,
+                                 ExportProgressListener progressListener) throws IOException {
         List<String> formats = exportRequest.getFormats();
         if (formats == null || formats.isEmpty()) {
             log.info("No formats specified, defaulting to all available formats.");
@@ -68,299 +146,482 @@ public class IconExportService {
         log.info("Creating icon pack for request: {} with {} icons and formats: {}",
                 exportRequest.getRequestId(), exportRequest.getIcons().size(), formats);
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
-
-            List<PreparedIcon> preparedIcons = prepareIcons(exportRequest.getIcons());
-            boolean needsVectorization = exportRequest.isVectorizeSvg();
-            Map<String, byte[]> vectorizedSvgs = needsVectorization
-                    ? svgVectorizationService.vectorizeImages(
-                    preparedIcons.stream()
-                            .collect(Collectors.toMap(PreparedIcon::baseName, PreparedIcon::originalData)))
-                    : Collections.emptyMap();
-            Map<String, byte[]> hqIconData = exportRequest.isHqUpscale()
-                    ? processIconsForHighQuality(preparedIcons)
-                    : Collections.emptyMap();
-            int[] rasterSizes = getRasterSizes(exportRequest.isHqUpscale());
-
-            for (PreparedIcon preparedIcon : preparedIcons) {
-                String iconBase64Data = preparedIcon.icon().getBase64Data();
-                byte[] originalIconData = preparedIcon.originalData();
-                String baseName = preparedIcon.baseName();
-                byte[] workingIconData = exportRequest.isHqUpscale()
-                        ? hqIconData.getOrDefault(baseName, originalIconData)
-                        : originalIconData;
-
-                if (formats.contains("svg")) {
-                    createSvgVersion(zos, iconBase64Data, baseName);
-                }
-                if (formats.contains("png")) {
-                    createPngVersions(zos, workingIconData, baseName, rasterSizes);
-                }
-                if (formats.contains("webp") && isWebp4jAvailable()) {
-                    createWebpVersions(zos, workingIconData, baseName, rasterSizes);
-                }
-                if (formats.contains("ico")) {
-                    createIcoVersion(zos, workingIconData, baseName);
+        // Validate before the first byte is written, so bad input still gets a clean error response
+        List<PreparedIcon> preparedIcons = prepareIcons(exportRequest.getIcons());
+        ExportZipWriter zip = new ExportZipWriter(outputStream);
+
+        // Vectorization and the HQ upscale are started for every icon here but awaited per icon, so the first
+        // icon's entries are written as soon as its own premium renditions are ready
+        Map<String, CompletableFuture<byte[]>> vectorizedSvgs = exportRequest.isVectorizeSvg()
+                ? vectorizeIcons(preparedIcons)
+                : Collections.emptyMap();
+        int[] rasterSizes = getRasterSizes(exportRequest.isHqUpscale());
+        List<String> requestedFormats = formats;
+        // Icons whose HQ renditions are all cached skip the remote upscale; renderIcon upscales them after all if
+        // any rendition is evicted before it is read
+        Map<String, CompletableFuture<byte[]>> hqIconData = exportRequest.isHqUpscale()
+                ? processIconsForHighQuality(preparedIcons.stream()
+                        .filter(icon -> !rasterArtifactsCached(icon, requestedFormats, rasterSizes))
+                        .toList())
+                : Collections.emptyMap();
+
+        // Icons are rendered ahead of the writer on the shared CPU pool, at most renderWindow icons at a time so
+        // memory stays bounded; entries are still written in icon order and, per icon, in format order.
+        Iterator<PreparedIcon> iconsToRender = preparedIcons.iterator();
+        int exportedIcons = 0;
+        Deque<CompletableFuture<List<ExportEntry>>> renderingIcons = new ArrayDeque<>();
+        int window = parallelRendering ? Math.max(1, renderWindow) : 1;
+        try {
+            while (renderingIcons.size() < window && iconsToRender.hasNext()) {
+                renderingIcons.add(renderWhenReady(iconsToRender.next(), exportRequest, formats, rasterSizes, hqIconData, vectorizedSvgs));
+            }
+            while (!renderingIcons.isEmpty()) {
+                List<ExportEntry> entries = awaitEntries(renderingIcons.poll());
+                if (iconsToRender.hasNext()) {
+                    renderingIcons.add(renderWhenReady(iconsToRender.next(), exportRequest, formats, rasterSizes, hqIconData, vectorizedSvgs));
                 }
-                if (exportRequest.isVectorizeSvg()) {
-                    byte[] vectorizedSvg = vectorizedSvgs.get(baseName);
-                    if (vectorizedSvg != null && vectorizedSvg.length > 0) {
-                        createVectorizedSvgEntry(zos, baseName, vectorizedSvg);
-                    } else {
-                        log.warn("Vectorized SVG not available for icon {} ({})", baseName, preparedIcon.icon().getDescription());
-                    }
+                for (ExportEntry entry : entries) {
+                    entry.writeTo(zip);
                 }
-
-                log.debug("Created requested formats for icon ({})", baseName);
+                zip.flush();
+                progressListener.onIconExported(++exportedIcons, preparedIcons.size());
             }
-
-            zos.finish();
-            log.info("Successfully created icon pack ZIP with {} icons in formats: {}", exportRequest.getIcons().size(), formats);
-            return baos.toByteArray();
-
-        } catch (IOException e) {
-            log.error("Error creating ZIP file for request: {}", exportRequest.getRequestId(), e);
-            throw new RuntimeException("Failed to create icon pack ZIP", e);
+        } finally {
+            renderingIcons.forEach(rendering -> rendering.cancel(false));
+            // After a failure, vectorizations still waiting for a thread are skipped
+            vectorizedSvgs.values().forEach(vectorized -> vectorized.cancel(false));
         }
+
+        zip.finish();
+        log.info("Successfully created icon pack ZIP with {} icons in formats: {}", exportRequest.getIcons().size(), formats);
     }
 
     private List<PreparedIcon> prepareIcons(List<IconGenerationResponse.GeneratedIcon> icons) {
         List<PreparedIcon> preparedIcons = new ArrayList<>();
         int iconIndex = 1;
         for (IconGenerationResponse.GeneratedIcon icon : icons) {
-            if (icon == null || icon.getBase64Data() == null) {
+            if (icon == null || icon.getData() == null || !icon.getData().hasBytes()) {
                 throw new IllegalArgumentException("Icon data missing for export at index " + iconIndex);
             }
-            byte[] originalIconData = Base64.getDecoder().decode(icon.getBase64Data());
+            byte[] originalIconData = icon.getData().getBytes();
             String baseName = createBaseName(icon, iconIndex);
-            preparedIcons.add(new PreparedIcon(baseName, icon, originalIconData));
+            String contentHash = artifactCache != null ? ContentAddressedCache.key("icon", originalIconData) : null;
+            preparedIcons.add(new PreparedIcon(baseName, icon, originalIconData, contentHash));
             iconIndex++;
         }
         return preparedIcons;
     }
 
-    private void createVectorizedSvgEntry(ZipOutputStream zos, String baseName, byte[] svgBytes) throws IOException {
-        ZipEntry zipEntry = new ZipEntry("vectorized-svg/" + baseName + ".svg");
-        zos.putNextEntry(zipEntry);
-        zos.write(svgBytes);
-        zos.closeEntry();
+    /**
+     * Render one icon once its own vectorized SVG and HQ upscale, if requested, are available.
+     */
+    private CompletableFuture<List<ExportEntry>> renderWhenReady(PreparedIcon preparedIcon,
+                                                                IconExportRequest exportRequest,
+                                                                List<String> formats,
+                                                                int[] rasterSizes,
+                                                                Map<String, CompletableFuture<byte[]>> hqIconData,
+                                                                Map<String, CompletableFuture<byte[]>> vectorizedSvgs) {
+        CompletableFuture<byte[]> upscaled = hqIconData.getOrDefault(preparedIcon.baseName(),
+                CompletableFuture.completedFuture(null));
+        CompletableFuture<byte[]> vectorized = vectorizedSvgs.getOrDefault(preparedIcon.baseName(),
+                CompletableFuture.completedFuture(null));
+        return CompletableFuture.allOf(upscaled, vectorized)
+                .thenCompose(ignored -> renderIcon(preparedIcon, exportRequest, formats, rasterSizes,
+                        upscaled.join(), vectorized.join()));
+    }
+
+    /**
+     * Render all requested formats of one icon on the CPU pool. The raster formats share one decode of the icon:
+     * an {@link ExportImagePyramid} holds every PNG, WebP and ICO size, each size is encoded as its own task, and
+     * the PNG bytes are used both for the png/ entries and inside the ICO. The combined entry list keeps the
+     * fixed svg, png, webp, ico, vectorized-svg order.
+     */
+    private CompletableFuture<List<ExportEntry>> renderIcon(PreparedIcon preparedIcon,
+                                                           IconExportRequest exportRequest,
+                                                           List<String> formats,
+                                                           int[] rasterSizes,
+                                                           byte[] upscaledIconData,
+                                                           byte[] vectorizedSvg) {
+        byte[] originalIconData = preparedIcon.originalData();
+        String baseName = preparedIcon.baseName();
+        String variant = exportRequest.isHqUpscale() ? HQ_VARIANT : STANDARD_VARIANT;
+        boolean png = formats.contains("png");
+        boolean webp = formats.contains("webp") && isWebp4jAvailable();
+        boolean ico = formats.contains("ico");
+
+        CompletableFuture<List<ExportEntry>> svgEntries = formats.contains("svg")
+                ? renderAsync(() -> createSvgVersion(originalIconData, baseName))
+                : CompletableFuture.completedFuture(List.of());
+
+        byte[] cachedIco = ico ? cachedArtifact(preparedIcon, variant, "ico") : null;
+        int[] pngSizes = IntStream.concat(
+                        png ? Arrays.stream(rasterSizes) : IntStream.empty(),
+                        ico && cachedIco == null ? Arrays.stream(ICO_SIZES) : IntStream.empty())
+                .distinct()
+                .toArray();
+        Map<Integer, byte[]> cachedPngs = cachedLevels(preparedIcon, variant, "png", pngSizes);
+        Map<Integer, byte[]> cachedWebps = webp ? cachedLevels(preparedIcon, variant, "webp", rasterSizes) : Map.of();
+
+        // Cached renditions are read once above and carried through; only sizes missing from the cache are decoded
+        // and rendered
+        int[] pyramidSizes = IntStream.concat(
+                        Arrays.stream(pngSizes).filter(size -> !cachedPngs.containsKey(size)),
+                        webp ? Arrays.stream(rasterSizes).filter(size -> !cachedWebps.containsKey(size)) : IntStream.empty())
+                .distinct()
+                .toArray();
+        byte[] workingIconData = exportRequest.isHqUpscale()
+                ? hqWorkingData(preparedIcon, upscaledIconData, pyramidSizes.length > 0)
+                : originalIconData;
+        // A failed HQ upscale falls back to the original raster, which must not be cached as the HQ rendition
+        boolean cacheRenders = !exportRequest.isHqUpscale() || workingIconData != originalIconData
+                || pyramidSizes.length == 0;
+        CompletableFuture<ExportImagePyramid> pyramid = pyramidSizes.length > 0
+                ? renderAsync(() -> buildPyramid(workingIconData, baseName, pyramidSizes))
+                : CompletableFuture.completedFuture(null);
+
+        Map<Integer, CompletableFuture<byte[]>> pngLevels = new LinkedHashMap<>();
+        for (int size : pngSizes) {
+            byte[] cachedPng = cachedPngs.get(size);
+            pngLevels.put(size, cachedPng != null
+                    ? CompletableFuture.completedFuture(cachedPng)
+                    : pyramid.thenCompose(levels -> renderAsync(() -> cacheArtifact(preparedIcon, variant, "png-" + size,
+                            encodePngLevel(levels, size, baseName), cacheRenders))));
+        }
+        List<CompletableFuture<ExportEntry>> webpEntries = new ArrayList<>();
+        if (webp) {
+            for (int size : rasterSizes) {
+                byte[] cachedWebp = cachedWebps.get(size);
+                webpEntries.add(cachedWebp != null
+                        ? CompletableFuture.completedFuture(new ExportEntry(webpEntryName(baseName, size), cachedWebp))
+                        : pyramid.thenCompose(levels -> renderAsync(() -> {
+                            ExportEntry entry = createWebpVersion(levels, size, baseName);
+                            cacheArtifact(preparedIcon, variant, "webp-" + size, entry != null ? entry.data() : null, cacheRenders);
+                            return entry;
+                        })));
+            }
+        }
+
+        List<CompletableFuture<?>> renders = new ArrayList<>(pngLevels.values());
+        renders.addAll(webpEntries);
+        renders.add(svgEntries);
+        return CompletableFuture.allOf(renders.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<ExportEntry> entries = new ArrayList<>(svgEntries.join());
+                    if (png) {
+                        for (int size : rasterSizes) {
+                            byte[] pngData = pngLevels.get(size).join();
+                            if (pngData != null) {
+                                entries.add(new ExportEntry(String.format("png/%s_%dx%d.png", baseName, size, size), pngData));
+                            }
+                        }
+                    }
+                    webpEntries.stream()
+                            .map(CompletableFuture::join)
+                            .filter(Objects::nonNull)
+                            .forEach(entries::add);
+                    if (ico && cachedIco != null) {
+                        entries.add(new ExportEntry(icoEntryName(baseName), cachedIco));
+                    } else if (ico) {
+                        List<ExportEntry> icoEntries = createIcoVersion(pngLevels, baseName);
+                        icoEntries.forEach(entry -> cacheArtifact(preparedIcon, variant, "ico", entry.data(), cacheRenders));
+                        entries.addAll(icoEntries);
+                    }
+                    if (exportRequest.isVectorizeSvg()) {
+                        if (vectorizedSvg != null && vectorizedSvg.length > 0) {
+                            entries.add(new ExportEntry("vectorized-svg/" + baseName + ".svg", vectorizedSvg));
+                        } else {
+                            log.warn("Vectorized SVG not available for icon {} ({})", baseName, preparedIcon.icon().getDescription());
+                        }
+                    }
+                    log.debug("Created requested formats for icon ({})", baseName);
+                    return entries;
+                });
+    }
+
+    private <T> CompletableFuture<T> renderAsync(Supplier<T> render) {
+        if (!parallelRendering) {
+            return CompletableFuture.completedFuture(render.get());
+        }
+        return CompletableFuture.supplyAsync(render, imageProcessingExecutor);
+    }
+
+    private List<ExportEntry> awaitEntries(CompletableFuture<List<ExportEntry>> rendering) {
+        try {
+            return rendering.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Start vectorizing every icon. Repeat exports are served by the vectorizer's own cache, which label exports
+     * share.
+     */
+    private Map<String, CompletableFuture<byte[]>> vectorizeIcons(List<PreparedIcon> preparedIcons) {
+        Map<String, byte[]> images = new LinkedHashMap<>();
+        preparedIcons.forEach(icon -> images.put(icon.baseName(), icon.originalData()));
+        return svgVectorizationService.vectorizeEach(images);
+    }
+
+    /**
+     * The raster an HQ export renders from. Icons whose renditions were all cached skipped the batch upscale; if
+     * some were evicted since, the icon is upscaled now (usually a hit in the upscale cache) instead of rendering
+     * the missing sizes from the original raster.
+     */
+    private byte[] hqWorkingData(PreparedIcon icon, byte[] upscaled, boolean rendersMissing) {
+        if (upscaled == null && rendersMissing) {
+            log.info("HQ renditions of icon {} left the export cache, upscaling it again", icon.baseName());
+            upscaled = processIconsForHighQuality(List.of(icon)).get(icon.baseName()).join();
+        }
+        return upscaled != null ? upscaled : icon.originalData();
+    }
+
+    private boolean rasterArtifactsCached(PreparedIcon icon, List<String> formats, int[] rasterSizes) {
+        if (artifactCache == null) {
+            return false;
+        }
+        boolean pngCached = !formats.contains("png") || Arrays.stream(rasterSizes)
+                .allMatch(size -> artifactCached(icon, HQ_VARIANT, "png-" + size));
+        boolean webpCached = !formats.contains("webp") || !isWebp4jAvailable() || Arrays.stream(rasterSizes)
+                .allMatch(size -> artifactCached(icon, HQ_VARIANT, "webp-" + size));
+        boolean icoCached = !formats.contains("ico") || artifactCached(icon, HQ_VARIANT, "ico");
+        return pngCached && webpCached && icoCached;
+    }
+
+    private Map<Integer, byte[]> cachedLevels(PreparedIcon icon, String variant, String format, int[] sizes) {
+        Map<Integer, byte[]> cached = new HashMap<>();
+        for (int size : sizes) {
+            byte[] data = cachedArtifact(icon, variant, format + "-" + size);
+            if (data != null) {
+                cached.put(size, data);
+            }
+        }
+        return cached;
+    }
+
+    private boolean artifactCached(PreparedIcon icon, String variant, String artifact) {
+        return artifactCache != null && artifactCache.contains(artifactKey(icon, variant, artifact));
+    }
+
+    private byte[] cachedArtifact(PreparedIcon icon, String variant, String artifact) {
+        return artifactCache != null ? artifactCache.get(artifactKey(icon, variant, artifact)) : null;
+    }
+
+    /**
+     * Store a rendered artifact when caching is enabled and {@code cacheable}; returns {@code data} unchanged.
+     */
+    private byte[] cacheArtifact(PreparedIcon icon, String variant, String artifact, byte[] data, boolean cacheable) {
+        if (artifactCache != null && cacheable && data != null) {
+            artifactCache.put(artifactKey(icon, variant, artifact), data);
+        }
+        return data;
+    }
+
+    private String artifactKey(PreparedIcon icon, String variant, String artifact) {
+        return ContentAddressedCache.key(
+                "icon-export/" + ARTIFACT_CACHE_VERSION + "/" + variant + "/" + artifact,
+                icon.contentHash().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String webpEntryName(String baseName, int size) {
+        return String.format("webp/%s_%dx%d.webp", baseName, size, size);
+    }
+
+    private static String icoEntryName(String baseName) {
+        return "ico/" + baseName + ".ico";
     }
     
-    private void createSvgVersion(ZipOutputStream zos, String iconBase64Data, String baseName) throws IOException {
+    private List<ExportEntry> createSvgVersion(byte[] iconData, String baseName) {
         try {
-            byte[] iconData = Base64.getDecoder().decode(iconBase64Data);
-            ByteArrayInputStream bais = new ByteArrayInputStream(iconData);
-            BufferedImage image = ImageIO.read(bais);
+            Dimension size = readImageSize(iconData);
             
-            if (image == null) {
+            if (size == null) {
                 log.warn("Could not read image for SVG conversion: {}", baseName);
-                return;
+                return List.of();
             }
             
-            int width = image.getWidth();
-            int height = image.getHeight();
+            int width = size.width;
+            int height = size.height;
 
-            // Create proper SVG with embedded PNG data
-            String svgContent = String.format("""
+            // Create proper SVG with embedded PNG data. The base64 payload is encoded straight into the ZIP entry
+            // by the writer, so neither it nor the full document is ever held as a string.
+            byte[] svgStart = String.format("""
                 <?xml version="1.0" encoding="UTF-8"?>
                 <svg width="%d" height="%d" viewBox="0 0 %d %d" xmlns="http://www.w3.org/2000/svg" xmlns:xlink="http://www.w3.org/1999/xlink">
-                  <image xlink:href="data:image/png;base64,%s" width="%d" height="%d" x="0" y="0"/>
+                  <image xlink:href="data:image/png;base64,""", width, height, width, height)
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] svgEnd = String.format("""
+                " width="%d" height="%d" x="0" y="0"/>
                 </svg>
-                """, width, height, width, height, iconBase64Data, width, height);
+                """, width, height)
+                    .getBytes(StandardCharsets.UTF_8);
 
-            ZipEntry zipEntry = new ZipEntry("svg/" + baseName + ".svg");
-            zos.putNextEntry(zipEntry);
-            zos.write(svgContent.getBytes("UTF-8"));
-            zos.closeEntry();
+            return List.of(ExportEntry.streamed("svg/" + baseName + ".svg", outputStream -> {
+                outputStream.write(svgStart);
+                try (OutputStream base64 = Base64.getEncoder().wrap(outputStream)) {
+                    base64.write(iconData);
+                }
+                outputStream.write(svgEnd);
+            }));
             
         } catch (IOException e) {
             log.error("Failed to create SVG version for: {}", baseName, e);
+            return List.of();
         }
     }
-    
-    private void createPngVersions(ZipOutputStream zos, byte[] iconData, String baseName, int[] targetSizes) throws IOException {
-        try {
-            ByteArrayInputStream bais = new ByteArrayInputStream(iconData);
-            BufferedImage originalImage = ImageIO.read(bais);
-            
-            if (originalImage == null) {
-                log.warn("Could not read image for PNG conversion: {}", baseName);
-                return;
+
+    /**
+     * Image dimensions from the header only; the SVG wrapper embeds the original bytes and needs no pixels.
+     */
+    private Dimension readImageSize(byte[] imageData) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
             }
-            
-            for (int size : targetSizes) {
-                BufferedImage resizedImage = resizeImage(originalImage, size, size);
-                byte[] resizedImageData = imageToBytes(resizedImage, "png");
-                
-                ZipEntry zipEntry = new ZipEntry(String.format("png/%s_%dx%d.png", baseName, size, size));
-                zos.putNextEntry(zipEntry);
-                zos.write(resizedImageData);
-                zos.closeEntry();
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
             }
-            
+        }
+    }
+
+    private ExportImagePyramid buildPyramid(byte[] iconData, String baseName, int[] sizes) {
+        try {
+            ExportImagePyramid pyramid = ExportImagePyramid.decode(iconData, sizes);
+            if (pyramid == null) {
+                log.warn("Could not read image for raster conversion: {}", baseName);
+            }
+            return pyramid;
         } catch (IOException e) {
-            log.error("Failed to create PNG versions for: {}", baseName, e);
+            log.error("Failed to decode image for raster conversion: {}", baseName, e);
+            return null;
+        }
+    }
+
+    private byte[] encodePngLevel(ExportImagePyramid pyramid, int size, String baseName) {
+        if (pyramid == null) {
+            return null;
+        }
+        try {
+            return imageToBytes(pyramid.level(size), "png");
+        } catch (IOException e) {
+            log.error("Failed to create PNG {}x{} for: {}", size, size, baseName, e);
+            return null;
         }
     }
     
     /**
-     * Check if WebP4j library is available (cached result)
+     * Check if WebP4j library is available (probed once, on first use)
      */
     private boolean isWebp4jAvailable() {
-        if (webp4jAvailable == null) {
-        try {
-            // Try to create NativeWebP instance to test if the library is available
-            nativeWebP = new NativeWebP();
-            webp4jAvailable = true;
-            log.info("WebP4j library loaded successfully - WebP export will be available");
-        } catch (Exception e) {
-            webp4jAvailable = false;
-            nativeWebP = null;
-            log.warn("WebP4j library not available. WebP export will be skipped. Error: {}", e.getMessage());
-        }
-        }
-        return webp4jAvailable;
+        return WebP4j.AVAILABLE;
     }
 
-    private void createWebpVersions(ZipOutputStream zos, byte[] iconData, String baseName, int[] targetSizes) throws IOException {
+    private ExportEntry createWebpVersion(ExportImagePyramid pyramid, int size, String baseName) {
         // This method should only be called when WebP4j is available
         // The availability check is done in the calling method
-        
+        if (pyramid == null) {
+            return null;
+        }
+
         try {
-            ByteArrayInputStream bais = new ByteArrayInputStream(iconData);
-            BufferedImage originalImage = ImageIO.read(bais);
+            byte[] webpData = encodeImageToWebP(pyramid.level(size));
 
-            if (originalImage == null) {
-                log.warn("Could not read image for WEBP conversion: {}", baseName);
-                return;
+            // Verify the WEBP data is not empty
+            if (webpData.length == 0) {
+                log.warn("WebP conversion resulted in empty data for {}_{}x{}", baseName, size, size);
+                return null;
             }
 
-            for (int size : targetSizes) {
-                BufferedImage resizedImage = resizeImage(originalImage, size, size);
-                
-                try {
-                    byte[] webpData = encodeImageToWebP(resizedImage);
-                    
-                    // Verify the WEBP data is not empty
-                    if (webpData.length == 0) {
-                        log.warn("WebP conversion resulted in empty data for {}_{}x{}", baseName, size, size);
-                        continue;
-                    }
-
-                    ZipEntry zipEntry = new ZipEntry(String.format("webp/%s_%dx%d.webp", baseName, size, size));
-                    zos.putNextEntry(zipEntry);
-                    zos.write(webpData);
-                    zos.closeEntry();
-                    
-                    log.debug("Successfully created WebP: {}_{}x{}.webp ({} bytes)", baseName, size, size, webpData.length);
-                    
-                } catch (Exception webpError) {
-                    log.warn("Failed to convert {}_{}x{} to WebP format: {}. Skipping this size.", 
-                            baseName, size, size, webpError.getMessage());
-                }
-            }
+            log.debug("Successfully created WebP: {}_{}x{}.webp ({} bytes)", baseName, size, size, webpData.length);
+            return new ExportEntry(webpEntryName(baseName, size), webpData);
 
-        } catch (IOException e) {
-            log.error("Failed to create WEBP versions for: {}", baseName, e);
+        } catch (Exception webpError) {
+            log.warn("Failed to convert {}_{}x{} to WebP format: {}. Skipping this size.",
+                    baseName, size, size, webpError.getMessage());
+            return null;
         }
     }
     
-    private void createIcoVersion(ZipOutputStream zos, byte[] iconData, String baseName) throws IOException {
+    private List<ExportEntry> createIcoVersion(Map<Integer, CompletableFuture<byte[]>> pngLevels, String baseName) {
         try {
-            ByteArrayInputStream bais = new ByteArrayInputStream(iconData);
-            BufferedImage originalImage = ImageIO.read(bais);
-            
-            if (originalImage == null) {
-                log.warn("Could not read image for ICO conversion: {}", baseName);
-                return;
+            byte[][] imageData = new byte[ICO_SIZES.length][];
+            for (int i = 0; i < ICO_SIZES.length; i++) {
+                imageData[i] = pngLevels.get(ICO_SIZES[i]).join();
+                if (imageData[i] == null) {
+                    log.warn("Could not create all sizes for ICO conversion: {}", baseName);
+                    return List.of();
+                }
             }
             
             // Create ICO with multiple sizes (favicon standard)
-            byte[] icoData = createIcoFile(originalImage);
+            byte[] icoData = createIcoFile(imageData);
             
-            ZipEntry zipEntry = new ZipEntry("ico/" + baseName + ".ico");
-            zos.putNextEntry(zipEntry);
-            zos.write(icoData);
-            zos.closeEntry();
+            return List.of(new ExportEntry(icoEntryName(baseName), icoData));
             
         } catch (Exception e) {
             log.error("Failed to create ICO version for: {}", baseName, e);
+            return List.of();
         }
     }
     
-    private BufferedImage resizeImage(BufferedImage originalImage, int width, int height) {
-        BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = resizedImage.createGraphics();
-        
-        // Use high-quality rendering
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        g2d.drawImage(originalImage, 0, 0, width, height, null);
-        g2d.dispose();
-        
-        return resizedImage;
-    }
-    
     private byte[] imageToBytes(BufferedImage image, String format) throws IOException {
+        if ("png".equalsIgnoreCase(format)) {
+            return pngEncodingService.encode(image, PngEncodingService.Preset.SMALL);
+        }
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ImageIO.write(image, format, baos);
         return baos.toByteArray();
     }
     
-    private byte[] createIcoFile(BufferedImage originalImage) throws IOException {
-        // Create ICO file with all standard favicon sizes: 16x16, 32x32, and 48x48
-        ByteArrayOutputStream icoStream = new ByteArrayOutputStream();
-        
-        // ICO file header
-        icoStream.write(new byte[]{0, 0}); // Reserved
-        icoStream.write(new byte[]{1, 0}); // Type (1 = ICO)
-        icoStream.write(new byte[]{(byte) ICO_SIZES.length, 0}); // Number of images
-        
-        // Prepare images and data for all sizes
-        BufferedImage[] images = new BufferedImage[ICO_SIZES.length];
-        byte[][] imageData = new byte[ICO_SIZES.length][];
-        
-        for (int i = 0; i < ICO_SIZES.length; i++) {
-            int size = ICO_SIZES[i];
-            images[i] = resizeImage(originalImage, size, size);
-            imageData[i] = imageToBytes(images[i], "png");
-        }
-        
+    /**
+     * @param imageData encoded PNG for each entry of {@link #ICO_SIZES}, in the same order
+     */
+    private byte[] createIcoFile(byte[][] imageData) {
         int headerSize = 6 + (16 * ICO_SIZES.length); // 6 bytes header + 16 bytes per image entry
-        
+        int totalSize = headerSize;
+        for (byte[] data : imageData) {
+            totalSize += data.length;
+        }
+
+        // Assembled in place: one array of the final size, no growing buffer and no copy at the end
+        ByteBuffer ico = ByteBuffer.allocate(totalSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        // ICO file header
+        ico.putShort((short) 0); // Reserved
+        ico.putShort((short) 1); // Type (1 = ICO)
+        ico.putShort((short) ICO_SIZES.length); // Number of images
+
         // Image directory entries
         int currentOffset = headerSize;
         for (int i = 0; i < ICO_SIZES.length; i++) {
             int size = ICO_SIZES[i];
-            
-            icoStream.write(size == 256 ? 0 : size); // Width (0 means 256)
-            icoStream.write(size == 256 ? 0 : size); // Height (0 means 256)
-            icoStream.write(0);  // Color count (0 for PNG)
-            icoStream.write(0);  // Reserved
-            icoStream.write(new byte[]{1, 0}); // Color planes
-            icoStream.write(new byte[]{32, 0}); // Bits per pixel
-            writeInt32LE(icoStream, imageData[i].length); // Size of image data
-            writeInt32LE(icoStream, currentOffset); // Offset to image data
-            
+
+            ico.put((byte) (size == 256 ? 0 : size)); // Width (0 means 256)
+            ico.put((byte) (size == 256 ? 0 : size)); // Height (0 means 256)
+            ico.put((byte) 0);  // Color count (0 for PNG)
+            ico.put((byte) 0);  // Reserved
+            ico.putShort((short) 1); // Color planes
+            ico.putShort((short) 32); // Bits per pixel
+            ico.putInt(imageData[i].length); // Size of image data
+            ico.putInt(currentOffset); // Offset to image data
+
             currentOffset += imageData[i].length;
         }
-        
+
         // Write image data
         for (byte[] data : imageData) {
-            icoStream.write(data);
+            ico.put(data);
         }
-        
-        return icoStream.toByteArray();
-    }
-    
-    private void writeInt32LE(ByteArrayOutputStream stream, int value) throws IOException {
-        stream.write(value & 0xFF);
-        stream.write((value >> 8) & 0xFF);
-        stream.write((value >> 16) & 0xFF);
-        stream.write((value >> 24) & 0xFF);
+
+        return ico.array();
     }
 
     /**
@@ -371,10 +632,6 @@ public class IconExportService {
         int height = image.getHeight();
         boolean hasAlpha = image.getColorModel().hasAlpha();
         
-        if (nativeWebP == null) {
-            throw new Exception("NativeWebP not initialized");
-        }
-        
         // Convert BufferedImage to byte array based on the example WebPCodec
         byte[] imageBytes = convertBufferedImageToBytes(image);
         if (imageBytes.length == 0) {
@@ -386,6 +643,7 @@ public class IconExportService {
         float quality = 75.0f;
         
         // Encode using the native library (following the WebPCodec example pattern)
+        NativeWebP nativeWebP = WebP4j.ENCODER.get();
         byte[] encodedWebP = hasAlpha 
             ? nativeWebP.encodeRGBA(imageBytes, width, height, stride, quality)
             : nativeWebP.encodeRGB(imageBytes, width, height, stride, quality);
@@ -447,93 +705,15 @@ public class IconExportService {
         return sizes;
     }
 
-    private Map<String, byte[]> processIconsForHighQuality(List<PreparedIcon> preparedIcons) {
+    private Map<String, CompletableFuture<byte[]>> processIconsForHighQuality(List<PreparedIcon> preparedIcons) {
         if (preparedIcons.isEmpty()) {
             return Collections.emptyMap();
         }
 
-        Map<String, byte[]> processedIcons = new ConcurrentHashMap<>();
         log.info("Starting HQ raster upscale for {} icons", preparedIcons.size());
-        ExecutorService executor = Executors.newFixedThreadPool(HQ_THREAD_POOL_SIZE);
-
-        try {
-            List<CompletableFuture<Void>> tasks = preparedIcons.stream()
-                    .map(icon -> CompletableFuture.runAsync(() -> {
-                        try {
-                            byte[] preparedImage = prepareImageForHighQualityUpscale(icon.originalData(), icon.baseName());
-                            byte[] upscaledImage = seedVrUpscaleService.upscaleImage(preparedImage, HQ_UPSCALE_FACTOR).join();
-                            byte[] transparentImage = ideoGramRemoveBackGroundService.removeBackground(upscaledImage);
-                            processedIcons.put(icon.baseName(), transparentImage);
-                        } catch (Exception e) {
-                            log.error("HQ raster upscale failed for icon {}. Using original raster.", icon.baseName(), e);
-                            processedIcons.put(icon.baseName(), icon.originalData());
-                        }
-                    }, executor))
-                    .collect(Collectors.toList());
-
-            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
-        } finally {
-            executor.shutdown();
-            log.info("Completed HQ raster upscale for {} icons", processedIcons.size());
-        }
-
-        return processedIcons;
-    }
-
-    private byte[] prepareImageForHighQualityUpscale(byte[] imageData, String baseName) throws IOException {
-        BufferedImage sourceImage = ImageIO.read(new ByteArrayInputStream(imageData));
-        if (sourceImage == null) {
-            throw new IOException("Could not read icon image for HQ upscale: " + baseName);
-        }
-
-        BufferedImage resizedImage = resizeImage(sourceImage, HQ_UPSCALE_SOURCE_SIZE, HQ_UPSCALE_SOURCE_SIZE);
-        BufferedImage preparedImage = replaceTransparentPixels(resizedImage, HQ_UPSCALE_BACKGROUND);
-
-        log.debug("Prepared icon {} for HQ upscale at {}x{} with white background",
-                baseName,
-                HQ_UPSCALE_SOURCE_SIZE,
-                HQ_UPSCALE_SOURCE_SIZE);
-
-        return imageToBytes(preparedImage, "png");
-    }
-
-    private BufferedImage replaceTransparentPixels(BufferedImage image, Color backgroundColor) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        BufferedImage processed = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        int backgroundArgb = backgroundColor.getRGB();
-        int[] rowBuffer = new int[width];
-
-        for (int y = 0; y < height; y++) {
-            image.getRGB(0, y, width, 1, rowBuffer, 0, width);
-            for (int x = 0; x < width; x++) {
-                int argb = rowBuffer[x];
-                int alpha = (argb >> 24) & 0xFF;
-
-                if (alpha == 255) {
-                    continue;
-                }
-
-                if (alpha == 0) {
-                    rowBuffer[x] = backgroundArgb;
-                    continue;
-                }
-
-                int r = (argb >> 16) & 0xFF;
-                int g = (argb >> 8) & 0xFF;
-                int b = argb & 0xFF;
-                float alphaFactor = alpha / 255.0f;
-
-                int blendedR = Math.round(alphaFactor * r + (1 - alphaFactor) * backgroundColor.getRed());
-                int blendedG = Math.round(alphaFactor * g + (1 - alphaFactor) * backgroundColor.getGreen());
-                int blendedB = Math.round(alphaFactor * b + (1 - alphaFactor) * backgroundColor.getBlue());
-
-                rowBuffer[x] = (0xFF << 24) | (blendedR << 16) | (blendedG << 8) | blendedB;
-            }
-            processed.setRGB(0, y, width, 1, rowBuffer, 0, width);
-        }
-
-        return processed;
+        Map<String, byte[]> originals = new LinkedHashMap<>();
+        preparedIcons.forEach(icon -> originals.put(icon.baseName(), icon.originalData()));
+        return highQualityUpscaleService.upscaleEach(originals);
     }
 
     private String createBaseName(IconGenerationResponse.GeneratedIcon icon, int index) {
@@ -556,6 +736,80 @@ public class IconExportService {
         }
     }
 
-    private record PreparedIcon(String baseName, IconGenerationResponse.GeneratedIcon icon, byte[] originalData) {
+    /**
+     * @param contentHash SHA-256 of the original bytes, only computed when the artifact cache is enabled
+     */
+    private record PreparedIcon(String baseName, IconGenerationResponse.GeneratedIcon icon, byte[] originalData,
+                                String contentHash) {
+    }
+
+    /**
+     * One ZIP member: either encoded bytes, or content written straight into the archive by the ZIP writer.
+     */
+    private record ExportEntry(String name, byte[] data, ExportZipWriter.EntryContent content) {
+
+        ExportEntry(String name, byte[] data) {
+            this(name, data, null);
+        }
+
+        static ExportEntry streamed(String name, ExportZipWriter.EntryContent content) {
+            return new ExportEntry(name, null, content);
+        }
+
+        void writeTo(ExportZipWriter zip) throws IOException {
+            if (content != null) {
+                zip.write(name, content);
+            } else {
+                zip.write(name, data);
+            }
+        }
+    }
+
+    /**
+     * Receives export progress from {@link #writeIconPackZip(IconExportRequest, OutputStream, ExportProgressListener)}.
+     */
+    @FunctionalInterface
+    public interface ExportProgressListener {
+
+        ExportProgressListener NONE = (exportedIcons, totalIcons) -> {
+        };
+
+        /**
+         * Called on the writing thread after an icon's entries have been flushed to the stream
+         * @param exportedIcons icons written so far, including this one
+         * @param totalIcons icons in the pack
+         */
+        void onIconExported(int exportedIcons, int totalIcons);
+    }
+
+    /**
+     * Holder for the native WebP encoder. The library is probed once when the class is first used, with the
+     * JVM's class-initialization locking, and every rendering thread gets its own encoder so concurrent
+     * renders never share a {@link NativeWebP} instance.
+     */
+    private static final class WebP4j {
+
+        private static final ThreadLocal<NativeWebP> ENCODER = ThreadLocal.withInitial(WebP4j::newEncoder);
+        private static final boolean AVAILABLE = probe();
+
+        private static NativeWebP newEncoder() {
+            try {
+                return new NativeWebP();
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not create WebP4j encoder: " + e.getMessage(), e);
+            }
+        }
+
+        private static boolean probe() {
+            try {
+                ENCODER.get();
+                log.info("WebP4j library loaded successfully - WebP export will be available");
+                return true;
+            } catch (Exception | LinkageError e) {
+                ENCODER.remove();
+                log.warn("WebP4j library not available. WebP export will be skipped. Error: {}", e.getMessage());
+                return false;
+            }
+        }
     }
 }
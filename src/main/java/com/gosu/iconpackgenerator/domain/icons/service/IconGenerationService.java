@@ -4,9 +4,12 @@ import com.gosu.iconpackgenerator.config.AIServicesConfig;
 import com.gosu.iconpackgenerator.domain.ai.Gpt15ModelService;
 import com.gosu.iconpackgenerator.domain.ai.Gpt2ModelService;
 import com.gosu.iconpackgenerator.domain.ai.GptModelService;
+import com.gosu.iconpackgenerator.domain.ai.ProviderBulkhead;
+import com.gosu.iconpackgenerator.domain.ai.ProviderBulkheads;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse;
 import com.gosu.iconpackgenerator.domain.icons.dto.ServiceProgressUpdate;
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import com.gosu.iconpackgenerator.exception.FalAiException;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.util.ErrorMessageSanitizer;
@@ -93,7 +96,9 @@ public class IconGenerationService {
             }
         }
 
-        return generateGptGenerations(request, requestId, seed, progressCallback, isTrialMode)
+        // Hedged requests are charged to the user's hedge budget
+        String userKey = String.valueOf(user.getId());
+        return generateGptGenerations(request, requestId, seed, progressCallback, isTrialMode, userKey)
                 .thenApply(combinedResults -> {
                     IconGenerationResponse finalResponse = createCombinedResponse(
                             requestId,
@@ -139,6 +144,10 @@ public class IconGenerationService {
                         }
                     }
 
+                    if (request.isInlineImageData()) {
+                        finalResponse.includeInlineImageData();
+                    }
+
                     notifyProgressUpdate(progressCallback,
                             ServiceProgressUpdate.allCompleteWithIcons(requestId, finalResponse.getMessage(), finalResponse.getIcons()),
                             isTrialMode);
@@ -159,7 +168,8 @@ public class IconGenerationService {
             String requestId,
             Long baseSeed,
             ProgressUpdateCallback progressCallback,
-            boolean isTrialMode) {
+            boolean isTrialMode,
+            String userKey) {
 
         int generations = Math.max(1, request.getGenerationsPerService());
         List<CompletableFuture<ServiceGenerationResult>> futures = new ArrayList<>();
@@ -180,7 +190,8 @@ public class IconGenerationService {
                     generationIndex,
                     serviceName,
                     progressCallback,
-                    isTrialMode));
+                    isTrialMode,
+                    userKey));
         }
 
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
@@ -212,10 +223,19 @@ public class IconGenerationService {
             int generationIndex,
             String serviceName,
             ProgressUpdateCallback progressCallback,
-            boolean isTrialMode) {
+            boolean isTrialMode,
+            String userKey) {
 
         long startTime = System.currentTimeMillis();
-        return generateIconsInternal(request, seed, serviceName)
+        String serviceKey = serviceName + "-gen" + generationIndex;
+        ProviderBulkhead.QueueListener queueListener = progressCallback == null ? null : (provider, position) ->
+                notifyProgressUpdate(progressCallback,
+                        position > 0
+                                ? ServiceProgressUpdate.serviceQueued(requestId, serviceKey, position, generationIndex)
+                                : ServiceProgressUpdate.serviceStarted(requestId, serviceKey, generationIndex),
+                        isTrialMode);
+        return ProviderBulkheads.withQueueListener(queueListener,
+                        () -> generateIconsInternal(request, seed, serviceName, userKey))
                 .thenApply(result -> {
                     long generationTime = System.currentTimeMillis() - startTime;
                     IconGenerationResponse.ServiceResults serviceResult = new IconGenerationResponse.ServiceResults();
@@ -230,7 +250,7 @@ public class IconGenerationService {
                     notifyProgressUpdate(progressCallback,
                             ServiceProgressUpdate.serviceCompleted(
                                     requestId,
-                                    serviceName + "-gen" + generationIndex,
+                                    serviceKey,
                                     result.getIcons(),
                                     result.getOriginalGridImageBase64(),
                                     generationTime,
@@ -255,7 +275,7 @@ public class IconGenerationService {
                     notifyProgressUpdate(progressCallback,
                             ServiceProgressUpdate.serviceFailed(
                                     requestId,
-                                    serviceName + "-gen" + generationIndex,
+                                    serviceKey,
                                     message,
                                     generationTime,
                                     generationIndex),
@@ -265,28 +285,32 @@ public class IconGenerationService {
                 });
     }
 
-    private CompletableFuture<IconGenerationResult> generateIconsInternal(IconGenerationRequest request, Long seed, String serviceName) {
+    private CompletableFuture<IconGenerationResult> generateIconsInternal(IconGenerationRequest request, Long seed,
+                                                                         String serviceName, String userKey) {
         if (request.hasReferenceImage()) {
-            return generateGridWithReferenceImage(request, seed);
+            return generateGridWithReferenceImage(request, seed, userKey);
         }
-        return generateGridWithTextPrompt(request, seed, serviceName);
+        return generateGridWithTextPrompt(request, seed, serviceName, userKey);
     }
 
-    private CompletableFuture<IconGenerationResult> generateGridWithTextPrompt(IconGenerationRequest request, Long seed, String serviceName) {
+    private CompletableFuture<IconGenerationResult> generateGridWithTextPrompt(IconGenerationRequest request, Long seed,
+                                                                              String serviceName, String userKey) {
         String prompt = promptGenerationService.generatePromptFor3x3Grid(
                 request.getGeneralDescription(),
                 request.getIndividualDescriptions());
 
-        CompletableFuture<byte[]> imageFuture = generateTextImage(serviceName, prompt, seed);
+        CompletableFuture<byte[]> imageFuture = generateTextImage(serviceName, prompt, seed, userKey);
 
         return imageFuture
                 .thenApply(imageData -> {
-                    List<String> base64Icons = imageProcessingService.cropIconsFromGrid(imageData, 9, false);
-                    return createIconListWithOriginalImage(base64Icons, imageData, serviceName);
+                    List<IconData> croppedIcons = imageProcessingService.cropIconDataFromGrid(
+                            imageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true, serviceName);
+                    return createIconListWithOriginalImage(croppedIcons, imageData, serviceName);
                 });
     }
 
-    private CompletableFuture<IconGenerationResult> generateGridWithReferenceImage(IconGenerationRequest request, Long seed) {
+    private CompletableFuture<IconGenerationResult> generateGridWithReferenceImage(IconGenerationRequest request,
+                                                                                  Long seed, String userKey) {
         String prompt = promptGenerationService.generatePromptForReferenceImage(
                 request.getIndividualDescriptions(),
                 request.getGeneralDescription());
@@ -294,12 +318,14 @@ public class IconGenerationService {
         byte[] referenceImageData = Base64.getDecoder().decode(request.getReferenceImageBase64());
         String serviceName = "gpt15";
 
-        CompletableFuture<byte[]> imageFuture = gpt15ModelService.generateImageToImage(prompt, referenceImageData, seed);
+        CompletableFuture<byte[]> imageFuture =
+                gpt15ModelService.generateImageToImage(prompt, referenceImageData, seed, userKey);
 
         return imageFuture
                 .thenApply(imageData -> {
-                    List<String> base64Icons = imageProcessingService.cropIconsFromGrid(imageData, 9, false);
-                    return createIconListWithOriginalImage(base64Icons, imageData, serviceName);
+                    List<IconData> croppedIcons = imageProcessingService.cropIconDataFromGrid(
+                            imageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true, serviceName);
+                    return createIconListWithOriginalImage(croppedIcons, imageData, serviceName);
                 });
     }
 
@@ -446,20 +472,20 @@ public class IconGenerationService {
         return modifiedRequest;
     }
 
-    private IconGenerationResult createIconListWithOriginalImage(List<String> base64Icons,
+    private IconGenerationResult createIconListWithOriginalImage(List<IconData> croppedIcons,
                                                                  byte[] originalImageData,
                                                                  String serviceName) {
-        List<IconGenerationResponse.GeneratedIcon> icons = createIconList(base64Icons, serviceName);
+        List<IconGenerationResponse.GeneratedIcon> icons = createIconList(croppedIcons, serviceName);
         String originalGridImageBase64 = Base64.getEncoder().encodeToString(originalImageData);
         return new IconGenerationResult(icons, originalGridImageBase64);
     }
 
-    private List<IconGenerationResponse.GeneratedIcon> createIconList(List<String> base64Icons, String serviceName) {
+    private List<IconGenerationResponse.GeneratedIcon> createIconList(List<IconData> croppedIcons, String serviceName) {
         List<IconGenerationResponse.GeneratedIcon> icons = new ArrayList<>();
-        for (int i = 0; i < base64Icons.size(); i++) {
+        for (int i = 0; i < croppedIcons.size(); i++) {
             IconGenerationResponse.GeneratedIcon icon = new IconGenerationResponse.GeneratedIcon();
             icon.setId(UUID.randomUUID().toString());
-            icon.setBase64Data(base64Icons.get(i));
+            icon.setData(croppedIcons.get(i));
             icon.setDescription("");
             icon.setGridPosition(i);
             icon.setServiceSource(serviceName);
@@ -472,11 +498,11 @@ public class IconGenerationService {
         return System.currentTimeMillis() + (long) (Math.random() * 1000);
     }
 
-    private CompletableFuture<byte[]> generateTextImage(String serviceName, String prompt, Long seed) {
+    private CompletableFuture<byte[]> generateTextImage(String serviceName, String prompt, Long seed, String userKey) {
         return switch (serviceName) {
-            case "gpt15" -> gpt15ModelService.generateImage(prompt, seed);
-            case "gpt2" -> gpt2ModelService.generateImage(prompt, seed);
-            default -> gptModelService.generateImage(prompt, seed);
+            case "gpt15" -> gpt15ModelService.generateImage(prompt, seed, userKey);
+            case "gpt2" -> gpt2ModelService.generateImage(prompt, seed, userKey);
+            default -> gptModelService.generateImage(prompt, seed, userKey);
         };
     }
 
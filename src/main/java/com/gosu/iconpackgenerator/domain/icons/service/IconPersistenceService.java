@@ -3,14 +3,17 @@ package com.gosu.iconpackgenerator.domain.icons.service;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationRequest;
 import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse;
 import com.gosu.iconpackgenerator.domain.icons.entity.GeneratedIcon;
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import com.gosu.iconpackgenerator.domain.icons.repository.GeneratedIconRepository;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.util.FileStorageService;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -26,6 +29,7 @@ public class IconPersistenceService {
     
     private final GeneratedIconRepository generatedIconRepository;
     private final FileStorageService fileStorageService;
+    private final PngEncodingService pngEncodingService;
     
     @Transactional
     public void persistGeneratedIcons(String requestId, IconGenerationRequest request,
@@ -63,7 +67,7 @@ public class IconPersistenceService {
             
             int persistedCount = 0;
             for (IconGenerationResponse.GeneratedIcon icon : response.getIcons()) {
-                if (icon.getBase64Data() != null && !icon.getBase64Data().isEmpty()) {
+                if (icon.hasImageData()) {
                     persistSingleIcon(requestId, request, icon, allServiceResults, user, isWatermarked, storePrivately);
                     persistedCount++;
                 }
@@ -98,7 +102,7 @@ public class IconPersistenceService {
             String iconType = (generationIndex == 1) ? "original" : "variation";
             
             for (IconGenerationResponse.GeneratedIcon icon : newIcons) {
-                if (icon.getBase64Data() != null && !icon.getBase64Data().isEmpty()) {
+                if (icon.hasImageData()) {
                     persistMoreIcon(requestId, icon, user, iconType, generalDescription, generationIndex, isWatermarked, storePrivately);
                 }
             }
@@ -140,19 +144,23 @@ public class IconPersistenceService {
         
         String storageType = isWatermarked ? iconType + "-trial" : iconType;
 
+        IconData stored = isWatermarked ? icon.getData() : compact(icon.getData());
         String filePath = storePrivately
                 ? fileStorageService.saveIconPrivate(
                         user.getDirectoryPath(),
                         requestId,
                         storageType,
                         fileName,
-                        icon.getBase64Data())
+                        stored.getBytes())
                 : fileStorageService.saveIcon(
                         user.getDirectoryPath(),
                         requestId,
                         storageType,
                         fileName,
-                        icon.getBase64Data());
+                        stored.getBytes());
+        icon.setData(storePrivately
+                ? stored.withStorageReference(filePath)
+                : stored.withPublicUrl(filePath));
         
         // Create database record
         GeneratedIcon generatedIcon = new GeneratedIcon();
@@ -195,19 +203,23 @@ public class IconPersistenceService {
         
         String storageType = isWatermarked ? iconType + "-trial" : iconType;
 
+        IconData stored = isWatermarked ? icon.getData() : compact(icon.getData());
         String filePath = storePrivately
                 ? fileStorageService.saveIconPrivate(
                         user.getDirectoryPath(),
                         requestId,
                         storageType,
                         fileName,
-                        icon.getBase64Data())
+                        stored.getBytes())
                 : fileStorageService.saveIcon(
                         user.getDirectoryPath(),
                         requestId,
                         storageType,
                         fileName,
-                        icon.getBase64Data());
+                        stored.getBytes());
+        icon.setData(storePrivately
+                ? stored.withStorageReference(filePath)
+                : stored.withPublicUrl(filePath));
         
         // Create database record
         GeneratedIcon generatedIcon = new GeneratedIcon();
@@ -249,6 +261,21 @@ public class IconPersistenceService {
                 .orElse(1);
     }
 
+    /**
+     * Cropped cells are encoded with the fast preset for the live preview; files are stored with the small one.
+     * Watermarked icons skip this because {@link com.gosu.iconpackgenerator.util.WatermarkService} already
+     * encodes them small.
+     */
+    private IconData compact(IconData data) {
+        try {
+            byte[] compacted = pngEncodingService.reencode(data.getBytes(), PngEncodingService.Preset.SMALL);
+            return compacted == data.getBytes() ? data : IconData.ofBytes(compacted);
+        } catch (IOException e) {
+            log.warn("Could not re-encode icon for storage, saving it as generated", e);
+            return data;
+        }
+    }
+
     private void addServiceResults(List<IconGenerationResponse.ServiceResults> target,
                                    List<IconGenerationResponse.ServiceResults> source) {
         if (source != null) {
@@ -1,8 +1,13 @@
 package com.gosu.iconpackgenerator.domain.icons.service;
 
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
 import com.gosu.iconpackgenerator.singal.SignalMessageService;
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
@@ -10,12 +15,15 @@ import javax.imageio.ImageReader;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
@@ -30,15 +38,41 @@ public class ImageProcessingService {
     private static class ProcessingTiming {
         public long transparencyCheckMs = 0;
         public long backgroundRemovalMs = 0;
+        public long decodeMs = 0;
         public long solidFrameDetectionMs = 0;
         public long diagnosticsMs = 0;
         public long gridBoundsDetectionMs = 0;
         public long artifactCleanupMs = 0;
         public long iconCenteringMs = 0;
+        public long encodingMs = 0;
+        public long[] cellMs = new long[0];
+        public long cellPipelineMs = 0;
+        public boolean parallelCells = false;
         
         public long getTotalMs() {
-            return transparencyCheckMs + backgroundRemovalMs + solidFrameDetectionMs + 
-                   diagnosticsMs + gridBoundsDetectionMs + artifactCleanupMs + iconCenteringMs;
+            // In parallel mode the per-stage sums overlap in time, so the cell stage counts with its wall time
+            long cellStageMs = parallelCells ? cellPipelineMs : artifactCleanupMs + iconCenteringMs + encodingMs;
+            return transparencyCheckMs + backgroundRemovalMs + decodeMs + solidFrameDetectionMs + 
+                   diagnosticsMs + gridBoundsDetectionMs + cellStageMs;
+        }
+    }
+
+    /**
+     * Helper class to hold the result of processing a single grid cell
+     */
+    private static class IconCellResult {
+        final IconData icon;
+        final long artifactCleanupMs;
+        final long iconCenteringMs;
+        final long encodingMs;
+        final long totalMs;
+
+        IconCellResult(IconData icon, long artifactCleanupMs, long iconCenteringMs, long encodingMs, long totalMs) {
+            this.icon = icon;
+            this.artifactCleanupMs = artifactCleanupMs;
+            this.iconCenteringMs = iconCenteringMs;
+            this.encodingMs = encodingMs;
+            this.totalMs = totalMs;
         }
     }
 
@@ -48,6 +82,13 @@ public class ImageProcessingService {
     private final IconCenteringService iconCenteringService;
     private final GridBoundaryDetectionService gridBoundaryDetectionService;
     private final IconArtifactCleanupService iconArtifactCleanupService;
+    private final PngEncodingService pngEncodingService;
+    private final ImageProcessingMetrics imageProcessingMetrics;
+    @Qualifier("imageProcessingExecutor")
+    private final ExecutorService imageProcessingExecutor;
+
+    @Value("${image-processing.parallel-cells:true}")
+    private boolean parallelCellProcessing = true;
 
     /**
      * Crop a 3x3 grid of icons from the generated image
@@ -85,6 +126,39 @@ public class ImageProcessingService {
      * @return List of cropped icon images as base64 strings
      */
     public List<String> cropIconsFromGrid(byte[] imageData, int iconCount, boolean centerIcons, int targetSize, boolean removeBackground, boolean cleanupArtifacts) {
+        return cropIconDataFromGrid(imageData, iconCount, centerIcons, targetSize, removeBackground, cleanupArtifacts)
+                .stream()
+                .map(IconData::toBase64)
+                .toList();
+    }
+
+    /**
+     * Crop a 3x3 grid of centered icons, keeping them as encoded PNG bytes
+     *
+     * @see #cropIconDataFromGrid(byte[], int, boolean, int, boolean, boolean)
+     */
+    public List<IconData> cropIconDataFromGrid(byte[] imageData, int iconCount, boolean removeBackground) {
+        return cropIconDataFromGrid(imageData, iconCount, true, ICON_TARGET_SIZE, removeBackground, true);
+    }
+
+    /**
+     * Crop a 3x3 grid of icons from the generated image, keeping them as encoded PNG bytes
+     *
+     * @return List of cropped icons in row-major order
+     * @see #cropIconsFromGrid(byte[], int, boolean, int, boolean, boolean)
+     */
+    public List<IconData> cropIconDataFromGrid(byte[] imageData, int iconCount, boolean centerIcons, int targetSize, boolean removeBackground, boolean cleanupArtifacts) {
+        return cropIconDataFromGrid(imageData, iconCount, centerIcons, targetSize, removeBackground, cleanupArtifacts,
+                ImageProcessingMetrics.UNKNOWN_MODEL_SERVICE);
+    }
+
+    /**
+     * Crop a 3x3 grid of icons from the generated image, keeping them as encoded PNG bytes
+     *
+     * @param modelService Model service that generated the grid, used to tag the processing timers
+     * @return List of cropped icons in row-major order
+     */
+    public List<IconData> cropIconDataFromGrid(byte[] imageData, int iconCount, boolean centerIcons, int targetSize, boolean removeBackground, boolean cleanupArtifacts, String modelService) {
         try {
             // Add validation and logging
             if (imageData == null) {
@@ -103,31 +177,44 @@ public class ImageProcessingService {
             long totalStartTime = System.currentTimeMillis();
             ProcessingTiming timing = new ProcessingTiming();
 
-            // Optionally remove background from the entire grid image before processing
+            // Optionally remove background from the entire grid image before processing.
+            // The grid is decoded once; the decoded context is reused unless background removal replaced the bytes.
+            DecodedImageContext context = null;
             byte[] processedImageData = imageData;
             if (removeBackground) {
                 try {
                     // Heuristic check to see if background is already transparent
                     long transparencyCheckStart = System.currentTimeMillis();
-                    BufferedImage imageToCheck = ImageIO.read(new ByteArrayInputStream(imageData));
-                    boolean hasTransparentBg = imageToCheck != null && hasTransparentBackground(imageToCheck);
+                    context = DecodedImageContext.decode(imageData);
+                    boolean hasTransparentBg = context != null && hasTransparentBackground(context);
                     timing.transparencyCheckMs = System.currentTimeMillis() - transparencyCheckStart;
                     
                     if (hasTransparentBg) {
                         log.info("Image background appears to be already transparent. Skipping background removal.");
                     } else {
-                        if (imageToCheck == null) {
+                        if (context == null) {
                             log.warn("Could not read image to check for transparency, proceeding with background removal.");
                         }
                         log.info("Removing background from grid image before cropping icons");
                         signalMessageService.sendSignalMessage("[IconPackGen] Background removal detected");
 
-                        // Add timeout protection for background removal
+                        // Flat backgrounds are removed in process on the decoded grid; rembg handles the rest
                         long backgroundRemovalStart = System.currentTimeMillis();
-                        processedImageData = backgroundRemovalService.removeBackground(imageData);
+                        DecodedImageContext flatRemoved = backgroundRemovalService.removeFlatBackground(context);
+                        if (flatRemoved != null) {
+                            context = flatRemoved;
+                        } else {
+                            processedImageData = backgroundRemovalService.removeBackgroundWithModel(imageData);
+                        }
                         timing.backgroundRemovalMs = System.currentTimeMillis() - backgroundRemovalStart;
 
-                        log.info("Background removal completed in {} ms", timing.backgroundRemovalMs);
+                        log.info("Background removal completed in {} ms{}", timing.backgroundRemovalMs,
+                                flatRemoved != null ? " (flat background fast path)" : "");
+
+                        if (processedImageData != imageData) {
+                            // A new image came back; it is decoded below
+                            context = null;
+                        }
 
                         if (processedImageData.length != imageData.length) {
                             log.info("Background removal changed image size from {} to {} bytes",
@@ -139,12 +226,12 @@ public class ImageProcessingService {
                     long backgroundRemovalStart = System.currentTimeMillis();
                     processedImageData = backgroundRemovalService.removeBackground(imageData);
                     timing.backgroundRemovalMs = System.currentTimeMillis() - backgroundRemovalStart;
+                    context = null;
                 }
             } else {
                 log.debug("Background removal disabled - preserving original image for better content bounds detection");
             }
 
-            BufferedImage originalImage = null;
             //OPENAI models do not return webp pictures
 //            // Check if it's WebP format for better logging
 //            if (isWebPFormat(processedImageData)) {
@@ -152,10 +239,16 @@ public class ImageProcessingService {
 //                originalImage = readImageWithWebPSupport(processedImageData);
 //            } else {
 
-            log.debug("Standard image format detected, using regular ImageIO...");
-            originalImage = ImageIO.read(new ByteArrayInputStream(processedImageData));
+            if (context == null) {
+                log.debug("Standard image format detected, using regular ImageIO...");
+                long decodeStart = System.currentTimeMillis();
+                context = DecodedImageContext.decode(processedImageData);
+                timing.decodeMs = System.currentTimeMillis() - decodeStart;
+            } else {
+                log.debug("Reusing image decoded during transparency check");
+            }
 
-            if (originalImage == null) {
+            if (context == null) {
                 log.error("Failed to parse image data - ImageIO.read() returned null. Data size: {} bytes", processedImageData.length);
                 // Log first few bytes to help debug
                 if (processedImageData.length > 10) {
@@ -165,36 +258,37 @@ public class ImageProcessingService {
                 throw new RuntimeException("Failed to parse image data - ImageIO returned null");
             }
 
-            log.debug("Successfully parsed image: {}x{} pixels", originalImage.getWidth(), originalImage.getHeight());
+            log.debug("Successfully parsed image: {}x{} pixels", context.getWidth(), context.getHeight());
 
             // Check for and remove solid frame artifacts (common in image-to-image generation)
             long frameDetectionStart = System.currentTimeMillis();
-            BufferedImage frameCleanedImage = detectAndRemoveSolidFrame(originalImage);
+            DecodedImageContext frameCleanedContext = detectAndRemoveSolidFrame(context);
             timing.solidFrameDetectionMs = System.currentTimeMillis() - frameDetectionStart;
             
-            if (frameCleanedImage != originalImage) {
+            if (frameCleanedContext != context) {
                 log.info("Detected and removed solid frame from image. New dimensions: {}x{}", 
-                        frameCleanedImage.getWidth(), frameCleanedImage.getHeight());
-                originalImage = frameCleanedImage;
+                        frameCleanedContext.getWidth(), frameCleanedContext.getHeight());
+                context = frameCleanedContext;
             }
 
             // Add image diagnostics
             long diagnosticsStart = System.currentTimeMillis();
-            performImageDiagnostics(originalImage, processedImageData.length);
+            performImageDiagnostics(context, processedImageData.length);
             timing.diagnosticsMs = System.currentTimeMillis() - diagnosticsStart;
 
-            List<String> croppedIcons = new ArrayList<>();
+            List<IconData> croppedIcons = new ArrayList<>();
 
             if (iconCount == 9) {
-                croppedIcons.addAll(cropGrid3x3(originalImage, centerIcons, targetSize, cleanupArtifacts, timing));
+                croppedIcons.addAll(cropGrid3x3(context, centerIcons, targetSize, cleanupArtifacts, timing));
             } else if (iconCount == 18) {
-                croppedIcons.addAll(cropGrid3x3(originalImage, centerIcons, targetSize, cleanupArtifacts, timing));
+                croppedIcons.addAll(cropGrid3x3(context, centerIcons, targetSize, cleanupArtifacts, timing));
                 // TODO: Handle second grid generation for 18 icons
             }
 
             // Log comprehensive timing summary
             long totalProcessingTime = System.currentTimeMillis() - totalStartTime;
-            logProcessingTimingSummary(timing, totalProcessingTime, iconCount, originalImage.getWidth(), originalImage.getHeight());
+            logProcessingTimingSummary(timing, totalProcessingTime, iconCount, context.getWidth(), context.getHeight());
+            publishProcessingTimingMetrics(timing, totalProcessingTime, modelService);
 
             log.debug("Successfully cropped {} icons from grid", croppedIcons.size());
             return croppedIcons;
@@ -209,10 +303,10 @@ public class ImageProcessingService {
      * Heuristic check to see if an image's background is already transparent.
      * It samples pixels along the border of the image.
      *
-     * @param image The image to check.
+     * @param image The decoded image to check.
      * @return true if the background is likely transparent, false otherwise.
      */
-    private boolean hasTransparentBackground(BufferedImage image) {
+    private boolean hasTransparentBackground(DecodedImageContext image) {
         int width = image.getWidth();
         int height = image.getHeight();
 
@@ -228,15 +322,15 @@ public class ImageProcessingService {
 
         // Sample top and bottom edges
         for (int x = 0; x < width; x += sampleStep) {
-            if (((image.getRGB(x, 0) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
-            if (((image.getRGB(x, height - 1) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
+            if (((image.getArgb(x, 0) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
+            if (((image.getArgb(x, height - 1) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
             samples += 2;
         }
 
         // Sample left and right edges
         for (int y = 1; y < height - 1; y += sampleStep) {
-            if (((image.getRGB(0, y) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
-            if (((image.getRGB(width - 1, y) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
+            if (((image.getArgb(0, y) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
+            if (((image.getArgb(width - 1, y) >> 24) & 0xff) > transparentThreshold) nonTransparentCount++;
             samples += 2;
         }
 
@@ -251,10 +345,10 @@ public class ImageProcessingService {
      * Detect and remove thin solid frames that sometimes appear around generated images.
      * These frames (typically 1-3px thick) can be any color and interfere with proper grid detection and centering.
      *
-     * @param image The image to analyze and potentially clean
-     * @return The original image if no frame detected, or a cropped image with the frame removed
+     * @param image The decoded image to analyze and potentially clean
+     * @return The original context if no frame detected, or a cropped context with the frame removed
      */
-    private BufferedImage detectAndRemoveSolidFrame(BufferedImage image) {
+    private DecodedImageContext detectAndRemoveSolidFrame(DecodedImageContext image) {
         if (image == null) {
             return image;
         }
@@ -319,7 +413,7 @@ public class ImageProcessingService {
         }
 
         try {
-            BufferedImage croppedImage = image.getSubimage(newX, newY, newWidth, newHeight);
+            DecodedImageContext croppedImage = image.crop(newX, newY, newWidth, newHeight);
             log.info("Successfully removed solid frame. Image dimensions: {}x{} -> {}x{}",
                     width, height, newWidth, newHeight);
             return croppedImage;
@@ -332,11 +426,11 @@ public class ImageProcessingService {
     /**
      * Detect the thickness of a solid frame on a specific edge of the image
      *
-     * @param image The image to analyze
+     * @param image The decoded image to analyze
      * @param edge  The edge to analyze: "top", "bottom", "left", or "right"
      * @return The thickness of the solid frame in pixels, or 0 if no frame detected
      */
-    private int detectFrameThickness(BufferedImage image, String edge) {
+    private int detectFrameThickness(DecodedImageContext image, String edge) {
         int width = image.getWidth();
         int height = image.getHeight();
         int maxThickness = Math.min(5, Math.min(width, height) / 10); // Max 5px or 10% of smallest dimension
@@ -350,7 +444,7 @@ public class ImageProcessingService {
                 case "top":
                     if (thickness >= height) break;
                     for (int x = 0; x < width; x += Math.max(1, width / 50)) { // Sample ~50 points
-                        int rgb = image.getRGB(x, thickness - 1); // 0-indexed
+                        int rgb = image.getArgb(x, thickness - 1); // 0-indexed
                         sampleCount++;
                         if (isSolidFramePixel(rgb)) {
                             solidPixelCount++;
@@ -361,7 +455,7 @@ public class ImageProcessingService {
                 case "bottom":
                     if (thickness >= height) break;
                     for (int x = 0; x < width; x += Math.max(1, width / 50)) {
-                        int rgb = image.getRGB(x, height - thickness);
+                        int rgb = image.getArgb(x, height - thickness);
                         sampleCount++;
                         if (isSolidFramePixel(rgb)) {
                             solidPixelCount++;
@@ -372,7 +466,7 @@ public class ImageProcessingService {
                 case "left":
                     if (thickness >= width) break;
                     for (int y = 0; y < height; y += Math.max(1, height / 50)) {
-                        int rgb = image.getRGB(thickness - 1, y); // 0-indexed
+                        int rgb = image.getArgb(thickness - 1, y); // 0-indexed
                         sampleCount++;
                         if (isSolidFramePixel(rgb)) {
                             solidPixelCount++;
@@ -383,7 +477,7 @@ public class ImageProcessingService {
                 case "right":
                     if (thickness >= width) break;
                     for (int y = 0; y < height; y += Math.max(1, height / 50)) {
-                        int rgb = image.getRGB(width - thickness, y);
+                        int rgb = image.getArgb(width - thickness, y);
                         sampleCount++;
                         if (isSolidFramePixel(rgb)) {
                             solidPixelCount++;
@@ -496,7 +590,7 @@ public class ImageProcessingService {
     /**
      * Perform diagnostic analysis on the image to help debug processing issues
      */
-    private void performImageDiagnostics(BufferedImage image, int originalFileSize) {
+    private void performImageDiagnostics(DecodedImageContext image, int originalFileSize) {
         int width = image.getWidth();
         int height = image.getHeight();
 
@@ -512,7 +606,7 @@ public class ImageProcessingService {
         for (int i = 0; i < sampleSize; i++) {
             int x = random.nextInt(width);
             int y = random.nextInt(height);
-            int rgb = image.getRGB(x, y);
+            int rgb = image.getArgb(x, y);
 
             int alpha = (rgb >> 24) & 0xFF;
             int red = (rgb >> 16) & 0xFF;
@@ -532,6 +626,9 @@ public class ImageProcessingService {
 
         // Log diagnostic information
         log.debug("Image diagnostics: {}x{} pixels, {} bytes original file size", width, height, originalFileSize);
+        if (log.isDebugEnabled()) {
+            log.debug("Visible content bounds: {}", image.getVisibleBounds());
+        }
         log.debug("Pixel sample analysis ({}): {}% transparent, {}% white, {}% black, {}% colored",
                 sampleSize,
                 Math.round(100.0 * transparentCount / sampleSize),
@@ -554,16 +651,15 @@ public class ImageProcessingService {
 
     }
 
-    private List<String> cropGrid3x3(BufferedImage originalImage, boolean centerIcons, int targetSize, boolean cleanupArtifacts, ProcessingTiming timing) throws IOException {
-        List<String> icons = new ArrayList<>();
-
-        int width = originalImage.getWidth();
-        int height = originalImage.getHeight();
+    private List<IconData> cropGrid3x3(DecodedImageContext context, boolean centerIcons, int targetSize, boolean cleanupArtifacts, ProcessingTiming timing) throws IOException {
+        BufferedImage originalImage = context.getImage();
+        int width = context.getWidth();
+        int height = context.getHeight();
 
         log.debug("Starting intelligent 3x3 grid cropping for image {}x{}", width, height);
 
         long gridBoundsStart = System.currentTimeMillis();
-        GridBoundaryDetectionService.GridBounds gridBounds = gridBoundaryDetectionService.detectGridBounds(originalImage);
+        GridBoundaryDetectionService.GridBounds gridBounds = gridBoundaryDetectionService.detectGridBounds(context.getProjectionProfile());
         timing.gridBoundsDetectionMs = System.currentTimeMillis() - gridBoundsStart;
 
         // Determine if we should skip artifact cleanup due to perfect transparency
@@ -571,44 +667,111 @@ public class ImageProcessingService {
         if (cleanupArtifacts && shouldSkipCleanup) {
             log.debug("Skipping artifact cleanup - perfect transparent grid lines detected");
         }
+        boolean runCleanup = cleanupArtifacts && !shouldSkipCleanup;
+
+        long cellPipelineStart = System.currentTimeMillis();
+        List<IconCellResult> results;
+        if (parallelCellProcessing && imageProcessingExecutor != null) {
+            results = processCellsInParallel(originalImage, gridBounds, centerIcons, targetSize, runCleanup);
+            timing.parallelCells = true;
+        } else {
+            results = new ArrayList<>(9);
+            for (int row = 0; row < 3; row++) {
+                for (int col = 0; col < 3; col++) {
+                    results.add(processCell(originalImage, gridBounds, row, col, centerIcons, targetSize, runCleanup));
+                }
+            }
+        }
+        timing.cellPipelineMs = System.currentTimeMillis() - cellPipelineStart;
+
+        List<IconData> icons = new ArrayList<>(results.size());
+        timing.cellMs = new long[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            IconCellResult result = results.get(i);
+            icons.add(result.icon);
+            timing.artifactCleanupMs += result.artifactCleanupMs;
+            timing.iconCenteringMs += result.iconCenteringMs;
+            timing.encodingMs += result.encodingMs;
+            timing.cellMs[i] = result.totalMs;
+        }
+
+        return icons;
+    }
 
+    /**
+     * Process all nine cells on the shared image processing executor, keeping the row-major output order
+     */
+    private List<IconCellResult> processCellsInParallel(BufferedImage originalImage, GridBoundaryDetectionService.GridBounds gridBounds,
+                                                        boolean centerIcons, int targetSize, boolean runCleanup) throws IOException {
+        List<CompletableFuture<IconCellResult>> futures = new ArrayList<>(9);
         for (int row = 0; row < 3; row++) {
             for (int col = 0; col < 3; col++) {
-                Rectangle iconRect = gridBounds.getIconRectangle(row, col);
+                final int finalRow = row;
+                final int finalCol = col;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return processCell(originalImage, gridBounds, finalRow, finalCol, centerIcons, targetSize, runCleanup);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, imageProcessingExecutor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
 
-                log.debug("Cropping icon at position [{},{}] with bounds: x={}, y={}, width={}, height={}",
-                        row, col, iconRect.x, iconRect.y, iconRect.width, iconRect.height);
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
 
-                BufferedImage croppedIcon = originalImage.getSubimage(
-                        iconRect.x, iconRect.y, iconRect.width, iconRect.height);
+    private IconCellResult processCell(BufferedImage originalImage, GridBoundaryDetectionService.GridBounds gridBounds,
+                                       int row, int col, boolean centerIcons, int targetSize, boolean runCleanup) throws IOException {
+        long cellStart = System.currentTimeMillis();
+        Rectangle iconRect = gridBounds.getIconRectangle(row, col);
 
-                // Optionally cleanup artifacts from neighboring icons
-                // Skip cleanup if we have perfect transparent grid lines (no artifacts expected)
-                long artifactCleanupStart = System.currentTimeMillis();
-                if (cleanupArtifacts && !shouldSkipCleanup) {
-                    croppedIcon = iconArtifactCleanupService.cleanupIconArtifacts(croppedIcon, row, col);
-                    log.debug("Cleaned up artifacts for icon at position [{},{}]", row, col);
-                }
-                timing.artifactCleanupMs += System.currentTimeMillis() - artifactCleanupStart;
-
-                // Optionally center the icon
-                long centeringStart = System.currentTimeMillis();
-                if (centerIcons) {
-                    int size = targetSize > 0 ? targetSize : Math.max(iconRect.width, iconRect.height);
-                    croppedIcon = centerIcon(croppedIcon, size);
-                    log.debug("Centered icon at position [{},{}] to size {}x{}", row, col, size, size);
-                } else {
-                    log.debug("Cropped icon at position [{},{}] with size {}x{}",
-                            row, col, iconRect.width, iconRect.height);
-                }
-                timing.iconCenteringMs += System.currentTimeMillis() - centeringStart;
+        log.debug("Cropping icon at position [{},{}] with bounds: x={}, y={}, width={}, height={}",
+                row, col, iconRect.x, iconRect.y, iconRect.width, iconRect.height);
 
-                String base64Icon = bufferedImageToBase64(croppedIcon);
-                icons.add(base64Icon);
-            }
+        BufferedImage croppedIcon = originalImage.getSubimage(
+                iconRect.x, iconRect.y, iconRect.width, iconRect.height);
+
+        // Optionally cleanup artifacts from neighboring icons
+        // Skip cleanup if we have perfect transparent grid lines (no artifacts expected)
+        long artifactCleanupStart = System.currentTimeMillis();
+        if (runCleanup) {
+            croppedIcon = iconArtifactCleanupService.cleanupIconArtifacts(croppedIcon, row, col);
+            log.debug("Cleaned up artifacts for icon at position [{},{}]", row, col);
+        }
+        long artifactCleanupMs = System.currentTimeMillis() - artifactCleanupStart;
+
+        // Optionally center the icon
+        long centeringStart = System.currentTimeMillis();
+        if (centerIcons) {
+            int size = targetSize > 0 ? targetSize : Math.max(iconRect.width, iconRect.height);
+            croppedIcon = centerIcon(croppedIcon, size);
+            log.debug("Centered icon at position [{},{}] to size {}x{}", row, col, size, size);
+        } else {
+            log.debug("Cropped icon at position [{},{}] with size {}x{}",
+                    row, col, iconRect.width, iconRect.height);
         }
+        long iconCenteringMs = System.currentTimeMillis() - centeringStart;
 
-        return icons;
+        long encodingStart = System.currentTimeMillis();
+        IconData icon = IconData.ofBytes(pngEncodingService.encode(croppedIcon, PngEncodingService.Preset.FAST));
+        long encodingMs = System.currentTimeMillis() - encodingStart;
+
+        return new IconCellResult(icon, artifactCleanupMs, iconCenteringMs, encodingMs,
+                System.currentTimeMillis() - cellStart);
     }
 
     /**
@@ -624,6 +787,8 @@ public class ImageProcessingService {
                 timing.transparencyCheckMs, getPercentage(timing.transparencyCheckMs, totalProcessingTime)));
         log.info(String.format("│   • Background Removal:     %6d ms  (%5.1f%%)", 
                 timing.backgroundRemovalMs, getPercentage(timing.backgroundRemovalMs, totalProcessingTime)));
+        log.info(String.format("│   • Image Decode:           %6d ms  (%5.1f%%)", 
+                timing.decodeMs, getPercentage(timing.decodeMs, totalProcessingTime)));
         log.info(String.format("│   • Solid Frame Detection:  %6d ms  (%5.1f%%)", 
                 timing.solidFrameDetectionMs, getPercentage(timing.solidFrameDetectionMs, totalProcessingTime)));
         log.info(String.format("│   • Image Diagnostics:      %6d ms  (%5.1f%%)", 
@@ -634,6 +799,12 @@ public class ImageProcessingService {
                 timing.artifactCleanupMs, getPercentage(timing.artifactCleanupMs, totalProcessingTime)));
         log.info(String.format("│   • Icon Centering:         %6d ms  (%5.1f%%)", 
                 timing.iconCenteringMs, getPercentage(timing.iconCenteringMs, totalProcessingTime)));
+        log.info(String.format("│   • PNG Encoding:           %6d ms  (%5.1f%%)", 
+                timing.encodingMs, getPercentage(timing.encodingMs, totalProcessingTime)));
+        log.info(String.format("│   • Cell Pipeline (%s): %6d ms  (%5.1f%%)",
+                timing.parallelCells ? "parallel" : "serial  ",
+                timing.cellPipelineMs, getPercentage(timing.cellPipelineMs, totalProcessingTime)));
+        log.info("│     Per-cell: {} ms", Arrays.toString(timing.cellMs));
         log.info("├─────────────────────────────────────────────────────────────");
         log.info(String.format("│   🎯 MEASURED TOTAL:         %6d ms  (%5.1f%%)", 
                 timing.getTotalMs(), getPercentage(timing.getTotalMs(), totalProcessingTime)));
@@ -649,6 +820,30 @@ public class ImageProcessingService {
         log.info("└─────────────────────────────────────────────────────────────");
     }
 
+    /**
+     * Publish the phase timings as Micrometer timers. Phases that did not run for this grid are not recorded.
+     */
+    private void publishProcessingTimingMetrics(ProcessingTiming timing, long totalProcessingTime, String modelService) {
+        ImageProcessingMetrics.AssetType asset = ImageProcessingMetrics.AssetType.ICON;
+        if (timing.transparencyCheckMs > 0) {
+            imageProcessingMetrics.recordPhase(asset, modelService, "transparency_check", timing.transparencyCheckMs);
+        }
+        if (timing.backgroundRemovalMs > 0) {
+            imageProcessingMetrics.recordPhase(asset, modelService, "background_removal", timing.backgroundRemovalMs);
+        }
+        if (timing.decodeMs > 0) {
+            imageProcessingMetrics.recordPhase(asset, modelService, "decode", timing.decodeMs);
+        }
+        imageProcessingMetrics.recordPhase(asset, modelService, "frame_detection", timing.solidFrameDetectionMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "diagnostics", timing.diagnosticsMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "grid_bounds", timing.gridBoundsDetectionMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "artifact_cleanup", timing.artifactCleanupMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "centering", timing.iconCenteringMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "encoding", timing.encodingMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "cell_pipeline", timing.cellPipelineMs);
+        imageProcessingMetrics.recordTotal(asset, modelService, totalProcessingTime);
+    }
+
     /**
      * Calculate percentage for timing display
      */
@@ -658,10 +853,7 @@ public class ImageProcessingService {
 
 
     private String bufferedImageToBase64(BufferedImage image) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        return Base64.getEncoder().encodeToString(imageBytes);
+        return pngEncodingService.encodeToBase64(image, PngEncodingService.Preset.FAST);
     }
 
     /**
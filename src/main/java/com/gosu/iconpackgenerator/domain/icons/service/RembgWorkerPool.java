@@ -0,0 +1,339 @@
+package com.gosu.iconpackgenerator.domain.icons.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of long-lived background-removal worker processes that keep the rembg model loaded.
+ * <p>
+ * Each worker speaks a length-prefixed protocol over stdin/stdout (see {@code rembg/rembg_worker.py}):
+ * a request is a 4-byte big-endian length followed by the image bytes (length 0 is a ping), a response is
+ * a status byte, a 4-byte length and the payload. A worker writes one ping response once it is ready.
+ * <p>
+ * Workers that crash, time out or answer out of protocol are destroyed and restarted. Idle workers are
+ * pinged periodically so a dead process is replaced before a request needs it. Health checks block on their
+ * own thread, so the watchdog that kills overdue workers is never held up by a stalled ping.
+ * <p>
+ * After {@code maxFailedStarts} workers in a row fail to come up (typically because rembg cannot be imported),
+ * the pool stops all workers and reports itself unavailable instead of respawning them forever.
+ */
+@Slf4j
+public class RembgWorkerPool implements AutoCloseable {
+
+    private static final int STATUS_OK = 0;
+    private static final int MAX_RESPONSE_BYTES = 256 * 1024 * 1024;
+
+    private final List<String> command;
+    private final int poolSize;
+    private final Duration startupTimeout;
+    private final Duration requestTimeout;
+    private final Duration queueWaitTimeout;
+    private final Duration healthCheckInterval;
+    private final int maxFailedStarts;
+
+    private final BlockingQueue<Worker> idleWorkers;
+    private final List<Worker> allWorkers = new ArrayList<>();
+    // Only runs the timeout killers, which never block
+    private final ScheduledExecutorService watchdog;
+    private final ScheduledExecutorService healthChecker;
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicInteger consecutiveFailedStarts = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile boolean unavailable;
+
+    public RembgWorkerPool(List<String> command, int poolSize, Duration startupTimeout, Duration requestTimeout,
+                           Duration queueWaitTimeout, Duration healthCheckInterval, int maxFailedStarts) {
+        this.command = List.copyOf(command);
+        this.poolSize = Math.max(1, poolSize);
+        this.startupTimeout = startupTimeout;
+        this.requestTimeout = requestTimeout;
+        this.queueWaitTimeout = queueWaitTimeout;
+        this.healthCheckInterval = healthCheckInterval;
+        this.maxFailedStarts = Math.max(1, maxFailedStarts);
+        this.idleWorkers = new ArrayBlockingQueue<>(this.poolSize);
+        this.watchdog = daemonScheduler("rembg-worker-watchdog");
+        this.healthChecker = daemonScheduler("rembg-worker-health-check");
+    }
+
+    /**
+     * Launch all worker processes. Model loading happens in the background; a worker is first waited on
+     * when it is borrowed or health-checked.
+     */
+    public void start() {
+        log.info("Starting {} rembg workers: {}", poolSize, String.join(" ", command));
+        for (int i = 0; i < poolSize; i++) {
+            Worker worker = new Worker(i);
+            try {
+                worker.launch();
+            } catch (IOException e) {
+                log.warn("Failed to launch rembg worker {}: {}", i, e.getMessage());
+                failedStart();
+            }
+            synchronized (allWorkers) {
+                allWorkers.add(worker);
+            }
+            idleWorkers.offer(worker);
+        }
+
+        if (!healthCheckInterval.isZero() && !healthCheckInterval.isNegative()) {
+            long intervalMs = healthCheckInterval.toMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkIdleWorkers, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Remove the background of an image on a pooled worker.
+     *
+     * @throws TimeoutException if no worker became free within the queue-wait timeout
+     * @throws IOException      if the worker failed; the worker is restarted before it is reused
+     */
+    public byte[] removeBackground(byte[] imageData) throws IOException, TimeoutException, InterruptedException {
+        if (closed) {
+            throw new IOException("rembg worker pool is closed");
+        }
+        if (unavailable) {
+            throw new IOException("rembg workers are unavailable after " + maxFailedStarts + " failed starts");
+        }
+
+        Worker worker = idleWorkers.poll(queueWaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (worker == null) {
+            throw new TimeoutException("No rembg worker became free within " + queueWaitTimeout.toMillis() + "ms");
+        }
+
+        try {
+            worker.ensureReady();
+            return worker.exchange(imageData, requestTimeout);
+        } catch (RembgWorkerException e) {
+            throw e;
+        } catch (IOException e) {
+            worker.destroy();
+            throw e;
+        } finally {
+            release(worker);
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getIdleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    public int getRestartCount() {
+        return restarts.get();
+    }
+
+    /**
+     * Whether the pool can serve requests: it is open and its workers have not kept failing to start.
+     */
+    public boolean isAvailable() {
+        return !closed && !unavailable;
+    }
+
+    /**
+     * Whether at least one worker process is currently running.
+     */
+    public boolean hasLiveWorker() {
+        synchronized (allWorkers) {
+            return allWorkers.stream().anyMatch(Worker::isAlive);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        healthChecker.shutdownNow();
+        watchdog.shutdownNow();
+        synchronized (allWorkers) {
+            allWorkers.forEach(Worker::destroy);
+        }
+        log.info("rembg worker pool stopped");
+    }
+
+    private static ScheduledExecutorService daemonScheduler(String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void release(Worker worker) {
+        if (closed || unavailable) {
+            worker.destroy();
+            return;
+        }
+        if (!worker.isAlive()) {
+            restart(worker);
+        }
+        idleWorkers.offer(worker);
+    }
+
+    private void restart(Worker worker) {
+        restarts.incrementAndGet();
+        try {
+            worker.launch();
+            log.info("Restarted rembg worker {}", worker.id);
+        } catch (IOException e) {
+            log.warn("Failed to restart rembg worker {}: {}", worker.id, e.getMessage());
+            failedStart();
+        }
+    }
+
+    private void failedStart() {
+        if (consecutiveFailedStarts.incrementAndGet() < maxFailedStarts || unavailable) {
+            return;
+        }
+        synchronized (allWorkers) {
+            if (unavailable) {
+                return;
+            }
+            unavailable = true;
+            log.error("{} rembg workers in a row failed to start, stopping the worker pool: {}",
+                    maxFailedStarts, String.join(" ", command));
+            healthChecker.shutdownNow();
+            allWorkers.forEach(Worker::destroy);
+        }
+    }
+
+    private void checkIdleWorkers() {
+        int toCheck = idleWorkers.size();
+        for (int i = 0; i < toCheck && !closed && !unavailable; i++) {
+            Worker worker = idleWorkers.poll();
+            if (worker == null) {
+                return;
+            }
+            try {
+                worker.ensureReady();
+                worker.exchange(new byte[0], startupTimeout);
+            } catch (IOException e) {
+                log.warn("rembg worker {} failed health check: {}", worker.id, e.getMessage());
+                worker.destroy();
+            } catch (Exception e) {
+                log.warn("Unexpected error checking rembg worker {}", worker.id, e);
+                worker.destroy();
+            } finally {
+                release(worker);
+            }
+        }
+    }
+
+    private final class Worker {
+        private final int id;
+        private Process process;
+        private DataOutputStream input;
+        private DataInputStream output;
+        private boolean ready;
+
+        private Worker(int id) {
+            this.id = id;
+        }
+
+        private void launch() throws IOException {
+            destroy();
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            process = processBuilder.start();
+            input = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            output = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            ready = false;
+        }
+
+        private boolean isAlive() {
+            return process != null && process.isAlive();
+        }
+
+        private void ensureReady() throws IOException {
+            if (ready) {
+                return;
+            }
+            try {
+                if (process == null) {
+                    launch();
+                }
+                readResponse(startupTimeout);
+            } catch (IOException e) {
+                failedStart();
+                throw e;
+            }
+            ready = true;
+            consecutiveFailedStarts.set(0);
+            log.debug("rembg worker {} is ready", id);
+        }
+
+        private byte[] exchange(byte[] payload, Duration timeout) throws IOException {
+            input.writeInt(payload.length);
+            input.write(payload);
+            input.flush();
+            return readResponse(timeout);
+        }
+
+        /**
+         * Read one response frame, killing the process if it does not arrive in time so the blocked read fails.
+         */
+        private byte[] readResponse(Duration timeout) throws IOException {
+            Process current = process;
+            ScheduledFuture<?> killer = watchdog.schedule(() -> {
+                log.warn("rembg worker {} did not respond within {}s, destroying it", id, timeout.toSeconds());
+                current.destroyForcibly();
+            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+            try {
+                int status = output.readUnsignedByte();
+                int length = output.readInt();
+                if (length < 0 || length > MAX_RESPONSE_BYTES) {
+                    throw new IOException("rembg worker " + id + " sent an invalid response length: " + length);
+                }
+                byte[] body = new byte[length];
+                output.readFully(body);
+
+                if (status != STATUS_OK) {
+                    // The worker reported an error but is still healthy
+                    throw new RembgWorkerException(new String(body, StandardCharsets.UTF_8));
+                }
+                return body;
+            } catch (EOFException e) {
+                throw new IOException("rembg worker " + id + " exited unexpectedly", e);
+            } finally {
+                killer.cancel(false);
+            }
+        }
+
+        private void destroy() {
+            if (process != null) {
+                process.destroyForcibly();
+                process = null;
+            }
+            ready = false;
+        }
+    }
+
+    /**
+     * Error reported by a worker for a single image; the worker stays usable.
+     */
+    public static class RembgWorkerException extends IOException {
+        public RembgWorkerException(String message) {
+            super(message);
+        }
+    }
+}
@@ -69,8 +69,8 @@ public class TrialModeService {
         }
 
         for (IconGenerationResponse.GeneratedIcon icon : serviceResults.getIcons()) {
-            if (icon.getBase64Data() != null && !icon.getBase64Data().isBlank()) {
-                icon.setBase64Data(watermarkService.applyTrialWatermark(icon.getBase64Data()));
+            if (icon.hasImageData()) {
+                icon.setData(watermarkService.applyTrialWatermark(icon.getData()));
             }
         }
     }
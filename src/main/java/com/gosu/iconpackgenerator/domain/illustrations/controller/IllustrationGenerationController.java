@@ -15,10 +15,10 @@ import com.gosu.iconpackgenerator.domain.status.GenerationStatusService;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.user.service.CustomOAuth2User;
 import com.gosu.iconpackgenerator.util.WatermarkService;
-import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -36,7 +36,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -55,24 +54,9 @@ public class IllustrationGenerationController implements IllustrationGenerationC
     private final WatermarkService watermarkService;
 
 
-    private final ScheduledExecutorService heartbeatScheduler = Executors.newScheduledThreadPool(5);
-    
-    @PreDestroy
-    public void cleanup() {
-        if (heartbeatScheduler != null && !heartbeatScheduler.isShutdown()) {
-            log.info("Shutting down Illustration SSE heartbeat scheduler");
-            heartbeatScheduler.shutdown();
-            try {
-                if (!heartbeatScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    heartbeatScheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                heartbeatScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-    
+    @Qualifier("schedulingExecutor")
+    private final ScheduledExecutorService heartbeatScheduler;
+
     @Override
     @ResponseBody
     public CompletableFuture<IllustrationGenerationResponse> generateIllustrations(
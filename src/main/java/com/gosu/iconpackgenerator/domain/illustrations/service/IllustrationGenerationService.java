@@ -262,7 +262,7 @@ public class IllustrationGenerationService {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed in {}ms, processing upscaled image", upscaleDuration);
                                 List<String> base64Illustrations =
-                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration);
+                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration, "banana");
                                 return createIllustrationListWithOriginalImage(base64Illustrations, imageData, request);
                             });
                 });
@@ -293,7 +293,7 @@ public class IllustrationGenerationService {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed in {}ms, processing upscaled image", upscaleDuration);
                                 List<String> base64Illustrations =
-                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration);
+                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration, "banana");
                                 return createIllustrationListWithOriginalImage(base64Illustrations, imageData, request);
                             });
                 });
@@ -317,7 +317,7 @@ public class IllustrationGenerationService {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed, processing upscaled more illustrations in {}ms", upscaleDuration);
                                 List<String> base64Illustrations =
-                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration);
+                                        illustrationImageProcessingService.cropIllustrationsFromGrid(upscaledImageData, upscaleDuration, "banana");
 
                                 // Convert to GeneratedIllustration objects
                                 List<IllustrationGenerationResponse.GeneratedIllustration> illustrations = new ArrayList<>();
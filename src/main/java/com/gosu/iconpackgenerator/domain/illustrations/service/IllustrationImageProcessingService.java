@@ -1,8 +1,10 @@
 package com.gosu.iconpackgenerator.domain.illustrations.service;
 
 import com.gosu.iconpackgenerator.domain.icons.service.BackgroundRemovalService;
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
@@ -16,8 +18,6 @@ import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,7 +26,11 @@ import java.util.stream.Collectors;
 public class IllustrationImageProcessingService {
 
     private final BackgroundRemovalService backgroundRemovalService;
+    private final ImageProcessingMetrics imageProcessingMetrics;
+    @Qualifier("imageProcessingExecutor")
+    private final ExecutorService imageProcessingExecutor;
     private static final ThreadLocal<Long> upscaleTimeHolder = new ThreadLocal<>();
+    private static final ThreadLocal<String> modelServiceHolder = new ThreadLocal<>();
 
     public static final int ILLUSTRATION_TARGET_SIZE = 600; // Larger than icons
 
@@ -50,11 +54,20 @@ public class IllustrationImageProcessingService {
     }
 
     public List<String> cropIllustrationsFromGrid(byte[] imageData, long upscaleTime) {
+        return cropIllustrationsFromGrid(imageData, upscaleTime, ImageProcessingMetrics.UNKNOWN_MODEL_SERVICE);
+    }
+
+    /**
+     * Crop an upscaled 2x2 grid, tagging the processing timers with the model service that generated it
+     */
+    public List<String> cropIllustrationsFromGrid(byte[] imageData, long upscaleTime, String modelService) {
         upscaleTimeHolder.set(upscaleTime);
+        modelServiceHolder.set(modelService);
         try {
             return cropIllustrationsFromGrid(imageData);
         } finally {
             upscaleTimeHolder.remove();
+            modelServiceHolder.remove();
         }
     }
 
@@ -127,6 +140,7 @@ public class IllustrationImageProcessingService {
 
             long totalProcessingTime = System.currentTimeMillis() - totalStartTime;
             logProcessingTimingSummary(timing, totalProcessingTime, 4, originalImage.getWidth(), originalImage.getHeight());
+            publishProcessingTimingMetrics(timing, totalProcessingTime, modelServiceHolder.get());
             log.info("Successfully cropped {} illustrations in {}ms", croppedIllustrations.size(), totalProcessingTime);
 
             return croppedIllustrations;
@@ -166,134 +180,117 @@ public class IllustrationImageProcessingService {
         GridBounds gridBounds = detectGridBounds(originalImage);
         timing.gridBoundsDetectionMs = System.currentTimeMillis() - gridBoundsStart;
 
-        // Create a thread pool for parallel processing (4 quadrants)
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-
-        try {
-            // Process all 4 quadrants in parallel
-            List<CompletableFuture<IllustrationProcessingResult>> futures = new ArrayList<>();
-
-            for (int row = 0; row < 2; row++) {
-                for (int col = 0; col < 2; col++) {
-                    final int finalRow = row;
-                    final int finalCol = col;
-                    final int index = row * 2 + col;
-
-                    Rectangle illustrationRect = gridBounds.getIllustrationRectangle(row, col);
-
-                    // Create a copy of the subimage for thread safety
-                    BufferedImage subImage = deepCopyBufferedImage(originalImage.getSubimage(
-                            illustrationRect.x, illustrationRect.y, illustrationRect.width, illustrationRect.height));
-
-                    // Submit processing task for this quadrant
-                    CompletableFuture<IllustrationProcessingResult> future = CompletableFuture.supplyAsync(() -> {
-                        try {
-                            log.debug("Processing illustration [{},{}] in parallel thread", finalRow, finalCol);
-
-                            // Detect content bounds
-                            long contentBoundsStart = System.currentTimeMillis();
-                            Rectangle contentBounds = detectContentBounds(subImage);
-                            long contentBoundsTime = System.currentTimeMillis() - contentBoundsStart;
-
-                            BufferedImage processed = subImage;
-                            if (contentBounds != null && contentBounds.width > 0 && contentBounds.height > 0) {
-                                processed = subImage.getSubimage(
-                                        contentBounds.x, contentBounds.y, contentBounds.width, contentBounds.height);
-                                log.debug("Processed illustration [{},{}]: content size {}x{}",
-                                        finalRow, finalCol, contentBounds.width, contentBounds.height);
-                            }
-
-                            return new IllustrationProcessingResult(index, processed, contentBoundsTime);
-
-                        } catch (Exception e) {
-                            log.error("Error processing illustration [{},{}]", finalRow, finalCol, e);
-                            return new IllustrationProcessingResult(index, subImage, 0);
+        // Process all 4 quadrants in parallel
+        List<CompletableFuture<IllustrationProcessingResult>> futures = new ArrayList<>();
+
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 2; col++) {
+                final int finalRow = row;
+                final int finalCol = col;
+                final int index = row * 2 + col;
+
+                Rectangle illustrationRect = gridBounds.getIllustrationRectangle(row, col);
+
+                // Create a copy of the subimage for thread safety
+                BufferedImage subImage = deepCopyBufferedImage(originalImage.getSubimage(
+                        illustrationRect.x, illustrationRect.y, illustrationRect.width, illustrationRect.height));
+
+                // Submit processing task for this quadrant
+                CompletableFuture<IllustrationProcessingResult> future = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        log.debug("Processing illustration [{},{}] in parallel thread", finalRow, finalCol);
+
+                        // Detect content bounds
+                        long contentBoundsStart = System.currentTimeMillis();
+                        Rectangle contentBounds = detectContentBounds(subImage);
+                        long contentBoundsTime = System.currentTimeMillis() - contentBoundsStart;
+
+                        BufferedImage processed = subImage;
+                        if (contentBounds != null && contentBounds.width > 0 && contentBounds.height > 0) {
+                            processed = subImage.getSubimage(
+                                    contentBounds.x, contentBounds.y, contentBounds.width, contentBounds.height);
+                            log.debug("Processed illustration [{},{}]: content size {}x{}",
+                                    finalRow, finalCol, contentBounds.width, contentBounds.height);
                         }
-                    }, executor);
 
-                    futures.add(future);
-                }
+                        return new IllustrationProcessingResult(index, processed, contentBoundsTime);
+
+                    } catch (Exception e) {
+                        log.error("Error processing illustration [{},{}]", finalRow, finalCol, e);
+                        return new IllustrationProcessingResult(index, subImage, 0);
+                    }
+                }, imageProcessingExecutor);
+
+                futures.add(future);
             }
+        }
 
-            // Wait for all tasks to complete and collect results
-            CompletableFuture<Void> allOf = CompletableFuture.allOf(
-                    futures.toArray(new CompletableFuture[0]));
+        // Wait for all tasks to complete and collect results
+        CompletableFuture<Void> allOf = CompletableFuture.allOf(
+                futures.toArray(new CompletableFuture[0]));
 
-            allOf.join(); // Wait for all to complete
+        allOf.join(); // Wait for all to complete
 
-            // Collect results in order
-            List<IllustrationProcessingResult> results = futures.stream()
-                    .map(CompletableFuture::join)
-                    .sorted((a, b) -> Integer.compare(a.index, b.index))
-                    .collect(Collectors.toList());
+        // Collect results in order
+        List<IllustrationProcessingResult> results = futures.stream()
+                .map(CompletableFuture::join)
+                .sorted((a, b) -> Integer.compare(a.index, b.index))
+                .collect(Collectors.toList());
 
-            // Accumulate timing
-            for (IllustrationProcessingResult result : results) {
-                timing.contentBoundsDetectionMs += result.contentBoundsMs;
-            }
+        // Accumulate timing
+        for (IllustrationProcessingResult result : results) {
+            timing.contentBoundsDetectionMs += result.contentBoundsMs;
+        }
 
-            log.info("Parallel processing completed for all 4 quadrants");
+        log.info("Parallel processing completed for all 4 quadrants");
 
-            // First pass: find maximum dimensions
-            List<BufferedImage> croppedImages = new ArrayList<>();
-            int maxContentWidth = 0;
-            int maxContentHeight = 0;
+        // First pass: find maximum dimensions
+        List<BufferedImage> croppedImages = new ArrayList<>();
+        int maxContentWidth = 0;
+        int maxContentHeight = 0;
 
-            for (IllustrationProcessingResult result : results) {
-                BufferedImage img = result.processedImage;
-                croppedImages.add(img);
-                maxContentWidth = Math.max(maxContentWidth, img.getWidth());
-                maxContentHeight = Math.max(maxContentHeight, img.getHeight());
-            }
+        for (IllustrationProcessingResult result : results) {
+            BufferedImage img = result.processedImage;
+            croppedImages.add(img);
+            maxContentWidth = Math.max(maxContentWidth, img.getWidth());
+            maxContentHeight = Math.max(maxContentHeight, img.getHeight());
+        }
 
-            // Determine final target dimensions
-            int finalWidth, finalHeight;
-            if (targetSize > 0) {
-                // Use specified target size, maintaining aspect ratio of largest content
-                double aspectRatio = (double) maxContentWidth / maxContentHeight;
-                if (aspectRatio > 1.0) {
-                    // Wider than tall
-                    finalWidth = targetSize;
-                    finalHeight = (int) (targetSize / aspectRatio);
-                } else {
-                    // Taller than wide
-                    finalHeight = targetSize;
-                    finalWidth = (int) (targetSize * aspectRatio);
-                }
+        // Determine final target dimensions
+        int finalWidth, finalHeight;
+        if (targetSize > 0) {
+            // Use specified target size, maintaining aspect ratio of largest content
+            double aspectRatio = (double) maxContentWidth / maxContentHeight;
+            if (aspectRatio > 1.0) {
+                // Wider than tall
+                finalWidth = targetSize;
+                finalHeight = (int) (targetSize / aspectRatio);
             } else {
-                // Use maximum dimensions found
-                finalWidth = maxContentWidth;
-                finalHeight = maxContentHeight;
-            }
-
-            log.info("All illustrations will be resized to uniform size: {}x{} (no transparent borders)",
-                    finalWidth, finalHeight);
-
-            // Second pass: resize all illustrations to the same dimensions
-            List<String> illustrations = new ArrayList<>();
-            for (int i = 0; i < croppedImages.size(); i++) {
-                long resizingStart = System.currentTimeMillis();
-                BufferedImage uniformIllustration = resizeToFill(croppedImages.get(i), finalWidth, finalHeight);
-                timing.illustrationResizingMs += System.currentTimeMillis() - resizingStart;
-                String base64Illustration = bufferedImageToBase64(uniformIllustration);
-                illustrations.add(base64Illustration);
-                log.debug("Processed illustration {} to final size {}x{}", i, finalWidth, finalHeight);
+                // Taller than wide
+                finalHeight = targetSize;
+                finalWidth = (int) (targetSize * aspectRatio);
             }
+        } else {
+            // Use maximum dimensions found
+            finalWidth = maxContentWidth;
+            finalHeight = maxContentHeight;
+        }
 
-            return illustrations;
-
-        } finally {
-            // Shutdown executor and wait for all tasks to complete
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+        log.info("All illustrations will be resized to uniform size: {}x{} (no transparent borders)",
+                finalWidth, finalHeight);
+
+        // Second pass: resize all illustrations to the same dimensions
+        List<String> illustrations = new ArrayList<>();
+        for (int i = 0; i < croppedImages.size(); i++) {
+            long resizingStart = System.currentTimeMillis();
+            BufferedImage uniformIllustration = resizeToFill(croppedImages.get(i), finalWidth, finalHeight);
+            timing.illustrationResizingMs += System.currentTimeMillis() - resizingStart;
+            String base64Illustration = bufferedImageToBase64(uniformIllustration);
+            illustrations.add(base64Illustration);
+            log.debug("Processed illustration {} to final size {}x{}", i, finalWidth, finalHeight);
         }
+
+        return illustrations;
     }
 
     /**
@@ -345,6 +342,25 @@ public class IllustrationImageProcessingService {
         log.info("└─────────────────────────────────────────────────────────────");
     }
 
+    /**
+     * Publish the phase timings as Micrometer timers. Phases that did not run for this grid are not recorded.
+     */
+    private void publishProcessingTimingMetrics(ProcessingTiming timing, long totalProcessingTime, String modelService) {
+        ImageProcessingMetrics.AssetType asset = ImageProcessingMetrics.AssetType.ILLUSTRATION;
+        if (timing.upscaleMs > 0) {
+            imageProcessingMetrics.recordPhase(asset, modelService, "upscale", timing.upscaleMs);
+        }
+        if (timing.backgroundRemovalMs > 0) {
+            imageProcessingMetrics.recordPhase(asset, modelService, "background_removal", timing.backgroundRemovalMs);
+        }
+        imageProcessingMetrics.recordPhase(asset, modelService, "decode", timing.imageParsingMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "frame_detection", timing.solidFrameDetectionMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "grid_bounds", timing.gridBoundsDetectionMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "content_bounds", timing.contentBoundsDetectionMs);
+        imageProcessingMetrics.recordPhase(asset, modelService, "resizing", timing.illustrationResizingMs);
+        imageProcessingMetrics.recordTotal(asset, modelService, totalProcessingTime);
+    }
+
     /**
      * Calculate percentage for timing display
      */
@@ -10,10 +10,10 @@ import com.gosu.iconpackgenerator.domain.labels.service.LabelGenerationService;
 import com.gosu.iconpackgenerator.domain.status.GenerationStatusService;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.user.service.CustomOAuth2User;
-import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -28,7 +28,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -43,20 +42,8 @@ public class LabelGenerationController implements LabelGenerationControllerAPI {
     private final ObjectMapper objectMapper;
     private final GenerationStatusService generationStatusService;
 
-    private final ScheduledExecutorService heartbeatScheduler = Executors.newScheduledThreadPool(2);
-
-    @PreDestroy
-    public void cleanup() {
-        heartbeatScheduler.shutdown();
-        try {
-            if (!heartbeatScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                heartbeatScheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            heartbeatScheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-    }
+    @Qualifier("schedulingExecutor")
+    private final ScheduledExecutorService heartbeatScheduler;
 
     @Override
     @ResponseBody
@@ -73,6 +73,7 @@ public class LabelGenerationService {
             }
         }
 
+        String userKey = String.valueOf(user.getId());
         List<CompletableFuture<LabelGenerationResponse.ServiceResults>> generationFutures = new ArrayList<>();
         for (int i = 0; i < request.getGenerationsPerService(); i++) {
             int generationIndex = i + 1;
@@ -80,7 +81,8 @@ public class LabelGenerationService {
             boolean isVariation = generationIndex == 2;
 
             generationFutures.add(
-                    generateSingleLabel(request, requestId, generationIndex, isVariation, seed, progressCallback)
+                    generateSingleLabel(request, requestId, generationIndex, isVariation, seed, userKey,
+                            progressCallback)
                             .thenApply(result -> {
                                 result.setGenerationIndex(generationIndex);
                                 return result;
@@ -132,6 +134,7 @@ public class LabelGenerationService {
             int generationIndex,
             boolean variation,
             Long seed,
+            String userKey,
             ProgressUpdateCallback progressCallback) {
 
         long startTime = System.currentTimeMillis();
@@ -140,19 +143,19 @@ public class LabelGenerationService {
         if (request.hasReferenceImage()) {
             byte[] referenceBytes = Base64.getDecoder().decode(request.getReferenceImageBase64());
             String prompt = labelPromptGenerationService.buildImageToImagePrompt(request.getLabelText(), variation);
-            imageFuture = gptModelService.generateImageToImage(prompt, referenceBytes, seed);
+            imageFuture = gptModelService.generateImageToImage(prompt, referenceBytes, seed, userKey);
         } else {
             String prompt = labelPromptGenerationService.buildTextToImagePrompt(
                     request.getLabelText(),
                     request.getGeneralTheme(),
                     variation);
-            imageFuture = gptModelService.generateImage(prompt, seed, GptModelService.PromptAugmentation.NONE);
+            imageFuture = gptModelService.generateImage(prompt, seed, GptModelService.PromptAugmentation.NONE, userKey);
         }
 
         return imageFuture.thenApply(imageBytes -> {
             long generationTime = System.currentTimeMillis() - startTime;
             String originalBase64 = Base64.getEncoder().encodeToString(imageBytes);
-            String processedBase64 = labelImageProcessingService.cropToContent(originalBase64);
+            String processedBase64 = labelImageProcessingService.cropToContent(originalBase64, "gpt");
 
             LabelGenerationResponse.GeneratedLabel label = new LabelGenerationResponse.GeneratedLabel();
             label.setId(UUID.randomUUID().toString());
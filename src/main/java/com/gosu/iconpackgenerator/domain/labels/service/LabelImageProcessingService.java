@@ -1,5 +1,7 @@
 package com.gosu.iconpackgenerator.domain.labels.service;
 
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -11,30 +13,45 @@ import java.io.ByteArrayOutputStream;
 import java.util.Base64;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class LabelImageProcessingService {
 
     private static final int MIN_LABEL_DIMENSION = 256;
 
+    private final ImageProcessingMetrics imageProcessingMetrics;
+
     /**
      * Crop the generated label image to the bounding box of visible content and ensure
      * the result has a minimum dimension by upscaling if necessary.
      * Falls back to the original image if bounds cannot be detected.
      */
     public String cropToContent(String base64Image) {
+        return cropToContent(base64Image, ImageProcessingMetrics.UNKNOWN_MODEL_SERVICE);
+    }
+
+    /**
+     * Crop the label to its content, tagging the processing timers with the model service that generated it
+     */
+    public String cropToContent(String base64Image, String modelService) {
         if (base64Image == null || base64Image.isBlank()) {
             return base64Image;
         }
 
         try {
+            ImageProcessingMetrics.AssetType asset = ImageProcessingMetrics.AssetType.LABEL;
+            long startTime = System.currentTimeMillis();
             byte[] imageBytes = Base64.getDecoder().decode(base64Image);
             BufferedImage source = ImageIO.read(new ByteArrayInputStream(imageBytes));
             if (source == null) {
                 log.warn("Could not read label image, returning original data");
                 return base64Image;
             }
+            imageProcessingMetrics.recordPhase(asset, modelService, "decode", System.currentTimeMillis() - startTime);
 
+            long contentBoundsStart = System.currentTimeMillis();
             Rectangle bounds = detectContentBounds(source);
+            imageProcessingMetrics.recordPhase(asset, modelService, "content_bounds", System.currentTimeMillis() - contentBoundsStart);
             if (bounds == null) {
                 log.debug("No content bounds detected for label, returning original image");
                 return base64Image;
@@ -47,10 +64,15 @@ public class LabelImageProcessingService {
                     Math.min(bounds.height, source.getHeight() - bounds.y)
             );
 
+            long resizingStart = System.currentTimeMillis();
             BufferedImage resized = resizeIfNeeded(cropped);
+            imageProcessingMetrics.recordPhase(asset, modelService, "resizing", System.currentTimeMillis() - resizingStart);
 
+            long encodingStart = System.currentTimeMillis();
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ImageIO.write(resized, "png", baos);
+            imageProcessingMetrics.recordPhase(asset, modelService, "encoding", System.currentTimeMillis() - encodingStart);
+            imageProcessingMetrics.recordTotal(asset, modelService, System.currentTimeMillis() - startTime);
             return Base64.getEncoder().encodeToString(baos.toByteArray());
         } catch (Exception e) {
             log.error("Failed to crop label image, returning original", e);
@@ -15,10 +15,10 @@ import com.gosu.iconpackgenerator.domain.mockups.service.MockupPromptGenerationS
 import com.gosu.iconpackgenerator.domain.status.GenerationStatusService;
 import com.gosu.iconpackgenerator.user.model.User;
 import com.gosu.iconpackgenerator.user.service.CustomOAuth2User;
-import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -31,7 +31,6 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -49,24 +48,9 @@ public class MockupGenerationController implements MockupGenerationControllerAPI
     private final CoinManagementService coinManagementService;
     private final GenerationStatusService generationStatusService;
     
-    private final ScheduledExecutorService heartbeatScheduler = Executors.newScheduledThreadPool(5);
-    
-    @PreDestroy
-    public void cleanup() {
-        if (heartbeatScheduler != null && !heartbeatScheduler.isShutdown()) {
-            log.info("Shutting down Mockup SSE heartbeat scheduler");
-            heartbeatScheduler.shutdown();
-            try {
-                if (!heartbeatScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    heartbeatScheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                heartbeatScheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
-    
+    @Qualifier("schedulingExecutor")
+    private final ScheduledExecutorService heartbeatScheduler;
+
     @Override
     @ResponseBody
     public CompletableFuture<MockupGenerationResponse> generateMockups(
@@ -251,7 +251,7 @@ public class MockupGenerationService {
                             .thenApply(upscaledImageData -> {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed in {}ms, processing upscaled image", upscaleDuration);
-                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData);
+                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData, "banana");
                                 return createMockupWithOriginalImage(base64Mockup, imageData, request);
                             });
                 });
@@ -278,7 +278,7 @@ public class MockupGenerationService {
                             .thenApply(upscaledImageData -> {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed, processing upscaled mockup in {}ms", upscaleDuration);
-                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData);
+                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData, "banana");
                                 return createMockupWithOriginalImage(base64Mockup, imageData, request);
                             });
                 });
@@ -301,7 +301,7 @@ public class MockupGenerationService {
                             .thenApply(upscaledImageData -> {
                                 long upscaleDuration = System.currentTimeMillis() - upscaleStart;
                                 log.info("Upscaling completed, processing upscaled more mockups in {}ms", upscaleDuration);
-                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData);
+                                String base64Mockup = mockupImageProcessingService.processMockupImage(upscaledImageData, "banana");
 
                                 // Create list with single mockup
                                 List<MockupGenerationResponse.GeneratedMockup> mockups = new ArrayList<>();
@@ -1,5 +1,7 @@
 package com.gosu.iconpackgenerator.domain.mockups.service;
 
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics;
+import com.gosu.iconpackgenerator.util.PngEncodingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -9,7 +11,6 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -28,6 +29,9 @@ public class MockupImageProcessingService {
     private static final int COMPONENT_MARGIN = 3;
     private static final int MIN_COMPONENT_DIMENSION = 256;
 
+    private final PngEncodingService pngEncodingService;
+    private final ImageProcessingMetrics imageProcessingMetrics;
+
     /**
      * Process mockup image - only convert to base64, no cropping needed
      * Mockups are generated in 16:9 aspect ratio and don't need grid cropping
@@ -36,6 +40,13 @@ public class MockupImageProcessingService {
      * @return Base64 encoded mockup image
      */
     public String processMockupImage(byte[] imageData) {
+        return processMockupImage(imageData, ImageProcessingMetrics.UNKNOWN_MODEL_SERVICE);
+    }
+
+    /**
+     * Process mockup image, tagging the processing timers with the model service that generated it
+     */
+    public String processMockupImage(byte[] imageData, String modelService) {
         try {
             if (imageData == null || imageData.length == 0) {
                 log.error("Image data is null or empty");
@@ -47,6 +58,7 @@ public class MockupImageProcessingService {
 
             // Parse image
             BufferedImage mockupImage = ImageIO.read(new ByteArrayInputStream(imageData));
+            long decodeMs = System.currentTimeMillis() - startTime;
             
             if (mockupImage == null) {
                 log.error("Failed to parse image data - ImageIO.read() returned null");
@@ -57,11 +69,18 @@ public class MockupImageProcessingService {
                     mockupImage.getWidth(), mockupImage.getHeight());
 
             // Convert to base64
+            long encodingStart = System.currentTimeMillis();
             String base64Mockup = bufferedImageToBase64(mockupImage);
+            long encodingMs = System.currentTimeMillis() - encodingStart;
             
             long processingTime = System.currentTimeMillis() - startTime;
             log.info("Successfully processed mockup in {}ms", processingTime);
 
+            ImageProcessingMetrics.AssetType asset = ImageProcessingMetrics.AssetType.MOCKUP;
+            imageProcessingMetrics.recordPhase(asset, modelService, "decode", decodeMs);
+            imageProcessingMetrics.recordPhase(asset, modelService, "encoding", encodingMs);
+            imageProcessingMetrics.recordTotal(asset, modelService, processingTime);
+
             return base64Mockup;
 
         } catch (IOException e) {
@@ -174,13 +193,10 @@ public class MockupImageProcessingService {
     }
     
     /**
-     * Convert BufferedImage to base64 string
+     * Convert BufferedImage to base64 string, compact since the mockup is persisted as is
      */
     private String bufferedImageToBase64(BufferedImage image) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        return Base64.getEncoder().encodeToString(imageBytes);
+        return pngEncodingService.encodeToBase64(image, PngEncodingService.Preset.SMALL);
     }
 
     private boolean isForegroundPixel(int rgb) {
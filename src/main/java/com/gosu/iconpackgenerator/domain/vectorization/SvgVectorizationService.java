@@ -2,8 +2,13 @@ package com.gosu.iconpackgenerator.domain.vectorization;
 
 import com.gosu.iconpackgenerator.domain.ai.RecraftVectorizeModelService;
 import com.gosu.iconpackgenerator.domain.vectorization.VectorizationException;
+import com.gosu.iconpackgenerator.util.ContentAddressedCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
@@ -13,17 +18,18 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -48,26 +54,64 @@ public class SvgVectorizationService {
     private static final int VECTOR_BACKGROUND_ARGB =
             new Color(VECTOR_BACKGROUND_R, VECTOR_BACKGROUND_G, VECTOR_BACKGROUND_B, 255).getRGB();
 
+    // Bump when preparation or sanitizing changes so stale SVGs are no longer served
+    private static final String CACHE_NAMESPACE = "recraft-vectorize/v2";
+
     private final RecraftVectorizeModelService recraftVectorizeModelService;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("remoteIoExecutor")
+    private final ExecutorService remoteIoExecutor;
+
+    @Value("${vectorization.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${vectorization.cache.memory-max-mb:32}")
+    private long cacheMemoryMaxMb;
+
+    @Value("${vectorization.cache.directory:}")
+    private String cacheDirectory;
+
+    @Value("${vectorization.cache.disk-max-mb:512}")
+    private long cacheDiskMaxMb;
+
+    // Sanitized SVGs keyed by the hash of the prepared image; null when disabled
+    private ContentAddressedCache svgCache;
+
+    @PostConstruct
+    public void initSvgCache() {
+        if (!cacheEnabled) {
+            return;
+        }
+        Path diskDirectory = cacheDirectory == null || cacheDirectory.isBlank() ? null : Paths.get(cacheDirectory);
+        svgCache = new ContentAddressedCache("vectorization",
+                cacheMemoryMaxMb * 1024 * 1024,
+                diskDirectory,
+                cacheDiskMaxMb * 1024 * 1024,
+                meterRegistry);
+    }
+
+    /**
+     * Start vectorizing every image and return each one's pending SVG by name, in iteration order. A failed
+     * image completes its future with a {@link VectorizationException}.
+     */
+    public Map<String, CompletableFuture<byte[]>> vectorizeEach(Map<String, byte[]> images) {
+        Map<String, CompletableFuture<byte[]>> futures = new LinkedHashMap<>();
+        if (images != null) {
+            images.forEach((baseName, data) -> futures.put(baseName,
+                    CompletableFuture.supplyAsync(() -> vectorizeImage(data, baseName), remoteIoExecutor)));
+        }
+        return futures;
+    }
 
     public Map<String, byte[]> vectorizeImages(Map<String, byte[]> images) {
         if (images == null || images.isEmpty()) {
             return Collections.emptyMap();
         }
 
-        int poolSize = Math.min(images.size(), 9);
-        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
-
         try {
             List<CompletableFuture<VectorizedSvgResult>> futures = new ArrayList<>();
-            for (Map.Entry<String, byte[]> entry : images.entrySet()) {
-                String baseName = entry.getKey();
-                byte[] data = entry.getValue();
-                futures.add(CompletableFuture.supplyAsync(
-                        () -> new VectorizedSvgResult(baseName, vectorizeImage(data, baseName)),
-                        executor
-                ));
-            }
+            vectorizeEach(images).forEach((baseName, svg) ->
+                    futures.add(svg.thenApply(svgBytes -> new VectorizedSvgResult(baseName, svgBytes))));
 
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
@@ -87,16 +131,6 @@ public class SvgVectorizationService {
             }
             log.error("Vectorization failed for one or more images", cause);
             throw new VectorizationException("Failed to vectorize images for export", cause);
-        } finally {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                }
-            } catch (InterruptedException interrupted) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
         }
     }
 
@@ -107,8 +141,23 @@ public class SvgVectorizationService {
 
         try {
             byte[] prepared = prepareImageForVectorization(imageData, baseName);
+            ContentAddressedCache cache = svgCache;
+            String cacheKey = null;
+            if (cache != null) {
+                cacheKey = ContentAddressedCache.key(CACHE_NAMESPACE, prepared);
+                byte[] cached = cache.get(cacheKey);
+                if (cached != null) {
+                    log.debug("Vectorization cache hit for {}", baseName);
+                    return cached;
+                }
+            }
+
             byte[] svgBytes = recraftVectorizeModelService.vectorizeImageBlocking(prepared);
-            return sanitizeVectorizedSvg(svgBytes, baseName);
+            byte[] sanitized = sanitizeVectorizedSvg(svgBytes, baseName);
+            if (cache != null && sanitized != null && sanitized.length > 0) {
+                cache.put(cacheKey, sanitized);
+            }
+            return sanitized;
         } catch (VectorizationException e) {
             throw e;
         } catch (Exception e) {
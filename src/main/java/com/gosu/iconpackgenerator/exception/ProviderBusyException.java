@@ -0,0 +1,12 @@
+package com.gosu.iconpackgenerator.exception;
+
+/**
+ * Thrown when an AI provider's bulkhead turns a call away because its wait queue is full or the call waited
+ * too long for a slot. The call never reached the provider.
+ */
+public class ProviderBusyException extends RuntimeException {
+
+    public ProviderBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,297 @@
+package com.gosu.iconpackgenerator.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier byte cache keyed by content hashes: a size-bounded in-memory LRU in front of an optional
+ * size-bounded directory on disk. Disk entries survive restarts; the least recently used files are deleted
+ * once the directory grows past its limit. A directory that cannot be created or written turns the cache
+ * memory-only at startup.
+ * <p>
+ * Hits and misses are published as {@code cache.gets} with {@code cache}, {@code result} and {@code tier}
+ * tags, alongside byte-size gauges for both tiers.
+ */
+@Slf4j
+public class ContentAddressedCache {
+
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private final String name;
+    private final long memoryMaxBytes;
+    // Null when memory-only; only assigned in the constructor
+    private Path diskDirectory;
+    private final long diskMaxBytes;
+
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * @param diskDirectory directory for the disk tier, or null for a memory-only cache
+     */
+    public ContentAddressedCache(String name, long memoryMaxBytes, Path diskDirectory, long diskMaxBytes,
+                                 MeterRegistry meterRegistry) {
+        this.name = name;
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.diskDirectory = diskDirectory;
+        this.diskMaxBytes = diskMaxBytes;
+
+        this.memoryHits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").tag("tier", "memory")
+                .register(meterRegistry);
+        this.diskHits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").tag("tier", "disk")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").tag("tier", "none")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.memory.bytes", this, ContentAddressedCache::getMemoryBytes).tag("cache", name)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("cache.disk.bytes", diskBytes, AtomicLong::get).tag("cache", name)
+                .baseUnit("bytes").register(meterRegistry);
+
+        if (diskDirectory != null && !initDiskTier()) {
+            this.diskDirectory = null;
+        }
+    }
+
+    /**
+     * SHA-256 hex digest over a namespace string (e.g. a model name) followed by the given byte arrays, each
+     * prefixed with its length so that different splits of the same bytes get different keys.
+     */
+    public static String key(String namespace, byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(namespace.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            for (byte[] part : parts) {
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(part.length).array());
+                digest.update(part);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Look up an entry, promoting disk hits into memory.
+     *
+     * @return the cached bytes, or null on a miss
+     */
+    public byte[] get(String key) {
+        synchronized (memory) {
+            byte[] cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.increment();
+                return cached;
+            }
+        }
+
+        byte[] fromDisk = readFromDisk(key);
+        if (fromDisk != null) {
+            diskHits.increment();
+            putInMemory(key, fromDisk);
+            return fromDisk;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Presence check that neither reads the entry nor counts as a hit or miss.
+     */
+    public boolean contains(String key) {
+        synchronized (memory) {
+            if (memory.containsKey(key)) {
+                return true;
+            }
+        }
+        return diskDirectory != null && Files.exists(entryPath(key));
+    }
+
+    public void put(String key, byte[] value) {
+        if (value == null) {
+            return;
+        }
+        putInMemory(key, value);
+        writeToDisk(key, value);
+    }
+
+    public long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void putInMemory(String key, byte[] value) {
+        if (value.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, value);
+            memoryBytes += value.length - (previous != null ? previous.length : 0);
+
+            Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                Map.Entry<String, byte[]> entry = eldest.next();
+                memoryBytes -= entry.getValue().length;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private Path entryPath(String key) {
+        return diskDirectory.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path path = entryPath(key);
+        try {
+            byte[] data = Files.readAllBytes(path);
+            // Last-modified time doubles as the access time for LRU eviction
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read {} cache entry {}: {}", name, path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] value) {
+        if (diskDirectory == null || value.length > diskMaxBytes) {
+            return;
+        }
+        Path path = entryPath(key);
+        try {
+            if (Files.exists(path)) {
+                return;
+            }
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), key, ".tmp");
+            Files.write(temp, value);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (diskBytes.addAndGet(value.length) > diskMaxBytes) {
+                evictFromDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write {} cache entry {}: {}", name, path, e.getMessage());
+        }
+    }
+
+    private boolean initDiskTier() {
+        try {
+            Files.createDirectories(diskDirectory);
+            if (!Files.isWritable(diskDirectory)) {
+                throw new IOException("directory is not writable");
+            }
+            long total = listDiskEntries().stream().mapToLong(DiskEntry::size).sum();
+            diskBytes.set(total);
+            log.info("{} cache using {} ({} bytes on disk, limit {} bytes)", name, diskDirectory, total, diskMaxBytes);
+            if (total > diskMaxBytes) {
+                evictFromDisk();
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to initialize {} cache directory {}, caching in memory only: {}",
+                    name, diskDirectory, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete least recently used files until the disk tier is back under 90% of its limit.
+     */
+    private synchronized void evictFromDisk() {
+        long target = diskMaxBytes - diskMaxBytes / 10;
+        if (diskBytes.get() <= target) {
+            return;
+        }
+        try {
+            List<DiskEntry> entries = listDiskEntries();
+            entries.sort(Comparator.comparing(DiskEntry::lastModified));
+            long total = entries.stream().mapToLong(DiskEntry::size).sum();
+            for (DiskEntry entry : entries) {
+                if (total <= target) {
+                    break;
+                }
+                if (Files.deleteIfExists(entry.path())) {
+                    total -= entry.size();
+                    evictions.increment();
+                }
+            }
+            diskBytes.set(total);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to evict {} cache entries: {}", name, e.getMessage());
+        }
+    }
+
+    private List<DiskEntry> listDiskEntries() throws IOException {
+        List<DiskEntry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(diskDirectory, 2)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (!path.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(new DiskEntry(path, attributes.size(), attributes.lastModifiedTime()));
+                } catch (NoSuchFileException ignored) {
+                    // Deleted concurrently
+                }
+            }
+        }
+        return entries;
+    }
+
+    private record DiskEntry(Path path, long size, FileTime lastModified) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.gosu.iconpackgenerator.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP writer for export archives.
+ * <ul>
+ *     <li>members in already compressed formats (PNG, WebP, ICO, GIF, JPEG) are STORED with a precomputed CRC,
+ *     since deflating them costs CPU without making them smaller</li>
+ *     <li>everything else, such as SVG text, is DEFLATED and can be written straight into the entry stream</li>
+ * </ul>
+ * The underlying stream is finished but never closed.
+ */
+public class ExportZipWriter {
+
+    private static final Set<String> PRECOMPRESSED_EXTENSIONS = Set.of("png", "webp", "ico", "gif", "jpg", "jpeg");
+
+    /**
+     * Content written directly into a deflated entry.
+     */
+    @FunctionalInterface
+    public interface EntryContent {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private final ZipOutputStream zos;
+    private final OutputStream entryStream;
+    private final CRC32 crc = new CRC32();
+
+    public ExportZipWriter(OutputStream outputStream) {
+        this.zos = new ZipOutputStream(outputStream);
+        this.entryStream = new EntryStream(zos);
+    }
+
+    /**
+     * Add a member, STORED when its extension names an already compressed format and DEFLATED otherwise.
+     */
+    public void write(String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (isPrecompressed(name)) {
+            crc.reset();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zos.putNextEntry(entry);
+        zos.write(data);
+        zos.closeEntry();
+    }
+
+    /**
+     * Add a DEFLATED member whose content is written straight into the archive. Closing the stream handed to
+     * {@code content} only ends what was wrapped around it; the entry is closed here.
+     */
+    public void write(String name, EntryContent content) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        content.writeTo(entryStream);
+        zos.closeEntry();
+    }
+
+    public void flush() throws IOException {
+        zos.flush();
+    }
+
+    public void finish() throws IOException {
+        zos.finish();
+        zos.flush();
+    }
+
+    public static boolean isPrecompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && PRECOMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Forwards to the archive but ignores close, so encoders may close their wrappers (e.g. Base64) to flush them.
+     */
+    private static final class EntryStream extends OutputStream {
+        private final OutputStream target;
+
+        private EntryStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
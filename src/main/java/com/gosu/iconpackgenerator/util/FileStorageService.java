@@ -59,6 +59,14 @@ public class FileStorageService {
      * @return The full file path where the icon was saved
      */
     public String saveIcon(String userDirectoryPath, String requestId, String iconType, String fileName, String base64Data) {
+        return saveIcon(userDirectoryPath, requestId, iconType, fileName, Base64.getDecoder().decode(base64Data));
+    }
+
+    /**
+     * Save already encoded icon bytes to the file system
+     * @return The web path where the icon can be accessed
+     */
+    public String saveIcon(String userDirectoryPath, String requestId, String iconType, String fileName, byte[] imageBytes) {
         return saveIconInternal(
                 baseStoragePath,
                 USER_ICONS_PREFIX,
@@ -66,10 +74,14 @@ public class FileStorageService {
                 requestId,
                 iconType,
                 fileName,
-                base64Data);
+                imageBytes);
     }
 
     public String saveIconPrivate(String userDirectoryPath, String requestId, String iconType, String fileName, String base64Data) {
+        return saveIconPrivate(userDirectoryPath, requestId, iconType, fileName, Base64.getDecoder().decode(base64Data));
+    }
+
+    public String saveIconPrivate(String userDirectoryPath, String requestId, String iconType, String fileName, byte[] imageBytes) {
         return saveIconInternal(
                 privateIconStorageBasePath,
                 PRIVATE_ICONS_PREFIX,
@@ -77,11 +89,11 @@ public class FileStorageService {
                 requestId,
                 iconType,
                 fileName,
-                base64Data);
+                imageBytes);
     }
 
     private String saveIconInternal(String storageBasePath, String urlPrefix, String userDirectoryPath,
-                                    String requestId, String iconType, String fileName, String base64Data) {
+                                    String requestId, String iconType, String fileName, byte[] imageBytes) {
         try {
             Path directoryPath = Paths.get(storageBasePath, userDirectoryPath, requestId, iconType);
             if (!Files.exists(directoryPath)) {
@@ -90,7 +102,6 @@ public class FileStorageService {
             }
 
             Path filePath = directoryPath.resolve(fileName);
-            byte[] imageBytes = Base64.getDecoder().decode(base64Data);
             Files.write(filePath, imageBytes);
 
             log.debug("Saved icon to: {}", filePath.toAbsolutePath());
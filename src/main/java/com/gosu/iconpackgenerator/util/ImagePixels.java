@@ -0,0 +1,65 @@
+package com.gosu.iconpackgenerator.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Utility for bulk access to the ARGB pixels of a {@link BufferedImage}.
+ */
+public final class ImagePixels {
+
+    private ImagePixels() {
+    }
+
+    /**
+     * Read all pixels of the image as packed non-premultiplied ARGB values in row-major order.
+     * <p>
+     * For a {@code TYPE_INT_ARGB} image that owns its whole raster the backing array is returned directly,
+     * so writes to the returned array are visible in the image. Callers that do not own the image must
+     * treat the array as read-only.
+     */
+    public static int[] readArgb(BufferedImage image) {
+        if (hasPackedArgbRaster(image)) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Return the image itself if it is a {@code TYPE_INT_ARGB} image owning its whole raster, otherwise a
+     * {@code TYPE_INT_ARGB} copy with the same ARGB values as {@link BufferedImage#getRGB(int, int)} reports.
+     */
+    public static BufferedImage toPackedArgb(BufferedImage image) {
+        if (hasPackedArgbRaster(image)) {
+            return image;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage converted = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] target = ((DataBufferInt) converted.getRaster().getDataBuffer()).getData();
+        image.getRGB(0, 0, width, height, target, 0, width);
+        return converted;
+    }
+
+    private static boolean hasPackedArgbRaster(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            return false;
+        }
+
+        WritableRaster raster = image.getRaster();
+        return raster.getDataBuffer() instanceof DataBufferInt dataBuffer
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+                && dataBuffer.getNumBanks() == 1
+                && dataBuffer.getOffset() == 0
+                && raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0
+                && sampleModel.getScanlineStride() == image.getWidth()
+                && dataBuffer.getSize() == image.getWidth() * image.getHeight();
+    }
+}
@@ -0,0 +1,69 @@
+package com.gosu.iconpackgenerator.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Publishes the per-phase timings of the image-processing pipelines as Micrometer timers.
+ * <ul>
+ *     <li>{@code image.processing.phase} - one timer per asset type, model service and phase</li>
+ *     <li>{@code image.processing.total} - whole crop/process call per asset type and model service</li>
+ * </ul>
+ * Both publish percentile histograms so p95/p99 can be derived by the monitoring backend.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageProcessingMetrics {
+
+    public static final String UNKNOWN_MODEL_SERVICE = "unknown";
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofMinutes(2);
+
+    public enum AssetType {
+        ICON,
+        ILLUSTRATION,
+        MOCKUP,
+        LABEL;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public void recordPhase(AssetType assetType, String modelService, String phase, long durationMs) {
+        Timer.builder("image.processing.phase")
+                .description("Duration of a single image-processing phase")
+                .tag("asset", assetType.tag())
+                .tag("model", modelServiceTag(modelService))
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(durationMs));
+    }
+
+    public void recordTotal(AssetType assetType, String modelService, long durationMs) {
+        Timer.builder("image.processing.total")
+                .description("Duration of a whole image-processing call")
+                .tag("asset", assetType.tag())
+                .tag("model", modelServiceTag(modelService))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(durationMs));
+    }
+
+    private static String modelServiceTag(String modelService) {
+        return modelService == null || modelService.isBlank() ? UNKNOWN_MODEL_SERVICE : modelService;
+    }
+}
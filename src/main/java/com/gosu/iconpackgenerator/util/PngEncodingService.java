@@ -0,0 +1,114 @@
+package com.gosu.iconpackgenerator.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+
+/**
+ * Shared PNG encoder. Each thread keeps its own {@link ImageWriter} instead of looking one up per image,
+ * streams are memory-backed (ImageIO's disk cache is disabled), and the deflate level comes from a preset.
+ */
+@Service
+public class PngEncodingService {
+
+    /**
+     * Encoding presets.
+     * <ul>
+     *     <li>{@link #FAST} - low deflate level for icons streamed to the client during generation; they are
+     *     re-encoded with {@link #SMALL} before being stored</li>
+     *     <li>{@link #SMALL} - high deflate level for exports and persisted files</li>
+     * </ul>
+     */
+    public enum Preset {
+        FAST,
+        SMALL
+    }
+
+    private static final ThreadLocal<ImageWriter> WRITERS = new ThreadLocal<>();
+
+    @Value("${image-encoding.png.fast-compression-level:1}")
+    private int fastCompressionLevel = 1;
+
+    @Value("${image-encoding.png.small-compression-level:6}")
+    private int smallCompressionLevel = 6;
+
+    public PngEncodingService() {
+        // All encoding targets are in-memory byte arrays; temp files only add latency
+        ImageIO.setUseCache(false);
+    }
+
+    public byte[] encode(BufferedImage image, Preset preset) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(image.getWidth() * image.getHeight());
+        ImageWriter writer = borrowWriter();
+        boolean written = false;
+        try (ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), writeParam(writer, preset));
+            written = true;
+        } finally {
+            writer.setOutput(null);
+            if (!written) {
+                // Do not hand a writer in an unknown state to the next caller on this thread
+                WRITERS.remove();
+                writer.dispose();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Re-encode a PNG with another preset, e.g. to store an icon that was encoded for the live preview.
+     *
+     * @return the smaller of the re-encoded and the original bytes, or the original if it cannot be decoded
+     */
+    public byte[] reencode(byte[] png, Preset preset) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            return png;
+        }
+        byte[] reencoded = encode(image, preset);
+        return reencoded.length < png.length ? reencoded : png;
+    }
+
+    public String encodeToBase64(BufferedImage image, Preset preset) throws IOException {
+        return Base64.getEncoder().encodeToString(encode(image, preset));
+    }
+
+    int compressionLevel(Preset preset) {
+        int level = preset == Preset.SMALL ? smallCompressionLevel : fastCompressionLevel;
+        return Math.max(0, Math.min(9, level));
+    }
+
+    private ImageWriteParam writeParam(ImageWriter writer, Preset preset) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        // The JDK PNG writer maps quality q to deflate level 9 - round(9 * q)
+        param.setCompressionQuality((9 - compressionLevel(preset)) / 9f);
+        return param;
+    }
+
+    private static ImageWriter borrowWriter() {
+        ImageWriter writer = WRITERS.get();
+        if (writer == null) {
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+            if (!writers.hasNext()) {
+                throw new IllegalStateException("No PNG ImageWriter available");
+            }
+            writer = writers.next();
+            WRITERS.set(writer);
+        }
+        return writer;
+    }
+}
@@ -1,5 +1,7 @@
 package com.gosu.iconpackgenerator.util;
 
+import com.gosu.iconpackgenerator.domain.icons.model.IconData;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -16,10 +18,10 @@ import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.util.Base64;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class WatermarkService {
 
@@ -27,16 +29,39 @@ public class WatermarkService {
     private static final float WATERMARK_ALPHA = 0.55f;
     private static final double WATERMARK_ANGLE_DEGREES = -25.0;
 
+    private final PngEncodingService pngEncodingService;
+
     public String applyTrialWatermark(String base64Data) {
         if (base64Data == null || base64Data.isBlank()) {
             return base64Data;
         }
 
+        byte[] imageBytes = Base64.getDecoder().decode(base64Data);
+        byte[] watermarked = applyTrialWatermark(imageBytes);
+        return watermarked == imageBytes ? base64Data : Base64.getEncoder().encodeToString(watermarked);
+    }
+
+    public IconData applyTrialWatermark(IconData iconData) {
+        if (iconData == null || !iconData.hasBytes()) {
+            return iconData;
+        }
+
+        byte[] watermarked = applyTrialWatermark(iconData.getBytes());
+        return watermarked == iconData.getBytes() ? iconData : IconData.ofBytes(watermarked);
+    }
+
+    /**
+     * @return the watermarked PNG, or the input unchanged if it cannot be decoded or watermarked
+     */
+    public byte[] applyTrialWatermark(byte[] imageBytes) {
+        if (imageBytes == null || imageBytes.length == 0) {
+            return imageBytes;
+        }
+
         try {
-            byte[] imageBytes = Base64.getDecoder().decode(base64Data);
             BufferedImage original = ImageIO.read(new ByteArrayInputStream(imageBytes));
             if (original == null) {
-                return base64Data;
+                return imageBytes;
             }
 
             BufferedImage watermarked = new BufferedImage(
@@ -76,12 +101,11 @@ public class WatermarkService {
             graphics.fill(textOutline);
             graphics.dispose();
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ImageIO.write(watermarked, "png", outputStream);
-            return Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            // Watermarked icons are only produced to be persisted
+            return pngEncodingService.encode(watermarked, PngEncodingService.Preset.SMALL);
         } catch (Exception e) {
             log.warn("Failed to apply trial watermark", e);
-            return base64Data;
+            return imageBytes;
         }
     }
 }
@@ -0,0 +1,66 @@
+#!/usr/bin/env python3
+"""Long-lived rembg worker used by RembgWorkerPool.
+
+Loads the rembg model once and then serves background-removal requests over stdin/stdout.
+
+Framing:
+  request  = 4-byte big-endian length + image bytes (length 0 is a ping)
+  response = 1-byte status (0 = ok, 1 = error) + 4-byte big-endian length + payload
+             (PNG bytes on success, UTF-8 error message on failure)
+
+An empty ok response is written once the model is loaded, so the pool knows the worker is ready.
+Diagnostics go to stderr; stdout carries only protocol frames.
+"""
+import struct
+import sys
+
+
+def read_exact(stream, size):
+    data = bytearray()
+    while len(data) < size:
+        chunk = stream.read(size - len(data))
+        if not chunk:
+            return None
+        data.extend(chunk)
+    return bytes(data)
+
+
+def write_frame(stream, status, payload):
+    stream.write(struct.pack(">BI", status, len(payload)))
+    stream.write(payload)
+    stream.flush()
+
+
+def main():
+    model = sys.argv[1] if len(sys.argv) > 1 else "u2net"
+
+    from rembg import new_session, remove
+
+    session = new_session(model)
+    stdin = sys.stdin.buffer
+    stdout = sys.stdout.buffer
+
+    print(f"rembg worker ready with model {model}", file=sys.stderr, flush=True)
+    write_frame(stdout, 0, b"")
+
+    while True:
+        header = read_exact(stdin, 4)
+        if header is None:
+            return
+        (length,) = struct.unpack(">I", header)
+        if length == 0:
+            write_frame(stdout, 0, b"")
+            continue
+
+        data = read_exact(stdin, length)
+        if data is None:
+            return
+
+        try:
+            write_frame(stdout, 0, remove(data, session=session))
+        except Exception as e:  # report and keep serving
+            write_frame(stdout, 1, str(e).encode("utf-8", "replace"))
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,62 @@
+package com.gosu.iconpackgenerator.config
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.TimeUnit
+
+class ExecutorConfigSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    ExecutorService aiModelExecutor = new ExecutorConfig().aiModelExecutor(meterRegistry)
+
+    def cleanup() {
+        aiModelExecutor.shutdownNow()
+    }
+
+    def "AI model calls each run on their own virtual thread and are counted while in flight"() {
+        given:
+        CountDownLatch started = new CountDownLatch(3)
+        CountDownLatch release = new CountDownLatch(1)
+
+        when:
+        List<CompletableFuture<Thread>> calls = (1..3).collect {
+            CompletableFuture.supplyAsync({
+                started.countDown()
+                release.await()
+                Thread.currentThread()
+            }, aiModelExecutor)
+        }
+
+        then:
+        started.await(5, TimeUnit.SECONDS)
+        activeCalls() == 3
+
+        when:
+        release.countDown()
+        List<Thread> threads = calls*.get(5, TimeUnit.SECONDS)
+
+        then:
+        threads.every { it.virtual && it.name.startsWith("ai-model-") }
+        threads.toSet().size() == 3
+
+        and: "the gauge drops and the timer counts the calls once the threads finish"
+        waitUntil { activeCalls() == 0 && meterRegistry.get("executor").tag("name", "ai-model").timer().count() == 3 }
+    }
+
+    private double activeCalls() {
+        return meterRegistry.get("executor.active").tag("name", "ai-model").gauge().value()
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < deadline
+            Thread.sleep(10)
+        }
+    }
+}
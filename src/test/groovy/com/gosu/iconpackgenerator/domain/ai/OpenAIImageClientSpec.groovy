@@ -0,0 +1,194 @@
+package com.gosu.iconpackgenerator.domain.ai
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.gosu.iconpackgenerator.config.OpenAIConfig
+import com.gosu.iconpackgenerator.config.ProviderBulkheadConfig
+import com.gosu.iconpackgenerator.exception.FalAiException
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.web.client.HttpClientErrorException
+import org.springframework.web.client.HttpServerErrorException
+import spock.lang.Specification
+
+import java.net.http.HttpClient
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class OpenAIImageClientSpec extends Specification {
+
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+
+    HttpClient httpClient = HttpClient.newHttpClient()
+
+    OpenAIConfig config = new OpenAIConfig(apiKey: "sk-test", readTimeoutMs: 5000)
+
+    ProviderBulkheads bulkheads = new ProviderBulkheads(new ProviderBulkheadConfig(), new SimpleMeterRegistry())
+
+    OpenAIImageClient client
+
+    List<Map<String, Object>> requests = new CopyOnWriteArrayList<>()
+
+    CountDownLatch stalled = new CountDownLatch(1)
+
+    def setup() {
+        client = new OpenAIImageClient(httpClient, config, new ObjectMapper(), bulkheads)
+        server.start()
+    }
+
+    def cleanup() {
+        stalled.countDown()
+        server.stop(0)
+        httpClient.close()
+    }
+
+    def "a JSON request carries the API key and completes with the decoded image"() {
+        given:
+        respond("/v1/images/generations", 200, '{"data":[{"b64_json":"aGk="}]}')
+
+        when:
+        OpenAIImageClient.ImageResponse response = client.postJson(url("/v1/images/generations"), [model: "gpt-image-1", n: 1])
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        new String(response.imageData()) == "hi"
+        response.imageUrl() == null
+        requests[0].authorization == "Bearer sk-test"
+        requests[0].contentType == "application/json"
+        new ObjectMapper().readTree(requests[0].body as byte[]) == new ObjectMapper().valueToTree([model: "gpt-image-1", n: 1])
+    }
+
+    def "a multipart form sends fields and the file unchanged"() {
+        given:
+        respond("/v1/images/edits", 200, '{"data":[]}')
+        byte[] image = [0x89, 0x50, 0x4e, 0x47, 0x00, 0x0d, 0x0a] as byte[]
+
+        when:
+        client.postMultipart(url("/v1/images/edits"), new OpenAIImageClient.MultipartForm()
+                .file("image", "image.png", "image/png", image)
+                .field("model", "gpt-image-1")
+                .field("n", 1))
+                .get(5, TimeUnit.SECONDS)
+
+        then:
+        String contentType = requests[0].contentType
+        contentType.startsWith("multipart/form-data; boundary=")
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length())
+        String body = new String(requests[0].body as byte[], StandardCharsets.ISO_8859_1)
+        body.contains("Content-Disposition: form-data; name=\"image\"; filename=\"image.png\"\r\nContent-Type: image/png\r\n\r\n"
+                + new String(image, StandardCharsets.ISO_8859_1) + "\r\n--" + boundary)
+        body.contains("Content-Disposition: form-data; name=\"model\"\r\n\r\ngpt-image-1\r\n")
+        body.contains("Content-Disposition: form-data; name=\"n\"\r\n\r\n1\r\n")
+        body.endsWith("--" + boundary + "--\r\n")
+    }
+
+    def "a large base64 image is decoded from the stream while other fields are skipped"() {
+        given:
+        byte[] image = new byte[3 * 1024 * 1024 + 1]
+        new Random(11).nextBytes(image)
+        respond("/v1/images/generations", 200, '{"created":1713833628,"background":"transparent","data":[{"revised_prompt":null,"b64_json":"'
+                + Base64.encoder.encodeToString(image) + '"},{"b64_json":"c2Vjb25k"}],"usage":{"input_tokens_details":{"text_tokens":10},"total_tokens":100}}')
+
+        when:
+        OpenAIImageClient.ImageResponse response = client.postJson(url("/v1/images/generations"), [:]).get(5, TimeUnit.SECONDS)
+
+        then:
+        response.imageData() == image
+    }
+
+    def "a URL image is returned for the caller to download"() {
+        given:
+        respond("/v1/images/generations", 200, '{"data":[{"url":"https://example.com/image.png"}]}')
+
+        expect:
+        client.postJson(url("/v1/images/generations"), [:]).get(5, TimeUnit.SECONDS).imageUrl() == "https://example.com/image.png"
+    }
+
+    def "a response without an image fails the future"() {
+        given:
+        respond("/v1/images/generations", 200, body)
+
+        when:
+        client.postJson(url("/v1/images/generations"), [:]).join()
+
+        then:
+        CompletionException e = thrown()
+        OpenAIImageClient.unwrap(e) instanceof FalAiException
+        OpenAIImageClient.unwrap(e).message == message
+
+        where:
+        body                          | message
+        ''                            | "Empty response from OpenAI API"
+        '{"data":[]}'                 | "Invalid response format from OpenAI API - no image data found"
+        '{"data":[{"b64_json":""}]}'  | "Invalid response format from OpenAI API - no image data found"
+    }
+
+    def "error statuses fail the future with the status in the message"() {
+        given:
+        respond("/v1/images/generations", status, '{"error":{"message":"nope"}}')
+
+        when:
+        client.postJson(url("/v1/images/generations"), [:]).join()
+
+        then:
+        CompletionException e = thrown()
+        exceptionType.isInstance(OpenAIImageClient.unwrap(e))
+        OpenAIImageClient.unwrap(e).message.startsWith(messagePrefix)
+
+        where:
+        status | exceptionType             | messagePrefix
+        422    | HttpClientErrorException  | "422 Unprocessable Entity"
+        503    | HttpServerErrorException  | "503 Service Unavailable"
+    }
+
+    def "a response body that stalls times out and frees the bulkhead slot"() {
+        given:
+        config.readTimeoutMs = 300
+        server.createContext("/v1/images/generations") { HttpExchange exchange ->
+            exchange.requestBody.readAllBytes()
+            exchange.sendResponseHeaders(200, 1024)
+            exchange.responseBody.write('{"data":[{"b64_json":"'.getBytes(StandardCharsets.UTF_8))
+            exchange.responseBody.flush()
+            stalled.await()
+            exchange.close()
+        }
+
+        when:
+        client.postJson(url("/v1/images/generations"), [:]).get(5, TimeUnit.SECONDS)
+
+        then:
+        ExecutionException e = thrown()
+        e.cause instanceof TimeoutException
+        bulkheads.get(ProviderBulkheads.OPENAI).inFlight() == 0
+    }
+
+    def "downloads return the raw bytes"() {
+        given:
+        respond("/image.png", 200, "png-bytes")
+
+        expect:
+        new String(client.download(url("/image.png")).get(5, TimeUnit.SECONDS)) == "png-bytes"
+    }
+
+    private void respond(String path, int status, String body) {
+        server.createContext(path) { HttpExchange exchange ->
+            requests << [
+                    authorization: exchange.requestHeaders.getFirst("Authorization"),
+                    contentType  : exchange.requestHeaders.getFirst("Content-Type"),
+                    body         : exchange.requestBody.readAllBytes()
+            ]
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8)
+            exchange.sendResponseHeaders(status, bytes.length)
+            exchange.responseBody.withCloseable { it.write(bytes) }
+        }
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:${server.address.port}${path}"
+    }
+}
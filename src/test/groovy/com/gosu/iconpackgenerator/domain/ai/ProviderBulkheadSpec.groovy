@@ -0,0 +1,144 @@
+package com.gosu.iconpackgenerator.domain.ai
+
+import com.gosu.iconpackgenerator.config.ProviderBulkheadConfig
+import com.gosu.iconpackgenerator.exception.ProviderBusyException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.http.HttpStatus
+import org.springframework.web.client.HttpClientErrorException
+import org.springframework.web.client.HttpServerErrorException
+import spock.lang.Specification
+
+import java.net.http.HttpTimeoutException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ProviderBulkheadSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    ProviderBulkheadConfig.Settings settings = new ProviderBulkheadConfig.Settings(
+            initialLimit: 2, minLimit: 1, maxLimit: 4, maxQueue: 2, maxWaitMs: 0, backoffRatio: 0.5)
+
+    def "calls over the limit wait in order and are told their queue position"() {
+        given:
+        ProviderBulkhead bulkhead = bulkhead()
+        List<String> positions = new CopyOnWriteArrayList<>()
+        ProviderBulkhead.Permit first = bulkhead.acquire(null).join()
+        bulkhead.acquire(null).join()
+
+        when:
+        CompletableFuture<ProviderBulkhead.Permit> waiting = bulkhead.acquire({ provider, position -> positions << "a:$position" })
+        CompletableFuture<ProviderBulkhead.Permit> behind = bulkhead.acquire({ provider, position -> positions << "b:$position" })
+
+        then:
+        !waiting.done
+        bulkhead.queued() == 2
+        positions == ["a:1", "b:2"]
+
+        when:
+        first.release(null)
+
+        then: "the head of the queue runs and the next call moves up"
+        waiting.done
+        !behind.done
+        positions == ["a:1", "b:2", "a:0", "b:1"]
+        bulkhead.inFlight() == 2
+        gauge("ai.bulkhead.queued") == 1
+    }
+
+    def "a full queue turns calls away without waiting"() {
+        given:
+        ProviderBulkhead bulkhead = bulkhead()
+        4.times { bulkhead.acquire(null) }
+
+        when:
+        bulkhead.acquire(null).join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause instanceof ProviderBusyException
+        e.cause.message.contains("queue is full")
+        meterRegistry.get("ai.bulkhead.rejected").tag("reason", "queue_full").counter().count() == 1
+    }
+
+    def "an overload cuts the limit once and successes raise it again"() {
+        given:
+        ProviderBulkhead bulkhead = bulkhead()
+        ProviderBulkhead.Permit first = bulkhead.acquire(null).join()
+        ProviderBulkhead.Permit second = bulkhead.acquire(null).join()
+
+        when:
+        first.release(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+        second.release(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS))
+
+        then: "the second failure belongs to the same congestion"
+        bulkhead.limit() == 1
+        gauge("ai.bulkhead.limit") == 1
+
+        when:
+        bulkhead.acquire(null).join().release(null)
+
+        then:
+        bulkhead.limit() == 2
+    }
+
+    def "failures that are not overload leave the limit alone"() {
+        given:
+        ProviderBulkhead bulkhead = bulkhead()
+
+        when:
+        bulkhead.acquire(null).join().release(new HttpClientErrorException(HttpStatus.UNPROCESSABLE_ENTITY))
+
+        then:
+        bulkhead.limit() == 2
+        bulkhead.inFlight() == 0
+    }
+
+    def "a call that waits too long fails and leaves the queue"() {
+        given:
+        settings.maxWaitMs = 50
+        ProviderBulkhead bulkhead = bulkhead()
+        2.times { bulkhead.acquire(null).join() }
+
+        when:
+        bulkhead.acquire(null).join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause instanceof ProviderBusyException
+        e.cause.message.contains("timed out")
+        waitUntil { bulkhead.queued() == 0 }
+    }
+
+    def "overload is told apart from other failures"() {
+        expect:
+        ProviderBulkheads.isOverload(error) == overload
+
+        where:
+        error                                                                           | overload
+        new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)                      | true
+        new HttpServerErrorException(HttpStatus.BAD_GATEWAY)                            | true
+        new CompletionException(new HttpTimeoutException("request timed out"))          | true
+        new RuntimeException("Request failed with code: 503")                           | true
+        new HttpClientErrorException(HttpStatus.UNPROCESSABLE_ENTITY)                   | false
+        new ProviderBusyException("Rate limit: openai queue is full")                   | false
+        new IllegalStateException("No image data found in response")                   | false
+    }
+
+    private ProviderBulkhead bulkhead() {
+        return new ProviderBulkhead("openai", settings, ProviderBulkheads::isOverload, meterRegistry)
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("provider", "openai").gauge().value()
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < deadline
+            Thread.sleep(10)
+        }
+    }
+}
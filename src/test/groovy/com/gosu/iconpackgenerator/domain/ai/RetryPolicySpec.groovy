@@ -0,0 +1,205 @@
+package com.gosu.iconpackgenerator.domain.ai
+
+import com.gosu.iconpackgenerator.config.ProviderBulkheadConfig
+import com.gosu.iconpackgenerator.config.RetryPolicyConfig
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+
+class RetryPolicySpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ScheduledExecutorService schedulingExecutor = Executors.newScheduledThreadPool(2)
+    ExecutorService aiModelExecutor = Executors.newVirtualThreadPerTaskExecutor()
+    ProviderBulkheads providerBulkheads = new ProviderBulkheads(new ProviderBulkheadConfig(), meterRegistry)
+
+    RetryPolicyConfig config = new RetryPolicyConfig(
+            maxAttempts: 3,
+            initialBackoffMs: 10,
+            maxBackoffMs: 50,
+            deadlineMs: 5000,
+            hedge: new RetryPolicyConfig.Hedge(minDelayMs: 50, minSamples: 3, latencyWindow: 10))
+
+    def cleanup() {
+        schedulingExecutor.shutdownNow()
+        aiModelExecutor.shutdownNow()
+    }
+
+    def "a temporary failure is retried until a request succeeds"() {
+        given:
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        String result = policy().execute("openai", null, {
+            requests.incrementAndGet() < 3
+                    ? CompletableFuture.failedFuture(new RuntimeException("503 Service Unavailable"))
+                    : CompletableFuture.completedFuture("image")
+        }, RetryPolicy::isTemporaryFailure).get(5, TimeUnit.SECONDS)
+
+        then:
+        result == "image"
+        requests.get() == 3
+        attempts("retry") == 2
+    }
+
+    def "a failure that is not retriable is returned at once"() {
+        given:
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        policy().execute("openai", null, {
+            requests.incrementAndGet()
+            CompletableFuture.failedFuture(new RuntimeException("422 Unprocessable Entity"))
+        }, RetryPolicy::isTemporaryFailure).join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause.message.contains("422")
+        requests.get() == 1
+    }
+
+    def "no more than max-attempts requests are sent"() {
+        given:
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        policy().execute("openai", null, {
+            requests.incrementAndGet()
+            CompletableFuture.failedFuture(new RuntimeException("Connection reset"))
+        }, RetryPolicy::isTemporaryFailure).join()
+
+        then:
+        thrown(CompletionException)
+        requests.get() == 3
+    }
+
+    def "the call fails with a timeout once the deadline passes"() {
+        given:
+        config.deadlineMs = 100
+
+        when:
+        policy().execute("openai", null, { new CompletableFuture<String>() }, { true }).join()
+
+        then:
+        CompletionException e = thrown()
+        e.cause instanceof TimeoutException
+        RetryPolicy.isTemporaryFailure(e.cause)
+        meterRegistry.get("ai.retry.deadline_exceeded").counter().count() == 1
+    }
+
+    def "a request slower than the observed p95 gets a hedged copy and the faster one wins"() {
+        given:
+        RetryPolicy policy = policy()
+        3.times { policy.execute("openai", null, { delayed("warmup", 10) }, { false }).join() }
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        String result = policy.execute("openai", "42", {
+            requests.incrementAndGet() == 1 ? delayed("slow", 2000) : delayed("hedge", 10)
+        }, { false }).get(1, TimeUnit.SECONDS)
+
+        then:
+        result == "hedge"
+        requests.get() == 2
+        attempts("hedge") == 1
+        meterRegistry.get("ai.retry.hedge_wins").counter().count() == 1
+    }
+
+    def "hedges are not sent without budget"() {
+        given:
+        config.hedge.maxBudget = 0
+        RetryPolicy policy = policy()
+        3.times { policy.execute("openai", null, { delayed("warmup", 10) }, { false }).join() }
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        String result = policy.execute("openai", "42", {
+            requests.incrementAndGet()
+            delayed("slow", 200)
+        }, { false }).get(1, TimeUnit.SECONDS)
+
+        then:
+        result == "slow"
+        requests.get() == 1
+        meterRegistry.get("ai.retry.hedges_skipped").counter().count() == 1
+    }
+
+    def "a call without a user is never hedged"() {
+        given:
+        RetryPolicy policy = policy()
+        3.times { policy.execute("openai", null, { delayed("warmup", 10) }, { false }).join() }
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        String result = policy.execute("openai", null, {
+            requests.incrementAndGet()
+            delayed("slow", 200)
+        }, { false }).get(1, TimeUnit.SECONDS)
+
+        then:
+        result == "slow"
+        requests.get() == 1
+        attempts("hedge") == 0
+        meterRegistry.get("ai.retry.hedges_skipped").counter().count() == 1
+    }
+
+    def "the losing request is cancelled and gives back its bulkhead slot once the hedge wins"() {
+        given:
+        RetryPolicy policy = policy()
+        3.times { policy.execute("openai", "42", { delayed("warmup", 10) }, { false }).join() }
+        CompletableFuture<String> slow = new CompletableFuture<>()
+        AtomicInteger requests = new AtomicInteger()
+
+        when:
+        String result = policy.execute("openai", "42", {
+            providerBulkheads.execute("openai", { requests.incrementAndGet() == 1 ? slow : delayed("hedge", 10) })
+        }, { false }).get(1, TimeUnit.SECONDS)
+
+        then:
+        result == "hedge"
+        waitUntil { slow.cancelled }
+        waitUntil { providerBulkheads.get("openai").inFlight() == 0 }
+    }
+
+    def "temporary failures are told apart from final ones"() {
+        expect:
+        RetryPolicy.isTemporaryFailure(error) == temporary
+
+        where:
+        error                                                          | temporary
+        new RuntimeException("Request timed out: timeout after 300s")  | true
+        new RuntimeException("502 Bad Gateway")                        | true
+        new RuntimeException("HTTP/2 stream was reset")                | true
+        new RuntimeException("422 Unprocessable Entity")               | false
+        new RuntimeException((String) null)                            | false
+    }
+
+    private RetryPolicy policy() {
+        return new RetryPolicy(config, providerBulkheads, schedulingExecutor, aiModelExecutor, meterRegistry)
+    }
+
+    private CompletableFuture<String> delayed(String value, long delayMs) {
+        return CompletableFuture.supplyAsync({ value },
+                CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS, aiModelExecutor))
+    }
+
+    private double attempts(String kind) {
+        return meterRegistry.get("ai.retry.attempts").tag("provider", "openai").tag("kind", kind).counter().count()
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < deadline
+            Thread.sleep(10)
+        }
+    }
+}
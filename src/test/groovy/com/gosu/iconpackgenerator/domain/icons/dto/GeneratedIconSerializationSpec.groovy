@@ -0,0 +1,81 @@
+package com.gosu.iconpackgenerator.domain.icons.dto
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.gosu.iconpackgenerator.domain.icons.model.IconData
+import spock.lang.Specification
+
+class GeneratedIconSerializationSpec extends Specification {
+
+    ObjectMapper objectMapper = new ObjectMapper()
+
+    byte[] pngBytes = [(byte) 0x89, (byte) 0x50, (byte) 0x4E, (byte) 0x47, 1, 2, 3] as byte[]
+
+    def "binary icon data is serialized only as base64Data"() {
+        given:
+        def icon = new IconGenerationResponse.GeneratedIcon()
+        icon.id = "icon-1"
+        icon.data = IconData.ofBytes(pngBytes).withStorageReference("/user-icons/u/r/icon-1.png")
+
+        when:
+        Map json = objectMapper.readValue(objectMapper.writeValueAsString(icon), Map)
+
+        then:
+        json.base64Data == Base64.encoder.encodeToString(pngBytes)
+        !json.containsKey("data")
+        !json.containsKey("imageData")
+    }
+
+    def "base64Data from JSON is decoded into binary icon data"() {
+        given:
+        String body = objectMapper.writeValueAsString([id: "icon-1", base64Data: Base64.encoder.encodeToString(pngBytes)])
+
+        when:
+        def icon = objectMapper.readValue(body, IconGenerationResponse.GeneratedIcon)
+
+        then:
+        icon.hasImageData()
+        icon.data.bytes == pngBytes
+    }
+
+    def "a publicly served icon is sent by URL unless the client asked for inline data"() {
+        given:
+        def icon = new IconGenerationResponse.GeneratedIcon()
+        icon.id = "icon-1"
+        icon.data = IconData.ofBytes(pngBytes).withPublicUrl("/user-icons/u/r/icon-1.png")
+        def response = new IconGenerationResponse(icons: [icon])
+
+        when:
+        Map byUrl = objectMapper.readValue(objectMapper.writeValueAsString(icon), Map)
+        response.includeInlineImageData()
+        Map inline = objectMapper.readValue(objectMapper.writeValueAsString(icon), Map)
+
+        then:
+        byUrl.imageUrl == "/user-icons/u/r/icon-1.png"
+        !byUrl.containsKey("base64Data")
+        inline.imageUrl == "/user-icons/u/r/icon-1.png"
+        inline.base64Data == Base64.encoder.encodeToString(pngBytes)
+    }
+
+    def "a privately stored icon is still sent inline"() {
+        given:
+        def icon = new IconGenerationResponse.GeneratedIcon()
+        icon.data = IconData.ofBytes(pngBytes).withStorageReference("/private-icons/u/r/icon-1.png")
+
+        when:
+        Map json = objectMapper.readValue(objectMapper.writeValueAsString(icon), Map)
+
+        then:
+        json.base64Data == Base64.encoder.encodeToString(pngBytes)
+        !json.containsKey("imageUrl")
+    }
+
+    def "storage-only handle has no inline image"() {
+        given:
+        def icon = new IconGenerationResponse.GeneratedIcon()
+        icon.data = IconData.ofStorageReference("/user-icons/u/r/icon-1.png")
+
+        expect:
+        !icon.hasImageData()
+        icon.base64Data == null
+    }
+}
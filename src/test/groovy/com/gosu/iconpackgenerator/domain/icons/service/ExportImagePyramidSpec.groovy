@@ -0,0 +1,66 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import spock.lang.Specification
+
+import java.awt.Color
+import java.awt.Graphics2D
+import java.awt.image.BufferedImage
+import java.nio.file.Files
+import java.nio.file.Paths
+
+class ExportImagePyramidSpec extends Specification {
+
+    def "builds every requested size from one decode"() {
+        given:
+        byte[] imageData = Files.readAllBytes(Paths.get("src/test/resources/icons/gpt_000cee81_1.png"))
+
+        when:
+        ExportImagePyramid pyramid = ExportImagePyramid.decode(imageData, [512, 32, 48, 256, 64, 128] as int[])
+
+        then:
+        [32, 48, 64, 128, 256, 512].every { int size ->
+            BufferedImage level = pyramid.level(size)
+            level.width == size && level.height == size
+        }
+        pyramid.sourceWidth > 0
+        pyramid.sourceHeight > 0
+    }
+
+    def "sizes that were not requested are rejected"() {
+        given:
+        ExportImagePyramid pyramid = ExportImagePyramid.of(solidImage(256, Color.RED), [64] as int[])
+
+        when:
+        pyramid.level(32)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "unreadable data yields no pyramid"() {
+        expect:
+        ExportImagePyramid.decode("not an image".bytes, [32] as int[]) == null
+    }
+
+    def "sizes larger than the source are scaled up from the source"() {
+        when:
+        ExportImagePyramid pyramid = ExportImagePyramid.of(solidImage(100, Color.BLUE), [32, 200] as int[])
+
+        then:
+        pyramid.level(200).width == 200
+        pyramid.level(32).width == 32
+        new Color(pyramid.level(32).getRGB(16, 16), true) == Color.BLUE
+    }
+
+    private static BufferedImage solidImage(int size, Color color) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB)
+        Graphics2D graphics = image.createGraphics()
+        try {
+            graphics.setColor(color)
+            graphics.fillRect(0, 0, size, size)
+        } finally {
+            graphics.dispose()
+        }
+        return image
+    }
+}
@@ -0,0 +1,158 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import com.gosu.iconpackgenerator.domain.icons.dto.ExportJobProgressUpdate
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class ExportJobServiceSpec extends Specification {
+
+    private static final Long USER_ID = 7L
+
+    @TempDir
+    Path jobsDir
+
+    ExecutorService executor = Executors.newFixedThreadPool(2)
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    ExportJobService service = new ExportJobService(Mock(IconExportService), executor, meterRegistry)
+
+    Runnable refund = Mock()
+
+    List<ExportJobProgressUpdate> updates = new CopyOnWriteArrayList<>()
+
+    CountDownLatch finished = new CountDownLatch(1)
+
+    def setup() {
+        service.jobsDirectory = jobsDir.toString()
+        service.init()
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "a job reports every icon and leaves the finished archive for its owner"() {
+        when:
+        ExportJobProgressUpdate queued = service.submit(USER_ID, "icons.zip", "application/zip", 3, { out, progress ->
+            (1..3).each { index ->
+                out.write("icon-$index;".bytes)
+                progress.onIconExported(index, 3)
+            }
+        }, refund, this.&collect)
+        awaitFinished()
+
+        then:
+        0 * refund.run()
+        queued.status == "queued"
+        updates*.status == ["in_progress", "in_progress", "in_progress", "in_progress", "completed"]
+        updates.findAll { it.status == "in_progress" }*.completedIcons == [0, 1, 2, 3]
+
+        and:
+        ExportJobProgressUpdate completed = updates.last()
+        completed.downloadUrl == "/api/export-jobs/${queued.jobId}/download"
+        completed.sizeBytes == "icon-1;icon-2;icon-3;".length()
+        service.getStatus(queued.jobId, USER_ID).get() == completed
+
+        and:
+        ExportJobService.ExportArtifact artifact = service.getArtifact(queued.jobId, USER_ID).get()
+        artifact.fileName() == "icons.zip"
+        new String(Files.readAllBytes(artifact.file())) == "icon-1;icon-2;icon-3;"
+
+        and: "other users cannot see the job"
+        service.getStatus(queued.jobId, 8L).isEmpty()
+        service.getArtifact(queued.jobId, 8L).isEmpty()
+    }
+
+    def "a job directory that cannot be created disables background exports instead of failing startup"() {
+        given:
+        Path blocker = Files.write(jobsDir.resolve("not-a-directory"), [1] as byte[])
+        ExportJobService disabled = new ExportJobService(Mock(IconExportService), executor, new SimpleMeterRegistry())
+        disabled.jobsDirectory = blocker.resolve("jobs").toString()
+
+        when:
+        disabled.init()
+
+        then:
+        !disabled.enabled
+
+        when:
+        disabled.submit(USER_ID, "icons.zip", "application/zip", 1, { out, progress -> }, refund, this.&collect)
+
+        then:
+        thrown(RejectedExecutionException)
+        updates.isEmpty()
+    }
+
+    def "a failed job reports an error, refunds the user and keeps no partial file"() {
+        when:
+        ExportJobProgressUpdate queued = service.submit(USER_ID, "icons.zip", "application/zip", 2, { out, progress ->
+            out.write("partial".bytes)
+            throw new IOException("disk full")
+        }, refund, this.&collect)
+        awaitFinished()
+
+        then:
+        1 * refund.run()
+        updates.last().status == "error"
+        service.getArtifact(queued.jobId, USER_ID).isEmpty()
+        Files.list(jobsDir).count() == 0
+    }
+
+    def "expired jobs are purged together with their archive"() {
+        given:
+        service.ttlMinutes = 0
+        ExportJobProgressUpdate queued = service.submit(USER_ID, "icons.zip", "application/zip", 1, { out, progress ->
+            out.write(1)
+            progress.onIconExported(1, 1)
+        }, refund, this.&collect)
+        awaitFinished()
+        Path file = service.getArtifact(queued.jobId, USER_ID).get().file()
+
+        when:
+        service.purgeExpiredJobs()
+
+        then:
+        service.getStatus(queued.jobId, USER_ID).isEmpty()
+        !Files.exists(file)
+    }
+
+    def "a full export queue rejects the job without registering it"() {
+        given:
+        ExecutorService rejecting = Mock()
+        rejecting.execute(_) >> { throw new RejectedExecutionException("queue full") }
+        SimpleMeterRegistry busyRegistry = new SimpleMeterRegistry()
+        ExportJobService busyService = new ExportJobService(Mock(IconExportService), rejecting, busyRegistry)
+        busyService.jobsDirectory = jobsDir.toString()
+        busyService.init()
+
+        when:
+        busyService.submit(USER_ID, "icons.zip", "application/zip", 1, { out, progress -> }, refund, this.&collect)
+
+        then: "the caller refunds a rejected job itself"
+        thrown(RejectedExecutionException)
+        0 * refund.run()
+        busyRegistry.get("export.jobs.active").gauge().value() == 0
+    }
+
+    private void collect(ExportJobProgressUpdate update) {
+        updates << update
+        if (update.terminal) {
+            finished.countDown()
+        }
+    }
+
+    private void awaitFinished() {
+        assert finished.await(5, TimeUnit.SECONDS)
+    }
+}
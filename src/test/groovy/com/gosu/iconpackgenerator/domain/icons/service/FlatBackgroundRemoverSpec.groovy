@@ -0,0 +1,130 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import com.gosu.iconpackgenerator.util.ImagePixels
+import spock.lang.Specification
+
+import java.awt.BasicStroke
+import java.awt.Color
+import java.awt.Graphics2D
+import java.awt.RenderingHints
+import java.awt.image.BufferedImage
+
+class FlatBackgroundRemoverSpec extends Specification {
+
+    private static final int SIZE = 64
+
+    FlatBackgroundRemover remover = new FlatBackgroundRemover(40, 2, 0.85)
+
+    def "a flat background is removed and the icon keeps clean anti-aliased edges"() {
+        given:
+        BufferedImage image = canvas(Color.WHITE)
+        Graphics2D g = image.createGraphics()
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON)
+        g.color = Color.RED
+        g.fillOval(8, 8, 48, 48)
+        g.dispose()
+        int[] argb = ImagePixels.readArgb(image)
+        int[] original = argb.clone()
+
+        when:
+        FlatBackgroundRemover.Result result = remover.remove(argb, SIZE, SIZE)
+
+        then:
+        result.confident
+        result.confidence > 0.99
+        result.backgroundColor() == 0xffffff
+
+        and: "background is transparent and the icon untouched"
+        alpha(result.argb()[0]) == 0
+        alpha(result.argb()[SIZE * SIZE - 1]) == 0
+        result.argb()[32 * SIZE + 32] == 0xffff0000
+
+        and: "edge pixels are partially transparent red rather than pink"
+        List<Integer> edges = result.argb().findAll { alpha(it) > 0 && alpha(it) < 255 }
+        !edges.isEmpty()
+        edges.every { ((it >> 16) & 0xff) > 200 && ((it >> 8) & 0xff) < 60 }
+
+        and:
+        argb == original
+    }
+
+    def "light details inside a thin outline keep their alpha"() {
+        given:
+        BufferedImage image = canvas(Color.WHITE)
+        Graphics2D g = image.createGraphics()
+        g.color = Color.BLACK
+        g.stroke = new BasicStroke(1)
+        g.drawRect(10, 10, 40, 40)
+        g.dispose()
+
+        when:
+        FlatBackgroundRemover.Result result = remover.remove(ImagePixels.readArgb(image), SIZE, SIZE)
+
+        then:
+        result.confident
+        alpha(result.argb()[5 * SIZE + 5]) == 0
+        result.argb()[10 * SIZE + 30] == 0xff000000
+        result.argb()[12 * SIZE + 12] == 0xffffffff
+        result.argb()[30 * SIZE + 30] == 0xffffffff
+    }
+
+    def "a busy border is left to rembg"() {
+        given:
+        BufferedImage image = canvas(Color.WHITE)
+        Random random = new Random(7)
+        int[] argb = ImagePixels.readArgb(image)
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = 0xff000000 | random.nextInt(0x1000000)
+        }
+
+        when:
+        FlatBackgroundRemover.Result result = remover.remove(argb, SIZE, SIZE)
+
+        then:
+        !result.confident
+        result.argb() == null
+        result.confidence() < 0.85
+    }
+
+    def "a black-outlined icon on a transparent canvas keeps its outline"() {
+        given:
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB)
+        Graphics2D g = image.createGraphics()
+        g.color = Color.BLACK
+        g.stroke = new BasicStroke(3)
+        g.drawOval(8, 8, 48, 48)
+        g.color = Color.YELLOW
+        g.fillOval(12, 12, 40, 40)
+        g.dispose()
+
+        when:
+        FlatBackgroundRemover.Result result = remover.remove(ImagePixels.readArgb(image), SIZE, SIZE)
+
+        then: "there is no flat background to remove, so rembg decides"
+        !result.confident
+        result.argb() == null
+        result.confidence() == 0.0
+    }
+
+    def "a fill that swallows the whole image is not trusted"() {
+        when:
+        FlatBackgroundRemover.Result result = remover.remove(ImagePixels.readArgb(canvas(Color.WHITE)), SIZE, SIZE)
+
+        then:
+        !result.confident
+        result.confidence() == 0.0
+    }
+
+    private static BufferedImage canvas(Color background) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB)
+        Graphics2D g = image.createGraphics()
+        g.color = background
+        g.fillRect(0, 0, SIZE, SIZE)
+        g.dispose()
+        return image
+    }
+
+    private static int alpha(int pixel) {
+        return (pixel >>> 24) & 0xff
+    }
+}
@@ -1,6 +1,9 @@
 package com.gosu.iconpackgenerator.domain.icons.service
 
 import com.gosu.iconpackgenerator.singal.SignalMessageService
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics
+import com.gosu.iconpackgenerator.util.PngEncodingService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
 import javax.imageio.ImageIO
@@ -13,20 +16,33 @@ import java.awt.image.BufferedImage
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 class Gpt2GridCroppingSpec extends Specification {
 
     private static final Path FIXTURE_PATH = Paths.get("src/test/resources/icons/gpt-2-background-removed.png")
     private static final Path OUTPUT_DIR = Paths.get("src/test/resources/images/output/gpt2-grid-cropping")
 
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
     ImageProcessingService imageProcessingService = new ImageProcessingService(
             Mock(SignalMessageService),
             Mock(BackgroundRemovalService),
             new IconCenteringService(),
             new GridBoundaryDetectionService(),
-            new IconArtifactCleanupService()
+            new IconArtifactCleanupService(),
+            new PngEncodingService(),
+            new ImageProcessingMetrics(meterRegistry),
+            executor
     )
 
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
     def "crops GPT-2 background-removed 3x3 grid into consistent complete icons"() {
         given:
         byte[] imageData = Files.readAllBytes(FIXTURE_PATH)
@@ -86,6 +102,42 @@ class Gpt2GridCroppingSpec extends Specification {
         }
     }
 
+    def "parallel cell processing returns the same icons in the same order as serial processing"() {
+        given:
+        byte[] imageData = Files.readAllBytes(FIXTURE_PATH)
+
+        when:
+        imageProcessingService.parallelCellProcessing = false
+        List<String> serialIcons = imageProcessingService.cropIconsFromGrid(imageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true)
+
+        and:
+        imageProcessingService.parallelCellProcessing = true
+        List<String> parallelIcons = imageProcessingService.cropIconsFromGrid(imageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true)
+
+        then:
+        parallelIcons.size() == 9
+        parallelIcons == serialIcons
+    }
+
+    def "grid cropping publishes phase timers tagged by asset type and model service"() {
+        given:
+        byte[] imageData = Files.readAllBytes(FIXTURE_PATH)
+
+        when:
+        imageProcessingService.cropIconDataFromGrid(imageData, 9, true, ImageProcessingService.ICON_TARGET_SIZE, false, true, "gpt15")
+
+        then:
+        ["frame_detection", "grid_bounds", "artifact_cleanup", "centering", "encoding"].every { String phase ->
+            meterRegistry.find("image.processing.phase")
+                    .tags("asset", "icon", "model", "gpt15", "phase", phase)
+                    .timer()?.count() == 1
+        }
+        meterRegistry.get("image.processing.total").tags("asset", "icon", "model", "gpt15").timer().count() == 1
+
+        and: "background removal did not run, so it is not recorded"
+        meterRegistry.find("image.processing.phase").tags("phase", "background_removal").timer() == null
+    }
+
     def "centering keeps white tile content when image background is transparent"() {
         given:
         BufferedImage tileIcon = createTransparentWhiteTileIcon()
@@ -0,0 +1,75 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.imageio.ImageIO
+import java.awt.image.BufferedImage
+import java.nio.file.Paths
+
+class GridProjectionProfileSpec extends Specification {
+
+    private static final List<String> FIXTURES = [
+            "src/test/resources/icons/gpt-2-background-removed.png",
+            "src/test/resources/images/white_division_black_background.png",
+            "src/test/resources/images/wrong-cut-2.png"
+    ]
+
+    @Unroll
+    def "profile line queries match a per-pixel scan of #fixture"() {
+        given:
+        BufferedImage image = ImageIO.read(Paths.get(fixture).toFile())
+
+        when:
+        GridProjectionProfile profile = GridProjectionProfile.of(image)
+
+        then:
+        profile.width == image.width
+        profile.height == image.height
+
+        and: "every column and row agrees with reading the pixels one by one"
+        [true, false].each { boolean vertical ->
+            int dimension = vertical ? image.width : image.height
+            for (int pos = 0; pos < dimension; pos++) {
+                List<Integer> line = linePixels(image, vertical, pos)
+                assert profile.isPerfectlyTransparent(vertical, pos) == line.every { ((it >> 24) & 0xFF) == 0 }
+                assert profile.lineTransparency(vertical, pos) == (double) line.count { isClear(it) } / line.size()
+                assert profile.contentDensity(vertical, pos) == (double) line.count { isContent(it) } / line.size()
+            }
+        }
+
+        where:
+        fixture << FIXTURES
+    }
+
+    def "profile built from a subimage only covers the subimage"() {
+        given:
+        BufferedImage image = ImageIO.read(Paths.get(FIXTURES[0]).toFile())
+        BufferedImage subimage = image.getSubimage(3, 5, image.width - 10, image.height - 20)
+
+        when:
+        GridProjectionProfile profile = GridProjectionProfile.of(subimage)
+
+        then:
+        profile.width == subimage.width
+        profile.height == subimage.height
+        profile.lineTransparency(true, 0) == (double) linePixels(subimage, true, 0).count { isClear(it) } / subimage.height
+    }
+
+    private static List<Integer> linePixels(BufferedImage image, boolean vertical, int position) {
+        int length = vertical ? image.height : image.width
+        return (0..<length).collect { int i -> vertical ? image.getRGB(position, i) : image.getRGB(i, position) }
+    }
+
+    private static boolean isClear(int rgb) {
+        int alpha = (rgb >> 24) & 0xFF
+        boolean nearWhite = ((rgb >> 16) & 0xFF) > 240 && ((rgb >> 8) & 0xFF) > 240 && (rgb & 0xFF) > 240
+        return alpha < 20 || (nearWhite && alpha > 200)
+    }
+
+    private static boolean isContent(int rgb) {
+        int alpha = (rgb >> 24) & 0xFF
+        boolean white = ((rgb >> 16) & 0xFF) > 240 && ((rgb >> 8) & 0xFF) > 240 && (rgb & 0xFF) > 240
+        return alpha >= 50 && !white
+    }
+}
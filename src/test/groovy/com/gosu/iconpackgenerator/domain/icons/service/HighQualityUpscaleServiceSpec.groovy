@@ -0,0 +1,148 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import com.gosu.iconpackgenerator.domain.ai.IdeoGramRemoveBackGroundService
+import com.gosu.iconpackgenerator.domain.ai.SeedVrUpscaleService
+import com.gosu.iconpackgenerator.util.PngEncodingService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.Callable
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class HighQualityUpscaleServiceSpec extends Specification {
+
+    private static final Path ICONS_DIR = Paths.get("src/test/resources/icons")
+
+    @TempDir
+    Path cacheDir
+
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    SeedVrUpscaleService seedVrUpscaleService = Mock()
+
+    IdeoGramRemoveBackGroundService ideoGramRemoveBackGroundService = Mock()
+
+    HighQualityUpscaleService service = new HighQualityUpscaleService(
+            seedVrUpscaleService,
+            ideoGramRemoveBackGroundService,
+            new PngEncodingService(),
+            meterRegistry,
+            executor,
+            executor
+    )
+
+    def setup() {
+        service.cacheEnabled = true
+        service.cacheMemoryMaxMb = 16
+        service.cacheDirectory = cacheDir.toString()
+        service.cacheDiskMaxMb = 64
+        service.init()
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "identical icons in a batch are upscaled once and repeat batches come from the cache"() {
+        given:
+        byte[] first = Files.readAllBytes(ICONS_DIR.resolve("gpt_000cee81_1.png"))
+        byte[] second = Files.readAllBytes(ICONS_DIR.resolve("gpt_55f3fea6_0.png"))
+        Map<String, byte[]> batch = ["01_icon": first, "02_icon": second, "03_icon": first.clone()]
+
+        when:
+        Map<String, byte[]> upscaled = service.upscaleAll(batch)
+        Map<String, byte[]> repeated = service.upscaleAll(batch)
+
+        then: "two distinct icons, upscaled on the first batch only"
+        2 * seedVrUpscaleService.upscaleImage(_ as byte[], 4.0f) >> { byte[] data, float factor ->
+            CompletableFuture.completedFuture(data)
+        }
+        2 * ideoGramRemoveBackGroundService.removeBackground(_ as byte[]) >> { byte[] data -> ("hq-" + Arrays.hashCode(data)).bytes }
+
+        and:
+        upscaled.keySet().toList() == ["01_icon", "02_icon", "03_icon"]
+        upscaled["01_icon"] == upscaled["03_icon"]
+        upscaled["01_icon"] != upscaled["02_icon"]
+        repeated.every { name, data -> Arrays.equals(data, upscaled[name]) }
+        meterRegistry.get("hq.upscale.deduplicated").counter().count() == 2
+    }
+
+    def "a failed upscale falls back to the very array that was passed in"() {
+        given:
+        byte[] icon = Files.readAllBytes(ICONS_DIR.resolve("gpt_c8057ef4_1.png"))
+
+        when:
+        Map<String, byte[]> upscaled = service.upscaleAll(["01_icon": icon])
+
+        then:
+        1 * seedVrUpscaleService.upscaleImage(_ as byte[], 4.0f) >> CompletableFuture.failedFuture(new IllegalStateException("upscale down"))
+        0 * ideoGramRemoveBackGroundService.removeBackground(_)
+        upscaled["01_icon"].is(icon)
+    }
+
+    def "upscales waiting for a free slot do not hold a remote I/O thread"() {
+        given: "a single remote I/O thread and one SeedVR call at a time"
+        ExecutorService remoteIo = Executors.newSingleThreadExecutor()
+        SimpleMeterRegistry limitedRegistry = new SimpleMeterRegistry()
+        HighQualityUpscaleService limited = new HighQualityUpscaleService(seedVrUpscaleService,
+                ideoGramRemoveBackGroundService, new PngEncodingService(), limitedRegistry, executor, remoteIo)
+        limited.maxInFlight = 1
+        limited.cacheEnabled = false
+        limited.init()
+        List<CompletableFuture<byte[]>> calls = [].asSynchronized()
+        seedVrUpscaleService.upscaleImage(_ as byte[], 4.0f) >> {
+            CompletableFuture<byte[]> call = new CompletableFuture<>()
+            calls << call
+            call
+        }
+        ideoGramRemoveBackGroundService.removeBackground(_ as byte[]) >> { byte[] data -> data }
+        Map<String, byte[]> batch = [
+                "01_icon": Files.readAllBytes(ICONS_DIR.resolve("gpt_000cee81_1.png")),
+                "02_icon": Files.readAllBytes(ICONS_DIR.resolve("gpt_55f3fea6_0.png"))]
+
+        when:
+        CompletableFuture<Map<String, byte[]>> upscaled = CompletableFuture.supplyAsync({ limited.upscaleAll(batch) })
+        waitUntil { gauge(limitedRegistry, "hq.upscale.waiting") == 1 }
+
+        then: "one call runs, the other is queued and the remote I/O thread stays free"
+        calls.size() == 1
+        gauge(limitedRegistry, "hq.upscale.in_flight") == 1
+        remoteIo.submit({ "free" } as Callable).get(1, TimeUnit.SECONDS) == "free"
+
+        when:
+        calls[0].complete("first".bytes)
+        waitUntil { calls.size() == 2 }
+        calls[1].complete("second".bytes)
+
+        then:
+        upscaled.get(5, TimeUnit.SECONDS).values()*.size().sort() == [5, 6]
+        gauge(limitedRegistry, "hq.upscale.in_flight") == 0
+        gauge(limitedRegistry, "hq.upscale.waiting") == 0
+
+        cleanup:
+        remoteIo.shutdownNow()
+    }
+
+    private static double gauge(SimpleMeterRegistry registry, String name) {
+        return registry.get(name).gauge().value()
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s")
+            }
+            Thread.sleep(10)
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import spock.lang.Specification
+
+import java.awt.Rectangle
+
+class IconArtifactCleanupServiceSpec extends Specification {
+
+    private static final int CONTENT = 0xFF204080
+    private static final int TRANSPARENT = 0x00000000
+    private static final int WHITE = 0xFFFFFFFF
+
+    IconArtifactCleanupService service = new IconArtifactCleanupService()
+
+    def "components match a reference flood fill on hand-drawn cells"() {
+        given:
+        int[] argb = cell(rows)
+        int width = rows[0].length()
+        int height = rows.size()
+
+        expect:
+        service.findConnectedComponentBounds(argb, width, height) == referenceBounds(argb, width, height)
+        service.findConnectedComponentBounds(argb, width, height) == expected
+
+        where:
+        rows << [
+                // Blocks touching only at a corner are separate 4-connected components
+                ["##....",
+                 "##....",
+                 "..##..",
+                 "..##..",
+                 "....#."],
+                // A single content pixel surrounded by white and transparent pixels
+                ["wwwww",
+                 "w...w",
+                 "w.#.w",
+                 "w...w",
+                 "wwwww"],
+                // Content filling the whole cell
+                ["#######",
+                 "#######",
+                 "#######"],
+                // An empty cell
+                ["....",
+                 "wwww"],
+                // A ring around a hole is one component; the pixel inside it is another
+                ["#####",
+                 "#...#",
+                 "#.#.#",
+                 "#...#",
+                 "#####"],
+        ]
+        expected << [
+                [new Rectangle(0, 0, 2, 2), new Rectangle(2, 2, 2, 2), new Rectangle(4, 4, 1, 1)],
+                [new Rectangle(2, 2, 1, 1)],
+                [new Rectangle(0, 0, 7, 3)],
+                [],
+                [new Rectangle(0, 0, 5, 5), new Rectangle(2, 2, 1, 1)],
+        ]
+    }
+
+    def "components match a reference flood fill on random cells of any size"() {
+        given:
+        Random random = new Random(seed)
+
+        expect: "scratch buffers reused from larger and smaller cells on this thread do not leak into the result"
+        [[97, 61], [13, 7], [64, 64], [1, 1], [130, 3], [5, 200]].every { List<Integer> size ->
+            int width = size[0]
+            int height = size[1]
+            int[] argb = randomCell(random, width, height, density)
+            service.findConnectedComponentBounds(argb, width, height) == referenceBounds(argb, width, height)
+        }
+
+        where:
+        seed | density
+        1    | 0.2
+        2    | 0.45
+        3    | 0.6
+        4    | 0.9
+    }
+
+    private static int[] cell(List<String> rows) {
+        int width = rows[0].length()
+        int[] argb = new int[width * rows.size()]
+        rows.eachWithIndex { String row, int y ->
+            for (int x = 0; x < width; x++) {
+                char pixel = row.charAt(x)
+                argb[y * width + x] = pixel == '#' as char ? CONTENT : pixel == 'w' as char ? WHITE : TRANSPARENT
+            }
+        }
+        return argb
+    }
+
+    private static int[] randomCell(Random random, int width, int height, double density) {
+        int[] argb = new int[width * height]
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = random.nextDouble() < density ? CONTENT : random.nextBoolean() ? WHITE : TRANSPARENT
+        }
+        return argb
+    }
+
+    /**
+     * Plain 4-connected flood fill over a 2D visited grid, reporting each component's bounds in raster order
+     * of its first pixel.
+     */
+    private static List<Rectangle> referenceBounds(int[] argb, int width, int height) {
+        boolean[][] seen = new boolean[height][width]
+        List<Rectangle> components = []
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (seen[y][x] || argb[y * width + x] != CONTENT) {
+                    continue
+                }
+                Rectangle bounds = new Rectangle(x, y, 1, 1)
+                Deque<int[]> pending = new ArrayDeque<>()
+                pending.push([x, y] as int[])
+                seen[y][x] = true
+                while (!pending.isEmpty()) {
+                    int[] pixel = pending.pop()
+                    bounds.add(new Rectangle(pixel[0], pixel[1], 1, 1))
+                    [[1, 0], [-1, 0], [0, 1], [0, -1]].each { List<Integer> step ->
+                        int nx = pixel[0] + step[0]
+                        int ny = pixel[1] + step[1]
+                        if (nx >= 0 && nx < width && ny >= 0 && ny < height && !seen[ny][nx]
+                                && argb[ny * width + nx] == CONTENT) {
+                            seen[ny][nx] = true
+                            pending.push([nx, ny] as int[])
+                        }
+                    }
+                }
+                components << bounds
+            }
+        }
+        return components
+    }
+}
@@ -0,0 +1,314 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import com.gosu.iconpackgenerator.domain.icons.dto.IconExportRequest
+import com.gosu.iconpackgenerator.domain.icons.dto.IconGenerationResponse
+import com.gosu.iconpackgenerator.domain.icons.model.IconData
+import com.gosu.iconpackgenerator.domain.vectorization.SvgVectorizationService
+import com.gosu.iconpackgenerator.util.ContentAddressedCache
+import com.gosu.iconpackgenerator.util.PngEncodingService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+
+class IconExportServiceSpec extends Specification {
+
+    private static final List<String> FIXTURES = ["gpt_000cee81_1.png", "gpt_55f3fea6_0.png", "gpt_c8057ef4_1.png"]
+
+    @TempDir
+    Path cacheDir
+
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    SvgVectorizationService svgVectorizationService = Mock()
+
+    HighQualityUpscaleService highQualityUpscaleService = Mock()
+
+    IconExportService iconExportService = new IconExportService(
+            svgVectorizationService,
+            highQualityUpscaleService,
+            new PngEncodingService(),
+            executor,
+            meterRegistry
+    )
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "streamed export contains the same entries as the in-memory export"() {
+        given:
+        IconExportRequest request = exportRequest()
+
+        when:
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream()
+        iconExportService.writeIconPackZip(request, streamed)
+        byte[] buffered = iconExportService.createIconPackZip(request)
+
+        then:
+        Map<String, byte[]> streamedEntries = readEntries(streamed.toByteArray())
+        Map<String, byte[]> bufferedEntries = readEntries(buffered)
+        streamedEntries.keySet().toList() == bufferedEntries.keySet().toList()
+        streamedEntries.every { name, bytes -> Arrays.equals(bytes, bufferedEntries[name]) }
+
+        and:
+        streamedEntries.containsKey("svg/01_icon.svg")
+        streamedEntries.containsKey("png/03_icon_512x512.png")
+        streamedEntries.containsKey("ico/02_icon.ico")
+    }
+
+    def "parallel rendering writes the same entries in the same order as serial rendering"() {
+        given:
+        IconExportRequest request = exportRequest()
+
+        when:
+        iconExportService.parallelRendering = false
+        Map<String, byte[]> serialEntries = readEntries(iconExportService.createIconPackZip(request))
+
+        and:
+        iconExportService.parallelRendering = true
+        iconExportService.renderWindow = 2
+        Map<String, byte[]> parallelEntries = readEntries(iconExportService.createIconPackZip(request))
+
+        then:
+        parallelEntries.keySet().toList() == serialEntries.keySet().toList()
+        parallelEntries.every { name, bytes -> Arrays.equals(bytes, serialEntries[name]) }
+        parallelEntries.keySet().take(7).toList() == [
+                "svg/01_icon.svg",
+                "png/01_icon_32x32.png", "png/01_icon_64x64.png", "png/01_icon_128x128.png",
+                "png/01_icon_256x256.png", "png/01_icon_512x512.png",
+                "ico/01_icon.ico"
+        ]
+    }
+
+    def "ico embeds the same PNG bytes as the matching png entries"() {
+        when:
+        Map<String, byte[]> entries = readEntries(iconExportService.createIconPackZip(exportRequest()))
+
+        then:
+        ByteBuffer ico = ByteBuffer.wrap(entries["ico/01_icon.ico"]).order(ByteOrder.LITTLE_ENDIAN)
+        Map<Integer, byte[]> icoImages = (0..<ico.getShort(4)).collectEntries { int i ->
+            int base = 6 + 16 * i
+            int size = ico.get(base) & 0xFF ?: 256
+            int offset = ico.getInt(base + 12)
+            [(size): Arrays.copyOfRange(ico.array(), offset, offset + ico.getInt(base + 8))]
+        }
+        icoImages.keySet() == [32, 48, 64, 128, 256] as Set
+        [32, 64, 128, 256].every { int size ->
+            Arrays.equals(icoImages[size], entries["png/01_icon_${size}x${size}.png".toString()])
+        }
+    }
+
+    def "raster members are stored and the streamed svg wrapper embeds the original icon"() {
+        given:
+        byte[] original = Files.readAllBytes(Paths.get("src/test/resources/icons", FIXTURES[0]))
+
+        when:
+        byte[] zip = iconExportService.createIconPackZip(exportRequest())
+        Map<String, byte[]> entries = readEntries(zip)
+        Map<String, Integer> methods = readMethods(zip)
+
+        then:
+        methods.findAll { name, method -> name.endsWith(".png") || name.endsWith(".ico") }.values().every { it == ZipEntry.STORED }
+        methods.findAll { name, method -> name.endsWith(".svg") }.values().every { it == ZipEntry.DEFLATED }
+
+        and:
+        String svg = new String(entries["svg/01_icon.svg"], StandardCharsets.UTF_8)
+        svg.startsWith('<?xml version="1.0" encoding="UTF-8"?>\n<svg width="')
+        svg.endsWith('x="0" y="0"/>\n</svg>\n')
+        Base64.decoder.decode((svg =~ /base64,([^"]+)"/)[0][1] as String) == original
+    }
+
+    def "repeat exports are assembled from the artifact cache"() {
+        given:
+        iconExportService.cacheEnabled = true
+        iconExportService.cacheMemoryMaxMb = 16
+        iconExportService.cacheDirectory = cacheDir.toString()
+        iconExportService.cacheDiskMaxMb = 64
+        iconExportService.initArtifactCache()
+
+        IconExportRequest request = exportRequest()
+        request.vectorizeSvg = true
+
+        when:
+        Map<String, byte[]> firstEntries = readEntries(iconExportService.createIconPackZip(request))
+        Map<String, byte[]> repeatEntries = readEntries(iconExportService.createIconPackZip(request))
+
+        then: "vectorized SVGs are left to the vectorizer's own cache"
+        2 * svgVectorizationService.vectorizeEach(_) >> { Map<String, byte[]> images ->
+            images.collectEntries { String name, byte[] data ->
+                [(name): CompletableFuture.completedFuture("<svg>${name}</svg>".toString().bytes)]
+            }
+        }
+
+        and:
+        repeatEntries.keySet().toList() == firstEntries.keySet().toList()
+        repeatEntries.every { name, bytes -> Arrays.equals(bytes, firstEntries[name]) }
+        repeatEntries.containsKey("vectorized-svg/02_icon.svg")
+        meterRegistry.get("cache.gets").tags("cache", "icon-export", "result", "hit", "tier", "memory").counter().count() > 0
+    }
+
+    def "HQ renditions evicted after the cache check are rendered from a fresh upscale"() {
+        given: "a cache that reports every rendition present but has lost them by the time they are read"
+        iconExportService.artifactCache = new ContentAddressedCache("icon-export", 1024, null, 0, meterRegistry) {
+            @Override
+            boolean contains(String key) {
+                return true
+            }
+
+            @Override
+            byte[] get(String key) {
+                return null
+            }
+        }
+        byte[] upscaled = Files.readAllBytes(Paths.get("src/test/resources/icons", FIXTURES[1]))
+        IconExportRequest request = exportRequest()
+        request.hqUpscale = true
+        request.formats = ["png"]
+
+        when:
+        Map<String, byte[]> entries = readEntries(iconExportService.createIconPackZip(request))
+
+        then: "each icon is upscaled on its own instead of being rendered from the original raster"
+        FIXTURES.size() * highQualityUpscaleService.upscaleEach({ it.size() == 1 }) >> { Map<String, byte[]> images ->
+            images.collectEntries { String name, byte[] data -> [(name): CompletableFuture.completedFuture(upscaled)] }
+        }
+        0 * highQualityUpscaleService.upscaleEach({ it.size() > 1 })
+
+        and:
+        entries.containsKey("png/01_icon_1024x1024.png")
+        Arrays.equals(entries["png/01_icon_64x64.png"], entries["png/02_icon_64x64.png"])
+    }
+
+    def "entries are flushed to the output as each icon is rendered and the stream is left open"() {
+        given:
+        List<Integer> flushedSizes = []
+        List<Boolean> closeCalls = []
+        ByteArrayOutputStream target = new ByteArrayOutputStream() {
+            @Override
+            void flush() {
+                flushedSizes << size()
+            }
+
+            @Override
+            void close() {
+                closeCalls << true
+            }
+        }
+
+        when:
+        iconExportService.writeIconPackZip(exportRequest(), target)
+
+        then: "one flush per icon plus the final one, each after more data was written"
+        flushedSizes.size() >= FIXTURES.size() + 1
+        flushedSizes.first() > 0
+        flushedSizes.first() < flushedSizes.last()
+        flushedSizes.last() == target.size()
+        closeCalls.isEmpty()
+    }
+
+    def "the first icon is written while later icons are still being vectorized"() {
+        given:
+        List<Integer> flushedSizes = [].asSynchronized()
+        ByteArrayOutputStream target = new ByteArrayOutputStream() {
+            @Override
+            void flush() {
+                flushedSizes << size()
+            }
+        }
+        IconExportRequest request = exportRequest()
+        request.vectorizeSvg = true
+        CompletableFuture<byte[]> laterSvgs = new CompletableFuture<>()
+        svgVectorizationService.vectorizeEach(_) >> { Map<String, byte[]> images ->
+            images.collectEntries { String name, byte[] data ->
+                [(name): name == "01_icon" ? CompletableFuture.completedFuture("<svg/>".bytes) : laterSvgs]
+            }
+        }
+
+        when:
+        CompletableFuture<Void> export = CompletableFuture.runAsync({ iconExportService.writeIconPackZip(request, target) })
+        waitUntil { !flushedSizes.isEmpty() }
+
+        then: "the first icon's entries are out before any other vectorization finished"
+        !export.done
+        flushedSizes.first() > 0
+
+        when:
+        laterSvgs.complete("<svg/>".bytes)
+        export.get(10, TimeUnit.SECONDS)
+
+        then:
+        readEntries(target.toByteArray()).keySet().count { it.startsWith("vectorized-svg/") } == FIXTURES.size()
+    }
+
+    def "icons without image data are rejected before anything is written"() {
+        given:
+        IconExportRequest request = exportRequest()
+        request.icons << new IconGenerationResponse.GeneratedIcon()
+        ByteArrayOutputStream target = new ByteArrayOutputStream()
+
+        when:
+        iconExportService.writeIconPackZip(request, target)
+
+        then:
+        thrown(IllegalArgumentException)
+        target.size() == 0
+    }
+
+    private static IconExportRequest exportRequest() {
+        List<IconGenerationResponse.GeneratedIcon> icons = FIXTURES.collect { String fixture ->
+            def icon = new IconGenerationResponse.GeneratedIcon()
+            icon.data = IconData.ofBytes(Files.readAllBytes(Paths.get("src/test/resources/icons", fixture)))
+            icon
+        }
+        IconExportRequest request = new IconExportRequest()
+        request.requestId = "export-spec"
+        request.icons = icons
+        request.formats = ["svg", "png", "ico"]
+        return request
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < deadline
+            Thread.sleep(10)
+        }
+    }
+
+    private static Map<String, Integer> readMethods(byte[] zip) {
+        Map<String, Integer> methods = new LinkedHashMap<>()
+        new ZipInputStream(new ByteArrayInputStream(zip)).withCloseable { ZipInputStream zis ->
+            def entry
+            while ((entry = zis.nextEntry) != null) {
+                methods[entry.name] = entry.method
+            }
+        }
+        return methods
+    }
+
+    private static Map<String, byte[]> readEntries(byte[] zip) {
+        Map<String, byte[]> entries = new LinkedHashMap<>()
+        new ZipInputStream(new ByteArrayInputStream(zip)).withCloseable { ZipInputStream zis ->
+            def entry
+            while ((entry = zis.nextEntry) != null) {
+                entries[entry.name] = zis.readAllBytes()
+            }
+        }
+        return entries
+    }
+}
@@ -0,0 +1,201 @@
+package com.gosu.iconpackgenerator.domain.icons.service
+
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.TimeoutException
+
+@IgnoreIf({ !RembgWorkerPoolSpec.pythonAvailable() })
+class RembgWorkerPoolSpec extends Specification {
+
+    // Stand-in for rembg_worker.py: reverses the payload, "crash" exits, "sleep" blocks, "fail" reports an error,
+    // "stall-pings" makes every later ping block
+    private static final String FAKE_WORKER = '''
+import struct, sys, time
+stdin, stdout = sys.stdin.buffer, sys.stdout.buffer
+def frame(status, payload):
+    stdout.write(struct.pack(">BI", status, len(payload))); stdout.write(payload); stdout.flush()
+frame(0, b"")
+stall_pings = False
+while True:
+    header = stdin.read(4)
+    if len(header) < 4:
+        sys.exit(0)
+    (length,) = struct.unpack(">I", header)
+    data = stdin.read(length) if length else b""
+    if not data and stall_pings:
+        time.sleep(60)
+    if data == b"stall-pings":
+        stall_pings = True
+    if data == b"crash":
+        sys.exit(3)
+    if data == b"sleep":
+        time.sleep(30)
+    if data == b"fail":
+        frame(1, b"cannot decode image")
+        continue
+    frame(0, data[::-1])
+'''
+
+    @TempDir
+    Path tempDir
+
+    RembgWorkerPool pool
+
+    def cleanup() {
+        pool?.close()
+    }
+
+    def "workers process requests over the frame protocol"() {
+        given:
+        pool = startPool(2, Duration.ofSeconds(5))
+
+        expect:
+        new String(pool.removeBackground("abc".bytes)) == "cba"
+        new String(pool.removeBackground("hello".bytes)) == "olleh"
+        pool.idleWorkerCount == 2
+        pool.restartCount == 0
+    }
+
+    def "an error reported by the worker keeps the worker alive"() {
+        given:
+        pool = startPool(1, Duration.ofSeconds(5))
+
+        when:
+        pool.removeBackground("fail".bytes)
+
+        then:
+        def e = thrown(RembgWorkerPool.RembgWorkerException)
+        e.message == "cannot decode image"
+        pool.restartCount == 0
+        new String(pool.removeBackground("ok".bytes)) == "ko"
+    }
+
+    def "a crashed worker is restarted and serves the next request"() {
+        given:
+        pool = startPool(1, Duration.ofSeconds(5))
+
+        when:
+        pool.removeBackground("crash".bytes)
+
+        then:
+        thrown(IOException)
+        pool.restartCount == 1
+
+        and:
+        new String(pool.removeBackground("again".bytes)) == "niaga"
+    }
+
+    def "a hung worker is killed after the request timeout and replaced"() {
+        given:
+        pool = startPool(1, Duration.ofMillis(500))
+
+        when:
+        pool.removeBackground("sleep".bytes)
+
+        then:
+        thrown(IOException)
+        pool.restartCount == 1
+        new String(pool.removeBackground("xy".bytes)) == "yx"
+    }
+
+    def "requests time out when no worker becomes free"() {
+        given:
+        pool = startPool(1, Duration.ofSeconds(5))
+        def busy = Thread.start { pool.removeBackground("sleep".bytes) }
+        Thread.sleep(300)
+
+        when:
+        pool.removeBackground("abc".bytes)
+
+        then:
+        thrown(TimeoutException)
+
+        cleanup:
+        pool.close()
+        busy.join(5000)
+    }
+
+    def "a stalled health check does not keep request timeouts from firing"() {
+        given:
+        pool = startPool(2, Duration.ofMillis(500), Duration.ofSeconds(2), Duration.ofMillis(100))
+        pool.removeBackground("stall-pings".bytes)
+        Thread.sleep(500)
+
+        when: "the health check is blocked pinging the stalled worker"
+        long start = System.currentTimeMillis()
+        pool.removeBackground("sleep".bytes)
+
+        then:
+        thrown(IOException)
+        System.currentTimeMillis() - start < 5000
+
+        and: "the stalled ping times out as well and the worker is replaced"
+        waitUntil { pool.restartCount >= 2 }
+        new String(pool.removeBackground("ok".bytes)) == "ko"
+    }
+
+    def "workers that keep failing to start make the pool unavailable instead of respawning forever"() {
+        given: "a worker that exits before it is ready, like rembg_worker.py when rembg cannot be imported"
+        Path script = tempDir.resolve("broken_worker.py")
+        Files.writeString(script, "import sys\nsys.exit(1)\n")
+        pool = new RembgWorkerPool(["python3", script.toString()], 1, Duration.ofSeconds(5),
+                Duration.ofSeconds(5), Duration.ofMillis(500), Duration.ZERO, 2)
+        pool.start()
+
+        when:
+        2.times {
+            try {
+                pool.removeBackground("abc".bytes)
+            } catch (IOException ignored) {
+            }
+        }
+
+        then:
+        !pool.available
+        !pool.hasLiveWorker()
+
+        when:
+        int restarts = pool.restartCount
+        pool.removeBackground("abc".bytes)
+
+        then:
+        IOException e = thrown()
+        e.message.contains("unavailable")
+        pool.restartCount == restarts
+    }
+
+    private RembgWorkerPool startPool(int size, Duration requestTimeout) {
+        return startPool(size, requestTimeout, Duration.ofSeconds(10), Duration.ZERO)
+    }
+
+    private RembgWorkerPool startPool(int size, Duration requestTimeout, Duration startupTimeout,
+                                      Duration healthCheckInterval) {
+        Path script = tempDir.resolve("fake_worker.py")
+        Files.writeString(script, FAKE_WORKER)
+        def workerPool = new RembgWorkerPool(["python3", script.toString()], size, startupTimeout,
+                requestTimeout, Duration.ofMillis(500), healthCheckInterval, 3)
+        workerPool.start()
+        return workerPool
+    }
+
+    private static void waitUntil(Closure<Boolean> condition) {
+        long deadline = System.currentTimeMillis() + 10000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < deadline
+            Thread.sleep(50)
+        }
+    }
+
+    static boolean pythonAvailable() {
+        try {
+            return new ProcessBuilder("python3", "--version").start().waitFor() == 0
+        } catch (IOException ignored) {
+            return false
+        }
+    }
+}
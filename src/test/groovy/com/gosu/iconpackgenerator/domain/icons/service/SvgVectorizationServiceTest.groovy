@@ -2,7 +2,9 @@ package com.gosu.iconpackgenerator.domain.icons.service
 
 import com.gosu.iconpackgenerator.domain.ai.RecraftVectorizeModelService
 import com.gosu.iconpackgenerator.domain.vectorization.SvgVectorizationService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import javax.imageio.ImageIO
 import java.awt.image.BufferedImage
@@ -11,12 +13,23 @@ import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
 import java.nio.file.StandardOpenOption
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 class SvgVectorizationServiceTest extends Specification {
 
     private static final Path ICONS_DIR = Paths.get("src/test/resources/icons")
     private static final Path OUTPUT_DIR = ICONS_DIR.resolve("output")
 
+    @TempDir
+    Path cacheDir
+
+    ExecutorService executor = Executors.newFixedThreadPool(2)
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
     private static List<Path> listIconFiles(String globPattern) {
         List<Path> result = []
         Files.newDirectoryStream(ICONS_DIR, globPattern).withCloseable { stream ->
@@ -32,7 +45,7 @@ class SvgVectorizationServiceTest extends Specification {
 
     def "prepareIconForVectorization replaces transparent pixels in PNG fixtures"() {
         given:
-        def service = new SvgVectorizationService(Mock(RecraftVectorizeModelService))
+        def service = new SvgVectorizationService(Mock(RecraftVectorizeModelService), new SimpleMeterRegistry(), executor)
         List<Path> pngFiles = listIconFiles("*.png")
         assert !pngFiles.isEmpty()
 
@@ -61,7 +74,7 @@ class SvgVectorizationServiceTest extends Specification {
 
     def "sanitizeVectorizedSvg removes background rectangles from SVG fixtures"() {
         given:
-        def service = new SvgVectorizationService(Mock(RecraftVectorizeModelService))
+        def service = new SvgVectorizationService(Mock(RecraftVectorizeModelService), new SimpleMeterRegistry(), executor)
         List<Path> svgFiles = listIconFiles("*.svg")
         assert !svgFiles.isEmpty()
 
@@ -86,4 +99,28 @@ class SvgVectorizationServiceTest extends Specification {
         }
     }
 
+    def "repeat vectorization of the same icon is served from the cache"() {
+        given:
+        RecraftVectorizeModelService recraftVectorizeModelService = Mock()
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+        def service = new SvgVectorizationService(recraftVectorizeModelService, meterRegistry, executor)
+        service.cacheEnabled = true
+        service.cacheMemoryMaxMb = 4
+        service.cacheDirectory = cacheDir.toString()
+        service.cacheDiskMaxMb = 16
+        service.initSvgCache()
+        byte[] icon = Files.readAllBytes(ICONS_DIR.resolve("gpt_000cee81_1.png"))
+        byte[] svg = '<svg xmlns="http://www.w3.org/2000/svg"><path fill="#336699" d="M1 1 L2 2 Z"/></svg>'.getBytes(StandardCharsets.UTF_8)
+
+        when:
+        byte[] first = service.vectorizeImage(icon, "first")
+        byte[] second = service.vectorizeImage(icon, "second")
+
+        then:
+        1 * recraftVectorizeModelService.vectorizeImageBlocking(_) >> svg
+        first == svg
+        second == svg
+        meterRegistry.get("cache.gets").tags("cache", "vectorization", "result", "hit").counter().count() == 1
+        meterRegistry.get("cache.gets").tags("cache", "vectorization", "result", "miss").counter().count() == 1
+    }
 }
@@ -1,5 +1,8 @@
 package com.gosu.iconpackgenerator.domain.mockups.service
 
+import com.gosu.iconpackgenerator.util.ImageProcessingMetrics
+import com.gosu.iconpackgenerator.util.PngEncodingService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import spock.lang.Specification
 
 import javax.imageio.ImageIO
@@ -9,7 +12,8 @@ import java.nio.file.Path
 
 class MockupImageProcessingServiceTest extends Specification {
 
-    MockupImageProcessingService service = new MockupImageProcessingService()
+    MockupImageProcessingService service = new MockupImageProcessingService(
+            new PngEncodingService(), new ImageProcessingMetrics(new SimpleMeterRegistry()))
 
     def "extracts UI components from available mockup images"() {
         given:
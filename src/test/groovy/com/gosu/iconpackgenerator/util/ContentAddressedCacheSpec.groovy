@@ -0,0 +1,105 @@
+package com.gosu.iconpackgenerator.util
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ContentAddressedCacheSpec extends Specification {
+
+    @TempDir
+    Path tempDir
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "keys depend on both the namespace and the content"() {
+        expect:
+        ContentAddressedCache.key("u2net", [1, 2, 3] as byte[]) == ContentAddressedCache.key("u2net", [1, 2, 3] as byte[])
+        ContentAddressedCache.key("u2net", [1, 2, 3] as byte[]) != ContentAddressedCache.key("isnet", [1, 2, 3] as byte[])
+        ContentAddressedCache.key("u2net", [1, 2, 3] as byte[]) != ContentAddressedCache.key("u2net", [1, 2, 4] as byte[])
+        ContentAddressedCache.key("u2net", [1] as byte[]).length() == 64
+    }
+
+    def "keys tell apart different splits of the same bytes"() {
+        expect:
+        ContentAddressedCache.key("m", [1, 2] as byte[], [3] as byte[]) !=
+                ContentAddressedCache.key("m", [1] as byte[], [2, 3] as byte[])
+        ContentAddressedCache.key("m", [1, 2, 3] as byte[]) !=
+                ContentAddressedCache.key("m", [1, 2, 3] as byte[], new byte[0])
+    }
+
+    def "memory tier evicts least recently used entries past its byte limit"() {
+        given:
+        def cache = new ContentAddressedCache("test", 25, null, 0, meterRegistry)
+        cache.put("a", new byte[10])
+        cache.put("b", new byte[10])
+
+        when: "a is touched, so b is the eldest when c arrives"
+        cache.get("a")
+        cache.put("c", new byte[10])
+
+        then:
+        cache.get("a") != null
+        cache.get("b") == null
+        cache.get("c") != null
+        cache.memoryBytes == 20
+    }
+
+    def "disk tier survives a new cache instance and counts hits per tier"() {
+        given:
+        def key = ContentAddressedCache.key("u2net", "input".bytes)
+        new ContentAddressedCache("test", 1024, tempDir, 1024, meterRegistry).put(key, "output".bytes)
+
+        when:
+        def reopened = new ContentAddressedCache("test", 1024, tempDir, 1024, meterRegistry)
+
+        then:
+        reopened.diskBytes == 6
+        new String(reopened.get(key)) == "output"
+        new String(reopened.get(key)) == "output"
+        reopened.get("0000") == null
+
+        and:
+        gets("hit", "disk") == 1
+        gets("hit", "memory") == 1
+        gets("miss", "none") == 1
+    }
+
+    def "disk tier deletes the oldest files once it grows past its limit"() {
+        given:
+        def cache = new ContentAddressedCache("test", 0, tempDir, 100, meterRegistry)
+
+        when:
+        (0..<6).each { int i ->
+            cache.put(ContentAddressedCache.key("m", [i] as byte[]), new byte[30])
+            Thread.sleep(20)
+        }
+
+        then:
+        cache.diskBytes <= 100
+        Files.walk(tempDir).filter { it.toString().endsWith(".bin") }.count() == cache.diskBytes / 30
+        cache.get(ContentAddressedCache.key("m", [5] as byte[])) != null
+        cache.get(ContentAddressedCache.key("m", [0] as byte[])) == null
+    }
+
+    def "a directory that cannot be created leaves a memory-only cache"() {
+        given:
+        Path blocker = Files.write(tempDir.resolve("not-a-directory"), [1] as byte[])
+        def cache = new ContentAddressedCache("test", 1024, blocker.resolve("cache"), 1024, meterRegistry)
+
+        when:
+        cache.put("aa01", "output".bytes)
+
+        then:
+        new String(cache.get("aa01")) == "output"
+        cache.contains("aa01")
+        cache.diskBytes == 0
+        Files.isRegularFile(blocker)
+    }
+
+    private double gets(String result, String tier) {
+        meterRegistry.get("cache.gets").tag("cache", "test").tag("result", result).tag("tier", tier).counter().count()
+    }
+}
@@ -0,0 +1,89 @@
+package com.gosu.iconpackgenerator.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+
+class ExportZipWriterSpec extends Specification {
+
+    def "precompressed members are stored with their CRC and text members are deflated"() {
+        given:
+        byte[] png = new byte[4096]
+        new Random(42).nextBytes(png)
+        byte[] svg = ("<svg>" + "<path d=\"M0 0\"/>" * 200 + "</svg>").getBytes(StandardCharsets.UTF_8)
+        ByteArrayOutputStream target = new ByteArrayOutputStream()
+
+        when:
+        ExportZipWriter zip = new ExportZipWriter(target)
+        zip.write("png/icon.png", png)
+        zip.write("svg/icon.svg", svg)
+        zip.finish()
+
+        then:
+        List<ZipEntry> entries = []
+        Map<String, byte[]> contents = [:]
+        new ZipInputStream(new ByteArrayInputStream(target.toByteArray())).withCloseable { ZipInputStream zis ->
+            ZipEntry entry
+            while ((entry = zis.nextEntry) != null) {
+                contents[entry.name] = zis.readAllBytes()
+                entries << entry
+            }
+        }
+        entries*.name == ["png/icon.png", "svg/icon.svg"]
+        entries[0].method == ZipEntry.STORED
+        entries[0].crc == crc(png)
+        entries[1].method == ZipEntry.DEFLATED
+        contents["png/icon.png"] == png
+        contents["svg/icon.svg"] == svg
+    }
+
+    def "streamed content may close its wrappers without closing the archive"() {
+        given:
+        ByteArrayOutputStream target = new ByteArrayOutputStream()
+        ExportZipWriter zip = new ExportZipWriter(target)
+
+        when:
+        zip.write("svg/icon.svg", { OutputStream out ->
+            out.write("data:".bytes)
+            Base64.encoder.wrap(out).withCloseable { it.write("icon".bytes) }
+        } as ExportZipWriter.EntryContent)
+        zip.write("svg/second.svg", "<svg/>".bytes)
+        zip.finish()
+
+        then:
+        Map<String, String> contents = [:]
+        new ZipInputStream(new ByteArrayInputStream(target.toByteArray())).withCloseable { ZipInputStream zis ->
+            def entry
+            while ((entry = zis.nextEntry) != null) {
+                contents[entry.name] = new String(zis.readAllBytes(), StandardCharsets.UTF_8)
+            }
+        }
+        contents == ["svg/icon.svg": "data:aWNvbg==", "svg/second.svg": "<svg/>"]
+    }
+
+    @Unroll
+    def "#name is precompressed: #expected"() {
+        expect:
+        ExportZipWriter.isPrecompressed(name) == expected
+
+        where:
+        name                   || expected
+        "png/icon_32x32.png"   || true
+        "webp/icon.WEBP"       || true
+        "ico/icon.ico"         || true
+        "animation.gif"        || true
+        "svg/icon.svg"         || false
+        "vectorized-svg/a.svg" || false
+        "README"               || false
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32()
+        crc.update(data)
+        return crc.value
+    }
+}
@@ -0,0 +1,65 @@
+package com.gosu.iconpackgenerator.util
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.imageio.ImageIO
+import java.awt.image.BufferedImage
+import java.nio.file.Paths
+
+class PngEncodingServiceSpec extends Specification {
+
+    PngEncodingService pngEncodingService = new PngEncodingService()
+
+    BufferedImage icon = ImageIO.read(Paths.get("src/test/resources/icons/gpt_000cee81_1.png").toFile())
+
+    @Unroll
+    def "#preset preset encodes a lossless PNG"() {
+        when:
+        byte[] encoded = pngEncodingService.encode(icon, preset)
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoded))
+
+        then:
+        decoded.width == icon.width
+        decoded.height == icon.height
+        (0..<icon.height).every { int y -> (0..<icon.width).every { int x -> decoded.getRGB(x, y) == icon.getRGB(x, y) } }
+
+        where:
+        preset << PngEncodingService.Preset.values()
+    }
+
+    def "small preset compresses at least as well as fast preset"() {
+        expect:
+        pngEncodingService.encode(icon, PngEncodingService.Preset.SMALL).length <=
+                pngEncodingService.encode(icon, PngEncodingService.Preset.FAST).length
+    }
+
+    def "repeated encodes on the same thread produce identical output"() {
+        when:
+        List<byte[]> outputs = (1..3).collect { pngEncodingService.encode(icon, PngEncodingService.Preset.FAST) }
+
+        then:
+        outputs.every { Arrays.equals(it, outputs[0]) }
+    }
+
+    def "re-encoding a fast PNG for storage keeps the pixels and never grows the file"() {
+        given:
+        byte[] fast = pngEncodingService.encode(icon, PngEncodingService.Preset.FAST)
+
+        when:
+        byte[] stored = pngEncodingService.reencode(fast, PngEncodingService.Preset.SMALL)
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(stored))
+
+        then:
+        stored.length <= fast.length
+        (0..<icon.height).every { int y -> (0..<icon.width).every { int x -> decoded.getRGB(x, y) == icon.getRGB(x, y) } }
+    }
+
+    def "bytes that are not an image are stored unchanged"() {
+        given:
+        byte[] garbage = "not a png".bytes
+
+        expect:
+        pngEncodingService.reencode(garbage, PngEncodingService.Preset.SMALL).is(garbage)
+    }
+}